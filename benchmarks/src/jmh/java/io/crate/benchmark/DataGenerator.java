@@ -0,0 +1,136 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.benchmark;
+
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates the rows and documents used by the benchmarks.
+ *
+ * All values are derived from a fixed seed so that runs on different machines
+ * or different revisions operate on exactly the same data.
+ */
+public class DataGenerator {
+
+    public static final long SEED = 0x5eed_c7a7eL;
+
+    public static final String ID_COLUMN = "id";
+    public static final String NUM_COLUMN = "num";
+    public static final String COUNTRY_COLUMN = "country";
+
+    private static final BytesRef[] COUNTRIES;
+
+    static {
+        String[] isoCountries = Locale.getISOCountries();
+        COUNTRIES = new BytesRef[isoCountries.length];
+        for (int i = 0; i < isoCountries.length; i++) {
+            COUNTRIES[i] = new BytesRef(isoCountries[i]);
+        }
+    }
+
+    private final Random random;
+
+    public DataGenerator() {
+        this(SEED);
+    }
+
+    public DataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * a country code out of the ~250 ISO country codes
+     */
+    public BytesRef country() {
+        return COUNTRIES[random.nextInt(COUNTRIES.length)];
+    }
+
+    public int intValue(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public long longValue() {
+        return random.nextLong();
+    }
+
+    /**
+     * rows of the form (id integer, num long, country string), ids are sequential
+     */
+    public List<Row> rows(int numRows) {
+        List<Row> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new RowN(new Object[]{i, random.nextLong(), country()}));
+        }
+        return rows;
+    }
+
+    /**
+     * rows of the form (id integer, num long, country string) sorted by id
+     * with random gaps; used to simulate a sorted page of a single shard
+     */
+    public List<Row> sortedRows(int numRows) {
+        List<Row> rows = new ArrayList<>(numRows);
+        int id = 0;
+        for (int i = 0; i < numRows; i++) {
+            id += 1 + random.nextInt(10);
+            rows.add(new RowN(new Object[]{id, random.nextLong(), country()}));
+        }
+        return rows;
+    }
+
+    /**
+     * writes <code>numDocs</code> documents with the columns (id, num, country) as doc values
+     * into the given directory and force merges it into a single segment
+     */
+    public void writeIndex(Directory directory, int numDocs) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(new KeywordAnalyzer());
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new StringField(ID_COLUMN, Integer.toString(i), Field.Store.NO));
+                doc.add(new NumericDocValuesField(NUM_COLUMN, random.nextLong()));
+                doc.add(new SortedDocValuesField(COUNTRY_COLUMN, country()));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+            writer.commit();
+        }
+    }
+}
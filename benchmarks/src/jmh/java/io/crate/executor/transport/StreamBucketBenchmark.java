@@ -0,0 +1,82 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.benchmark.DataGenerator;
+import io.crate.core.collections.Row;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class StreamBucketBenchmark {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.INTEGER.streamer(),
+        DataTypes.LONG.streamer(),
+        DataTypes.STRING.streamer()
+    };
+
+    @Param({"1000", "100000"})
+    public int numRows;
+
+    private List<Row> rows;
+    private BytesStreamOutput encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        rows = new DataGenerator().rows(numRows);
+        encoded = encode();
+    }
+
+    private BytesStreamOutput encode() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS);
+        for (Row row : rows) {
+            builder.add(row);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+        return out;
+    }
+
+    @Benchmark
+    public BytesStreamOutput measureEncode() throws Exception {
+        return encode();
+    }
+
+    @Benchmark
+    public void measureDecode(Blackhole blackhole) throws Exception {
+        StreamBucket bucket = new StreamBucket(STREAMERS);
+        bucket.readFrom(encoded.bytes().streamInput());
+        for (Row row : bucket) {
+            blackhole.consume(row.get(0));
+        }
+    }
+}
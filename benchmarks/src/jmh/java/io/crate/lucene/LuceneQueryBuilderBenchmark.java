@@ -0,0 +1,109 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.analyze.EvaluatingNormalizer;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.TableRelation;
+import io.crate.metadata.Functions;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TestingTableInfo;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.testing.SqlExpressions;
+import io.crate.types.ArrayType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.IndexCache;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.mapper.MapperService;
+import org.mockito.Answers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Files;
+
+import static org.elasticsearch.index.mapper.core.MapperTestUtils.newMapperService;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the conversion of (already normalized) where clauses into lucene queries,
+ * which is done once per shard for every query.
+ */
+@State(Scope.Benchmark)
+public class LuceneQueryBuilderBenchmark {
+
+    @Param({
+        "name = 'Arthur'",
+        "x > 10 and x < 100",
+        "name in ('Arthur', 'Trillian', 'Ford', 'Zaphod')",
+        "name like 'Art%' or d_array = [1.0, 2.0]",
+        "not (x = 10 or name is null)",
+        "10 = any(y_array)"
+    })
+    public String expression;
+
+    private LuceneQueryBuilder builder;
+    private MapperService mapperService;
+    private IndexFieldDataService fieldData;
+    private IndexCache indexCache;
+    private WhereClause whereClause;
+
+    @Setup
+    public void setup() throws Exception {
+        DocTableInfo users = TestingTableInfo.builder(new TableIdent(null, "users"), null)
+            .add("name", DataTypes.STRING)
+            .add("x", DataTypes.INTEGER)
+            .add("d", DataTypes.DOUBLE)
+            .add("d_array", new ArrayType(DataTypes.DOUBLE))
+            .add("y_array", new ArrayType(DataTypes.LONG))
+            .build();
+        TableRelation usersTr = new TableRelation(users);
+        SqlExpressions expressions = new SqlExpressions(
+            ImmutableMap.<QualifiedName, AnalyzedRelation>of(new QualifiedName("users"), usersTr));
+        EvaluatingNormalizer normalizer = new EvaluatingNormalizer(expressions.analysisMD(), usersTr, true);
+        builder = new LuceneQueryBuilder(expressions.getInstance(Functions.class));
+        whereClause = new WhereClause(normalizer.normalize(expressions.asSymbol(expression)));
+
+        Settings indexSettings = Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .build();
+        indexCache = mock(IndexCache.class, Answers.RETURNS_MOCKS.get());
+        when(indexCache.indexSettings()).thenReturn(indexSettings);
+        mapperService = newMapperService(Files.createTempDirectory("lucene-query-builder-benchmark"), indexSettings);
+        fieldData = mock(IndexFieldDataService.class);
+    }
+
+    @Benchmark
+    public Query measureConvert() {
+        return builder.convert(whereClause, mapperService, fieldData, indexCache).query;
+    }
+}
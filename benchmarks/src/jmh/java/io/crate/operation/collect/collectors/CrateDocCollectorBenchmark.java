@@ -0,0 +1,146 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.action.sql.query.CrateSearchContext;
+import io.crate.benchmark.DataGenerator;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.operation.Input;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.testing.RowCountRowReceiver;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures collecting all documents of an on-disk index, as done for a full table scan on a shard.
+ *
+ * The search context is mocked; only the searcher and the query are used by the collector.
+ */
+@State(Scope.Benchmark)
+public class CrateDocCollectorBenchmark {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    @Param({"1000000"})
+    public int numDocs;
+
+    private Path indexPath;
+    private Directory directory;
+    private DirectoryReader reader;
+    private CrateSearchContext searchContext;
+
+    @Setup
+    public void setup() throws Exception {
+        indexPath = Files.createTempDirectory("crate-doc-collector-benchmark");
+        directory = FSDirectory.open(indexPath);
+        new DataGenerator().writeIndex(directory, numDocs);
+        reader = DirectoryReader.open(directory);
+
+        IndexSearcher indexSearcher = new IndexSearcher(reader);
+        ContextIndexSearcher contextIndexSearcher = mock(ContextIndexSearcher.class);
+        when(contextIndexSearcher.getTopReaderContext()).thenReturn(reader.getContext());
+        searchContext = mock(CrateSearchContext.class);
+        when(searchContext.searcher()).thenReturn(contextIndexSearcher);
+        when(searchContext.engineSearcher()).thenReturn(new Engine.Searcher("benchmark", indexSearcher));
+        when(searchContext.query()).thenReturn(new MatchAllDocsQuery());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        IOUtils.close(reader, directory);
+        IOUtils.rm(indexPath);
+    }
+
+    @Benchmark
+    public Row measureCollectAllDocs() throws Exception {
+        NumDocValuesExpression num = new NumDocValuesExpression();
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        CrateDocCollector collector = new CrateDocCollector(
+            searchContext,
+            MoreExecutors.directExecutor(),
+            false,
+            RAM_ACCOUNTING_CONTEXT,
+            receiver,
+            Arrays.<Input<?>>asList(num),
+            Collections.singletonList(num),
+            null
+        );
+        collector.doCollect();
+        return receiver.result().iterator().next();
+    }
+
+    /**
+     * reads the num column straight from the doc values to keep the fielddata infrastructure out of the measurement
+     */
+    private static class NumDocValuesExpression extends LuceneCollectorExpression<Long> {
+
+        private NumericDocValues values;
+        private int docId;
+
+        @Override
+        public void setNextReader(LeafReaderContext context) {
+            try {
+                values = context.reader().getNumericDocValues(DataGenerator.NUM_COLUMN);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load doc values", e);
+            }
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            docId = doc;
+        }
+
+        @Override
+        public Long value() {
+            return values.get(docId);
+        }
+    }
+}
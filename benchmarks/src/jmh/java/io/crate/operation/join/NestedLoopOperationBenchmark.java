@@ -0,0 +1,77 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import io.crate.benchmark.DataGenerator;
+import io.crate.core.collections.Row;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.testing.RowSender;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Measures a cross join of two upstreams which send their rows concurrently
+ */
+@State(Scope.Benchmark)
+public class NestedLoopOperationBenchmark {
+
+    @Param({"100", "1000"})
+    public int leftSize;
+
+    @Param({"1000", "10000"})
+    public int rightSize;
+
+    private ThreadPoolExecutor executor;
+    private List<Row> left;
+    private List<Row> right;
+
+    @Setup
+    public void setup() {
+        executor = EsExecutors.newFixed("nl-benchmark", 2, 10, EsExecutors.daemonThreadFactory(getClass().getSimpleName()));
+        DataGenerator generator = new DataGenerator();
+        left = generator.rows(leftSize);
+        right = generator.rows(rightSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Row measureCrossJoin() throws Exception {
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        NestedLoopOperation operation = new NestedLoopOperation(0, receiver);
+        executor.execute(new RowSender(left, operation.leftRowReceiver(), executor));
+        executor.execute(new RowSender(right, operation.rightRowReceiver(), executor));
+        return receiver.result(TimeValue.timeValueMinutes(1)).iterator().next();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.merge;
+
+import io.crate.benchmark.DataGenerator;
+import io.crate.core.collections.Row;
+import io.crate.operation.projectors.sorting.OrderingByPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures merging pre-sorted pages of several shards, as done by the merge phase of a sorted query
+ */
+@State(Scope.Benchmark)
+public class SortedPagingIteratorBenchmark {
+
+    @Param({"2", "10", "50"})
+    public int numShards;
+
+    @Param({"10000"})
+    public int rowsPerShard;
+
+    private List<KeyIterable<Integer, Row>> pages;
+
+    @Setup
+    public void setup() {
+        DataGenerator generator = new DataGenerator();
+        pages = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            pages.add(new KeyIterable<>(i, generator.sortedRows(rowsPerShard)));
+        }
+    }
+
+    @Benchmark
+    public void measureMerge(Blackhole blackhole) {
+        SortedPagingIterator<Integer, Row> iterator = new SortedPagingIterator<>(
+            OrderingByPosition.rowOrdering(new int[]{0}, new boolean[]{false}, new Boolean[]{null}), false);
+        iterator.merge(pages);
+        iterator.finish();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next().get(0));
+        }
+    }
+
+    @Benchmark
+    public void measureMergeWithRepeat(Blackhole blackhole) {
+        SortedPagingIterator<Integer, Row> iterator = new SortedPagingIterator<>(
+            OrderingByPosition.rowOrdering(new int[]{0}, new boolean[]{false}, new Boolean[]{null}), true);
+        iterator.merge(pages);
+        iterator.finish();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next().get(0));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.benchmark.DataGenerator;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.SumAggregation;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures grouping of (id, num, country) rows by country, either row by row or in batches
+ * as done for the projections of a merge phase if <code>sql.merge.batch_size</code> is set.
+ */
+@State(Scope.Benchmark)
+public class GroupingProjectorBenchmark {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    @Param({"100000", "1000000"})
+    public int numRows;
+
+    /**
+     * 0 passes the rows one by one, which is the default of merge phases
+     */
+    @Param({"0", "1024"})
+    public int batchSize;
+
+    private Functions functions;
+    private List<Row> rows;
+
+    @Setup
+    public void setup() {
+        functions = new ModulesBuilder().add(new AggregationImplModule())
+            .createInjector().getInstance(Functions.class);
+        rows = new DataGenerator().rows(numRows);
+    }
+
+    private AggregationContext aggregation(String name, DataType argType, DataType returnType, InputCollectExpression input) {
+        FunctionIdent ident = new FunctionIdent(name, Arrays.asList(argType));
+        FunctionInfo info = new FunctionInfo(ident, returnType, FunctionInfo.Type.AGGREGATE);
+        AggregationFunction function = (AggregationFunction) functions.get(ident);
+        Aggregation aggregation = Aggregation.finalAggregation(info,
+            Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(function, aggregation);
+        aggregationContext.addInput(input);
+        return aggregationContext;
+    }
+
+    private Row groupBy(AggregationContext aggregation, InputCollectExpression... expressions) throws Exception {
+        InputCollectExpression keyInput = expressions[0];
+        CollectExpression[] collectExpressions = new CollectExpression[expressions.length];
+        System.arraycopy(expressions, 0, collectExpressions, 0, expressions.length);
+        GroupingProjector groupingProjector = new GroupingProjector(
+            Arrays.<DataType>asList(DataTypes.STRING),
+            Arrays.<Input<?>>asList(keyInput),
+            collectExpressions,
+            new AggregationContext[]{aggregation},
+            RAM_ACCOUNTING_CONTEXT);
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        groupingProjector.downstream(receiver);
+        groupingProjector.prepare();
+        RowReceiver upstream = groupingProjector;
+        if (batchSize > 0) {
+            upstream = new BatchingRowReceiver(groupingProjector, batchSize);
+        }
+        for (Row row : rows) {
+            upstream.setNextRow(row);
+        }
+        upstream.finish();
+        return receiver.result().iterator().next();
+    }
+
+    @Benchmark
+    public Row measureGroupByCountryCount() throws Exception {
+        InputCollectExpression country = new InputCollectExpression(2);
+        return groupBy(aggregation(CountAggregation.NAME, DataTypes.STRING, DataTypes.LONG, country), country);
+    }
+
+    @Benchmark
+    public Row measureGroupByCountrySumNum() throws Exception {
+        InputCollectExpression country = new InputCollectExpression(2);
+        InputCollectExpression num = new InputCollectExpression(1);
+        return groupBy(aggregation(SumAggregation.NAME, DataTypes.LONG, DataTypes.DOUBLE, num), country, num);
+    }
+}
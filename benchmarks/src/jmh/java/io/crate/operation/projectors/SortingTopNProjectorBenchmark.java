@@ -0,0 +1,80 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.benchmark.DataGenerator;
+import io.crate.core.collections.Row;
+import io.crate.operation.Input;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.projectors.sorting.OrderingByPosition;
+import io.crate.testing.RowCountRowReceiver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures <code>ORDER BY num LIMIT ?</code> over (id, num, country) rows
+ */
+@State(Scope.Benchmark)
+public class SortingTopNProjectorBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int numRows;
+
+    @Param({"100", "10000"})
+    public int limit;
+
+    private List<Row> rows;
+
+    @Setup
+    public void setup() {
+        rows = new DataGenerator().rows(numRows);
+    }
+
+    @Benchmark
+    public Row measureOrderByLimit() throws Exception {
+        InputCollectExpression id = new InputCollectExpression(0);
+        InputCollectExpression num = new InputCollectExpression(1);
+        InputCollectExpression country = new InputCollectExpression(2);
+        List<InputCollectExpression> expressions = Arrays.asList(id, num, country);
+        SortingTopNProjector projector = new SortingTopNProjector(
+            Arrays.<Input<?>>asList(id, num, country),
+            expressions,
+            3,
+            OrderingByPosition.arrayOrdering(new int[]{1}, new boolean[]{false}, new Boolean[]{null}),
+            limit,
+            0);
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        projector.downstream(receiver);
+        projector.prepare();
+        for (Row row : rows) {
+            projector.setNextRow(row);
+        }
+        projector.finish();
+        return receiver.result().iterator().next();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.analyze.Analysis;
+import io.crate.analyze.Analyzer;
+import io.crate.analyze.ParameterContext;
+import io.crate.analyze.repositories.RepositorySettingsModule;
+import io.crate.core.collections.TreeMapBuilder;
+import io.crate.executor.transport.RepositoryService;
+import io.crate.executor.transport.TransportActionProvider;
+import io.crate.metadata.FulltextAnalyzerResolver;
+import io.crate.metadata.MetaDataModule;
+import io.crate.metadata.Routing;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.metadata.table.TestingTableInfo;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.predicate.PredicateModule;
+import io.crate.operation.scalar.ScalarFunctionModule;
+import io.crate.operation.tablefunctions.TableFunctionModule;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
+import org.elasticsearch.action.admin.indices.template.put.TransportPutIndexTemplateAction;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.inject.Injector;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsModule;
+import org.elasticsearch.test.cluster.NoopClusterService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures parsing, analyzing and planning of statements, which is the fixed overhead of every statement
+ */
+@State(Scope.Benchmark)
+public class AnalyzerPlannerBenchmark {
+
+    @Param({
+        "select name from users where id = 1",
+        "select name, id from users where name like 'A%' order by id limit 100",
+        "select name, count(*) from users group by name having count(*) > 2",
+        "select u.name, c.name from users u, characters c where u.name = c.name order by u.id limit 10"
+    })
+    public String statement;
+
+    private ThreadPool threadPool;
+    private Analyzer analyzer;
+    private Planner planner;
+    private ParameterContext parameterContext;
+
+    @Setup
+    public void setup() {
+        threadPool = TestingHelpers.newMockedThreadPool();
+        Injector injector = new ModulesBuilder()
+            .add(new AggregationImplModule())
+            .add(new ScalarFunctionModule())
+            .add(new TableFunctionModule())
+            .add(new PredicateModule())
+            .add(new OperatorModule())
+            .add(new RepositorySettingsModule())
+            .add(new SettingsModule(Settings.EMPTY))
+            .add(new BenchmarkModule())
+            .createInjector();
+        analyzer = injector.getInstance(Analyzer.class);
+        planner = injector.getInstance(Planner.class);
+        parameterContext = new ParameterContext(new Object[0], new Object[0][], Schemas.DEFAULT_SCHEMA_NAME);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        threadPool.shutdown();
+        threadPool.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Statement measureParse() {
+        return SqlParser.createStatement(statement);
+    }
+
+    @Benchmark
+    public Analysis measureParseAndAnalyze() {
+        return analyzer.analyze(SqlParser.createStatement(statement), parameterContext);
+    }
+
+    @Benchmark
+    public Plan measureParseAnalyzeAndPlan() {
+        Analysis analysis = analyzer.analyze(SqlParser.createStatement(statement), parameterContext);
+        return planner.plan(analysis, UUID.randomUUID());
+    }
+
+    private static Routing shardRouting(String tableName) {
+        return new Routing(TreeMapBuilder.<String, Map<String, List<Integer>>>newMapBuilder()
+            .put("nodeOne", TreeMapBuilder.<String, List<Integer>>newMapBuilder().put(tableName, Arrays.asList(1, 2)).map())
+            .put("nodeTwo", TreeMapBuilder.<String, List<Integer>>newMapBuilder().put(tableName, Arrays.asList(3, 4)).map())
+            .map());
+    }
+
+    private class BenchmarkModule extends MetaDataModule {
+
+        @Override
+        protected void configure() {
+            bind(RepositoryService.class).toInstance(mock(RepositoryService.class));
+            bind(TableStatsService.class).toInstance(mock(TableStatsService.class));
+            bind(ThreadPool.class).toInstance(threadPool);
+            bind(IndexNameExpressionResolver.class).toInstance(new IndexNameExpressionResolver(Settings.EMPTY));
+            bind(FulltextAnalyzerResolver.class).toInstance(mock(FulltextAnalyzerResolver.class));
+            bind(ClusterService.class).toInstance(new NoopClusterService());
+            bind(TransportPutIndexTemplateAction.class).toInstance(mock(TransportPutIndexTemplateAction.class));
+            bind(TransportActionProvider.class).toInstance(mock(TransportActionProvider.class));
+            super.configure();
+        }
+
+        @Override
+        protected void bindSchemas() {
+            super.bindSchemas();
+            SchemaInfo schemaInfo = mock(SchemaInfo.class);
+            TableIdent usersIdent = new TableIdent(Schemas.DEFAULT_SCHEMA_NAME, "users");
+            TableInfo users = TestingTableInfo.builder(usersIdent, shardRouting("users"))
+                .add("name", DataTypes.STRING, null)
+                .add("id", DataTypes.LONG, null)
+                .add("date", DataTypes.TIMESTAMP, null)
+                .addPrimaryKey("id")
+                .clusteredBy("id")
+                .build();
+            TableIdent charactersIdent = new TableIdent(Schemas.DEFAULT_SCHEMA_NAME, "characters");
+            TableInfo characters = TestingTableInfo.builder(charactersIdent, shardRouting("characters"))
+                .add("name", DataTypes.STRING, null)
+                .add("id", DataTypes.STRING, null)
+                .addPrimaryKey("id")
+                .clusteredBy("id")
+                .build();
+            when(schemaInfo.getTableInfo(usersIdent.name())).thenReturn(users);
+            when(schemaInfo.getTableInfo(charactersIdent.name())).thenReturn(characters);
+            schemaBinder.addBinding(Schemas.DEFAULT_SCHEMA_NAME).toInstance(schemaInfo);
+        }
+    }
+}
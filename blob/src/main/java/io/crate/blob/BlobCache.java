@@ -0,0 +1,228 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node wide cache of the content of small blobs, stored in direct buffers outside of the heap.
+ *
+ * The cache is split into segments by the digest, each segment is a byte bounded LRU.
+ * Blob contents never change for a digest, so entries only need to be invalidated on delete
+ * and once the shard is closed or its index is deleted.
+ */
+@Singleton
+public class BlobCache {
+
+    public static final String SIZE_SETTING = "blobs.cache.size";
+    public static final String MAX_BLOB_SIZE_SETTING = "blobs.cache.max_blob_size";
+
+    public static final ByteSizeValue DEFAULT_SIZE = new ByteSizeValue(0);
+    public static final ByteSizeValue DEFAULT_MAX_BLOB_SIZE = new ByteSizeValue(64, ByteSizeUnit.KB);
+
+    private static final int NUM_SEGMENTS = 16;
+
+    private final long maxBlobSize;
+    private final Segment[] segments;
+
+    @Inject
+    public BlobCache(Settings settings) {
+        long size = settings.getAsBytesSize(SIZE_SETTING, DEFAULT_SIZE).bytes();
+        this.maxBlobSize = Math.min(
+            settings.getAsBytesSize(MAX_BLOB_SIZE_SETTING, DEFAULT_MAX_BLOB_SIZE).bytes(), size / NUM_SEGMENTS);
+        this.segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment(size / NUM_SEGMENTS);
+        }
+    }
+
+    public boolean enabled() {
+        return maxBlobSize > 0;
+    }
+
+    /**
+     * @return true if a blob of the given size can be cached
+     */
+    public boolean cacheable(long length) {
+        return length > 0 && length <= maxBlobSize;
+    }
+
+    /**
+     * @return a buffer with the content of the blob which must not be modified or null if it isn't cached
+     */
+    @Nullable
+    public ChannelBuffer get(ShardId shardId, String digest) {
+        Key key = new Key(shardId, digest);
+        Entry entry = segment(digest).get(key);
+        return entry == null ? null : entry.content.duplicate();
+    }
+
+    /**
+     * read the blob into a direct buffer and cache it
+     *
+     * @param evictions counter which is incremented if the entry gets evicted
+     * @return a buffer with the content of the blob which must not be modified
+     */
+    public ChannelBuffer load(ShardId shardId, String digest, BlobRange blob, AtomicLong evictions) throws IOException {
+        assert cacheable(blob.length()) : "blob must be cacheable";
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) blob.length());
+        FileChannel channel = blob.file().getChannel();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, blob.offset() + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of blob " + digest);
+            }
+        }
+        buffer.flip();
+        ChannelBuffer content = ChannelBuffers.wrappedBuffer(buffer);
+        segment(digest).put(new Key(shardId, digest), new Entry(content, evictions));
+        return content.duplicate();
+    }
+
+    public void invalidate(ShardId shardId, String digest) {
+        segment(digest).remove(new Key(shardId, digest));
+    }
+
+    /**
+     * remove all cached blobs of the given shard
+     */
+    public void invalidateShard(ShardId shardId) {
+        for (Segment segment : segments) {
+            segment.removeShard(shardId);
+        }
+    }
+
+    /**
+     * @return the bytes used by cached blob contents
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Segment segment : segments) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    private Segment segment(String digest) {
+        return segments[(digest.hashCode() & 0x7fffffff) % NUM_SEGMENTS];
+    }
+
+    private static class Key {
+        private final ShardId shardId;
+        private final String digest;
+
+        Key(ShardId shardId, String digest) {
+            this.shardId = shardId;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return digest.equals(key.digest) && shardId.equals(key.shardId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * shardId.hashCode() + digest.hashCode();
+        }
+    }
+
+    private static class Entry {
+        private final ChannelBuffer content;
+        private final AtomicLong evictions;
+
+        Entry(ChannelBuffer content, AtomicLong evictions) {
+            this.content = content;
+            this.evictions = evictions;
+        }
+    }
+
+    private static class Segment {
+
+        private final long capacity;
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long usedBytes = 0;
+
+        Segment(long capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized Entry get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                usedBytes -= previous.content.capacity();
+            }
+            usedBytes += entry.content.capacity();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (usedBytes > capacity && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                usedBytes -= eldest.content.capacity();
+                eldest.evictions.incrementAndGet();
+            }
+        }
+
+        synchronized void remove(Key key) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                usedBytes -= entry.content.capacity();
+            }
+        }
+
+        synchronized void removeShard(ShardId shardId) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> entry = it.next();
+                if (entry.getKey().shardId.equals(shardId)) {
+                    it.remove();
+                    usedBytes -= entry.getValue().content.capacity();
+                }
+            }
+        }
+
+        synchronized long usedBytes() {
+            return usedBytes;
+        }
+    }
+}
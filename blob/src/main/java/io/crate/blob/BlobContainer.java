@@ -23,19 +23,25 @@ package io.crate.blob;
 
 import com.google.common.base.Throwables;
 import io.crate.blob.exceptions.DigestNotFoundException;
+import io.crate.blob.pack.BlobPackStore;
 import io.crate.common.Hex;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class BlobContainer {
+public class BlobContainer implements Closeable {
 
     private final static ESLogger logger = Loggers.getLogger(BlobContainer.class);
 
@@ -43,6 +49,22 @@ public class BlobContainer {
 
     public static final byte[] PREFIXES = new byte[256];
 
+    /**
+     * file inside the var directory the blob stats are persisted to
+     */
+    static final String STATS_FILE = "_stats";
+    private static final int STATS_VERSION = 1;
+
+    /**
+     * accepts committed blobs, but not leftovers of interrupted recoveries which have a .X suffix
+     */
+    private static final FilenameFilter DIGESTS_FILTER = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return !name.contains(".");
+        }
+    };
+
     private final File[] subDirs = new File[256];
 
     static {
@@ -56,8 +78,25 @@ public class BlobContainer {
     private final File tmpDirectory;
     private final File varDirectory;
 
+    private final AtomicLong blobCount = new AtomicLong(0);
+    private final AtomicLong totalUsage = new AtomicLong(0);
+    private final boolean statsRestored;
+
+    private final long packThreshold;
+    @Nullable
+    private final BlobPackStore packStore;
+
     public BlobContainer(File baseDirectory) {
+        this(baseDirectory, 0);
+    }
+
+    /**
+     * @param packThreshold blobs smaller than this are appended to pack files instead of being stored
+     *                      as a single file, 0 disables pack files.
+     */
+    public BlobContainer(File baseDirectory, long packThreshold) {
         this.baseDirectory = baseDirectory;
+        this.packThreshold = packThreshold;
         this.tmpDirectory = new File(baseDirectory, "tmp");
         this.varDirectory = new File(baseDirectory, "var");
         try {
@@ -75,6 +114,20 @@ public class BlobContainer {
         }
 
         createSubDirectories(this.varDirectory);
+
+        // packs written while the threshold was set must still be readable
+        File packDirectory = new File(baseDirectory, "packs");
+        BlobPackStore store = null;
+        if (packThreshold > 0 || packDirectory.exists()) {
+            try {
+                store = new BlobPackStore(packDirectory, BlobPackStore.DEFAULT_MAX_PACK_SIZE);
+            } catch (IOException e) {
+                logger.error("Could not open blob packs at {}", packDirectory.getAbsolutePath());
+                Throwables.propagate(e);
+            }
+        }
+        this.packStore = store;
+        statsRestored = readStats();
     }
 
     /**
@@ -97,7 +150,11 @@ public class BlobContainer {
 
     }
 
-    public void walkFiles(FilenameFilter filter, FileVisitor visitor) throws IOException {
+    /**
+     * visit all blobs, blobs stored in pack files are visited as virtual files
+     * which only support {@link File#length()} and {@link File#lastModified()}.
+     */
+    public void walkFiles(final FilenameFilter filter, final FileVisitor visitor) throws IOException {
         for (File dir : subDirs) {
             File[] files = dir.listFiles(filter);
             if (files == null) {
@@ -109,6 +166,18 @@ public class BlobContainer {
                 }
             }
         }
+        if (packStore != null) {
+            packStore.walk(new BlobPackStore.EntryVisitor() {
+                @Override
+                public boolean visit(String digest, long length, long lastModified) throws IOException {
+                    File file = new PackedBlobFile(getFile(digest), length, lastModified);
+                    if (filter != null && !filter.accept(file.getParentFile(), digest)) {
+                        return true;
+                    }
+                    return visitor.visit(file);
+                }
+            });
+        }
     }
 
     /**
@@ -123,7 +192,8 @@ public class BlobContainer {
     public byte[][] cleanAndReturnDigests(byte prefix) {
         int index = prefix & 0xFF;  // byte is signed and may be negative, convert to int to get correct index
         String[] names = cleanDigests(subDirs[index].list(), index);
-        byte[][] digests = new byte[names.length][];
+        List<byte[]> packedDigests = packStore == null ? Collections.<byte[]>emptyList() : packStore.digests(prefix);
+        byte[][] digests = new byte[names.length + packedDigests.size()][];
         for(int i = 0; i < names.length; i ++){
             try {
                 digests[i] = Hex.decodeHex(names[i]);
@@ -132,6 +202,9 @@ public class BlobContainer {
                 throw ex;
             }
         }
+        for (int i = 0; i < packedDigests.size(); i++) {
+            digests[names.length + i] = packedDigests.get(i);
+        }
         return digests;
     }
 
@@ -157,6 +230,149 @@ public class BlobContainer {
         return newNames.toArray(new String[newNames.size()]);
     }
 
+    /**
+     * @return true if the stats got restored from the stats file written by a previous instance
+     */
+    public boolean statsRestored() {
+        return statsRestored;
+    }
+
+    public long blobCount() {
+        return blobCount.get();
+    }
+
+    public long totalUsage() {
+        return totalUsage.get();
+    }
+
+    @Nullable
+    public BlobPackStore packStore() {
+        return packStore;
+    }
+
+    private void blobAdded(long size) {
+        blobCount.incrementAndGet();
+        totalUsage.addAndGet(size);
+    }
+
+    private void blobRemoved(long size) {
+        blobCount.decrementAndGet();
+        totalUsage.addAndGet(-size);
+    }
+
+    /**
+     * move a complete blob file into the container, the file is removed if the blob exists already.
+     *
+     * @return false if the blob exists already
+     */
+    public boolean commitFile(String digest, File file) throws IOException {
+        long size = file.length();
+        boolean added;
+        if (packStore != null && size < packThreshold) {
+            added = !getFile(digest).exists() && packStore.put(digest, file);
+            Files.deleteIfExists(file.toPath());
+        } else if (exists(digest)) {
+            added = false;
+            Files.deleteIfExists(file.toPath());
+        } else {
+            File target = getFile(digest);
+            if (!file.renameTo(target)) {
+                throw new IOException("Could not move " + file.getAbsolutePath() + " to " + target.getAbsolutePath());
+            }
+            added = true;
+        }
+        if (added) {
+            blobAdded(size);
+        }
+        return added;
+    }
+
+    public boolean exists(String digest) {
+        return (packStore != null && packStore.length(digest) >= 0) || getFile(digest).exists();
+    }
+
+    /**
+     * @return the length of the blob or 0 if it doesn't exist
+     */
+    public long length(String digest) {
+        if (packStore != null) {
+            long length = packStore.length(digest);
+            if (length >= 0) {
+                return length;
+            }
+        }
+        return getFile(digest).length();
+    }
+
+    public boolean delete(String digest) throws IOException {
+        if (packStore != null) {
+            long size = packStore.delete(digest);
+            if (size >= 0) {
+                blobRemoved(size);
+                return true;
+            }
+        }
+        File file = getFile(digest);
+        long size = file.length();
+        if (file.delete()) {
+            blobRemoved(size);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * recalculate the stats by walking all blobs and persist them.
+     *
+     * Blobs which are added or deleted while walking might be counted twice or not at all,
+     * this is corrected by the next reconciliation.
+     */
+    public void reconcileStats() throws IOException {
+        long countBefore = blobCount.get();
+        long usageBefore = totalUsage.get();
+        final long[] countAndUsage = new long[2];
+        walkFiles(DIGESTS_FILTER, new FileVisitor() {
+            @Override
+            public boolean visit(File file) throws IOException {
+                countAndUsage[0]++;
+                countAndUsage[1] += file.length();
+                return true;
+            }
+        });
+        blobCount.addAndGet(countAndUsage[0] - countBefore);
+        totalUsage.addAndGet(countAndUsage[1] - usageBefore);
+        persistStats();
+    }
+
+    public void persistStats() throws IOException {
+        Path statsFile = varDirectory.toPath().resolve(STATS_FILE);
+        Path tmpFile = tmpDirectory.toPath().resolve(STATS_FILE);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+            out.writeInt(STATS_VERSION);
+            out.writeLong(blobCount.get());
+            out.writeLong(totalUsage.get());
+        }
+        Files.move(tmpFile, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean readStats() {
+        Path statsFile = varDirectory.toPath().resolve(STATS_FILE);
+        if (!Files.exists(statsFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(statsFile))) {
+            if (in.readInt() != STATS_VERSION) {
+                return false;
+            }
+            blobCount.set(in.readLong());
+            totalUsage.set(in.readLong());
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not read blob stats from {}", e, statsFile);
+            return false;
+        }
+    }
+
     public File getBaseDirectory() {
         return baseDirectory;
     }
@@ -178,11 +394,59 @@ public class BlobContainer {
         return new DigestBlob(this, digest, transferId);
     }
 
-    public RandomAccessFile getRandomAccessFile(String digest) {
+    /**
+     * open the content of the blob for reading, the returned range must be closed by the caller.
+     */
+    public BlobRange openBlob(String digest) throws IOException {
+        if (packStore != null) {
+            BlobRange range = packStore.open(digest);
+            if (range != null) {
+                return range;
+            }
+        }
+        RandomAccessFile file;
         try {
-            return new RandomAccessFile(getFile(digest), "r");
+            file = new RandomAccessFile(getFile(digest), "r");
         } catch (FileNotFoundException e) {
             throw new DigestNotFoundException(digest);
         }
+        return new BlobRange(file, 0, file.length());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (packStore != null) {
+            packStore.close();
+        }
+    }
+
+    /**
+     * virtual file of a blob stored in a pack file
+     */
+    private static class PackedBlobFile extends File {
+
+        private final long length;
+        private final long lastModified;
+
+        PackedBlobFile(File file, long length, long lastModified) {
+            super(file.getPath());
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
     }
 }
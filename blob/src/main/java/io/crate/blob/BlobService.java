@@ -25,6 +25,7 @@ import io.crate.blob.exceptions.MissingHTTPEndpointException;
 import io.crate.blob.pending_transfer.BlobHeadRequestHandler;
 import io.crate.blob.v2.BlobIndices;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -44,11 +45,19 @@ import java.io.File;
 
 public class BlobService extends AbstractLifecycleComponent<BlobService> {
 
+    /**
+     * number of chunks of an upload which may be replicated concurrently
+     * while the next chunks are already sent to the primary
+     */
+    public static final String UPLOAD_MAX_PENDING_CHUNKS_SETTING = "blobs.upload.max_pending_chunks";
+    public static final int DEFAULT_UPLOAD_MAX_PENDING_CHUNKS = 4;
+
     private final Injector injector;
     private final BlobHeadRequestHandler blobHeadRequestHandler;
 
     private final ClusterService clusterService;
     private final BlobEnvironment blobEnvironment;
+    private final int uploadMaxPendingChunks;
 
     @Inject
     public BlobService(Settings settings,
@@ -61,10 +70,12 @@ public class BlobService extends AbstractLifecycleComponent<BlobService> {
         this.injector = injector;
         this.blobHeadRequestHandler = blobHeadRequestHandler;
         this.blobEnvironment = blobEnvironment;
+        this.uploadMaxPendingChunks = Math.max(1,
+            settings.getAsInt(UPLOAD_MAX_PENDING_CHUNKS_SETTING, DEFAULT_UPLOAD_MAX_PENDING_CHUNKS));
     }
 
     public RemoteDigestBlob newBlob(String index, String digest) {
-        return new RemoteDigestBlob(this, index, digest);
+        return new RemoteDigestBlob(injector.getInstance(Client.class), index, digest, uploadMaxPendingChunks);
     }
 
     public Injector getInjector() {
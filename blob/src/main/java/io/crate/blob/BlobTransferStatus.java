@@ -22,6 +22,10 @@
 package io.crate.blob;
 
 
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
 public class BlobTransferStatus {
@@ -29,11 +33,57 @@ public class BlobTransferStatus {
     private final String index;
     private final UUID transferId;
     private final DigestBlob digestBlob;
+    private final long startedNanos;
+
+    /**
+     * chunks which arrived before their preceding chunks, by their position in the blob
+     */
+    private final TreeMap<Long, BytesReference> outOfOrderChunks = new TreeMap<>();
 
     public BlobTransferStatus(String index, UUID transferId, DigestBlob digestBlob) {
         this.index = index;
         this.transferId = transferId;
         this.digestBlob = digestBlob;
+        this.startedNanos = System.nanoTime();
+    }
+
+    public long startedNanos() {
+        return startedNanos;
+    }
+
+    /**
+     * Adds the content of a chunk at the given position to the blob. Chunks may arrive
+     * out of order if several chunks of a transfer are in flight, chunks beyond the
+     * current position of the blob are kept until the gap is filled.
+     * Chunks before the current position have already been written, e.g. as part of the
+     * head of a resumed transfer, and are ignored.
+     */
+    public synchronized void addChunk(long position, BytesReference content) {
+        long expected = digestBlob.position();
+        if (position > expected) {
+            outOfOrderChunks.put(position, content);
+            return;
+        }
+        if (position < expected) {
+            return;
+        }
+        digestBlob.addContent(content, false);
+        Map.Entry<Long, BytesReference> next;
+        while ((next = outOfOrderChunks.firstEntry()) != null && next.getKey() <= digestBlob.position()) {
+            outOfOrderChunks.pollFirstEntry();
+            if (next.getKey() == digestBlob.position()) {
+                digestBlob.addContent(next.getValue(), false);
+            }
+        }
+    }
+
+    /**
+     * Adds the last chunk and finishes the blob file. All preceding chunks must have been added.
+     */
+    public synchronized void addLastChunk(long position, BytesReference content) {
+        assert outOfOrderChunks.isEmpty() : "last chunk added while preceding chunks are missing";
+        assert position == digestBlob.position() : "last chunk doesn't start at the end of the blob";
+        digestBlob.addContent(content, true);
     }
 
     public String index() {
@@ -37,7 +37,6 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -58,6 +57,7 @@ public class BlobTransferTarget extends AbstractComponent {
     private CountDownLatch activePutHeadChunkTransfersLatch;
     private volatile boolean recoveryActive = false;
     private final Object lock = new Object();
+    private final Object restoreLock = new Object();
     private final List<UUID> finishedUploads = new ArrayList<>();
     private final TimeValue STATE_REMOVAL_DELAY;
 
@@ -88,13 +88,13 @@ public class BlobTransferTarget extends AbstractComponent {
     public void startTransfer(int shardId, StartBlobRequest request, StartBlobResponse response) {
         logger.debug("startTransfer {} {}", request.transferId(), request.isLast());
 
+        long startedNanos = System.nanoTime();
         BlobShard blobShard = blobIndices.blobShardSafe(request.index(), shardId);
-        File existing = blobShard.blobContainer().getFile(request.id());
-        long size = existing.length();
-        if (existing.exists()) {
+        BlobContainer blobContainer = blobShard.blobContainer();
+        if (blobContainer.exists(request.id())) {
             // the file exists
             response.status(RemoteDigestBlob.Status.EXISTS);
-            response.size(size);
+            response.size(blobContainer.length(request.id()));
             return;
         }
 
@@ -106,6 +106,7 @@ public class BlobTransferTarget extends AbstractComponent {
             try {
                 digestBlob.commit();
                 response.status(RemoteDigestBlob.Status.FULL);
+                blobShard.uploadFinished(digestBlob.size(), System.nanoTime() - startedNanos);
             } catch (DigestMismatchException e) {
                 response.status(RemoteDigestBlob.Status.MISMATCH);
             }
@@ -125,7 +126,7 @@ public class BlobTransferTarget extends AbstractComponent {
             status = restoreTransferStatus(request, shardId);
         }
 
-        addContent(request, response, status);
+        addContent(request, request.currentPos, response, status);
     }
 
     public void continueTransfer(PutChunkRequest request, PutChunkResponse response) {
@@ -136,10 +137,27 @@ public class BlobTransferTarget extends AbstractComponent {
             return;
         }
 
-        addContent(request, response, status);
+        addContent(request, request.currentPos(), response, status);
+        if (response.status() == RemoteDigestBlob.Status.FULL) {
+            BlobShard blobShard = blobIndices.blobShard(status.index(), request.shardId().id());
+            if (blobShard != null) {
+                blobShard.uploadFinished(response.size(), System.nanoTime() - status.startedNanos());
+            }
+        }
     }
 
     private BlobTransferStatus restoreTransferStatus(PutChunkReplicaRequest request, int shardId) {
+        synchronized (restoreLock) {
+            // chunks of a transfer may arrive concurrently, only the first one restores the status
+            BlobTransferStatus status = activeTransfers.get(request.transferId);
+            if (status != null) {
+                return status;
+            }
+            return doRestoreTransferStatus(request, shardId);
+        }
+    }
+
+    private BlobTransferStatus doRestoreTransferStatus(PutChunkReplicaRequest request, int shardId) {
         logger.trace("Restoring transferContext for PutChunkReplicaRequest with transferId {}",
             request.transferId);
 
@@ -191,10 +209,15 @@ public class BlobTransferTarget extends AbstractComponent {
         return status;
     }
 
-    private void addContent(IPutChunkRequest request, PutChunkResponse response, BlobTransferStatus status) {
+    private void addContent(IPutChunkRequest request, long currentPos, PutChunkResponse response,
+                            BlobTransferStatus status) {
         DigestBlob digestBlob = status.digestBlob();
         try {
-            digestBlob.addContent(request.content(), request.isLast());
+            if (request.isLast()) {
+                status.addLastChunk(currentPos, request.content());
+            } else {
+                status.addChunk(currentPos, request.content());
+            }
         } catch (BlobWriteException e) {
             activeTransfers.remove(status.transferId());
             throw e;
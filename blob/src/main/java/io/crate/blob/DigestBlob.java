@@ -70,6 +70,14 @@ public class DigestBlob {
         return size;
     }
 
+    /**
+     * @return the position in the blob at which the next chunk has to start,
+     *         including the head of a resumed transfer
+     */
+    public long position() {
+        return headLength + size;
+    }
+
     public File file() {
         return file;
     }
@@ -167,9 +175,12 @@ public class DigestBlob {
             IOUtils.closeWhileHandlingException(headFileChannel);
             headFileChannel = null;
         }
-        File newFile = container.getFile(digest);
-        file.renameTo(newFile);
-        return newFile;
+        try {
+            container.commitFile(digest, file);
+        } catch (IOException e) {
+            throw new BlobWriteException(digest, size, e);
+        }
+        return container.getFile(digest);
     }
 
     public File getContainerFile() {
@@ -21,7 +21,9 @@
 
 package io.crate.blob;
 
+import com.google.common.base.Throwables;
 import io.crate.common.Hex;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.logging.ESLogger;
@@ -29,6 +31,8 @@ import org.elasticsearch.common.logging.Loggers;
 import org.jboss.netty.buffer.ChannelBuffer;
 
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RemoteDigestBlob {
 
@@ -82,12 +86,26 @@ public class RemoteDigestBlob {
     private StartBlobResponse startResponse;
     private UUID transferId;
 
+    /**
+     * Chunks which aren't the last one are sent without waiting for the primary and its
+     * replicas to acknowledge them, so the next chunk can be received and forwarded while
+     * the previous ones are still being replicated. The number of unacknowledged chunks
+     * is bounded by maxPendingChunks and all of them must be acknowledged before the
+     * last chunk is sent, as the blob is committed with the last chunk.
+     */
+    private final int maxPendingChunks;
+    private final Semaphore pendingChunks;
+    private final AtomicReference<Throwable> pendingChunkFailure = new AtomicReference<>();
 
-    public RemoteDigestBlob(BlobService blobService, String index, String digest) {
+
+    public RemoteDigestBlob(Client client, String index, String digest, int maxPendingChunks) {
+        assert maxPendingChunks > 0 : "maxPendingChunks must be greater than 0";
         this.digest = digest;
-        this.client = blobService.getInjector().getInstance(Client.class);
+        this.client = client;
         this.size = 0;
         this.index = index;
+        this.maxPendingChunks = maxPendingChunks;
+        this.pendingChunks = new Semaphore(maxPendingChunks);
     }
 
     public Status status(){
@@ -133,8 +151,50 @@ public class RemoteDigestBlob {
             last
         );
         size += buffer.readableBytes();
-        PutChunkResponse putChunkResponse = client.execute(PutChunkAction.INSTANCE, request).actionGet();
-        return putChunkResponse.status();
+        if (last) {
+            awaitPendingChunks();
+            PutChunkResponse putChunkResponse = client.execute(PutChunkAction.INSTANCE, request).actionGet();
+            return putChunkResponse.status();
+        }
+
+        raisePendingChunkFailure();
+        acquirePendingChunks(1);
+        client.execute(PutChunkAction.INSTANCE, request, new ActionListener<PutChunkResponse>() {
+            @Override
+            public void onResponse(PutChunkResponse putChunkResponse) {
+                pendingChunks.release();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                logger.trace("put chunk of transfer {} failed", e, transferId);
+                pendingChunkFailure.compareAndSet(null, e);
+                pendingChunks.release();
+            }
+        });
+        return Status.PARTIAL;
+    }
+
+    private void awaitPendingChunks() {
+        acquirePendingChunks(maxPendingChunks);
+        pendingChunks.release(maxPendingChunks);
+        raisePendingChunkFailure();
+    }
+
+    private void acquirePendingChunks(int permits) {
+        try {
+            pendingChunks.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlobWriteException(digest, size, e);
+        }
+    }
+
+    private void raisePendingChunkFailure() {
+        Throwable failure = pendingChunkFailure.get();
+        if (failure != null) {
+            throw Throwables.propagate(failure);
+        }
     }
 
     public Status addContent(ChannelBuffer buffer, boolean last) {
@@ -0,0 +1,492 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob.pack;
+
+import io.crate.blob.BlobRange;
+import io.crate.common.Hex;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores small blobs appended to large pack files instead of one file per blob.
+ *
+ * The location of each blob (pack, offset, length) is kept in memory and in an append only
+ * index file which is replayed on startup. Space of deleted blobs is reclaimed by {@link #compact(double)}
+ * which copies the remaining blobs of a pack into the active pack and removes the old pack.
+ *
+ * The content of a blob is synced to disk before its index record is written and the index record
+ * is synced before a put, delete or compaction returns.
+ */
+public class BlobPackStore implements Closeable {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(BlobPackStore.class);
+
+    public static final long DEFAULT_MAX_PACK_SIZE = 1024 * 1024 * 1024;
+
+    static final String INDEX_FILE = "index";
+    private static final String PACK_PREFIX = "pack-";
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+    private static final int DIGEST_LENGTH = 20;
+    private static final int ADD_RECORD_SIZE = 1 + DIGEST_LENGTH + 4 + 8 + 4 + 8;
+    private static final int DELETE_RECORD_SIZE = 1 + DIGEST_LENGTH;
+
+    public interface EntryVisitor {
+
+        boolean visit(String digest, long length, long lastModified) throws IOException;
+    }
+
+    private static class PackEntry {
+        private final int pack;
+        private final long offset;
+        private final int length;
+        private final long lastModified;
+
+        PackEntry(int pack, long offset, int length, long lastModified) {
+            this.pack = pack;
+            this.offset = offset;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final File directory;
+    private final long maxPackSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * entries are partitioned by the first byte of the digest, same as the sub directories of the loose blobs
+     */
+    private final List<Map<BytesRef, PackEntry>> partitions = new ArrayList<>(256);
+
+    /**
+     * live bytes per pack, contains all existing packs
+     */
+    private final SortedMap<Integer, Long> liveBytes = new TreeMap<>();
+
+    private FileOutputStream indexFileOut;
+    private DataOutputStream indexOut;
+    private int activePack = -1;
+    private FileChannel activeChannel;
+
+    public BlobPackStore(File directory, long maxPackSize) throws IOException {
+        this.directory = directory;
+        this.maxPackSize = maxPackSize;
+        for (int i = 0; i < 256; i++) {
+            partitions.add(new HashMap<BytesRef, PackEntry>());
+        }
+        Files.createDirectories(directory.toPath());
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(PACK_PREFIX)) {
+                    liveBytes.put(Integer.parseInt(name.substring(PACK_PREFIX.length())), 0L);
+                }
+            }
+        }
+        replayIndex();
+        openIndexOut();
+        if (!liveBytes.isEmpty()) {
+            int newest = liveBytes.lastKey();
+            if (packFile(newest).length() < maxPackSize) {
+                activePack = newest;
+                activeChannel = openPackForWrite(newest);
+            }
+        }
+    }
+
+    private void replayIndex() throws IOException {
+        Path indexFile = directory.toPath().resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        long validLength = 0;
+        byte[] digest = new byte[DIGEST_LENGTH];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            while (true) {
+                byte op = in.readByte();
+                in.readFully(digest);
+                BytesRef key = new BytesRef(Arrays.copyOf(digest, DIGEST_LENGTH));
+                if (op == ADD) {
+                    PackEntry entry = new PackEntry(in.readInt(), in.readLong(), in.readInt(), in.readLong());
+                    PackEntry previous = partition(key).put(key, entry);
+                    if (previous != null) {
+                        addLiveBytes(previous.pack, -previous.length);
+                    }
+                    addLiveBytes(entry.pack, entry.length);
+                    validLength += ADD_RECORD_SIZE;
+                } else if (op == DELETE) {
+                    PackEntry previous = partition(key).remove(key);
+                    if (previous != null) {
+                        addLiveBytes(previous.pack, -previous.length);
+                    }
+                    validLength += DELETE_RECORD_SIZE;
+                } else {
+                    LOGGER.warn("Invalid record in blob pack index {} at {}, ignoring the rest", indexFile, validLength);
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // the last record might be incomplete if the node crashed while writing it
+        }
+        if (Files.size(indexFile) > validLength) {
+            try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    private void openIndexOut() throws IOException {
+        indexFileOut = new FileOutputStream(new File(directory, INDEX_FILE), true);
+        indexOut = new DataOutputStream(new BufferedOutputStream(indexFileOut));
+    }
+
+    private void syncIndex() throws IOException {
+        indexOut.flush();
+        indexFileOut.getFD().sync();
+    }
+
+    private FileChannel openPackForWrite(int pack) throws IOException {
+        return FileChannel.open(packFile(pack).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+
+    private File packFile(int pack) {
+        return new File(directory, PACK_PREFIX + pack);
+    }
+
+    private static BytesRef key(String digest) {
+        return new BytesRef(Hex.decodeHex(digest));
+    }
+
+    private Map<BytesRef, PackEntry> partition(BytesRef key) {
+        return partitions.get(key.bytes[key.offset] & 0xFF);
+    }
+
+    private void addLiveBytes(int pack, long delta) {
+        Long current = liveBytes.get(pack);
+        liveBytes.put(pack, (current == null ? 0L : current) + delta);
+    }
+
+    private static void writeAdd(DataOutputStream out, BytesRef key, PackEntry entry) throws IOException {
+        out.writeByte(ADD);
+        out.write(key.bytes, key.offset, key.length);
+        out.writeInt(entry.pack);
+        out.writeLong(entry.offset);
+        out.writeInt(entry.length);
+        out.writeLong(entry.lastModified);
+    }
+
+    /**
+     * append the content of the given file to the active pack
+     *
+     * @return false if the blob is already stored
+     */
+    public boolean put(String digest, File source) throws IOException {
+        BytesRef key = key(digest);
+        lock.writeLock().lock();
+        try {
+            if (partition(key).containsKey(key)) {
+                return false;
+            }
+            PackEntry entry;
+            try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+                entry = copyToActivePack(in, 0, (int) in.size(), System.currentTimeMillis());
+            }
+            activeChannel.force(false);
+            addEntry(key, entry);
+            syncIndex();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * append the given range of the channel to the active pack, the content isn't synced
+     * and the returned entry isn't added to the index
+     */
+    private PackEntry copyToActivePack(FileChannel in, long position, int length, long lastModified) throws IOException {
+        long offset = activeChannel == null ? 0 : activeChannel.size();
+        if (activeChannel == null || (offset > 0 && offset + length > maxPackSize)) {
+            if (activeChannel != null) {
+                activeChannel.force(false);
+            }
+            IOUtils.close(activeChannel);
+            activePack = liveBytes.isEmpty() ? 0 : liveBytes.lastKey() + 1;
+            activeChannel = openPackForWrite(activePack);
+            IOUtils.fsync(directory.toPath(), true);
+            liveBytes.put(activePack, 0L);
+            offset = 0;
+        }
+        long transferred = 0;
+        while (transferred < length) {
+            long bytes = activeChannel.transferFrom(in.position(position + transferred), offset + transferred, length - transferred);
+            if (bytes <= 0) {
+                throw new EOFException("Unexpected end of blob content while writing to pack " + activePack);
+            }
+            transferred += bytes;
+        }
+        return new PackEntry(activePack, offset, length, lastModified);
+    }
+
+    private void addEntry(BytesRef key, PackEntry entry) throws IOException {
+        writeAdd(indexOut, key, entry);
+        PackEntry previous = partition(key).put(key, entry);
+        if (previous != null) {
+            addLiveBytes(previous.pack, -previous.length);
+        }
+        addLiveBytes(entry.pack, entry.length);
+    }
+
+    /**
+     * @return the length of the deleted blob or -1 if it doesn't exist
+     */
+    public long delete(String digest) throws IOException {
+        BytesRef key = key(digest);
+        lock.writeLock().lock();
+        try {
+            Map<BytesRef, PackEntry> partition = partition(key);
+            PackEntry entry = partition.get(key);
+            if (entry == null) {
+                return -1;
+            }
+            indexOut.writeByte(DELETE);
+            indexOut.write(key.bytes, key.offset, key.length);
+            syncIndex();
+            partition.remove(key);
+            addLiveBytes(entry.pack, -entry.length);
+            return entry.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the length of the blob or -1 if it doesn't exist
+     */
+    public long length(String digest) {
+        BytesRef key = key(digest);
+        lock.readLock().lock();
+        try {
+            PackEntry entry = partition(key).get(key);
+            return entry == null ? -1 : entry.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the range of the pack file containing the blob or null if it doesn't exist
+     */
+    public BlobRange open(String digest) throws IOException {
+        BytesRef key = key(digest);
+        lock.readLock().lock();
+        try {
+            PackEntry entry = partition(key).get(key);
+            if (entry == null) {
+                return null;
+            }
+            return new BlobRange(new RandomAccessFile(packFile(entry.pack), "r"), entry.offset, entry.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<byte[]> digests(byte prefix) {
+        lock.readLock().lock();
+        try {
+            Map<BytesRef, PackEntry> partition = partitions.get(prefix & 0xFF);
+            List<byte[]> digests = new ArrayList<>(partition.size());
+            for (BytesRef key : partition.keySet()) {
+                digests.add(BytesRef.deepCopyOf(key).bytes);
+            }
+            return digests;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void walk(EntryVisitor visitor) throws IOException {
+        for (Map<BytesRef, PackEntry> partition : partitions) {
+            List<Map.Entry<BytesRef, PackEntry>> entries;
+            lock.readLock().lock();
+            try {
+                entries = new ArrayList<>(partition.entrySet());
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (Map.Entry<BytesRef, PackEntry> entry : entries) {
+                PackEntry packEntry = entry.getValue();
+                if (!visitor.visit(Hex.encodeHexString(entry.getKey().bytes), packEntry.length, packEntry.lastModified)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<Integer> packsToCompact(double minDeadRatio) {
+        List<Integer> packs = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, Long> entry : liveBytes.entrySet()) {
+                int pack = entry.getKey();
+                if (pack == activePack) {
+                    continue;
+                }
+                long size = packFile(pack).length();
+                if (size - entry.getValue() >= size * minDeadRatio) {
+                    packs.add(pack);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return packs;
+    }
+
+    public boolean needsCompaction(double minDeadRatio) {
+        return !packsToCompact(minDeadRatio).isEmpty();
+    }
+
+    /**
+     * Rewrite all packs (except the active one) of which at least minDeadRatio of the size
+     * is occupied by deleted blobs.
+     *
+     * @return the number of compacted packs
+     */
+    public synchronized int compact(double minDeadRatio) throws IOException {
+        List<Integer> packs = packsToCompact(minDeadRatio);
+        for (int pack : packs) {
+            compactPack(pack);
+        }
+        if (!packs.isEmpty()) {
+            rewriteIndex();
+        }
+        return packs.size();
+    }
+
+    private void compactPack(int pack) throws IOException {
+        List<BytesRef> keys = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map<BytesRef, PackEntry> partition : partitions) {
+                for (Map.Entry<BytesRef, PackEntry> entry : partition.entrySet()) {
+                    if (entry.getValue().pack == pack) {
+                        keys.add(entry.getKey());
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<BytesRef> copiedKeys = new ArrayList<>(keys.size());
+        List<PackEntry> copies = new ArrayList<>(keys.size());
+        try (FileChannel in = FileChannel.open(packFile(pack).toPath(), StandardOpenOption.READ)) {
+            for (BytesRef key : keys) {
+                lock.writeLock().lock();
+                try {
+                    PackEntry entry = partition(key).get(key);
+                    // might have been deleted in the meantime
+                    if (entry != null && entry.pack == pack) {
+                        copiedKeys.add(key);
+                        copies.add(copyToActivePack(in, entry.offset, entry.length, entry.lastModified));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            // the copies must be on disk before the index refers to them and the compacted pack is deleted
+            if (activeChannel != null) {
+                activeChannel.force(false);
+            }
+            for (int i = 0; i < copiedKeys.size(); i++) {
+                BytesRef key = copiedKeys.get(i);
+                PackEntry entry = partition(key).get(key);
+                // might have been deleted or replaced while copying
+                if (entry != null && entry.pack == pack) {
+                    addEntry(key, copies.get(i));
+                }
+            }
+            syncIndex();
+            // readers which already opened the pack can still finish reading it
+            liveBytes.remove(pack);
+            if (!packFile(pack).delete()) {
+                LOGGER.warn("Could not delete compacted blob pack {}", packFile(pack));
+                liveBytes.put(pack, 0L);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rewriteIndex() throws IOException {
+        Path indexFile = directory.toPath().resolve(INDEX_FILE);
+        Path tmpFile = directory.toPath().resolve(INDEX_FILE + ".tmp");
+        lock.writeLock().lock();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                for (Map<BytesRef, PackEntry> partition : partitions) {
+                    for (Map.Entry<BytesRef, PackEntry> entry : partition.entrySet()) {
+                        writeAdd(out, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            IOUtils.fsync(tmpFile, false);
+            indexOut.close();
+            try {
+                Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                IOUtils.fsync(directory.toPath(), true);
+            } finally {
+                openIndexOut();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            IOUtils.close(indexOut, activeChannel);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -35,6 +35,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -65,7 +66,7 @@ public class PutHeadChunkRunnable implements Runnable {
 
     @Override
     public void run() {
-        FileInputStream fileInputStream = null;
+        InputStream fileInputStream = null;
         try {
             int bufSize = 4096;
             int bytesRead;
@@ -82,7 +83,7 @@ public class PutHeadChunkRunnable implements Runnable {
             } catch (FileNotFoundException e) {
                 // this happens if the file has already been moved from tmpDirectory to containerDirectory
                 pendingFile = digestBlob.getContainerFile();
-                fileInputStream = new FileInputStream(pendingFile);
+                fileInputStream = digestBlob.container().openBlob(digestBlob.getDigest()).inputStream();
             }
 
             while (remainingBytes > 0) {
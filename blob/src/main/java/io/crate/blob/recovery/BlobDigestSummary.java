@@ -0,0 +1,115 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob.recovery;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Hashed summaries of the blob digests of a shard, used by the blob recovery to find the
+ * prefixes and sub-prefixes (first and second byte of the digest) which differ between
+ * source and target without exchanging the full digest lists.
+ */
+public class BlobDigestSummary {
+
+    public static final int NUM_BUCKETS = 256;
+
+    private static final Comparator<byte[]> UNSIGNED_ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] o1, byte[] o2) {
+            int length = Math.min(o1.length, o2.length);
+            for (int i = 0; i < length; i++) {
+                int cmp = (o1[i] & 0xFF) - (o2[i] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return o1.length - o2.length;
+        }
+    };
+
+    /**
+     * sorts the digests in place, all other methods expect sorted digests
+     */
+    public static byte[][] sort(byte[][] digests) {
+        Arrays.sort(digests, UNSIGNED_ORDER);
+        return digests;
+    }
+
+    public static byte[] hash(byte[][] sortedDigests) {
+        return hash(sortedDigests, 0, sortedDigests.length);
+    }
+
+    private static byte[] hash(byte[][] sortedDigests, int from, int to) {
+        MessageDigest md = sha1();
+        for (int i = from; i < to; i++) {
+            md.update(sortedDigests[i]);
+        }
+        return md.digest();
+    }
+
+    /**
+     * @param sortedDigests digests which all share the same prefix
+     * @return the hash of the digests of each sub-prefix
+     */
+    public static byte[][] bucketHashes(byte[][] sortedDigests) {
+        byte[][] hashes = new byte[NUM_BUCKETS][];
+        int from = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            int to = from;
+            while (to < sortedDigests.length && subPrefix(sortedDigests[to]) == bucket) {
+                to++;
+            }
+            hashes[bucket] = hash(sortedDigests, from, to);
+            from = to;
+        }
+        return hashes;
+    }
+
+    public static int subPrefix(byte[] digest) {
+        return digest[1] & 0xFF;
+    }
+
+    /**
+     * @return the sub-prefixes for which the hashes differ
+     */
+    public static byte[] differingBuckets(byte[][] local, byte[][] remote) {
+        byte[] buckets = new byte[NUM_BUCKETS];
+        int numDiffering = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            if (!Arrays.equals(local[bucket], remote[bucket])) {
+                buckets[numDiffering++] = (byte) bucket;
+            }
+        }
+        return Arrays.copyOf(buckets, numDiffering);
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -22,11 +22,13 @@
 package io.crate.blob.recovery;
 
 import io.crate.blob.BlobContainer;
+import io.crate.blob.BlobRange;
 import io.crate.blob.BlobTransferTarget;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.blob.v2.BlobShard;
 import io.crate.common.Hex;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.logging.ESLogger;
@@ -38,9 +40,12 @@ import org.elasticsearch.indices.recovery.*;
 import org.elasticsearch.transport.*;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -77,12 +82,29 @@ public class BlobRecoveryHandler {
         }
     }
 
-    private Set<BytesArray> getExistingDigestsFromTarget(byte prefix) {
+    private byte[][] getDigestSummaryFromTarget(@Nullable Byte prefix) {
+        BlobDigestSummaryResponse response =
+            (BlobDigestSummaryResponse)transportService.submitRequest(
+                request.targetNode(),
+                BlobRecoveryTarget.Actions.DIGEST_SUMMARY,
+                new BlobDigestSummaryRequest(request.recoveryId(), prefix),
+                TransportRequestOptions.EMPTY,
+                new FutureTransportResponseHandler<TransportResponse>() {
+                    @Override
+                    public TransportResponse newInstance() {
+                        return new BlobDigestSummaryResponse();
+                    }
+                }
+            ).txGet();
+        return response.hashes;
+    }
+
+    private Set<BytesArray> getExistingDigestsFromTarget(byte prefix, @Nullable byte[] subPrefixes) {
         BlobStartPrefixResponse response =
             (BlobStartPrefixResponse)transportService.submitRequest(
                 request.targetNode(),
                 BlobRecoveryTarget.Actions.START_PREFIX,
-                new BlobStartPrefixSyncRequest(request.recoveryId(), request.shardId(), prefix),
+                new BlobStartPrefixSyncRequest(request.recoveryId(), request.shardId(), prefix, subPrefixes),
                 TransportRequestOptions.EMPTY,
                 new FutureTransportResponseHandler<TransportResponse>() {
                     @Override
@@ -152,21 +174,51 @@ public class BlobRecoveryHandler {
     public void phase2() throws ElasticsearchException {
     }
 
+    /**
+     * only the digests of prefixes and sub-prefixes for which the hashed summaries differ are
+     * exchanged, so a mostly up to date target causes little traffic.
+     *
+     * Missing files of all prefixes are transferred concurrently, limited by the size of the
+     * recovery stream pool.
+     */
     private void syncVarFiles(AtomicReference<Exception> lastException) throws InterruptedException {
-
+        // targets of older versions don't support summaries, all digests of each prefix are exchanged with them
+        byte[][] remotePrefixHashes = null;
+        if (request.targetNode().version().onOrAfter(BlobDigestSummaryRequest.MIN_VERSION)) {
+            remotePrefixHashes = getDigestSummaryFromTarget(null);
+        }
+        List<CountDownLatch> latches = new ArrayList<>();
         for (byte prefix : BlobContainer.PREFIXES) {
+            byte[][] sortedDigests = BlobDigestSummary.sort(blobShard.currentDigests(prefix));
+            byte[] subPrefixes = null;
+            boolean[] differing = null;
+            if (remotePrefixHashes != null) {
+                if (Arrays.equals(BlobDigestSummary.hash(sortedDigests), remotePrefixHashes[prefix & 0xFF])) {
+                    continue;
+                }
+                subPrefixes = BlobDigestSummary.differingBuckets(
+                    BlobDigestSummary.bucketHashes(sortedDigests), getDigestSummaryFromTarget(prefix));
+                differing = new boolean[BlobDigestSummary.NUM_BUCKETS];
+                for (byte subPrefix : subPrefixes) {
+                    differing[subPrefix & 0xFF] = true;
+                }
+            }
+
             // byte[1] and byte[1] have different hashCodes
             // so setA.removeAll(setB) wouldn't work with byte[], that's why BytesArray is used here
-            Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(prefix);
+            Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(prefix, subPrefixes);
             Set<BytesArray> localDigests = new HashSet<BytesArray>();
-            for (byte[] digest : blobShard.currentDigests(prefix)) {
-                localDigests.add(new BytesArray(digest));
+            for (byte[] digest : sortedDigests) {
+                if (differing == null || differing[BlobDigestSummary.subPrefix(digest)]) {
+                    localDigests.add(new BytesArray(digest));
+                }
             }
 
             Set<BytesArray> localButNotRemoteDigests = new HashSet<BytesArray>(localDigests);
             localButNotRemoteDigests.removeAll(remoteDigests);
 
             final CountDownLatch latch = new CountDownLatch(localButNotRemoteDigests.size());
+            latches.add(latch);
             for (BytesArray digestBytes : localButNotRemoteDigests) {
                 final String digest = Hex.encodeHexString(digestBytes.toBytes());
                 logger.trace("[{}][{}] start to transfer file var/{} to {}",
@@ -174,17 +226,18 @@ public class BlobRecoveryHandler {
                     request.targetNode().getName());
 
                 recoverySettings.concurrentStreamPool().execute(
-                    new TransferFileRunnable(blobShard.blobContainer().getFile(digest),
-                        lastException, latch)
+                    new TransferFileRunnable(digest, lastException, latch)
                 );
             }
-            latch.await();
 
             remoteDigests.removeAll(localDigests);
             if (!remoteDigests.isEmpty()) {
                 deleteFilesRequest(remoteDigests.toArray(new BytesArray[remoteDigests.size()]));
             }
         }
+        for (CountDownLatch latch : latches) {
+            latch.await();
+        }
     }
 
     private void deleteFilesRequest(BytesArray[] digests) {
@@ -218,12 +271,14 @@ public class BlobRecoveryHandler {
     private class TransferFileRunnable implements Runnable {
         private final AtomicReference<Exception> lastException;
         private final String baseDir;
+        private final String digest;
         private final File file;
         private final CountDownLatch latch;
 
-        public TransferFileRunnable(File filePath, AtomicReference<Exception> lastException,
+        public TransferFileRunnable(String digest, AtomicReference<Exception> lastException,
                                     CountDownLatch latch) {
-            this.file = filePath;
+            this.digest = digest;
+            this.file = blobShard.blobContainer().getFile(digest);
             this.lastException = lastException;
             this.latch = latch;
             this.baseDir = blobShard.blobContainer().getBaseDirectory().getAbsolutePath();
@@ -233,16 +288,17 @@ public class BlobRecoveryHandler {
         public void run() {
 
             try {
-                final int BUFFER_SIZE = 4 * 4096;
+                final int BUFFER_SIZE = (int) Math.max(1, recoverySettings.fileChunkSize().bytes());
 
-                long fileSize = file.length();
+                BlobRange blob = blobShard.blobContainer().openBlob(digest);
+                long fileSize = blob.length();
 
                 if (fileSize == 0) {
                     logger.warn("[{}][{}] empty file: {}",
                         request.shardId().index().name(), request.shardId().id(), file.getName());
                 }
 
-                try (FileInputStream fileStream = new FileInputStream(file)) {
+                try (InputStream fileStream = blob.inputStream()) {
                     String filePath = file.getAbsolutePath();
                     String relPath = filePath.substring(baseDir.length(), filePath.length());
                     byte[] buf = new byte[BUFFER_SIZE];
@@ -32,6 +32,12 @@ public class BlobStats implements Streamable {
     private long count;
     private long totalUsage;
     private String location;
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    private long uploads;
+    private long uploadedBytes;
+    private long uploadTimeInMillis;
 
     public String location() {
         return location;
@@ -57,11 +63,81 @@ public class BlobStats implements Streamable {
         this.totalUsage = totalUsage;
     }
 
+    public long cacheHits() {
+        return cacheHits;
+    }
+
+    public void cacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+
+    public long cacheMisses() {
+        return cacheMisses;
+    }
+
+    public void cacheMisses(long cacheMisses) {
+        this.cacheMisses = cacheMisses;
+    }
+
+    public long cacheEvictions() {
+        return cacheEvictions;
+    }
+
+    public void cacheEvictions(long cacheEvictions) {
+        this.cacheEvictions = cacheEvictions;
+    }
+
+    /**
+     * @return the ratio of blob cache hits to all cache lookups of cacheable blobs, 0 if there was none
+     */
+    public double cacheHitRatio() {
+        long lookups = cacheHits + cacheMisses;
+        return lookups == 0 ? 0 : (double) cacheHits / lookups;
+    }
+
+    public long uploads() {
+        return uploads;
+    }
+
+    public void uploads(long uploads) {
+        this.uploads = uploads;
+    }
+
+    public long uploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public void uploadedBytes(long uploadedBytes) {
+        this.uploadedBytes = uploadedBytes;
+    }
+
+    public long uploadTimeInMillis() {
+        return uploadTimeInMillis;
+    }
+
+    public void uploadTimeInMillis(long uploadTimeInMillis) {
+        this.uploadTimeInMillis = uploadTimeInMillis;
+    }
+
+    /**
+     * @return the bytes per second of the uploads to the shard, measured from the first to the last chunk,
+     *         0 if there was none
+     */
+    public double uploadThroughput() {
+        return uploadTimeInMillis == 0 ? 0 : uploadedBytes * 1000.0 / uploadTimeInMillis;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         count = in.readVLong();
         totalUsage = in.readVLong();
         location = in.readString();
+        cacheHits = in.readVLong();
+        cacheMisses = in.readVLong();
+        cacheEvictions = in.readVLong();
+        uploads = in.readVLong();
+        uploadedBytes = in.readVLong();
+        uploadTimeInMillis = in.readVLong();
     }
 
     @Override
@@ -69,5 +145,11 @@ public class BlobStats implements Streamable {
         out.writeVLong(count);
         out.writeVLong(totalUsage);
         out.writeString(location);
+        out.writeVLong(cacheHits);
+        out.writeVLong(cacheMisses);
+        out.writeVLong(cacheEvictions);
+        out.writeVLong(uploads);
+        out.writeVLong(uploadedBytes);
+        out.writeVLong(uploadTimeInMillis);
     }
 }
@@ -27,6 +27,7 @@ import com.google.common.base.Predicate;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.action.FutureActionListener;
+import io.crate.blob.BlobCache;
 import io.crate.blob.BlobEnvironment;
 import io.crate.blob.BlobShardFuture;
 import org.apache.lucene.util.IOUtils;
@@ -45,6 +46,7 @@ import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Injector;
@@ -53,6 +55,7 @@ import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.indices.IndicesLifecycle;
@@ -65,6 +68,7 @@ public class BlobIndices extends AbstractComponent implements ClusterStateListen
 
     public static final String SETTING_INDEX_BLOBS_ENABLED = "index.blobs.enabled";
     public static final String SETTING_INDEX_BLOBS_PATH = "index.blobs.path";
+    public static final String SETTING_INDEX_BLOBS_PACK_THRESHOLD = "index.blobs.pack_threshold";
     public static final String INDEX_PREFIX = ".blob_";
 
     private final Provider<TransportUpdateSettingsAction> transportUpdateSettingsActionProvider;
@@ -73,6 +77,7 @@ public class BlobIndices extends AbstractComponent implements ClusterStateListen
     private final IndicesService indicesService;
     private final IndicesLifecycle indicesLifecycle;
     private final BlobEnvironment blobEnvironment;
+    private final BlobCache blobCache;
 
     public static final Predicate<String> indicesFilter = new Predicate<String>() {
         @Override
@@ -96,6 +101,7 @@ public class BlobIndices extends AbstractComponent implements ClusterStateListen
                        IndicesService indicesService,
                        IndicesLifecycle indicesLifecycle,
                        BlobEnvironment blobEnvironment,
+                       BlobCache blobCache,
                        ClusterService clusterService) {
         super(settings);
         this.transportCreateIndexActionProvider = transportCreateIndexActionProvider;
@@ -104,7 +110,25 @@ public class BlobIndices extends AbstractComponent implements ClusterStateListen
         this.indicesService = indicesService;
         this.indicesLifecycle = indicesLifecycle;
         this.blobEnvironment = blobEnvironment;
+        this.blobCache = blobCache;
         clusterService.addFirst(this);
+        indicesLifecycle.addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard,
+                                               Settings indexSettings) {
+                if (!isBlobIndex(shardId.getIndex())) {
+                    return;
+                }
+                BlobShard blobShard = blobShard(shardId.getIndex(), shardId.id());
+                if (blobShard != null) {
+                    try {
+                        blobShard.close();
+                    } catch (IOException e) {
+                        logger.warn("Error closing blob shard {}", e, shardId);
+                    }
+                }
+            }
+        });
         logger.setLevel("debug");
     }
 
@@ -248,11 +272,22 @@ public class BlobIndices extends AbstractComponent implements ClusterStateListen
         for (IndexMetaData current : currentMetaData) {
             String index = current.getIndex();
             if (!newMetaData.hasIndex(index) && isBlobIndex(index)) {
+                invalidateCachedBlobs(current);
                 deleteBlobIndexLocation(current, index);
             }
         }
     }
 
+    /**
+     * the shards are usually closed before the index is deleted, this also covers
+     * shards of a dropped blob table which haven't been closed on this node
+     */
+    private void invalidateCachedBlobs(IndexMetaData indexMetaData) {
+        for (int i = 0; i < indexMetaData.getNumberOfShards(); i++) {
+            blobCache.invalidateShard(new ShardId(indexMetaData.getIndex(), i));
+        }
+    }
+
     private void deleteBlobIndexLocation(IndexMetaData current, String index) {
         File indexLocation = null;
         File customBlobsPath = null;
@@ -22,34 +22,80 @@
 package io.crate.blob.v2;
 
 import com.google.common.base.Throwables;
+import io.crate.blob.BlobCache;
 import io.crate.blob.BlobContainer;
 import io.crate.blob.BlobEnvironment;
+import io.crate.blob.BlobRange;
+import io.crate.blob.pack.BlobPackStore;
 import io.crate.blob.stats.BlobStats;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.jboss.netty.buffer.ChannelBuffer;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class BlobShard extends AbstractIndexShardComponent {
+public class BlobShard extends AbstractIndexShardComponent implements Closeable {
 
     private final BlobContainer blobContainer;
     private final IndexShard indexShard;
+    private final ThreadPool threadPool;
+    private final BlobCache blobCache;
+
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong cacheMisses = new AtomicLong(0);
+    private final AtomicLong cacheEvictions = new AtomicLong(0);
+
+    private final AtomicLong uploads = new AtomicLong(0);
+    private final AtomicLong uploadedBytes = new AtomicLong(0);
+    private final AtomicLong uploadNanos = new AtomicLong(0);
+
+    /**
+     * the stats are maintained incrementally, walking all blobs is only done
+     * in the background to correct drift caused by crashes or manual file operations
+     */
+    private static final TimeValue STATS_RECONCILE_INTERVAL = TimeValue.timeValueHours(1);
+    private final AtomicBoolean reconcilingStats = new AtomicBoolean(false);
+    private volatile long lastStatsReconcile = -1;
+
+    /**
+     * packs are compacted once half of their size is occupied by deleted blobs
+     */
+    private static final double PACK_COMPACTION_DEAD_RATIO = 0.5;
+    private final AtomicBoolean compactingPacks = new AtomicBoolean(false);
 
     @Inject
     public BlobShard(ShardId shardId,
                      IndexSettingsService indexSettingsService,
                      BlobEnvironment blobEnvironment,
-                     IndexShard indexShard) {
+                     IndexShard indexShard,
+                     ThreadPool threadPool,
+                     BlobCache blobCache) {
         super(shardId, indexSettingsService.getSettings());
         this.indexShard = indexShard;
+        this.threadPool = threadPool;
+        this.blobCache = blobCache;
         File blobDir = blobDir(blobEnvironment);
         logger.info("creating BlobContainer at {}", blobDir);
-        this.blobContainer = new BlobContainer(blobDir);
+        ByteSizeValue packThreshold = indexSettings.getAsBytesSize(
+            BlobIndices.SETTING_INDEX_BLOBS_PACK_THRESHOLD, new ByteSizeValue(0));
+        this.blobContainer = new BlobContainer(blobDir, packThreshold.bytes());
+        if (!blobContainer.statsRestored()) {
+            reconcileStats();
+        }
     }
 
     public byte[][] currentDigests(byte prefix) {
@@ -57,7 +103,80 @@ public class BlobShard extends AbstractIndexShardComponent {
     }
 
     public boolean delete(String digest) {
-        return blobContainer.getFile(digest).delete();
+        boolean deleted;
+        try {
+            deleted = blobContainer.delete(digest);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        } finally {
+            blobCache.invalidate(shardId, digest);
+        }
+        if (deleted) {
+            maybeCompactPacks();
+        }
+        return deleted;
+    }
+
+    private void maybeCompactPacks() {
+        final BlobPackStore packStore = blobContainer.packStore();
+        if (packStore == null || !packStore.needsCompaction(PACK_COMPACTION_DEAD_RATIO)
+            || !compactingPacks.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            threadPool.generic().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int compacted = packStore.compact(PACK_COMPACTION_DEAD_RATIO);
+                        logger.debug("compacted {} blob packs", compacted);
+                    } catch (IOException e) {
+                        logger.error("error compacting blob packs", e);
+                    } finally {
+                        compactingPacks.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            compactingPacks.set(false);
+        }
+    }
+
+    /**
+     * @return the content of the blob from the blob cache, loaded if it's missing,
+     *         or null if the blob is too large to be cached or the cache is disabled.
+     */
+    @Nullable
+    public ChannelBuffer cachedContent(String digest) throws IOException {
+        if (!blobCache.enabled()) {
+            return null;
+        }
+        ChannelBuffer content = blobCache.get(shardId, digest);
+        if (content != null) {
+            cacheHits.incrementAndGet();
+            return content;
+        }
+        if (!blobCache.cacheable(blobContainer.length(digest))) {
+            return null;
+        }
+        cacheMisses.incrementAndGet();
+        try (BlobRange blob = blobContainer.openBlob(digest)) {
+            content = blobCache.load(shardId, digest, blob, cacheEvictions);
+        }
+        if (!blobContainer.exists(digest)) {
+            // deleted while it was loaded
+            blobCache.invalidate(shardId, digest);
+        }
+        return content;
+    }
+
+    /**
+     * records a blob upload which has been committed on this shard as primary
+     */
+    public void uploadFinished(long bytes, long tookNanos) {
+        uploads.incrementAndGet();
+        uploadedBytes.addAndGet(bytes);
+        uploadNanos.addAndGet(tookNanos);
     }
 
     public BlobContainer blobContainer() {
@@ -69,23 +188,54 @@ public class BlobShard extends AbstractIndexShardComponent {
     }
 
     public BlobStats blobStats() {
-        final BlobStats stats = new BlobStats();
+        long now = threadPool.estimatedTimeInMillis();
+        if (lastStatsReconcile == -1 || now - lastStatsReconcile > STATS_RECONCILE_INTERVAL.millis()) {
+            reconcileStats();
+        }
+        BlobStats stats = new BlobStats();
+        stats.location(blobContainer.getBaseDirectory().getAbsolutePath());
+        stats.count(blobContainer.blobCount());
+        stats.totalUsage(blobContainer.totalUsage());
+        stats.cacheHits(cacheHits.get());
+        stats.cacheMisses(cacheMisses.get());
+        stats.cacheEvictions(cacheEvictions.get());
+        stats.uploads(uploads.get());
+        stats.uploadedBytes(uploadedBytes.get());
+        stats.uploadTimeInMillis(TimeUnit.NANOSECONDS.toMillis(uploadNanos.get()));
+        return stats;
+    }
 
-        stats.location(blobContainer().getBaseDirectory().getAbsolutePath());
+    private void reconcileStats() {
+        if (!reconcilingStats.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            blobContainer().walkFiles(null, new BlobContainer.FileVisitor() {
+            threadPool.generic().execute(new Runnable() {
                 @Override
-                public boolean visit(File file) {
-                    stats.totalUsage(stats.totalUsage() + file.length());
-                    stats.count(stats.count() + 1);
-                    return true;
+                public void run() {
+                    try {
+                        blobContainer.reconcileStats();
+                        lastStatsReconcile = threadPool.estimatedTimeInMillis();
+                    } catch (IOException e) {
+                        logger.error("error reconciling blob stats", e);
+                    } finally {
+                        reconcilingStats.set(false);
+                    }
                 }
             });
-        } catch (IOException e) {
-            logger.error("error getting blob stats", e);
-            Throwables.propagate(e);
+        } catch (RejectedExecutionException e) {
+            reconcilingStats.set(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            blobContainer.persistStats();
+        } finally {
+            blobCache.invalidateShard(shardId);
+            blobContainer.close();
         }
-        return stats;
     }
 
     private File blobDir(BlobEnvironment blobEnvironment) {
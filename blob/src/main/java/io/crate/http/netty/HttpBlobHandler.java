@@ -21,6 +21,7 @@
 
 package io.crate.http.netty;
 
+import io.crate.blob.BlobRange;
 import io.crate.blob.BlobService;
 import io.crate.blob.DigestBlob;
 import io.crate.blob.RemoteDigestBlob;
@@ -269,7 +270,7 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
         // should be a redirect upfront if data is not local
 
         BlobShard blobShard = localBlobShard(index, digest);
-        long length = blobShard.blobContainer().getFile(digest).length();
+        long length = blobShard.blobContainer().length(digest);
         if (length < 1) {
             simpleResponse(HttpResponseStatus.NOT_FOUND);
             return;
@@ -304,35 +305,36 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
         }
         BlobShard blobShard = localBlobShard(index, digest);
 
-        final RandomAccessFile raf = blobShard.blobContainer().getRandomAccessFile(digest);
+        final BlobRange blob = blobShard.blobContainer().openBlob(digest);
         long start;
         long end;
         try {
             try {
                 start = Long.parseLong(matcher.group(1));
-                if (start > raf.length()) {
+                if (start >= blob.length()) {
                     LOGGER.warn("416 Requested Range not satisfiable");
                     simpleResponse(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
-                    raf.close();
+                    blob.close();
                     return;
                 }
-                end = raf.length() - 1;
+                end = blob.length() - 1;
                 if (!matcher.group(2).equals("")) {
-                    end = Long.parseLong(matcher.group(2));
+                    // a last-byte-pos beyond the blob is served up to the last byte of the blob
+                    end = Math.min(Long.parseLong(matcher.group(2)), blob.length() - 1);
                 }
             } catch (NumberFormatException ex) {
                 LOGGER.error("Couldn't parse Range Header", ex);
                 start = 0;
-                end = raf.length();
+                end = blob.length() - 1;
             }
 
             HttpResponse response = prepareResponse(PARTIAL_CONTENT);
             HttpHeaders.setContentLength(response, end - start + 1);
-            response.headers().set(CONTENT_RANGE, "bytes " + start + "-" + end + "/" + raf.length());
+            response.headers().set(CONTENT_RANGE, "bytes " + start + "-" + end + "/" + blob.length());
             setDefaultGetHeaders(response);
 
             ctx.getChannel().write(response);
-            ChannelFuture writeFuture = transferFile(digest, raf, start, end - start + 1);
+            ChannelFuture writeFuture = transferFile(digest, blob.file(), blob.offset() + start, end - start + 1);
             if (!HttpHeaders.isKeepAlive(request)) {
                 writeFuture.addListener(ChannelFutureListener.CLOSE);
             }
@@ -342,7 +344,7 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
              * In case of success, the ChannelFutureListener in "transferFile" will take care
              * that the resources are released.
              */
-            raf.close();
+            blob.close();
             throw t;
         }
     }
@@ -350,9 +352,21 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
     private void fullContentResponse(HttpRequest request, String index, final String digest) throws  IOException {
         BlobShard blobShard = localBlobShard(index, digest);
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
-        final RandomAccessFile raf = blobShard.blobContainer().getRandomAccessFile(digest);
+        ChannelBuffer cachedContent = blobShard.cachedContent(digest);
+        if (cachedContent != null) {
+            HttpHeaders.setContentLength(response, cachedContent.readableBytes());
+            setDefaultGetHeaders(response);
+            Channel channel = ctx.getChannel();
+            channel.write(response);
+            ChannelFuture writeFuture = channel.write(cachedContent);
+            if (!HttpHeaders.isKeepAlive(request)) {
+                writeFuture.addListener(ChannelFutureListener.CLOSE);
+            }
+            return;
+        }
+        final BlobRange blob = blobShard.blobContainer().openBlob(digest);
         try {
-            HttpHeaders.setContentLength(response, raf.length());
+            HttpHeaders.setContentLength(response, blob.length());
             setDefaultGetHeaders(response);
             LOGGER.trace("HttpResponse: {}", response);
             Channel channel = ctx.getChannel();
@@ -360,9 +374,9 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
             ChannelFuture writeFuture;
             if (sslEnabled) {
                 // Cannot use zero-copy with HTTPS.
-                writeFuture = channel.write(new ChunkedFile(raf, 0, raf.length(), 8192));
+                writeFuture = channel.write(new ChunkedFile(blob.file(), blob.offset(), blob.length(), 8192));
             } else {
-                writeFuture = transferFile(digest, raf, 0, raf.length());
+                writeFuture = transferFile(digest, blob.file(), blob.offset(), blob.length());
             }
             if (!HttpHeaders.isKeepAlive(request)) {
                 writeFuture.addListener(ChannelFutureListener.CLOSE);
@@ -373,7 +387,7 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
              * In case of success, the ChannelFutureListener in "transferFile" will take care
              * that the resources are released.
              */
-            raf.close();
+            blob.close();
             throw t;
         }
     }
@@ -0,0 +1,75 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * requests the hashes of the digests of all prefixes or, if a prefix is given, of all sub-prefixes of it
+ */
+public class BlobDigestSummaryRequest extends BlobRecoveryRequest {
+
+    /**
+     * nodes before this version don't know the digest summaries and the sub-prefixes of
+     * {@link BlobStartPrefixSyncRequest}, all digests of a prefix are exchanged with them
+     */
+    public static final Version MIN_VERSION = Version.V_2_3_3;
+
+    @Nullable
+    private Byte prefix;
+
+    public BlobDigestSummaryRequest() {
+    }
+
+    public BlobDigestSummaryRequest(long recoveryId, @Nullable Byte prefix) {
+        super(recoveryId);
+        this.prefix = prefix;
+    }
+
+    @Nullable
+    public Byte prefix() {
+        return prefix;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        if (in.readBoolean()) {
+            prefix = in.readByte();
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        assert out.getVersion().onOrAfter(MIN_VERSION) : "digest summaries must not be requested from nodes before " + MIN_VERSION;
+        super.writeTo(out);
+        out.writeBoolean(prefix != null);
+        if (prefix != null) {
+            out.writeByte(prefix);
+        }
+    }
+}
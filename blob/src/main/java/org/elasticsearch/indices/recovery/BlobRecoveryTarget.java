@@ -21,8 +21,10 @@
 
 package org.elasticsearch.indices.recovery;
 
+import io.crate.blob.BlobContainer;
 import io.crate.blob.BlobWriteException;
 import io.crate.blob.exceptions.IllegalBlobRecoveryStateException;
+import io.crate.blob.recovery.BlobDigestSummary;
 import io.crate.blob.v2.BlobShard;
 import io.crate.common.Hex;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -42,6 +44,9 @@ import org.elasticsearch.transport.TransportService;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class BlobRecoveryTarget extends AbstractComponent {
@@ -52,9 +57,13 @@ public class BlobRecoveryTarget extends AbstractComponent {
     * actor SourceNode as s
     * actor TargetNode as t
     *
-    * group for every two char prefix
-    * s -> t:StartPrefixSync(prefix)
-    * t -> t:getDigests for prefix
+    * s -> t:DigestSummary()
+    * t --> s:hash of the digests of every two char prefix
+    * group for every two char prefix with a different hash
+    * s -> t:DigestSummary(prefix)
+    * t --> s:hash of the digests of every sub-prefix
+    * s -> t:StartPrefixSync(prefix, differing sub-prefixes)
+    * t -> t:getDigests for prefix and sub-prefixes
     * t --> s:found digests
     * s -> s: get missing digests
     * group for every missing digest
@@ -83,6 +92,7 @@ public class BlobRecoveryTarget extends AbstractComponent {
         public static final String DELETE_FILE = "crate/blob/shard/recovery/delete_file";
         public static final String START_RECOVERY = "crate/blob/shard/recovery/start";
         public static final String START_PREFIX = "crate/blob/shard/recovery/start_prefix";
+        public static final String DIGEST_SUMMARY = "crate/blob/shard/recovery/digest_summary";
         public static final String TRANSFER_CHUNK = "crate/blob/shard/recovery/transfer_chunk";
         public static final String START_TRANSFER = "crate/blob/shard/recovery/start_transfer";
     }
@@ -96,6 +106,7 @@ public class BlobRecoveryTarget extends AbstractComponent {
 
         transportService.registerRequestHandler(Actions.START_RECOVERY, BlobStartRecoveryRequest.class, ThreadPool.Names.GENERIC, new StartRecoveryRequestHandler());
         transportService.registerRequestHandler(Actions.START_PREFIX, BlobStartPrefixSyncRequest.class, ThreadPool.Names.GENERIC, new StartPrefixSyncRequestHandler());
+        transportService.registerRequestHandler(Actions.DIGEST_SUMMARY, BlobDigestSummaryRequest.class, ThreadPool.Names.GENERIC, new DigestSummaryRequestHandler());
         transportService.registerRequestHandler(Actions.TRANSFER_CHUNK, BlobRecoveryChunkRequest.class, ThreadPool.Names.GENERIC, new TransferChunkRequestHandler());
         transportService.registerRequestHandler(Actions.START_TRANSFER, BlobRecoveryStartTransferRequest.class, ThreadPool.Names.GENERIC, new StartTransferRequestHandler());
         transportService.registerRequestHandler(Actions.DELETE_FILE, BlobRecoveryDeleteRequest.class, ThreadPool.Names.GENERIC, new DeleteFileRequestHandler());
@@ -167,14 +178,16 @@ public class BlobRecoveryTarget extends AbstractComponent {
                     transferStatus.targetPath()
                 );
 
-                if (target.exists()) {
+                boolean added;
+                try {
+                    added = shard.blobContainer().commitFile(target.getName(), source);
+                } catch (IOException e) {
+                    throw new BlobWriteException(target.getName(), source.length(), e);
+                }
+                if (!added) {
                     logger.info("target file {} exists already.", target.getName());
                     // this might happen on bad timing while recovering/relocating.
                     // noop
-                } else {
-                    if (!source.renameTo(target)) {
-                        throw new BlobWriteException(target.getName(), target.length(), null);
-                    }
                 }
 
                 onGoingRecovery.onGoingTransfers().remove(request.transferId());
@@ -198,11 +211,54 @@ public class BlobRecoveryTarget extends AbstractComponent {
                 throw new IndexShardClosedException(status.shardId());
             }
             BlobStartPrefixResponse response = new BlobStartPrefixResponse();
-            response.existingDigests = status.blobShard.currentDigests(request.prefix());
+            byte[][] digests = status.blobShard.currentDigests(request.prefix());
+            byte[] subPrefixes = request.subPrefixes();
+            if (subPrefixes != null) {
+                boolean[] requested = new boolean[BlobDigestSummary.NUM_BUCKETS];
+                for (byte subPrefix : subPrefixes) {
+                    requested[subPrefix & 0xFF] = true;
+                }
+                List<byte[]> filtered = new ArrayList<>();
+                for (byte[] digest : digests) {
+                    if (requested[BlobDigestSummary.subPrefix(digest)]) {
+                        filtered.add(digest);
+                    }
+                }
+                digests = filtered.toArray(new byte[filtered.size()][]);
+            }
+            response.existingDigests = digests;
             channel.sendResponse(response);
         }
     }
 
+    class DigestSummaryRequestHandler extends TransportRequestHandler<BlobDigestSummaryRequest> {
+        @Override
+        public void messageReceived(BlobDigestSummaryRequest request, TransportChannel channel) throws Exception {
+            BlobRecoveryStatus status = onGoingRecoveries.get(request.recoveryId());
+            if (status == null) {
+                throw new IllegalBlobRecoveryStateException(
+                    "could not retrieve BlobRecoveryStatus"
+                );
+            }
+            if (status.canceled()) {
+                throw new IndexShardClosedException(status.shardId());
+            }
+            byte[][] hashes;
+            Byte prefix = request.prefix();
+            if (prefix == null) {
+                hashes = new byte[BlobContainer.PREFIXES.length][];
+                for (int i = 0; i < hashes.length; i++) {
+                    hashes[i] = BlobDigestSummary.hash(
+                        BlobDigestSummary.sort(status.blobShard.currentDigests(BlobContainer.PREFIXES[i])));
+                }
+            } else {
+                hashes = BlobDigestSummary.bucketHashes(
+                    BlobDigestSummary.sort(status.blobShard.currentDigests(prefix)));
+            }
+            channel.sendResponse(new BlobDigestSummaryResponse(hashes));
+        }
+    }
+
 
     private class StartTransferRequestHandler extends TransportRequestHandler<BlobRecoveryStartTransferRequest> {
         @Override
@@ -233,12 +289,12 @@ public class BlobRecoveryTarget extends AbstractComponent {
                 outputStream.close();
                 File source = new File(shard.blobContainer().getBaseDirectory(), tmpPath);
                 File target = new File(shard.blobContainer().getBaseDirectory(), request.path());
-                if (!target.exists()) {
-                    if (!source.renameTo(target)) {
-                        throw new IllegalBlobRecoveryStateException(
-                            "couldn't rename file to " + request.path()
-                        );
-                    }
+                try {
+                    shard.blobContainer().commitFile(target.getName(), source);
+                } catch (IOException e) {
+                    throw new IllegalBlobRecoveryStateException(
+                        "couldn't rename file to " + request.path()
+                    );
                 }
             } else {
                 BlobRecoveryTransferStatus transferStatus= new BlobRecoveryTransferStatus(
@@ -21,6 +21,7 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
@@ -31,25 +32,38 @@ public class BlobStartPrefixSyncRequest extends BlobRecoveryRequest {
 
     private byte prefix;
     private ShardId shardId;
+    private byte[] subPrefixes;
 
     public BlobStartPrefixSyncRequest() {
     }
 
-    public BlobStartPrefixSyncRequest(long recoveryId, ShardId shardId, byte prefix) {
+    /**
+     * @param subPrefixes if not null only the digests of these sub-prefixes are requested
+     */
+    public BlobStartPrefixSyncRequest(long recoveryId, ShardId shardId, byte prefix, @Nullable byte[] subPrefixes) {
         super(recoveryId);
         this.prefix = prefix;
         this.shardId = shardId;
+        this.subPrefixes = subPrefixes;
     }
 
     public byte prefix() {
         return prefix;
     }
 
+    @Nullable
+    public byte[] subPrefixes() {
+        return subPrefixes;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         prefix = in.readByte();
-        ShardId.readShardId(in);
+        shardId = ShardId.readShardId(in);
+        if (in.getVersion().onOrAfter(BlobDigestSummaryRequest.MIN_VERSION) && in.readBoolean()) {
+            subPrefixes = in.readByteArray();
+        }
     }
 
     @Override
@@ -57,6 +71,14 @@ public class BlobStartPrefixSyncRequest extends BlobRecoveryRequest {
         super.writeTo(out);
         out.writeByte(prefix);
         shardId.writeTo(out);
+        if (out.getVersion().onOrAfter(BlobDigestSummaryRequest.MIN_VERSION)) {
+            out.writeBoolean(subPrefixes != null);
+            if (subPrefixes != null) {
+                out.writeByteArray(subPrefixes);
+            }
+        } else {
+            assert subPrefixes == null : "sub-prefixes must not be sent to nodes before " + BlobDigestSummaryRequest.MIN_VERSION;
+        }
     }
 
 }
@@ -0,0 +1,134 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BlobCacheTest extends CrateUnitTest {
+
+    private static final ShardId SHARD_ID = new ShardId("blob.b1", 0);
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private BlobRange blob(String content) throws Exception {
+        File file = tmpFolder.newFile();
+        // prefix to check that the offset is respected
+        Files.write(file.toPath(), ("xx" + content).getBytes(StandardCharsets.UTF_8));
+        return new BlobRange(new RandomAccessFile(file, "r"), 2, content.length());
+    }
+
+    private static BlobCache cache(String size, String maxBlobSize) {
+        return new BlobCache(Settings.builder()
+            .put(BlobCache.SIZE_SETTING, size)
+            .put(BlobCache.MAX_BLOB_SIZE_SETTING, maxBlobSize)
+            .build());
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        BlobCache cache = new BlobCache(Settings.EMPTY);
+        assertThat(cache.enabled(), is(false));
+        assertThat(cache.cacheable(1), is(false));
+    }
+
+    @Test
+    public void testLoadAndGet() throws Exception {
+        BlobCache cache = cache("1mb", "10b");
+        assertThat(cache.cacheable(10), is(true));
+        assertThat(cache.cacheable(11), is(false));
+
+        try (BlobRange blob = blob("foo")) {
+            ChannelBuffer content = cache.load(SHARD_ID, "d1", blob, new AtomicLong());
+            assertThat(content.toString(StandardCharsets.UTF_8), is("foo"));
+        }
+        ChannelBuffer content = cache.get(SHARD_ID, "d1");
+        assertThat(content.toString(StandardCharsets.UTF_8), is("foo"));
+        // reading a returned buffer must not affect the cached one
+        content.skipBytes(3);
+        assertThat(cache.get(SHARD_ID, "d1").readableBytes(), is(3));
+        assertThat(cache.get(new ShardId("blob.b1", 1), "d1"), nullValue());
+        assertThat(cache.usedBytes(), is(3L));
+
+        cache.invalidate(SHARD_ID, "d1");
+        assertThat(cache.get(SHARD_ID, "d1"), nullValue());
+        assertThat(cache.usedBytes(), is(0L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        // 16 segments of 4 bytes, all entries use the same digest so they end up in the same segment
+        BlobCache cache = cache("64b", "4b");
+        AtomicLong evictions = new AtomicLong();
+        ShardId[] shards = new ShardId[]{new ShardId("t", 0), new ShardId("t", 1), new ShardId("t", 2)};
+        try (BlobRange blob = blob("ab")) {
+            cache.load(shards[0], "d", blob, evictions);
+        }
+        try (BlobRange blob = blob("cd")) {
+            cache.load(shards[1], "d", blob, evictions);
+        }
+        // access the first one so that the second one is the least recently used
+        cache.get(shards[0], "d");
+        try (BlobRange blob = blob("ef")) {
+            cache.load(shards[2], "d", blob, evictions);
+        }
+        assertThat(evictions.get(), is(1L));
+        assertThat(cache.get(shards[1], "d"), nullValue());
+        assertThat(cache.get(shards[0], "d").toString(StandardCharsets.UTF_8), is("ab"));
+        assertThat(cache.get(shards[2], "d").toString(StandardCharsets.UTF_8), is("ef"));
+    }
+
+    @Test
+    public void testInvalidateShard() throws Exception {
+        BlobCache cache = cache("1mb", "10b");
+        ShardId otherShard = new ShardId("blob.b1", 1);
+        for (String digest : new String[]{"d1", "d2"}) {
+            try (BlobRange blob = blob("foo")) {
+                cache.load(SHARD_ID, digest, blob, new AtomicLong());
+            }
+        }
+        try (BlobRange blob = blob("bar")) {
+            cache.load(otherShard, "d1", blob, new AtomicLong());
+        }
+
+        cache.invalidateShard(SHARD_ID);
+        assertThat(cache.get(SHARD_ID, "d1"), nullValue());
+        assertThat(cache.get(SHARD_ID, "d2"), nullValue());
+        assertThat(cache.get(otherShard, "d1").toString(StandardCharsets.UTF_8), is("bar"));
+        assertThat(cache.usedBytes(), is(3L));
+    }
+}
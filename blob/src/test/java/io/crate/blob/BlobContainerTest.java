@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class BlobContainerTest extends CrateUnitTest {
+
+    private static final String DIGEST = "417de3231e23dcd6d224ff60918024bc6c59aa58";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static void commitBlob(BlobContainer container) throws Exception {
+        DigestBlob digestBlob = new DigestBlob(container, DIGEST, UUID.randomUUID());
+        digestBlob.addContent(new BytesArray("ABCDEFGHIJKLMNO".getBytes(StandardCharsets.UTF_8)), true);
+        digestBlob.commit();
+    }
+
+    @Test
+    public void testStatsAreUpdatedOnCommitAndDelete() throws Exception {
+        BlobContainer container = new BlobContainer(tmpFolder.newFolder());
+        assertThat(container.statsRestored(), is(false));
+
+        commitBlob(container);
+        assertThat(container.blobCount(), is(1L));
+        assertThat(container.totalUsage(), is(15L));
+
+        // committing an existing blob must not be counted twice
+        commitBlob(container);
+        assertThat(container.blobCount(), is(1L));
+
+        assertThat(container.delete(DIGEST), is(true));
+        assertThat(container.blobCount(), is(0L));
+        assertThat(container.totalUsage(), is(0L));
+
+        assertThat(container.delete(DIGEST), is(false));
+        assertThat(container.blobCount(), is(0L));
+    }
+
+    @Test
+    public void testStatsArePersisted() throws Exception {
+        File baseDirectory = tmpFolder.newFolder();
+        BlobContainer container = new BlobContainer(baseDirectory);
+        commitBlob(container);
+        container.persistStats();
+
+        BlobContainer restored = new BlobContainer(baseDirectory);
+        assertThat(restored.statsRestored(), is(true));
+        assertThat(restored.blobCount(), is(1L));
+        assertThat(restored.totalUsage(), is(15L));
+    }
+
+    @Test
+    public void testReconcileStatsCorrectsDrift() throws Exception {
+        BlobContainer container = new BlobContainer(tmpFolder.newFolder());
+        commitBlob(container);
+
+        // files placed without going through the container, e.g. leftovers of a crash
+        Files.write(container.getFile("c520e6109835c876fd98636efec43dd61634b7d3").toPath(), new byte[10]);
+        Files.write(new File(container.getFile(DIGEST).getParentFile(), DIGEST + ".1").toPath(), new byte[5]);
+        assertThat(container.blobCount(), is(1L));
+
+        container.reconcileStats();
+        assertThat(container.blobCount(), is(2L));
+        assertThat(container.totalUsage(), is(25L));
+    }
+
+    @Test
+    public void testSmallBlobsAreStoredInPacks() throws Exception {
+        File baseDirectory = tmpFolder.newFolder();
+        try (BlobContainer container = new BlobContainer(baseDirectory, 1024)) {
+            commitBlob(container);
+            assertThat(container.getFile(DIGEST).exists(), is(false));
+            assertThat(container.exists(DIGEST), is(true));
+            assertThat(container.length(DIGEST), is(15L));
+            assertThat(container.blobCount(), is(1L));
+            assertThat(container.cleanAndReturnDigests((byte) 0x41).length, is(1));
+
+            try (BlobRange range = container.openBlob(DIGEST)) {
+                assertThat(range.length(), is(15L));
+            }
+
+            final List<String> names = new ArrayList<>();
+            container.walkFiles(null, new BlobContainer.FileVisitor() {
+                @Override
+                public boolean visit(File file) throws IOException {
+                    names.add(file.getName());
+                    assertThat(file.length(), is(15L));
+                    return true;
+                }
+            });
+            assertThat(names, contains(DIGEST));
+        }
+
+        // packs are still readable if the threshold is disabled
+        try (BlobContainer container = new BlobContainer(baseDirectory)) {
+            assertThat(container.exists(DIGEST), is(true));
+            assertThat(container.delete(DIGEST), is(true));
+            assertThat(container.exists(DIGEST), is(false));
+        }
+    }
+}
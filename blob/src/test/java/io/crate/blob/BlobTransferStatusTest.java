@@ -0,0 +1,70 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+
+public class BlobTransferStatusTest extends CrateUnitTest {
+
+    private static final String DIGEST = "417de3231e23dcd6d224ff60918024bc6c59aa58";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static BytesArray bytes(String content) {
+        return new BytesArray(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOutOfOrderChunksAreWrittenInOrder() throws Exception {
+        BlobContainer container = new BlobContainer(tmpFolder.newFolder());
+        UUID transferId = UUID.randomUUID();
+        DigestBlob digestBlob = container.createBlob(DIGEST, transferId);
+        BlobTransferStatus status = new BlobTransferStatus("blobs", transferId, digestBlob);
+
+        status.addChunk(10, bytes("KLM"));
+        status.addChunk(5, bytes("FGHIJ"));
+        assertThat(digestBlob.position(), is(0L));
+
+        status.addChunk(0, bytes("ABCDE"));
+        assertThat(digestBlob.position(), is(13L));
+
+        // a chunk which has already been written is ignored
+        status.addChunk(5, bytes("FGHIJ"));
+        assertThat(digestBlob.position(), is(13L));
+
+        status.addLastChunk(13, bytes("NO"));
+        File file = digestBlob.commit();
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), is("ABCDEFGHIJKLMNO"));
+    }
+}
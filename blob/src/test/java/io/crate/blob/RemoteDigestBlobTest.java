@@ -0,0 +1,109 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.Client;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RemoteDigestBlobTest extends CrateUnitTest {
+
+    private static final String DIGEST = "417de3231e23dcd6d224ff60918024bc6c59aa58";
+
+    private Client client;
+    private RemoteDigestBlob blob;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void prepare() throws Exception {
+        client = mock(Client.class);
+        StartBlobResponse startResponse = new StartBlobResponse();
+        startResponse.status(RemoteDigestBlob.Status.PARTIAL);
+        ActionFuture<StartBlobResponse> startFuture = mock(ActionFuture.class);
+        when(startFuture.actionGet()).thenReturn(startResponse);
+        doReturn(startFuture).when(client).execute(eq(StartBlobAction.INSTANCE), any(StartBlobRequest.class));
+
+        PutChunkResponse lastResponse = new PutChunkResponse();
+        lastResponse.status(RemoteDigestBlob.Status.FULL);
+        ActionFuture<PutChunkResponse> lastFuture = mock(ActionFuture.class);
+        when(lastFuture.actionGet()).thenReturn(lastResponse);
+        doReturn(lastFuture).when(client).execute(eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class));
+
+        blob = new RemoteDigestBlob(client, "blobs", DIGEST, 2);
+        assertThat(blob.addContent(content("ABCDE"), false), is(RemoteDigestBlob.Status.PARTIAL));
+    }
+
+    private static ChannelBuffer content(String content) {
+        return ChannelBuffers.wrappedBuffer(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ActionListener> pendingChunkListeners(int numChunks) {
+        ArgumentCaptor<ActionListener> listeners = ArgumentCaptor.forClass(ActionListener.class);
+        verify(client, times(numChunks)).execute(
+            eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class), listeners.capture());
+        return listeners.getAllValues();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChunksAreSentWithoutWaitingForAcknowledgement() throws Exception {
+        assertThat(blob.addContent(content("FGHIJ"), false), is(RemoteDigestBlob.Status.PARTIAL));
+        assertThat(blob.addContent(content("KLM"), false), is(RemoteDigestBlob.Status.PARTIAL));
+
+        List<ActionListener> listeners = pendingChunkListeners(2);
+        verify(client, never()).execute(eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class));
+        for (ActionListener listener : listeners) {
+            PutChunkResponse response = new PutChunkResponse();
+            response.status(RemoteDigestBlob.Status.PARTIAL);
+            listener.onResponse(response);
+        }
+
+        // the last chunk is only sent after all pending chunks are acknowledged
+        assertThat(blob.addContent(content("NO"), true), is(RemoteDigestBlob.Status.FULL));
+        verify(client, times(1)).execute(eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class));
+        assertThat(blob.size(), is(15L));
+    }
+
+    @Test
+    public void testFailureOfPendingChunkIsRaised() throws Exception {
+        assertThat(blob.addContent(content("FGHIJ"), false), is(RemoteDigestBlob.Status.PARTIAL));
+        pendingChunkListeners(1).get(0).onFailure(new BlobWriteException(DIGEST, 5, null));
+
+        expectedException.expect(BlobWriteException.class);
+        blob.addContent(content("KLMNO"), true);
+    }
+}
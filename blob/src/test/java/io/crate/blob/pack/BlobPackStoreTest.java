@@ -0,0 +1,148 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob.pack;
+
+import io.crate.blob.BlobRange;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+public class BlobPackStoreTest extends CrateUnitTest {
+
+    private static final String DIGEST_A = "0a00000000000000000000000000000000000000";
+    private static final String DIGEST_B = "0b00000000000000000000000000000000000000";
+    private static final String DIGEST_C = "0a11000000000000000000000000000000000000";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private File packDirectory;
+
+    @Before
+    public void prepare() throws Exception {
+        packDirectory = tmpFolder.newFolder();
+    }
+
+    private File content(String content) throws IOException {
+        File file = tmpFolder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(BlobPackStore store, String digest) throws IOException {
+        try (BlobRange range = store.open(digest); InputStream in = range.inputStream()) {
+            byte[] bytes = new byte[(int) range.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                read += in.read(bytes, read, bytes.length - read);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testPutOpenAndDelete() throws Exception {
+        try (BlobPackStore store = new BlobPackStore(packDirectory, BlobPackStore.DEFAULT_MAX_PACK_SIZE)) {
+            assertThat(store.put(DIGEST_A, content("foo")), is(true));
+            assertThat(store.put(DIGEST_B, content("barbaz")), is(true));
+            assertThat(store.put(DIGEST_A, content("foo")), is(false));
+
+            assertThat(store.length(DIGEST_B), is(6L));
+            assertThat(read(store, DIGEST_A), is("foo"));
+            assertThat(read(store, DIGEST_B), is("barbaz"));
+
+            assertThat(store.delete(DIGEST_A), is(3L));
+            assertThat(store.delete(DIGEST_A), is(-1L));
+            assertThat(store.length(DIGEST_A), is(-1L));
+            assertThat(store.open(DIGEST_A), nullValue());
+        }
+    }
+
+    @Test
+    public void testIndexIsReplayedOnOpen() throws Exception {
+        try (BlobPackStore store = new BlobPackStore(packDirectory, BlobPackStore.DEFAULT_MAX_PACK_SIZE)) {
+            store.put(DIGEST_A, content("foo"));
+            store.put(DIGEST_B, content("barbaz"));
+            store.put(DIGEST_C, content("qux"));
+            store.delete(DIGEST_B);
+        }
+        // simulate a crash while writing an index record
+        Files.write(new File(packDirectory, BlobPackStore.INDEX_FILE).toPath(), new byte[]{1, 2, 3},
+            StandardOpenOption.APPEND);
+
+        try (BlobPackStore store = new BlobPackStore(packDirectory, BlobPackStore.DEFAULT_MAX_PACK_SIZE)) {
+            assertThat(read(store, DIGEST_A), is("foo"));
+            assertThat(read(store, DIGEST_C), is("qux"));
+            assertThat(store.length(DIGEST_B), is(-1L));
+            assertThat(store.digests((byte) 0x0a).size(), is(2));
+            assertThat(store.digests((byte) 0x0b).size(), is(0));
+
+            store.put(DIGEST_B, content("new"));
+        }
+        try (BlobPackStore store = new BlobPackStore(packDirectory, BlobPackStore.DEFAULT_MAX_PACK_SIZE)) {
+            assertThat(read(store, DIGEST_B), is("new"));
+        }
+    }
+
+    @Test
+    public void testCompactionRemovesDeletedBlobs() throws Exception {
+        // every blob gets its own pack
+        try (BlobPackStore store = new BlobPackStore(packDirectory, 4)) {
+            store.put(DIGEST_A, content("foo"));
+            store.put(DIGEST_B, content("bar"));
+            store.put(DIGEST_C, content("baz"));
+            assertThat(packDirectory.list().length, is(4));
+
+            store.delete(DIGEST_A);
+            assertThat(store.needsCompaction(0.5), is(true));
+            assertThat(store.compact(0.5), is(1));
+            assertThat(store.needsCompaction(0.5), is(false));
+            assertThat(packDirectory.list().length, is(3));
+            assertThat(read(store, DIGEST_B), is("bar"));
+        }
+        try (BlobPackStore store = new BlobPackStore(packDirectory, 4)) {
+            final List<String> digests = new ArrayList<>();
+            store.walk(new BlobPackStore.EntryVisitor() {
+                @Override
+                public boolean visit(String digest, long length, long lastModified) throws IOException {
+                    digests.add(digest);
+                    return true;
+                }
+            });
+            assertThat(digests, containsInAnyOrder(DIGEST_B, DIGEST_C));
+            assertThat(read(store, DIGEST_C), is("baz"));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.blob.recovery;
+
+import io.crate.common.Hex;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class BlobDigestSummaryTest extends CrateUnitTest {
+
+    private static byte[][] digests(String... hexDigests) {
+        byte[][] digests = new byte[hexDigests.length][];
+        for (int i = 0; i < hexDigests.length; i++) {
+            digests[i] = Hex.decodeHex(hexDigests[i]);
+        }
+        return BlobDigestSummary.sort(digests);
+    }
+
+    @Test
+    public void testHashDoesNotDependOnOrder() throws Exception {
+        byte[][] a = digests(
+            "aa00000000000000000000000000000000000001",
+            "aaff000000000000000000000000000000000002",
+            "aa01000000000000000000000000000000000003");
+        byte[][] b = digests(
+            "aa01000000000000000000000000000000000003",
+            "aa00000000000000000000000000000000000001",
+            "aaff000000000000000000000000000000000002");
+        assertThat(BlobDigestSummary.hash(a), is(BlobDigestSummary.hash(b)));
+        assertThat(BlobDigestSummary.hash(a), not(is(BlobDigestSummary.hash(digests()))));
+    }
+
+    @Test
+    public void testDifferingBuckets() throws Exception {
+        byte[][] local = BlobDigestSummary.bucketHashes(digests(
+            "aa00000000000000000000000000000000000001",
+            "aa01000000000000000000000000000000000002",
+            "aaff000000000000000000000000000000000003"));
+        byte[][] remote = BlobDigestSummary.bucketHashes(digests(
+            "aa00000000000000000000000000000000000001",
+            "aa01000000000000000000000000000000000004",
+            "aa80000000000000000000000000000000000005"));
+
+        assertThat(local.length, is(256));
+        assertThat(BlobDigestSummary.differingBuckets(local, remote), is(new byte[]{0x01, (byte) 0x80, (byte) 0xff}));
+        assertThat(BlobDigestSummary.differingBuckets(local, local).length, is(0));
+    }
+}
@@ -158,6 +158,24 @@ public class BlobIntegrationTest extends BlobHttpIntegrationTest {
         assertEquals(416, res.getStatusLine().getStatusCode());
         assertEquals("Requested Range Not Satisfiable", res.getStatusLine().getReasonPhrase());
         assertEquals("0", res.getFirstHeader("Content-Length").getValue());
+
+        res = get(blobUri(digest), new Header[] {
+                new BasicHeader("Range", "bytes=26-")
+        });
+        assertEquals(416, res.getStatusLine().getStatusCode());
+    }
+
+    @Test
+    public void testByteRangeBeyondBlobEnd() throws IOException {
+        String digest = uploadTinyBlob();
+        Header[] headers = {
+                new BasicHeader("Range", "bytes=20-100")
+        };
+        CloseableHttpResponse res = get(blobUri(digest), headers);
+        assertEquals(206, res.getStatusLine().getStatusCode());
+        assertEquals("6", res.getFirstHeader("Content-Length").getValue());
+        assertEquals("bytes 20-25/26", res.getFirstHeader("Content-Range").getValue());
+        assertEquals("uvwxyz", EntityUtils.toString(res.getEntity()));
     }
 
     @Test
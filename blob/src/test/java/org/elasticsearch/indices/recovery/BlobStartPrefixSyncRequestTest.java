@@ -0,0 +1,66 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BlobStartPrefixSyncRequestTest extends CrateUnitTest {
+
+    private static BlobStartPrefixSyncRequest serialize(BlobStartPrefixSyncRequest request, Version version) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        request.writeTo(out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        in.setVersion(version);
+        BlobStartPrefixSyncRequest read = new BlobStartPrefixSyncRequest();
+        read.readFrom(in);
+        assertThat(in.available(), is(0));
+        return read;
+    }
+
+    @Test
+    public void testSubPrefixesAreStreamed() throws Exception {
+        BlobStartPrefixSyncRequest request = new BlobStartPrefixSyncRequest(
+            1L, new ShardId("blobs", 0), (byte) 10, new byte[] { 1, 2 });
+        BlobStartPrefixSyncRequest read = serialize(request, BlobDigestSummaryRequest.MIN_VERSION);
+        assertThat(read.prefix(), is((byte) 10));
+        assertThat(read.subPrefixes(), is(new byte[] { 1, 2 }));
+    }
+
+    @Test
+    public void testStreamingToNodeWithoutSubPrefixSupport() throws Exception {
+        BlobStartPrefixSyncRequest request = new BlobStartPrefixSyncRequest(
+            1L, new ShardId("blobs", 0), (byte) 10, null);
+        BlobStartPrefixSyncRequest read = serialize(request, Version.V_2_3_2);
+        assertThat(read.prefix(), is((byte) 10));
+        assertThat(read.subPrefixes(), nullValue());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+  * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+  * license agreements.  See the NOTICE file distributed with this work for
+  * additional information regarding copyright ownership.  Crate licenses
+  * this file to you under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.  You may
+  * obtain a copy of the License at
+  *
+  *     http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+  * License for the specific language governing permissions and limitations
+  * under the License.
+  *
+  * However, if you have executed another commercial license agreement
+  * with Crate these terms will supersede the license and you may use the
+  * software solely pursuant to the terms of the relevant commercial agreement.
+  */
+
+package io.crate.core.collections;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue which evicts the oldest entries once it is full.
+ *
+ * In contrast to {@link BlockingEvictingQueue} it doesn't use any locks: the capacity is split into
+ * stripes, each a ring buffer which is advanced with a single atomic increment. Every writer
+ * cycles through all stripes, starting at a stripe derived from its thread id, so concurrent writers
+ * rarely hit the same stripe while the entries of each writer are spread evenly over all stripes.
+ * Up to capacity entries are therefore retained even if there is only a single writer, and the
+ * evicted entries are the oldest ones across all stripes within one round of the stripes.
+ * Iteration is weakly consistent and not ordered.
+ *
+ * Only {@link #offer(Object)}, {@link #size()}, {@link #iterator()} and {@link #clear()} are supported;
+ * entries can't be polled.
+ */
+public class StripedRingBuffer<E> extends AbstractQueue<E> {
+
+    private static final int MIN_STRIPE_CAPACITY = 64;
+    private static final int MAX_STRIPES =
+        Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+    private final Stripe<E>[] stripes;
+    private final int mask;
+
+    /**
+     * the stripe each thread writes to next
+     */
+    private final ThreadLocal<int[]> nextStripe = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[] { (int) Thread.currentThread().getId() };
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    public StripedRingBuffer(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be greater than 0");
+        int numStripes = Math.min(MAX_STRIPES, Math.max(1, Integer.highestOneBit(capacity / MIN_STRIPE_CAPACITY)));
+        stripes = new Stripe[numStripes];
+        int stripeCapacity = capacity / numStripes;
+        int remainder = capacity % numStripes;
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe<>(i < remainder ? stripeCapacity + 1 : stripeCapacity);
+        }
+        mask = numStripes - 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Preconditions.checkNotNull(e, "element must not be null");
+        int[] next = nextStripe.get();
+        Stripe<E> stripe = stripes[next[0]++ & mask];
+        long sequence = stripe.sequence.getAndIncrement();
+        stripe.slots.lazySet((int) (sequence % stripe.slots.length()), e);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        throw new UnsupportedOperationException("StripedRingBuffer doesn't support poll");
+    }
+
+    @Override
+    public E peek() {
+        throw new UnsupportedOperationException("StripedRingBuffer doesn't support peek");
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Stripe<E> stripe : stripes) {
+            size += Math.min(stripe.sequence.get(), stripe.slots.length());
+        }
+        return (int) size;
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe<E> stripe : stripes) {
+            stripe.sequence.set(0);
+            for (int i = 0; i < stripe.slots.length(); i++) {
+                stripe.slots.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over a snapshot of the entries
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> entries = new ArrayList<>(size());
+        for (Stripe<E> stripe : stripes) {
+            for (int i = 0; i < stripe.slots.length(); i++) {
+                E e = stripe.slots.get(i);
+                if (e != null) {
+                    entries.add(e);
+                }
+            }
+        }
+        return entries.iterator();
+    }
+
+    private static class Stripe<E> {
+
+        private final AtomicReferenceArray<E> slots;
+        private final AtomicLong sequence = new AtomicLong();
+
+        Stripe(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+    }
+}
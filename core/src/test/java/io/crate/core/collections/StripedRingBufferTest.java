@@ -0,0 +1,99 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.core.collections;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class StripedRingBufferTest extends CrateUnitTest {
+
+    @Test
+    public void testOldestEntriesAreEvicted() throws Exception {
+        StripedRingBuffer<Integer> buffer = new StripedRingBuffer<>(3);
+        buffer.addAll(ImmutableList.of(1, 2, 3, 4, 5));
+
+        assertThat(buffer.size(), is(3));
+        assertThat(ImmutableList.copyOf(buffer), containsInAnyOrder(3, 4, 5));
+        assertTrue(buffer.contains(5));
+        assertFalse(buffer.contains(1));
+    }
+
+    @Test
+    public void testSingleWriterRetainsCapacity() throws Exception {
+        StripedRingBuffer<Integer> buffer = new StripedRingBuffer<>(1000);
+        for (int i = 0; i < 5000; i++) {
+            buffer.add(i);
+        }
+
+        assertThat(buffer.size(), is(1000));
+        assertThat(ImmutableList.copyOf(buffer).size(), is(1000));
+        assertTrue(buffer.contains(4999));
+        assertFalse(buffer.contains(3000));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        StripedRingBuffer<Integer> buffer = new StripedRingBuffer<>(10);
+        buffer.addAll(ImmutableList.of(1, 2, 3));
+        buffer.clear();
+
+        assertThat(buffer.size(), is(0));
+        assertThat(buffer.iterator().hasNext(), is(false));
+    }
+
+    @Test
+    public void testOffer() throws Exception {
+        final StripedRingBuffer<String> strings = new StripedRingBuffer<>(1000);
+
+        int THREADS = 20;
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>(20);
+        for (int i = 0; i < THREADS; i++) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        strings.add("foo");
+                    }
+
+                    latch.countDown();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+
+        latch.await();
+        assertThat(strings.size(), is(1000));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
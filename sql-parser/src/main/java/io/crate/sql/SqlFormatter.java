@@ -80,6 +80,9 @@ public final class SqlFormatter {
         @Override
         protected Void visitExplain(Explain node, Integer indent) {
             append(indent, "EXPLAIN ");
+            if (node.isAnalyze()) {
+                builder.append("ANALYZE ");
+            }
             for (ExplainOption explainOption : node.getOptions()) {
                 process(explainOption, indent);
             }
@@ -302,6 +305,18 @@ public final class SqlFormatter {
             return null;
         }
 
+        @Override
+        protected Void visitCreateMaterializedView(CreateMaterializedView node, Integer indent) {
+            builder.append("CREATE MATERIALIZED VIEW ");
+            builder.append(quoteIdentifierIfNeeded(node.getName().toString()));
+            if (node.getRefresh().isPresent()) {
+                builder.append(" REFRESH ").append(node.getRefresh().get());
+            }
+            builder.append(" AS\n");
+            process(node.getTableDefinition(), indent);
+            return null;
+        }
+
         @Override
         public Void visitClusteredBy(ClusteredBy node, Integer indent) {
             append(indent, "CLUSTERED");
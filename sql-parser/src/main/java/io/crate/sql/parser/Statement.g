@@ -209,7 +209,6 @@ statement
 //    | showFunctionsStmt
     | showCreateTableStmt
     | CREATE createStatement -> createStatement
-//    | createMaterializedViewStmt
     | ALTER alterStatement -> alterStatement
     | DROP dropStatement -> dropStatement
 //    | refreshMaterializedViewStmt
@@ -654,7 +653,7 @@ frameBound
     ;
 
 explainStmt
-    : EXPLAIN explainOptions? statement -> ^(EXPLAIN explainOptions? statement)
+    : EXPLAIN ANALYZE? explainOptions? statement -> ^(EXPLAIN ANALYZE? explainOptions? statement)
     ;
 
 explainOptions
@@ -707,7 +706,7 @@ showCreateTableStmt
     ;
 
 createMaterializedViewStmt
-    : CREATE MATERIALIZED VIEW qname r=viewRefresh? AS s=restrictedSelectStmt -> ^(CREATE_MATERIALIZED_VIEW qname $r? $s)
+    : qname r=viewRefresh? AS s=query -> ^(CREATE_MATERIALIZED_VIEW qname $r? $s)
     ;
 
 refreshMaterializedViewStmt
@@ -828,6 +827,7 @@ createStatement
     : TABLE createTableStmt -> createTableStmt
     | BLOB TABLE createBlobTableStmt -> createBlobTableStmt
     | ALIAS createAliasStmt -> createAliasStmt
+    | MATERIALIZED VIEW createMaterializedViewStmt -> createMaterializedViewStmt
     | ANALYZER createAnalyzerStmt -> createAnalyzerStmt
     | REPOSITORY createRepositoryStmt -> createRepositoryStmt
     | SNAPSHOT createSnapshotStmt -> createSnapshotStmt
@@ -1098,7 +1098,7 @@ optimizeStmt
     ;
 
 nonReserved
-    : ALIAS | ANALYZER | BERNOULLI | BLOB | CATALOGS | CHAR_FILTERS | CLUSTERED
+    : ALIAS | ANALYZE | ANALYZER | BERNOULLI | BLOB | CATALOGS | CHAR_FILTERS | CLUSTERED
     | COLUMNS | COPY | CURRENT | DATE | DAY | DISTRIBUTED | DUPLICATE | DYNAMIC | EXPLAIN
     | EXTENDS | FOLLOWING | FORMAT | FULLTEXT | FUNCTIONS | GEO_POINT | GEO_SHAPE | GLOBAL
     | GRAPHVIZ | HOUR | IGNORED | KEY | KILL | LOGICAL | MATERIALIZED | MINUTE
@@ -1216,6 +1216,7 @@ GLOBAL : 'GLOBAL';
 CONSTRAINT: 'CONSTRAINT';
 DESCRIBE: 'DESCRIBE';
 EXPLAIN: 'EXPLAIN';
+ANALYZE: 'ANALYZE';
 FORMAT: 'FORMAT';
 TYPE: 'TYPE';
 TEXT: 'TEXT';
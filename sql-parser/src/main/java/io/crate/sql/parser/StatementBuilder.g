@@ -573,7 +573,10 @@ whenList returns [List<WhenClause> value = new ArrayList<>()]
     ;
 
 explain returns [Statement value]
-    : ^(EXPLAIN explainOptions? statement) { $value = new Explain($statement.value, $explainOptions.value); }
+    : ^(EXPLAIN analyze=ANALYZE? explainOptions? statement)
+        {
+            $value = new Explain($statement.value, $explainOptions.value, $analyze != null);
+        }
     ;
 
 explainOptions returns [List<ExplainOption> value = new ArrayList<>()]
@@ -636,7 +639,7 @@ showCreateTable returns [Statement value]
     ;
 
 createMaterializedView returns [Statement value]
-    : ^(CREATE_MATERIALIZED_VIEW qname refreshView=viewRefresh? select=restrictedSelectStmt)
+    : ^(CREATE_MATERIALIZED_VIEW qname refreshView=viewRefresh? select=query)
         { $value = new CreateMaterializedView($qname.value, Optional.fromNullable($refreshView.value), $select.value); }
     ;
 
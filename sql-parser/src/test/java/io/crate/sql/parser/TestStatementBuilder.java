@@ -49,6 +49,7 @@ public class TestStatementBuilder {
     {
         printStatement("select * from foo");
         printStatement("explain select * from foo");
+        printStatement("explain analyze select * from foo");
 
         printStatement("select * from foo a (x, y, z)");
 
@@ -319,6 +320,13 @@ public class TestStatementBuilder {
         printStatement("alter blob table screenshots reset (number_of_replicas)");
     }
 
+    @Test
+    public void testCreateMaterializedView() throws Exception {
+        printStatement("create materialized view hits_per_day as select day, count(*) from hits group by day");
+        printStatement("create materialized view doc.sales_by_region as " +
+                       "select region, sum(price) as revenue, max(price) from sales group by region");
+    }
+
     @Test
     public void testCopy() throws Exception {
         printStatement("copy foo partition (a='x') from ?");
@@ -678,6 +686,16 @@ public class TestStatementBuilder {
         assertEquals(((ShowCreateTable) stmt).table().getName().toString(), "my_schema.foo");
     }
 
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        Statement stmt = SqlParser.createStatement("EXPLAIN ANALYZE SELECT * FROM foo");
+        assertTrue(stmt instanceof Explain);
+        assertTrue(((Explain) stmt).isAnalyze());
+
+        stmt = SqlParser.createStatement("EXPLAIN SELECT * FROM foo");
+        assertFalse(((Explain) stmt).isAnalyze());
+    }
+
     @Test
     public void testCreateTableWithGeneratedColumn() throws Exception {
         printStatement("create table test (col1 int, col2 AS date_trunc('day', col1))");
@@ -732,7 +750,8 @@ public class TestStatementBuilder {
         println("");
 
         // TODO: support formatting all statement types
-        if (statement instanceof Query || statement instanceof CreateTable || statement instanceof CopyFrom) {
+        if (statement instanceof Query || statement instanceof CreateTable || statement instanceof CopyFrom
+                || statement instanceof CreateMaterializedView) {
             println(SqlFormatter.formatSql(statement));
             println("");
             assertFormattedSql(statement);
@@ -0,0 +1,136 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.SumAggregation;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class RowBatchBenchmark {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+    private static final int NUM_ROWS = 20_000_000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    class SpareRow implements Row {
+
+        Object value;
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public Object get(int index) {
+            return value;
+        }
+
+        @Override
+        public Object[] materialize() {
+            return new Object[]{value};
+        }
+    }
+
+    /**
+     * creates a chain of filter (even values) -&gt; sum aggregation
+     */
+    private FilterProjector createFilterAndSumChain() {
+        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
+                .createInjector().getInstance(Functions.class);
+
+        final InputCollectExpression input = new InputCollectExpression(0);
+        FilterProjector filterProjector = new FilterProjector(
+                ImmutableList.<CollectExpression<Row, ?>>of(input),
+                new Input<Boolean>() {
+                    @Override
+                    public Boolean value() {
+                        return (Integer) input.value() % 2 == 0;
+                    }
+                });
+
+        FunctionIdent functionIdent = new FunctionIdent(SumAggregation.NAME,
+                Arrays.<DataType>asList(DataTypes.INTEGER));
+        FunctionInfo functionInfo = new FunctionInfo(functionIdent, DataTypes.DOUBLE, FunctionInfo.Type.AGGREGATE);
+        Aggregation aggregation = Aggregation.finalAggregation(functionInfo,
+                Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+                (AggregationFunction) functions.get(functionIdent), aggregation);
+        aggregationContext.addInput(input);
+        AggregationPipe aggregationPipe = new AggregationPipe(
+                ImmutableSet.<CollectExpression<Row, ?>>of(input),
+                new AggregationContext[] { aggregationContext },
+                RAM_ACCOUNTING_CONTEXT);
+
+        filterProjector.downstream(aggregationPipe);
+        aggregationPipe.downstream(new RowCountRowReceiver());
+        return filterProjector;
+    }
+
+    private void feedRows(RowReceiver rowReceiver) {
+        rowReceiver.prepare();
+        SpareRow row = new SpareRow();
+        for (int i = 0; i < NUM_ROWS; i++) {
+            row.value = i % 200;
+            rowReceiver.setNextRow(row);
+        }
+        rowReceiver.finish();
+    }
+
+    @Test
+    public void testFilterAndSumRowByRow() throws Exception {
+        feedRows(createFilterAndSumChain());
+    }
+
+    @Test
+    public void testFilterAndSumBatched() throws Exception {
+        feedRows(new BatchingRowReceiver(createFilterAndSumChain(), RowBatch.DEFAULT_SIZE));
+    }
+}
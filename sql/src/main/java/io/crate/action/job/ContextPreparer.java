@@ -46,6 +46,7 @@ import io.crate.operation.count.CountOperation;
 import io.crate.operation.fetch.FetchContext;
 import io.crate.operation.join.NestedLoopOperation;
 import io.crate.operation.projectors.FlatProjectorChain;
+import io.crate.operation.projectors.ProfilingRowReceiver;
 import io.crate.operation.projectors.RowDownstreamFactory;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.planner.distribution.DistributionType;
@@ -90,6 +91,7 @@ public class ContextPreparer extends AbstractComponent {
     private final PageDownstreamFactory pageDownstreamFactory;
     private final RowDownstreamFactory rowDownstreamFactory;
     private final InnerPreparer innerPreparer;
+    private final AdmissionController admissionController;
 
     @Inject
     public ContextPreparer(Settings settings,
@@ -99,7 +101,8 @@ public class ContextPreparer extends AbstractComponent {
                            CountOperation countOperation,
                            ThreadPool threadPool,
                            PageDownstreamFactory pageDownstreamFactory,
-                           RowDownstreamFactory rowDownstreamFactory) {
+                           RowDownstreamFactory rowDownstreamFactory,
+                           AdmissionController admissionController) {
         super(settings);
         nlContextLogger = Loggers.getLogger(NestedLoopContext.class, settings);
         pageDownstreamContextLogger = Loggers.getLogger(PageDownstreamContext.class, settings);
@@ -110,6 +113,7 @@ public class ContextPreparer extends AbstractComponent {
         circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
         this.pageDownstreamFactory = pageDownstreamFactory;
         this.rowDownstreamFactory = rowDownstreamFactory;
+        this.admissionController = admissionController;
         innerPreparer = new InnerPreparer();
     }
 
@@ -164,8 +168,10 @@ public class ContextPreparer extends AbstractComponent {
     private PreparerContext initContext(Iterable<? extends NodeOperation> nodeOperations,
                                         JobExecutionContext.Builder contextBuilder,
                                         @Nullable SharedShardContexts sharedShardContexts) {
+        AdmissionController.Ticket admissionTicket = admissionController.ticket(
+                contextBuilder.jobId(), nodeOperations, clusterService.state().nodes().localNodeId());
         ContextPreparer.PreparerContext preparerContext = new PreparerContext(
-                contextBuilder, logger, rowDownstreamFactory, nodeOperations, sharedShardContexts);
+                contextBuilder, logger, rowDownstreamFactory, nodeOperations, sharedShardContexts, admissionTicket);
 
         for (NodeOperation nodeOperation : nodeOperations) {
             // context for nodeOperations without dependencies can be built immediately (e.g. FetchPhase)
@@ -315,12 +321,17 @@ public class ContextPreparer extends AbstractComponent {
         private final JobExecutionContext.Builder contextBuilder;
         private final ESLogger logger;
 
+        @Nullable
+        private final AdmissionController.Ticket admissionTicket;
+
         PreparerContext(JobExecutionContext.Builder contextBuilder,
                         ESLogger logger,
                         RowDownstreamFactory rowDownstreamFactory,
                         Iterable<? extends NodeOperation> nodeOperations,
-                        @Nullable SharedShardContexts sharedShardContexts) {
+                        @Nullable SharedShardContexts sharedShardContexts,
+                        @Nullable AdmissionController.Ticket admissionTicket) {
             this.contextBuilder = contextBuilder;
+            this.admissionTicket = admissionTicket;
             this.logger = logger;
             this.opCtx = new NodeOperationCtx(nodeOperations);
             this.rowDownstreamFactory = rowDownstreamFactory;
@@ -333,8 +344,31 @@ public class ContextPreparer extends AbstractComponent {
 
         /**
          * Retrieve the rowReceiver of the downstream of phase
+         *
+         * If the job is profiled the rowReceiver counts the rows emitted by the phase.
          */
         RowReceiver getRowReceiver(UpstreamPhase phase, int pageSize) {
+            RowReceiver rowReceiver = findRowReceiver(phase, pageSize);
+            PhaseProfile profile = phaseProfile(phase);
+            if (profile == null) {
+                return rowReceiver;
+            }
+            return new ProfilingRowReceiver(rowReceiver, profile);
+        }
+
+        /**
+         * @return the profile of the phase or null if the job isn't profiled
+         */
+        @Nullable
+        PhaseProfile phaseProfile(ExecutionPhase phase) {
+            JobProfile profile = contextBuilder.profile();
+            if (profile == null) {
+                return null;
+            }
+            return profile.phase(phase.executionPhaseId(), phase.name());
+        }
+
+        private RowReceiver findRowReceiver(UpstreamPhase phase, int pageSize) {
             NodeOperation nodeOperation = opCtx.nodeOperationMap.get(phase.executionPhaseId());
             if (nodeOperation == null) {
                 return handlerPhaseRowReceiver(phase.executionPhaseId());
@@ -486,17 +520,21 @@ public class ContextPreparer extends AbstractComponent {
 
         @Override
         public Boolean visitRoutedCollectPhase(final RoutedCollectPhase phase, final PreparerContext context) {
-            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
+            CircuitBreaker breaker = context.admissionTicket == null ? circuitBreaker : context.admissionTicket.breaker();
+            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(breaker, phase);
             RowReceiver rowReceiver = context.getRowReceiver(phase,
                     MoreObjects.firstNonNull(phase.nodePageSizeHint(), Paging.PAGE_SIZE));
-            context.registerSubContext(new JobCollectContext(
+            JobCollectContext jobCollectContext = new JobCollectContext(
                     phase,
                     collectOperation,
                     clusterService.state().nodes().localNodeId(),
                     ramAccountingContext,
                     rowReceiver,
-                    context.sharedShardContexts
-            ));
+                    context.sharedShardContexts,
+                    context.admissionTicket
+            );
+            jobCollectContext.profile(context.phaseProfile(phase));
+            context.registerSubContext(jobCollectContext);
             return true;
         }
 
@@ -504,14 +542,16 @@ public class ContextPreparer extends AbstractComponent {
         public Boolean visitCollectPhase(CollectPhase phase, PreparerContext context) {
             RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
             RowReceiver rowReceiver = context.getRowReceiver(phase, Paging.PAGE_SIZE);
-            context.registerSubContext(new JobCollectContext(
+            JobCollectContext jobCollectContext = new JobCollectContext(
                     phase,
                     collectOperation,
                     clusterService.state().nodes().localNodeId(),
                     ramAccountingContext,
                     rowReceiver,
                     context.sharedShardContexts
-            ));
+            );
+            jobCollectContext.profile(context.phaseProfile(phase));
+            context.registerSubContext(jobCollectContext);
             return true;
         }
 
@@ -0,0 +1,79 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.job;
+
+import io.crate.jobs.PhaseProfile;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+public class JobProfileResponse extends TransportResponse {
+
+    private String nodeId;
+    private Collection<PhaseProfile> phases;
+
+    public JobProfileResponse() {
+    }
+
+    public JobProfileResponse(String nodeId, Collection<PhaseProfile> phases) {
+        this.nodeId = nodeId;
+        this.phases = phases;
+    }
+
+    public static JobProfileResponse empty(String nodeId) {
+        return new JobProfileResponse(nodeId, Collections.<PhaseProfile>emptyList());
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public Collection<PhaseProfile> phases() {
+        return phases;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        nodeId = in.readString();
+        int numPhases = in.readVInt();
+        phases = new ArrayList<>(numPhases);
+        for (int i = 0; i < numPhases; i++) {
+            phases.add(PhaseProfile.fromStream(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(nodeId);
+        out.writeVInt(phases.size());
+        for (PhaseProfile phase : phases) {
+            phase.writeTo(out);
+        }
+    }
+}
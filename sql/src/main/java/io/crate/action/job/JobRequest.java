@@ -21,6 +21,7 @@
 
 package io.crate.action.job;
 
+import io.crate.jobs.JobProfile;
 import io.crate.operation.NodeOperation;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -36,13 +37,22 @@ public class JobRequest extends TransportRequest {
     private UUID jobId;
     private String coordinatorNodeId;
     private Collection<? extends NodeOperation> nodeOperations;
+    private boolean profile;
 
     public JobRequest() {}
 
     public JobRequest(UUID jobId, String coordinatorNodeId, Collection<? extends NodeOperation> nodeOperations) {
+        this(jobId, coordinatorNodeId, nodeOperations, false);
+    }
+
+    public JobRequest(UUID jobId,
+                      String coordinatorNodeId,
+                      Collection<? extends NodeOperation> nodeOperations,
+                      boolean profile) {
         this.jobId = jobId;
         this.coordinatorNodeId = coordinatorNodeId;
         this.nodeOperations = nodeOperations;
+        this.profile = profile;
     }
 
     public UUID jobId() {
@@ -57,6 +67,13 @@ public class JobRequest extends TransportRequest {
         return coordinatorNodeId;
     }
 
+    /**
+     * @return true if the execution of the job should be profiled
+     */
+    public boolean profile() {
+        return profile;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -70,6 +87,9 @@ public class JobRequest extends TransportRequest {
             nodeOperations.add(new NodeOperation(in));
         }
         this.nodeOperations = nodeOperations;
+        if (in.getVersion().onOrAfter(JobProfile.MIN_VERSION)) {
+            profile = in.readBoolean();
+        }
     }
 
     @Override
@@ -84,5 +104,8 @@ public class JobRequest extends TransportRequest {
         for (NodeOperation nodeOperation : nodeOperations) {
             nodeOperation.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(JobProfile.MIN_VERSION)) {
+            out.writeBoolean(profile);
+        }
     }
 }
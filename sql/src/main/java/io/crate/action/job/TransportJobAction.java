@@ -28,6 +28,7 @@ import io.crate.core.collections.Bucket;
 import io.crate.executor.transport.DefaultTransportResponseHandler;
 import io.crate.executor.transport.NodeAction;
 import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.executor.transport.NodeLoadTracker;
 import io.crate.executor.transport.Transports;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
@@ -51,24 +52,28 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
     private final Transports transports;
     private final JobContextService jobContextService;
     private final ContextPreparer contextPreparer;
+    private final NodeLoadTracker nodeLoadTracker;
 
     @Inject
     public TransportJobAction(TransportService transportService,
                               IndicesService indicesService,
                               Transports transports,
                               JobContextService jobContextService,
-                              ContextPreparer contextPreparer) {
+                              ContextPreparer contextPreparer,
+                              NodeLoadTracker nodeLoadTracker) {
         this.indicesService = indicesService;
         this.transports = transports;
         this.jobContextService = jobContextService;
         this.contextPreparer = contextPreparer;
+        this.nodeLoadTracker = nodeLoadTracker;
         transportService.registerRequestHandler(ACTION_NAME,
                 JobRequest.class,
                 EXECUTOR,
                 new NodeActionRequestHandler<JobRequest, JobResponse>(this) { });
     }
 
-    public void execute(String node, final JobRequest request, final ActionListener<JobResponse> listener) {
+    public void execute(String node, final JobRequest request, ActionListener<JobResponse> listener) {
+        listener = nodeLoadTracker.track(node, listener);
         transports.sendRequest(ACTION_NAME, node, request, listener,
                 new DefaultTransportResponseHandler<JobResponse>(listener) {
                     @Override
@@ -81,6 +86,9 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
     @Override
     public void nodeOperation(final JobRequest request, final ActionListener<JobResponse> actionListener) {
         JobExecutionContext.Builder contextBuilder = jobContextService.newBuilder(request.jobId(), request.coordinatorNodeId());
+        if (request.profile()) {
+            contextBuilder.enableProfiling();
+        }
 
         SharedShardContexts sharedShardContexts = new SharedShardContexts(indicesService);
         List<ListenableFuture<Bucket>> directResponseFutures = contextPreparer.prepareOnRemote(
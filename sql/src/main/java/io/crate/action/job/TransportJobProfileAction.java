@@ -0,0 +1,130 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.job;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import io.crate.executor.MultiActionListener;
+import io.crate.executor.transport.DefaultTransportResponseHandler;
+import io.crate.executor.transport.NodeAction;
+import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.jobs.JobContextService;
+import io.crate.jobs.JobProfile;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Collects the {@link JobProfile}s of a job executed by EXPLAIN ANALYZE from all nodes.
+ * The nodes respond once the job has finished on them. Nodes before {@link JobProfile#MIN_VERSION}
+ * don't profile jobs and aren't asked.
+ */
+@Singleton
+public class TransportJobProfileAction implements NodeAction<JobProfileRequest, JobProfileResponse> {
+
+    private static final String ACTION_NAME = "crate/sql/job/profile";
+
+    private static final Function<List<JobProfileResponse>, List<JobProfileResponse>> MERGE_FUNCTION =
+        new Function<List<JobProfileResponse>, List<JobProfileResponse>>() {
+            @Nullable
+            @Override
+            public List<JobProfileResponse> apply(@Nullable List<JobProfileResponse> input) {
+                return input == null ? new ArrayList<JobProfileResponse>(0) : new ArrayList<>(input);
+            }
+        };
+
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final JobContextService jobContextService;
+
+    @Inject
+    public TransportJobProfileAction(ClusterService clusterService,
+                                     TransportService transportService,
+                                     JobContextService jobContextService) {
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.jobContextService = jobContextService;
+        transportService.registerRequestHandler(ACTION_NAME,
+                JobProfileRequest.class,
+                ThreadPool.Names.GENERIC,
+                new NodeActionRequestHandler<JobProfileRequest, JobProfileResponse>(this) { });
+    }
+
+    public void executeOnAllNodes(UUID jobId, ActionListener<List<JobProfileResponse>> listener) {
+        List<DiscoveryNode> nodes = new ArrayList<>();
+        for (DiscoveryNode node : clusterService.state().nodes()) {
+            if (node.version().onOrAfter(JobProfile.MIN_VERSION)) {
+                nodes.add(node);
+            }
+        }
+        if (nodes.isEmpty()) {
+            listener.onResponse(new ArrayList<JobProfileResponse>(0));
+            return;
+        }
+        ActionListener<JobProfileResponse> multiListener =
+            new MultiActionListener<>(nodes.size(), MERGE_FUNCTION, listener);
+        DefaultTransportResponseHandler<JobProfileResponse> responseHandler =
+            new DefaultTransportResponseHandler<JobProfileResponse>(multiListener) {
+                @Override
+                public JobProfileResponse newInstance() {
+                    return new JobProfileResponse();
+                }
+            };
+        JobProfileRequest request = new JobProfileRequest(jobId);
+        for (DiscoveryNode node : nodes) {
+            transportService.sendRequest(node, ACTION_NAME, request, responseHandler);
+        }
+    }
+
+    @Override
+    public void nodeOperation(JobProfileRequest request, final ActionListener<JobProfileResponse> listener) {
+        final String localNodeId = clusterService.localNode().id();
+        JobProfile profile = jobContextService.removeProfile(request.jobId());
+        if (profile == null) {
+            listener.onResponse(JobProfileResponse.empty(localNodeId));
+            return;
+        }
+        Futures.addCallback(profile.finishedFuture(), new FutureCallback<JobProfile>() {
+            @Override
+            public void onSuccess(@Nullable JobProfile result) {
+                assert result != null : "finished profile must not be null";
+                listener.onResponse(new JobProfileResponse(localNodeId, result.phases()));
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                listener.onFailure(t);
+            }
+        });
+    }
+}
@@ -23,12 +23,16 @@ package io.crate.action.sql;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.crate.action.FutureActionListener;
 import io.crate.analyze.*;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.executor.transport.*;
+import io.crate.metadata.view.MaterializedViews;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
@@ -37,6 +41,7 @@ import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Locale;
 import java.util.UUID;
@@ -56,6 +61,7 @@ public class DDLStatementDispatcher {
     private final AlterTableOperation alterTableOperation;
     private final RepositoryService repositoryService;
     private final SnapshotRestoreDDLDispatcher snapshotRestoreDDLDispatcher;
+    private final MaterializedViews materializedViews;
 
     private final InnerVisitor innerVisitor = new InnerVisitor();
 
@@ -66,13 +72,15 @@ public class DDLStatementDispatcher {
                                   AlterTableOperation alterTableOperation,
                                   RepositoryService repositoryService,
                                   SnapshotRestoreDDLDispatcher snapshotRestoreDDLDispatcher,
-                                  TransportActionProvider transportActionProvider) {
+                                  TransportActionProvider transportActionProvider,
+                                  MaterializedViews materializedViews) {
         this.blobIndices = blobIndices;
         this.tableCreator = tableCreator;
         this.alterTableOperation = alterTableOperation;
         this.transportActionProvider = transportActionProvider;
         this.repositoryService = repositoryService;
         this.snapshotRestoreDDLDispatcher = snapshotRestoreDDLDispatcher;
+        this.materializedViews = materializedViews;
     }
 
     public ListenableFuture<Long> dispatch(AnalyzedStatement analyzedStatement, UUID jobId) {
@@ -92,6 +100,48 @@ public class DDLStatementDispatcher {
             return tableCreator.create(analysis);
         }
 
+        @Override
+        public ListenableFuture<Long> visitCreateMaterializedViewStatement(
+                final CreateMaterializedViewAnalyzedStatement analysis, UUID jobId) {
+            final SettableFuture<Long> result = SettableFuture.create();
+            Futures.addCallback(tableCreator.create(analysis.createTableStatement()), new FutureCallback<Long>() {
+                @Override
+                public void onSuccess(@Nullable final Long rowCount) {
+                    // aggregate the rows which already exist in the source table, the view is pending until then
+                    SQLRequest request = new SQLRequest(analysis.backfillStatement());
+                    request.setDefaultSchema(analysis.source().schema());
+                    transportActionProvider.transportSQLAction().execute(request, new ActionListener<SQLResponse>() {
+                        @Override
+                        public void onResponse(SQLResponse sqlResponse) {
+                            materializedViews.activate(analysis.createTableStatement().tableIdent(),
+                                new ActionListener<Boolean>() {
+                                    @Override
+                                    public void onResponse(Boolean activated) {
+                                        result.set(rowCount);
+                                    }
+
+                                    @Override
+                                    public void onFailure(Throwable e) {
+                                        result.setException(e);
+                                    }
+                                });
+                        }
+
+                        @Override
+                        public void onFailure(Throwable e) {
+                            result.setException(e);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(@Nonnull Throwable t) {
+                    result.setException(t);
+                }
+            });
+            return result;
+        }
+
         @Override
         public ListenableFuture<Long> visitAlterTableStatement(final AlterTableAnalyzedStatement analysis, UUID jobId) {
             return alterTableOperation.executeAlterTable(analysis);
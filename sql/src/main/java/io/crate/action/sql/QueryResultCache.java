@@ -0,0 +1,503 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import io.crate.analyze.Analysis;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.QuerySpec;
+import io.crate.analyze.SelectAnalyzedStatement;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.relations.QueriedRelation;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitors;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.operation.scalar.timestamp.CurrentTimestampFunction;
+import io.crate.sql.tree.CurrentTime;
+import io.crate.sql.tree.DefaultTraversalVisitor;
+import io.crate.sql.tree.FunctionCall;
+import io.crate.sql.tree.Statement;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.action.admin.indices.stats.TransportIndicesStatsAction;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Provider;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local cache for the results of read-only SELECT statements.
+ *
+ * Results are cached by statement, arguments, default schema and the version of the cluster metadata.
+ * Every entry is tagged with a reader version of the queried table which is computed from the refresh
+ * and indexing stats of all its shard copies, see {@link #readerVersion(Key, ActionListener)}.
+ * The reader version is fetched again before each lookup, so writes and refreshes coordinated by
+ * any node invalidate the entries of the table. {@link #EXPIRE_SETTING} only bounds how long unused
+ * entries are retained.
+ *
+ * Only statements on a single doc table without non-deterministic functions are cached.
+ * {@code current_timestamp} is folded into a literal during analysis, so statements using it are
+ * detected on the parsed statement instead.
+ * The memory used by the cache is accounted on the query circuit breaker.
+ */
+@Singleton
+public class QueryResultCache implements Supplier<Iterable<?>> {
+
+    public static final String ENABLED_SETTING = "sql.result_cache.enabled";
+    public static final String SIZE_SETTING = "sql.result_cache.size";
+    public static final String EXPIRE_SETTING = "sql.result_cache.expire";
+
+    private static final ByteSizeValue DEFAULT_SIZE = new ByteSizeValue(10, ByteSizeUnit.MB);
+    private static final TimeValue DEFAULT_EXPIRE = TimeValue.timeValueMinutes(1);
+    private static final String BREAKER_LABEL = "result_cache";
+
+    private static final ESLogger LOGGER = Loggers.getLogger(QueryResultCache.class);
+
+    private static final Predicate<Symbol> NON_DETERMINISTIC_FUNCTION = new Predicate<Symbol>() {
+        @Override
+        public boolean apply(@Nullable Symbol input) {
+            return input instanceof Function && !((Function) input).info().isDeterministic();
+        }
+    };
+
+    private static final CurrentTimeDetector CURRENT_TIME_DETECTOR = new CurrentTimeDetector();
+
+    private final ClusterService clusterService;
+    private final Provider<TransportIndicesStatsAction> indicesStatsActionProvider;
+    private final CircuitBreaker breaker;
+    private final boolean enabled;
+    private final long maxSizeInBytes;
+    @Nullable
+    private final Cache<Key, Entry> cache;
+
+    private final AtomicLong sizeInBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Inject
+    public QueryResultCache(Settings settings,
+                            ClusterService clusterService,
+                            Provider<TransportIndicesStatsAction> indicesStatsActionProvider,
+                            CrateCircuitBreakerService breakerService) {
+        this.clusterService = clusterService;
+        this.indicesStatsActionProvider = indicesStatsActionProvider;
+        this.breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
+        this.enabled = settings.getAsBoolean(ENABLED_SETTING, false);
+        this.maxSizeInBytes = settings.getAsBytesSize(SIZE_SETTING, DEFAULT_SIZE).bytes();
+        if (enabled) {
+            TimeValue expire = settings.getAsTime(EXPIRE_SETTING, DEFAULT_EXPIRE);
+            cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .weigher(new Weigher<Key, Entry>() {
+                    @Override
+                    public int weigh(Key key, Entry entry) {
+                        return (int) Math.min(entry.sizeInBytes, Integer.MAX_VALUE);
+                    }
+                })
+                .expireAfterWrite(expire.millis(), TimeUnit.MILLISECONDS)
+                .removalListener(new RemovalListener<Key, Entry>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<Key, Entry> notification) {
+                        Entry entry = notification.getValue();
+                        if (entry != null) {
+                            sizeInBytes.addAndGet(-entry.sizeInBytes);
+                            breaker.addWithoutBreaking(-entry.sizeInBytes);
+                        }
+                        if (notification.wasEvicted()) {
+                            evictions.incrementAndGet();
+                        }
+                    }
+                })
+                .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * @return the cache key for the request or null if the result of the request must not be cached.
+     */
+    @Nullable
+    public Key key(Statement parsedStatement, Analysis analysis, SQLRequest request) {
+        if (cache == null || !isCacheable(parsedStatement, analysis)) {
+            return null;
+        }
+        SelectAnalyzedStatement statement = (SelectAnalyzedStatement) analysis.analyzedStatement();
+        DocTableInfo tableInfo = ((QueriedDocTable) statement.relation()).tableRelation().tableInfo();
+        return new Key(
+            request.stmt(),
+            request.args(),
+            request.getDefaultSchema(),
+            request.getRequestFlags(),
+            clusterService.state().metaData().version(),
+            tableInfo.concreteIndices());
+    }
+
+    /**
+     * Resolves the current reader version of the table the key refers to.
+     * The listener fails if not all shard copies could be asked for their stats,
+     * in which case the result must neither be looked up nor cached.
+     */
+    public void readerVersion(Key key, final ActionListener<Long> listener) {
+        if (key.indices.length == 0) {
+            listener.onResponse(0L);
+            return;
+        }
+        IndicesStatsRequest request = new IndicesStatsRequest();
+        request.indices(key.indices);
+        request.clear();
+        request.refresh(true);
+        request.indexing(true);
+        indicesStatsActionProvider.get().execute(request, new ActionListener<IndicesStatsResponse>() {
+            @Override
+            public void onResponse(IndicesStatsResponse response) {
+                if (response.getFailedShards() > 0) {
+                    listener.onFailure(new IllegalStateException(String.format(Locale.ENGLISH,
+                        "Stats of %d shards could not be retrieved", response.getFailedShards())));
+                    return;
+                }
+                listener.onResponse(readerVersion(response.getShards()));
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Combines the refresh and indexing counters of all shard copies into a single version.
+     * A write increases the indexing counters, a new searcher increases the refresh counter and
+     * a relocated or recovered shard copy changes its node, so the version changes with any of these.
+     * The combination is independent of the order of the shard stats.
+     */
+    static long readerVersion(ShardStats[] shardStats) {
+        long version = 0L;
+        for (ShardStats shardStat : shardStats) {
+            CommonStats stats = shardStat.getStats();
+            version += shardVersion(
+                shardStat.getShardRouting().shardId(),
+                shardStat.getShardRouting().currentNodeId(),
+                stats.getRefresh() == null ? 0L : stats.getRefresh().getTotal(),
+                stats.getIndexing() == null ? 0L : stats.getIndexing().getTotal().getIndexCount(),
+                stats.getIndexing() == null ? 0L : stats.getIndexing().getTotal().getDeleteCount());
+        }
+        return version;
+    }
+
+    static long shardVersion(ShardId shardId, String nodeId, long refreshes, long indexed, long deleted) {
+        // spread the 32 bit hash so that summing up the versions of all shards doesn't collide easily
+        return Objects.hash(shardId, nodeId, refreshes, indexed, deleted) * 0x9E3779B97F4A7C15L;
+    }
+
+    static boolean isCacheable(Statement parsedStatement, Analysis analysis) {
+        if (usesCurrentTime(parsedStatement)) {
+            return false;
+        }
+        AnalyzedStatement statement = analysis.analyzedStatement();
+        if (!(statement instanceof SelectAnalyzedStatement)) {
+            return false;
+        }
+        QueriedRelation relation = ((SelectAnalyzedStatement) statement).relation();
+        if (!(relation instanceof QueriedDocTable)) {
+            return false;
+        }
+        QuerySpec querySpec = relation.querySpec();
+        List<Symbol> symbols = new ArrayList<>(querySpec.outputs());
+        if (querySpec.where().hasQuery()) {
+            symbols.add(querySpec.where().query());
+        }
+        if (querySpec.groupBy().isPresent()) {
+            symbols.addAll(querySpec.groupBy().get());
+        }
+        if (querySpec.having().isPresent() && querySpec.having().get().hasQuery()) {
+            symbols.add(querySpec.having().get().query());
+        }
+        if (querySpec.orderBy().isPresent()) {
+            symbols.addAll(querySpec.orderBy().get().orderBySymbols());
+        }
+        return !SymbolVisitors.any(NON_DETERMINISTIC_FUNCTION, symbols.toArray(new Symbol[symbols.size()]));
+    }
+
+    static boolean usesCurrentTime(Statement parsedStatement) {
+        AtomicBoolean found = new AtomicBoolean(false);
+        CURRENT_TIME_DETECTOR.process(parsedStatement, found);
+        return found.get();
+    }
+
+    private static class CurrentTimeDetector extends DefaultTraversalVisitor<Void, AtomicBoolean> {
+
+        @Override
+        protected Void visitCurrentTime(CurrentTime node, AtomicBoolean found) {
+            found.set(true);
+            return null;
+        }
+
+        @Override
+        protected Void visitFunctionCall(FunctionCall node, AtomicBoolean found) {
+            if (CurrentTimestampFunction.NAME.equalsIgnoreCase(node.getName().getSuffix())) {
+                found.set(true);
+            }
+            return super.visitFunctionCall(node, found);
+        }
+    }
+
+    /**
+     * @return the cached rows or null if there is no entry for the key which was cached at the given reader version
+     */
+    @Nullable
+    public Object[][] get(Key key, long readerVersion) {
+        assert cache != null : "cache must be enabled if a key exists";
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.readerVersion != readerVersion) {
+            cache.invalidate(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.rows;
+    }
+
+    /**
+     * Adds the rows to the cache. The rows must not be modified afterwards.
+     * The reader version must have been resolved before the rows were read, so that
+     * concurrent writes result in a newer version and the entry is never returned for them.
+     * Results which are too large or exceed the circuit breaker limit are not cached.
+     */
+    public void put(Key key, long readerVersion, Object[][] rows) {
+        assert cache != null : "cache must be enabled if a key exists";
+        long size = estimateSize(rows);
+        if (size > maxSizeInBytes / 10) {
+            return;
+        }
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(size, BREAKER_LABEL);
+        } catch (CircuitBreakingException e) {
+            LOGGER.debug("Not caching query result of {} bytes, circuit breaker limit reached", size);
+            return;
+        }
+        sizeInBytes.addAndGet(size);
+        cache.put(key, new Entry(rows, size, readerVersion));
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    static long estimateSize(Object[][] rows) {
+        long size = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + rows.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        for (Object[] row : rows) {
+            size += RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + row.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+            for (Object value : row) {
+                size += estimateSize(value);
+            }
+        }
+        return size;
+    }
+
+    private static long estimateSize(@Nullable Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                   + ((String) value).length() * 2;
+        }
+        if (value instanceof BytesRef) {
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                   + ((BytesRef) value).length;
+        }
+        if (value instanceof Object[]) {
+            long size = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+            for (Object o : (Object[]) value) {
+                size += RamUsageEstimator.NUM_BYTES_OBJECT_REF + estimateSize(o);
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+            for (Object o : (Collection) value) {
+                size += RamUsageEstimator.NUM_BYTES_OBJECT_REF + estimateSize(o);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                // 32 bytes overhead per map entry
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        // boxed primitives
+        return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_LONG;
+    }
+
+    public String nodeId() {
+        return clusterService.localNode().id();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public long entries() {
+        return cache == null ? 0L : cache.size();
+    }
+
+    public long sizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    public long maxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * the cache is exposed as a single row per node in the sys.result_cache table
+     */
+    @Override
+    public Iterable<?> get() {
+        return Collections.singletonList(this);
+    }
+
+    public static class Key {
+
+        private final String stmt;
+        private final Object[] args;
+        private final String defaultSchema;
+        private final int requestFlags;
+        private final long metaDataVersion;
+
+        /**
+         * the indices of the queried table at the metaData version; derived from the other fields
+         * so not part of equals/hashCode
+         */
+        private final String[] indices;
+
+        Key(String stmt,
+            Object[] args,
+            @Nullable String defaultSchema,
+            int requestFlags,
+            long metaDataVersion,
+            String[] indices) {
+            this.stmt = stmt;
+            this.args = args;
+            this.defaultSchema = defaultSchema;
+            this.requestFlags = requestFlags;
+            this.metaDataVersion = metaDataVersion;
+            this.indices = indices;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (requestFlags != key.requestFlags) return false;
+            if (metaDataVersion != key.metaDataVersion) return false;
+            if (!stmt.equals(key.stmt)) return false;
+            if (!Arrays.deepEquals(args, key.args)) return false;
+            return defaultSchema != null ? defaultSchema.equals(key.defaultSchema) : key.defaultSchema == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = stmt.hashCode();
+            result = 31 * result + Arrays.deepHashCode(args);
+            result = 31 * result + (defaultSchema != null ? defaultSchema.hashCode() : 0);
+            result = 31 * result + requestFlags;
+            result = 31 * result + (int) (metaDataVersion ^ (metaDataVersion >>> 32));
+            return result;
+        }
+    }
+
+    private static class Entry {
+
+        private final Object[][] rows;
+        private final long sizeInBytes;
+        private final long readerVersion;
+
+        Entry(Object[][] rows, long sizeInBytes, long readerVersion) {
+            this.rows = rows;
+            this.sizeInBytes = sizeInBytes;
+            this.readerVersion = readerVersion;
+        }
+    }
+}
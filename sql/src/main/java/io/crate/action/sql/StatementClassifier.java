@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.analyze.*;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.metadata.TableIdent;
+
+import javax.annotation.Nullable;
+
+/**
+ * Determines the type of a statement and the table it operates on,
+ * used to group the statement latencies in {@link io.crate.operation.collect.StatsTables}.
+ */
+class StatementClassifier extends AnalyzedStatementVisitor<Void, StatementClassifier.Classification> {
+
+    private static final StatementClassifier INSTANCE = new StatementClassifier();
+
+    private static final Classification DDL = new Classification("DDL", null);
+    private static final Classification OTHER = new Classification("OTHER", null);
+
+    static class Classification {
+
+        private final String type;
+        @Nullable
+        private final TableIdent table;
+
+        Classification(String type, @Nullable TableIdent table) {
+            this.type = type;
+            this.table = table;
+        }
+
+        String type() {
+            return type;
+        }
+
+        @Nullable
+        TableIdent table() {
+            return table;
+        }
+    }
+
+    static Classification classify(AnalyzedStatement statement) {
+        return INSTANCE.process(statement, null);
+    }
+
+    @Nullable
+    private static TableIdent tableIdent(AnalyzedRelation relation) {
+        if (relation instanceof QueriedTableRelation) {
+            return ((QueriedTableRelation) relation).tableRelation().tableInfo().ident();
+        }
+        if (relation instanceof AbstractTableRelation) {
+            return ((AbstractTableRelation) relation).tableInfo().ident();
+        }
+        // joins and other relations are not attributed to a single table
+        return null;
+    }
+
+    @Override
+    protected Classification visitAnalyzedStatement(AnalyzedStatement analyzedStatement, Void context) {
+        return OTHER;
+    }
+
+    @Override
+    protected Classification visitDDLAnalyzedStatement(AbstractDDLAnalyzedStatement analysis, Void context) {
+        return DDL;
+    }
+
+    @Override
+    protected Classification visitSelectStatement(SelectAnalyzedStatement analysis, Void context) {
+        return new Classification("SELECT", tableIdent(analysis.relation()));
+    }
+
+    @Override
+    protected Classification visitInsertFromValuesStatement(InsertFromValuesAnalyzedStatement analysis, Void context) {
+        return new Classification("INSERT", analysis.tableInfo().ident());
+    }
+
+    @Override
+    protected Classification visitInsertFromSubQueryStatement(InsertFromSubQueryAnalyzedStatement analysis,
+                                                              Void context) {
+        return new Classification("INSERT", analysis.tableInfo().ident());
+    }
+
+    @Override
+    protected Classification visitUpdateStatement(UpdateAnalyzedStatement analysis, Void context) {
+        return new Classification("UPDATE", tableIdent(analysis.sourceRelation()));
+    }
+
+    @Override
+    protected Classification visitDeleteStatement(DeleteAnalyzedStatement analysis, Void context) {
+        return new Classification("DELETE", analysis.analyzedRelation().tableInfo().ident());
+    }
+
+    @Override
+    protected Classification visitCopyFromStatement(CopyFromAnalyzedStatement analysis, Void context) {
+        return new Classification("COPY", analysis.table().ident());
+    }
+
+    @Override
+    protected Classification visitCopyToStatement(CopyToAnalyzedStatement analysis, Void context) {
+        return new Classification("COPY", tableIdent(analysis.subQueryRelation()));
+    }
+}
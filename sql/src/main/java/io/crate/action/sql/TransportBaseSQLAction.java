@@ -95,6 +95,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
     protected final Planner planner;
     private final Provider<Executor> executorProvider;
     private final StatsTables statsTables;
+    protected final QueryResultCache queryResultCache;
     private volatile boolean disabled;
 
     TransportBaseSQLAction(ClusterService clusterService,
@@ -108,7 +109,8 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                            ActionFilters actionFilters,
                            IndexNameExpressionResolver indexNameExpressionResolver,
                            TransportKillJobsNodeAction transportKillJobsNodeAction,
-                           TaskManager taskManager) {
+                           TaskManager taskManager,
+                           QueryResultCache queryResultCache) {
         super(settings, actionName, threadPool, actionFilters, indexNameExpressionResolver, taskManager);
         this.clusterService = clusterService;
         this.analyzer = analyzer;
@@ -116,11 +118,13 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         this.executorProvider = executorProvider;
         this.statsTables = statsTables;
         this.transportKillJobsNodeAction = transportKillJobsNodeAction;
+        this.queryResultCache = queryResultCache;
     }
 
     public abstract ParameterContext getParamContext(TRequest request);
 
     abstract void executePlan(Executor executor,
+                              Statement statement,
                               Analysis analysis,
                               Plan plan,
                               ActionListener<TResponse> listener,
@@ -137,10 +141,14 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         long startTime = System.nanoTime();
         statsTables.jobStarted(jobId, request.stmt());
 
-        doExecute(request, new StatsTableListenerWrapper<>(listener, statsTables, jobId), jobId, startTime);
+        doExecute(request, new StatsTableListenerWrapper<>(listener, statsTables, jobId, startTime), jobId, startTime);
     }
 
-    private void doExecute(TRequest request, ActionListener<TResponse> listener, UUID jobId, long startTime) {
+    private void doExecute(TRequest request,
+                           StatsTableListenerWrapper<TResponse> statsListener,
+                           UUID jobId,
+                           long startTime) {
+        ActionListener<TResponse> listener = statsListener;
         if (disabled) {
             listener.onFailure(new NodeDisconnectedException(clusterService.localNode(), actionName));
             return;
@@ -148,6 +156,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         try {
             Statement statement = statementCache.get(request.stmt());
             Analysis analysis = analyzer.analyze(statement, getParamContext(request));
+            statsListener.classification(StatementClassifier.classify(analysis.analyzedStatement()));
             Executor executor = executorProvider.get();
             if (analysis.analyzedStatement().isWriteOperation()) {
                 if (settings.getAsBoolean(NODE_READ_ONLY_SETTING, false)) {
@@ -160,7 +169,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
             Plan plan = planner.plan(analysis, jobId);
             assert plan != null;
             tracePlan(plan);
-            executePlan(executor, analysis, plan, listener, request, startTime);
+            executePlan(executor, statement, analysis, plan, listener, request, startTime);
         } catch (Throwable e) {
             logger.debug("Error executing SQLRequest", e);
             listener.onFailure(e);
@@ -300,17 +309,28 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         private final ActionListener<TResponse> delegate;
         private final StatsTables statsTables;
         private final UUID jobId;
+        private final long startTime;
+        private volatile StatementClassifier.Classification classification;
 
-        StatsTableListenerWrapper(ActionListener<TResponse> delegate, StatsTables statsTables, UUID jobId) {
+        StatsTableListenerWrapper(ActionListener<TResponse> delegate,
+                                  StatsTables statsTables,
+                                  UUID jobId,
+                                  long startTime) {
             this.delegate = delegate;
             this.statsTables = statsTables;
             this.jobId = jobId;
+            this.startTime = startTime;
+        }
+
+        void classification(StatementClassifier.Classification classification) {
+            this.classification = classification;
         }
 
         @Override
         public void onResponse(TResponse tResponse) {
             delegate.onResponse(tResponse);
             statsTables.jobFinished(jobId, null);
+            recordLatency(false);
         }
 
         @Override
@@ -318,6 +338,16 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
             SQLActionException e = buildSQLActionException(t);
             delegate.onFailure(e);
             statsTables.jobFinished(jobId, e.getMessage());
+            recordLatency(true);
+        }
+
+        private void recordLatency(boolean failed) {
+            StatementClassifier.Classification classification = this.classification;
+            if (classification != null) {
+                // statements which couldn't be analyzed are not recorded
+                statsTables.statementFinished(
+                    classification.type(), classification.table(), System.nanoTime() - startTime, failed);
+            }
         }
     }
 
@@ -381,7 +411,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                         logger.debug("Killed {} jobs before Retry", killResponse.numKilled());
                         Analysis analysis = analyzer.analyze(statement, getParamContext(request));
                         Plan newPlan = planner.plan(analysis, jobId);
-                        executePlan(executor, analysis, newPlan, KillAndRetryListenerWrapper.this, request, startTime);
+                        executePlan(executor, statement, analysis, newPlan, KillAndRetryListenerWrapper.this, request, startTime);
                     }
 
                     @Override
@@ -35,6 +35,7 @@ import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
+import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionFilters;
@@ -50,6 +51,7 @@ import org.elasticsearch.transport.TransportRequestHandler;
 import org.elasticsearch.transport.TransportService;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -72,11 +74,12 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
             StatsTables statsTables,
             ActionFilters actionFilters,
             IndexNameExpressionResolver indexNameExpressionResolver,
-            TransportKillJobsNodeAction transportKillJobsNodeAction) {
+            TransportKillJobsNodeAction transportKillJobsNodeAction,
+            QueryResultCache queryResultCache) {
         super(clusterService, settings, SQLAction.NAME, threadPool,
             analyzer, planner, executor, statsTables, actionFilters,
             indexNameExpressionResolver, transportKillJobsNodeAction,
-            transportService.getTaskManager());
+            transportService.getTaskManager(), queryResultCache);
 
         transportService.registerRequestHandler(SQLAction.NAME, SQLRequest.class, ThreadPool.Names.SAME, new TransportHandler());
     }
@@ -88,13 +91,48 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
     }
 
     @Override
-    void executePlan(Executor executor,
+    void executePlan(final Executor executor,
+                     final Statement statement,
                      final Analysis analysis,
-                     Plan plan,
+                     final Plan plan,
                      final ActionListener<SQLResponse> listener,
                      final SQLRequest request,
                      final long startTime) {
 
+        final QueryResultCache.Key cacheKey = queryResultCache.key(statement, analysis, request);
+        if (cacheKey == null) {
+            executeUncached(executor, analysis, plan, listener, request, startTime, null, 0L);
+            return;
+        }
+        // the reader version must be resolved before the plan is executed, otherwise a write between
+        // reading the rows and resolving the version would be missed
+        queryResultCache.readerVersion(cacheKey, new ActionListener<Long>() {
+            @Override
+            public void onResponse(Long readerVersion) {
+                Object[][] cachedRows = queryResultCache.get(cacheKey, readerVersion);
+                if (cachedRows == null) {
+                    executeUncached(executor, analysis, plan, listener, request, startTime, cacheKey, readerVersion);
+                } else {
+                    listener.onResponse(createCachedResponse(analysis, request, cachedRows, startTime));
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                logger.debug("Could not resolve reader version, query result won't be cached", e);
+                executeUncached(executor, analysis, plan, listener, request, startTime, null, 0L);
+            }
+        });
+    }
+
+    private void executeUncached(Executor executor,
+                                 final Analysis analysis,
+                                 Plan plan,
+                                 final ActionListener<SQLResponse> listener,
+                                 final SQLRequest request,
+                                 final long startTime,
+                                 @Nullable final QueryResultCache.Key cacheKey,
+                                 final long readerVersion) {
         executor.execute(plan, new ResultReceiver() {
 
             private CompletionListener completionListener = CompletionListener.NO_OP;
@@ -116,7 +154,11 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
             @Override
             public void finish() {
                 shouldContinue = true;
-                listener.onResponse(createResponse(analysis, request, rows, startTime));
+                SQLResponse response = createResponse(analysis, request, rows, startTime);
+                if (cacheKey != null) {
+                    queryResultCache.put(cacheKey, readerVersion, response.rows());
+                }
+                listener.onResponse(response);
                 completionListener.onSuccess(null);
             }
 
@@ -144,14 +186,8 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
             }
         } else {
             assert analysis.rootRelation() != null;
-            outputNames = new String[analysis.rootRelation().fields().size()];
-            outputTypes = new DataType[analysis.rootRelation().fields().size()];
-            for (int i = 0; i < analysis.rootRelation().fields().size(); i++) {
-                Field field = analysis.rootRelation().fields().get(i);
-                outputNames[i] = field.path().outputName();
-                outputTypes[i] = field.valueType();
-            }
-
+            outputNames = outputNames(analysis);
+            outputTypes = outputTypes(analysis);
             rowCount = rows.size();
         }
         Object[][] rowsArr = rows.toArray(new Object[0][]);
@@ -167,6 +203,39 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
         );
     }
 
+    /**
+     * creates a response out of rows from the {@link QueryResultCache}, the rows are already converted.
+     */
+    private SQLResponse createCachedResponse(Analysis analysis, SQLRequest request, Object[][] rows, long startTime) {
+        float duration = (float)((System.nanoTime() - startTime) / 1_000_000.0);
+        return new SQLResponse(
+            outputNames(analysis),
+            rows,
+            outputTypes(analysis),
+            rows.length,
+            duration,
+            request.includeTypesOnResponse()
+        );
+    }
+
+    private static String[] outputNames(Analysis analysis) {
+        List<Field> fields = analysis.rootRelation().fields();
+        String[] outputNames = new String[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            outputNames[i] = fields.get(i).path().outputName();
+        }
+        return outputNames;
+    }
+
+    private static DataType[] outputTypes(Analysis analysis) {
+        List<Field> fields = analysis.rootRelation().fields();
+        DataType[] outputTypes = new DataType[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            outputTypes[i] = fields.get(i).valueType();
+        }
+        return outputTypes;
+    }
+
     private class TransportHandler extends TransportRequestHandler<SQLRequest> {
         @Override
         public void messageReceived(SQLRequest request, final TransportChannel channel) throws Exception {
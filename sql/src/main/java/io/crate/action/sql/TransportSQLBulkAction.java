@@ -35,6 +35,7 @@ import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
+import io.crate.sql.tree.Statement;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.cluster.ClusterService;
@@ -64,10 +65,11 @@ public class TransportSQLBulkAction extends TransportBaseSQLAction<SQLBulkReques
                                   StatsTables statsTables,
                                   ActionFilters actionFilters,
                                   IndexNameExpressionResolver indexNameExpressionResolver,
-                                  TransportKillJobsNodeAction transportKillJobsNodeAction) {
+                                  TransportKillJobsNodeAction transportKillJobsNodeAction,
+                                  QueryResultCache queryResultCache) {
         super(clusterService, settings, SQLBulkAction.NAME, threadPool, analyzer,
             planner, executor, statsTables, actionFilters, indexNameExpressionResolver, transportKillJobsNodeAction,
-            transportService.getTaskManager());
+            transportService.getTaskManager(), queryResultCache);
 
         transportService.registerRequestHandler(SQLBulkAction.NAME, SQLBulkRequest.class, ThreadPool.Names.SAME, new TransportHandler());
     }
@@ -80,6 +82,7 @@ public class TransportSQLBulkAction extends TransportBaseSQLAction<SQLBulkReques
 
     @Override
     void executePlan(Executor executor,
+                     Statement statement,
                      Analysis analysis,
                      Plan plan,
                      final ActionListener<SQLBulkResponse> listener,
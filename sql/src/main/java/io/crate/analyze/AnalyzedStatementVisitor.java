@@ -45,6 +45,10 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitDDLAnalyzedStatement(analysis, context);
     }
 
+    protected R visitCreateMaterializedViewStatement(CreateMaterializedViewAnalyzedStatement analysis, C context) {
+        return visitDDLAnalyzedStatement(analysis, context);
+    }
+
     protected R visitCreateRepositoryAnalyzedStatement(CreateRepositoryAnalyzedStatement analysis, C context) {
         return visitDDLAnalyzedStatement(analysis, context);
     }
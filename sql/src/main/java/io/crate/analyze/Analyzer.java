@@ -31,6 +31,7 @@ public class Analyzer {
 
     private final DropTableStatementAnalyzer dropTableStatementAnalyzer;
     private final CreateTableStatementAnalyzer createTableStatementAnalyzer;
+    private final CreateMaterializedViewAnalyzer createMaterializedViewAnalyzer;
     private final ShowCreateTableAnalyzer showCreateTableAnalyzer;
     private final ExplainStatementAnalyzer explainStatementAnalyzer;
     private final ShowStatementAnalyzer showStatementAnalyzer;
@@ -58,6 +59,7 @@ public class Analyzer {
     public Analyzer(SelectStatementAnalyzer selectStatementAnalyzer,
                     DropTableStatementAnalyzer dropTableStatementAnalyzer,
                     CreateTableStatementAnalyzer createTableStatementAnalyzer,
+                    CreateMaterializedViewAnalyzer createMaterializedViewAnalyzer,
                     ShowCreateTableAnalyzer showCreateTableAnalyzer,
                     CreateBlobTableStatementAnalyzer createBlobTableStatementAnalyzer,
                     CreateAnalyzerStatementAnalyzer createAnalyzerStatementAnalyzer,
@@ -80,6 +82,7 @@ public class Analyzer {
         this.selectStatementAnalyzer = selectStatementAnalyzer;
         this.dropTableStatementAnalyzer = dropTableStatementAnalyzer;
         this.createTableStatementAnalyzer = createTableStatementAnalyzer;
+        this.createMaterializedViewAnalyzer = createMaterializedViewAnalyzer;
         this.showCreateTableAnalyzer = showCreateTableAnalyzer;
         this.explainStatementAnalyzer = new ExplainStatementAnalyzer(this);
         this.showStatementAnalyzer = new ShowStatementAnalyzer(this);
@@ -164,6 +167,12 @@ public class Analyzer {
             return createTableStatementAnalyzer.analyze(node, analysis);
         }
 
+        @Override
+        protected AnalyzedStatement visitCreateMaterializedView(CreateMaterializedView node, Analysis analysis) {
+            analysis.expectsAffectedRows(true);
+            return createMaterializedViewAnalyzer.analyze(node, analysis);
+        }
+
         public AnalyzedStatement visitShowCreateTable(ShowCreateTable node, Analysis analysis) {
             ShowCreateTableAnalyzedStatement showCreateTableStatement =
                     showCreateTableAnalyzer.analyze(node.table(), analysis.parameterContext().defaultSchema());
@@ -29,6 +29,7 @@ public class BlobTableParameterInfo extends TableParameterInfo {
             ImmutableList.<String>builder()
                     .add(NUMBER_OF_REPLICAS)
                     .add(BLOBS_PATH)
+                    .add(BLOBS_PACK_THRESHOLD)
                     .build();
 
     protected static final ImmutableList<String> SUPPORTED_MAPPINGS = ImmutableList.<String>of();
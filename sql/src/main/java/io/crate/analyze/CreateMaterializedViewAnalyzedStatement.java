@@ -0,0 +1,63 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.metadata.TableIdent;
+
+public class CreateMaterializedViewAnalyzedStatement extends AbstractDDLAnalyzedStatement {
+
+    private final TableIdent source;
+    private final CreateTableAnalyzedStatement createTableStatement;
+    private final String backfillStatement;
+
+    public CreateMaterializedViewAnalyzedStatement(TableIdent source,
+                                                   CreateTableAnalyzedStatement createTableStatement,
+                                                   String backfillStatement) {
+        this.source = source;
+        this.createTableStatement = createTableStatement;
+        this.backfillStatement = backfillStatement;
+    }
+
+    public TableIdent source() {
+        return source;
+    }
+
+    /**
+     * the statement creating the rollup table
+     */
+    public CreateTableAnalyzedStatement createTableStatement() {
+        return createTableStatement;
+    }
+
+    /**
+     * the statement aggregating the existing rows of the source table into the rollup table,
+     * it must be executed with the schema of the source table as default schema
+     */
+    public String backfillStatement() {
+        return backfillStatement;
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
+        return analyzedStatementVisitor.visitCreateMaterializedViewStatement(this, context);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.metadata.Functions;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.view.MaterializedView;
+import io.crate.metadata.view.MaterializedViews;
+import io.crate.sql.Identifiers;
+import io.crate.sql.SqlFormatter;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.CreateMaterializedView;
+import io.crate.sql.tree.CreateTable;
+import io.crate.sql.tree.Table;
+import io.crate.types.DataType;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyzes <code>CREATE MATERIALIZED VIEW name AS SELECT ... GROUP BY ...</code>.
+ *
+ * The view is stored as a regular table without primary key which gets a delta row appended
+ * for every group touched by an insert into the source table.
+ * The query is kept in the <code>_meta</code> of the table mapping, see {@link MaterializedView}.
+ * The view is created pending and activated once it has been filled with the existing rows of the source table.
+ */
+@Singleton
+public class CreateMaterializedViewAnalyzer {
+
+    private final SelectStatementAnalyzer selectStatementAnalyzer;
+    private final CreateTableStatementAnalyzer createTableStatementAnalyzer;
+    private final Functions functions;
+
+    @Inject
+    public CreateMaterializedViewAnalyzer(SelectStatementAnalyzer selectStatementAnalyzer,
+                                          CreateTableStatementAnalyzer createTableStatementAnalyzer,
+                                          Functions functions) {
+        this.selectStatementAnalyzer = selectStatementAnalyzer;
+        this.createTableStatementAnalyzer = createTableStatementAnalyzer;
+        this.functions = functions;
+    }
+
+    public CreateMaterializedViewAnalyzedStatement analyze(CreateMaterializedView node, Analysis analysis) {
+        if (node.getRefresh().isPresent()) {
+            throw new UnsupportedOperationException(
+                    "REFRESH is not supported, materialized views are maintained on insert");
+        }
+        TableIdent ident = TableIdent.of(new Table(node.getName()), analysis.parameterContext().defaultSchema());
+        SelectAnalyzedStatement select = selectStatementAnalyzer.process(
+                node.getTableDefinition(), new Analysis(analysis.parameterContext()));
+        MaterializedView view = MaterializedView.of(ident, select.relation(), functions);
+
+        CreateTableAnalyzedStatement createTableStatement = createTableStatementAnalyzer.analyze(
+                createTable(view), analysis);
+        String query = SqlFormatter.formatSql(node.getTableDefinition());
+        Map<String, Object> source = new HashMap<>();
+        source.put("schema", view.source().schema());
+        source.put("name", view.source().name());
+        Map<String, Object> definition = new HashMap<>();
+        definition.put("source", source);
+        definition.put("query", query);
+        // inserts into the source table would be counted twice while the existing rows are aggregated
+        definition.put(MaterializedViews.PENDING_KEY, true);
+        //noinspection unchecked
+        ((Map<String, Object>) createTableStatement.mapping().get("_meta")).put(MaterializedView.META_KEY, definition);
+
+        return new CreateMaterializedViewAnalyzedStatement(
+                view.source(), createTableStatement, backfillStatement(view, query));
+    }
+
+    private static CreateTable createTable(MaterializedView view) {
+        List<String> columns = view.columns();
+        List<DataType> types = view.columnTypes();
+        StringBuilder sb = new StringBuilder("CREATE TABLE ").append(table(view.ident())).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Identifiers.quote(columns.get(i))).append(' ').append(types.get(i).getName());
+        }
+        sb.append(')');
+        return (CreateTable) SqlParser.createStatement(sb.toString());
+    }
+
+    private static String backfillStatement(MaterializedView view, String query) {
+        StringBuilder sb = new StringBuilder("INSERT INTO ").append(table(view.ident())).append(" (");
+        List<String> columns = view.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Identifiers.quote(columns.get(i)));
+        }
+        return sb.append(") (").append(query).append(')').toString();
+    }
+
+    private static String table(TableIdent ident) {
+        return Identifiers.quote(ident.schema()) + "." + Identifiers.quote(ident.name());
+    }
+}
@@ -36,9 +36,15 @@ public class ExplainStatementAnalyzer {
 
     public ExplainAnalyzedStatement analyze(Explain node, Analysis analysis) {
         CHECK_VISITOR.process(node.getStatement(), null);
+        if (node.isAnalyze() && !(node.getStatement() instanceof Query)) {
+            // the statement is executed, so only read-only statements are allowed
+            throw new UnsupportedFeatureException("EXPLAIN ANALYZE is not supported for " +
+                                                   node.getStatement().getClass().getSimpleName());
+        }
         AnalyzedStatement subStatement = analyzer.analyzedStatement(node.getStatement(), analysis);
         String columnName = SqlFormatter.formatSql(node);
-        ExplainAnalyzedStatement explainAnalyzedStatement = new ExplainAnalyzedStatement(columnName, subStatement);
+        ExplainAnalyzedStatement explainAnalyzedStatement =
+            new ExplainAnalyzedStatement(columnName, subStatement, node.isAnalyze());
         analysis.rootRelation(explainAnalyzedStatement);
         analysis.expectsAffectedRows(false);
         return explainAnalyzedStatement;
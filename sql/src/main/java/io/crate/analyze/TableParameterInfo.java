@@ -49,6 +49,7 @@ public class TableParameterInfo {
     public static final String BLOCKS_WRITE = IndexMetaData.SETTING_BLOCKS_WRITE;
     public static final String BLOCKS_METADATA = IndexMetaData.SETTING_BLOCKS_METADATA;
     public static final String BLOBS_PATH = BlobIndices.SETTING_INDEX_BLOBS_PATH;
+    public static final String BLOBS_PACK_THRESHOLD = BlobIndices.SETTING_INDEX_BLOBS_PACK_THRESHOLD;
     public static final String FLUSH_THRESHOLD_OPS = TranslogService.INDEX_TRANSLOG_FLUSH_THRESHOLD_OPS;
     public static final String FLUSH_THRESHOLD_SIZE = TranslogService.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE;
     public static final String FLUSH_THRESHOLD_PERIOD = TranslogService.INDEX_TRANSLOG_FLUSH_THRESHOLD_PERIOD;
@@ -60,6 +61,7 @@ public class TableParameterInfo {
     public static final String RECOVERY_INITIAL_SHARDS = PrimaryShardAllocator.INDEX_RECOVERY_INITIAL_SHARDS;
     public static final String WARMER_ENABLED = IndicesWarmer.INDEX_WARMER_ENABLED;
     public static final String UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT = UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING;
+    public static final String COLUMN_CACHE_PARTITIONS = "index.column_cache.partitions";
 
     // all available table mapping keys
     public static final String COLUMN_POLICY = ColumnPolicy.ES_MAPPING_NAME;
@@ -83,6 +85,7 @@ public class TableParameterInfo {
                     .add(RECOVERY_INITIAL_SHARDS)
                     .add(WARMER_ENABLED)
                     .add(UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT)
+                    .add(COLUMN_CACHE_PARTITIONS)
                     .build();
 
     protected static final ImmutableList<String> SUPPORTED_INTERNAL_SETTINGS =
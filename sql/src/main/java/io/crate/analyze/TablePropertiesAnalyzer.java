@@ -26,6 +26,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.expressions.ExpressionToByteSizeValueVisitor;
 import io.crate.analyze.expressions.ExpressionToNumberVisitor;
 import io.crate.analyze.expressions.ExpressionToObjectVisitor;
 import io.crate.analyze.expressions.ExpressionToStringVisitor;
@@ -37,6 +38,7 @@ import io.crate.sql.tree.ArrayLiteral;
 import io.crate.sql.tree.Expression;
 import io.crate.sql.tree.GenericProperties;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import java.util.*;
 
@@ -62,7 +64,9 @@ public class TablePropertiesAnalyzer {
                     .put(stripIndexPrefix(TableParameterInfo.WARMER_ENABLED), TableParameterInfo.WARMER_ENABLED)
                     .put(stripIndexPrefix(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT), TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT)
                     .put(stripIndexPrefix(TableParameterInfo.NUMBER_OF_SHARDS), TableParameterInfo.NUMBER_OF_SHARDS)
+                    .put(stripIndexPrefix(TableParameterInfo.COLUMN_CACHE_PARTITIONS), TableParameterInfo.COLUMN_CACHE_PARTITIONS)
                     .put("blobs_path", TableParameterInfo.BLOBS_PATH)
+                    .put("blobs_pack_threshold", TableParameterInfo.BLOBS_PACK_THRESHOLD)
                     .build();
 
     private static final ImmutableBiMap<String, String> ES_TO_CRATE_SETTINGS_MAP =
@@ -97,7 +101,9 @@ public class TablePropertiesAnalyzer {
                     .put(TableParameterInfo.WARMER_ENABLED, new SettingsAppliers.BooleanSettingsApplier(CrateTableSettings.WARMER_ENABLED))
                     .put(TableParameterInfo.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT, new SettingsAppliers.TimeSettingsApplier(CrateTableSettings.UNASSIGNED_NODE_LEFT_DELAYED_TIMEOUT))
                     .put(TableParameterInfo.NUMBER_OF_SHARDS, new NumberOfShardsSettingsApplier())
+                    .put(TableParameterInfo.COLUMN_CACHE_PARTITIONS, new SettingsAppliers.IntSettingsApplier(CrateTableSettings.COLUMN_CACHE_PARTITIONS))
                     .put(TableParameterInfo.BLOBS_PATH, new BlobPathSettingApplier())
+                    .put(TableParameterInfo.BLOBS_PACK_THRESHOLD, new BlobPackThresholdSettingApplier())
                     .build();
 
     private static final ImmutableMap<String, MappingsApplier> MAPPINGS_APPLIER =
@@ -366,6 +372,34 @@ public class TablePropertiesAnalyzer {
         }
     }
 
+    private static class BlobPackThresholdSettingApplier extends SettingsAppliers.AbstractSettingsApplier {
+
+        private BlobPackThresholdSettingApplier() {
+            super(ES_TO_CRATE_SETTINGS_MAP.get(TableParameterInfo.BLOBS_PACK_THRESHOLD), Settings.EMPTY);
+        }
+
+        @Override
+        public void apply(Settings.Builder settingsBuilder,
+                          Object[] parameters,
+                          Expression expression) {
+            ByteSizeValue threshold;
+            try {
+                threshold = ExpressionToByteSizeValueVisitor.convert(expression, parameters);
+            } catch (IllegalArgumentException e) {
+                throw invalidException(e);
+            }
+            if (threshold == null || threshold.bytes() < 0) {
+                throw invalidException();
+            }
+            settingsBuilder.put(TableParameterInfo.BLOBS_PACK_THRESHOLD, threshold.bytes());
+        }
+
+        @Override
+        public void applyValue(Settings.Builder settingsBuilder, Object value) {
+            throw new UnsupportedOperationException("Not supported");
+        }
+    }
+
     private static class ColumnPolicyMappingApplier extends MappingsApplier {
 
         private ColumnPolicyMappingApplier() {
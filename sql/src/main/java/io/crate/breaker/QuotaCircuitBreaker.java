@@ -0,0 +1,108 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.breaker;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.unit.ByteSizeValue;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A circuit breaker which limits the memory of a subset of the operations accounted on a parent breaker.
+ *
+ * All bytes are also added to the parent, so the parent limit still applies on top of the quota.
+ */
+public class QuotaCircuitBreaker implements CircuitBreaker {
+
+    private static final String BREAKING_EXCEPTION_MESSAGE =
+        "[%s] Data too large, data for [%s] would be larger than the quota of [%d/%s]";
+
+    private final String name;
+    private final long limit;
+    private final CircuitBreaker parent;
+
+    private final AtomicLong used = new AtomicLong(0);
+    private final AtomicLong trippedCount = new AtomicLong(0);
+
+    public QuotaCircuitBreaker(String name, long limit, CircuitBreaker parent) {
+        this.name = name;
+        this.limit = limit;
+        this.parent = parent;
+    }
+
+    @Override
+    public void circuitBreak(String fieldName, long bytesNeeded) throws CircuitBreakingException {
+        trippedCount.incrementAndGet();
+        throw new CircuitBreakingException(String.format(Locale.ENGLISH, BREAKING_EXCEPTION_MESSAGE,
+            name, fieldName, limit, new ByteSizeValue(limit)), bytesNeeded, limit);
+    }
+
+    @Override
+    public double addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+        long newUsed = used.addAndGet(bytes);
+        if (bytes > 0 && newUsed > limit) {
+            used.addAndGet(-bytes);
+            circuitBreak(label, newUsed);
+        }
+        try {
+            parent.addEstimateBytesAndMaybeBreak(bytes, label);
+        } catch (CircuitBreakingException e) {
+            used.addAndGet(-bytes);
+            throw e;
+        }
+        return newUsed;
+    }
+
+    @Override
+    public long addWithoutBreaking(long bytes) {
+        long newUsed = used.addAndGet(bytes);
+        parent.addWithoutBreaking(bytes);
+        return newUsed;
+    }
+
+    @Override
+    public long getUsed() {
+        return used.get();
+    }
+
+    @Override
+    public long getLimit() {
+        return limit;
+    }
+
+    @Override
+    public double getOverhead() {
+        return parent.getOverhead();
+    }
+
+    @Override
+    public long getTrippedCount() {
+        return trippedCount.get();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Supplier;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the response times and the number of in-flight requests of the job and fetch
+ * requests this node sends to other nodes.
+ *
+ * The planner uses these numbers to choose between the active copies of a shard:
+ * a copy is only moved away from the node the cluster routing picked if that node
+ * is clearly slower than another node holding a copy.
+ * Nodes without recent measurements (including the local node) are never chosen over
+ * the default copy, so without feedback the routing is the same as before.
+ */
+@Singleton
+public class NodeLoadTracker implements Supplier<Iterable<?>> {
+
+    /**
+     * weight of a new response time in the moving average
+     */
+    static final double ALPHA = 0.3;
+
+    /**
+     * another copy must have a score lower by this factor to be preferred over the default copy
+     */
+    static final double TOLERANCE = 0.2;
+
+    /**
+     * measurements older than this are ignored, so a node which got slow once isn't avoided forever
+     */
+    static final long STALE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ClusterService clusterService;
+    private final ConcurrentMap<String, NodeLoad> loads = new ConcurrentHashMap<>();
+
+    @Inject
+    public NodeLoadTracker(ClusterService clusterService) {
+        this.clusterService = clusterService;
+    }
+
+    /**
+     * Wraps a listener of a request sent to the given node.
+     * The request counts as in-flight until the returned listener is called.
+     */
+    public <T> ActionListener<T> track(String nodeId, final ActionListener<T> listener) {
+        final NodeLoad load = load(nodeId);
+        final long startTime = System.nanoTime();
+        load.inFlight.incrementAndGet();
+        return new ActionListener<T>() {
+            @Override
+            public void onResponse(T response) {
+                load.inFlight.decrementAndGet();
+                load.finished(System.nanoTime() - startTime, false);
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                load.inFlight.decrementAndGet();
+                load.finished(System.nanoTime() - startTime, true);
+                listener.onFailure(e);
+            }
+        };
+    }
+
+    /**
+     * @return true if there are any measurements which could change the choice of a shard copy
+     */
+    public boolean hasMeasurements() {
+        return !loads.isEmpty();
+    }
+
+    /**
+     * Select the node to read a shard from.
+     *
+     * @param defaultNodeId the node chosen by the cluster routing
+     * @param candidates nodes holding an active copy of the shard
+     * @return the node to use, either {@code defaultNodeId} or one of the candidates
+     */
+    public String selectNode(String defaultNodeId, List<String> candidates) {
+        long now = System.nanoTime();
+        double defaultScore = score(defaultNodeId, now);
+        String selected = defaultNodeId;
+        if (defaultScore > 0) {
+            double bestScore = defaultScore * (1 - TOLERANCE);
+            for (String candidate : candidates) {
+                if (candidate.equals(defaultNodeId)) {
+                    continue;
+                }
+                double score = score(candidate, now);
+                if (score > 0 && score < bestScore) {
+                    bestScore = score;
+                    selected = candidate;
+                }
+            }
+        }
+        NodeLoad load = loads.get(selected);
+        if (load != null) {
+            load.selected.incrementAndGet();
+            if (!selected.equals(defaultNodeId)) {
+                load.rerouted.incrementAndGet();
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @return the expected cost of sending another request to the node or 0 if it is unknown
+     */
+    private double score(String nodeId, long now) {
+        NodeLoad load = loads.get(nodeId);
+        if (load == null || now - load.lastResponseTime > STALE_AFTER_NANOS) {
+            return 0;
+        }
+        return load.avgResponseTimeNanos * (1 + load.inFlight.get());
+    }
+
+    NodeLoad load(String nodeId) {
+        NodeLoad load = loads.get(nodeId);
+        if (load == null) {
+            load = new NodeLoad(nodeId);
+            NodeLoad existing = loads.putIfAbsent(nodeId, load);
+            if (existing != null) {
+                load = existing;
+            }
+        }
+        return load;
+    }
+
+    public String nodeId() {
+        return clusterService.localNode().id();
+    }
+
+    @Override
+    public Iterable<?> get() {
+        List<NodeLoad> result = new ArrayList<>(loads.size());
+        for (NodeLoad load : loads.values()) {
+            if (load.requests.get() > 0 || load.inFlight.get() > 0) {
+                result.add(load);
+            }
+        }
+        return result;
+    }
+
+    public class NodeLoad {
+
+        private final String targetNodeId;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong selected = new AtomicLong();
+        private final AtomicLong rerouted = new AtomicLong();
+        private volatile double avgResponseTimeNanos;
+        private volatile long lastResponseTime;
+
+        NodeLoad(String targetNodeId) {
+            this.targetNodeId = targetNodeId;
+        }
+
+        synchronized void finished(long tookNanos, boolean failed) {
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            if (requests.getAndIncrement() == 0) {
+                avgResponseTimeNanos = tookNanos;
+            } else {
+                avgResponseTimeNanos = ALPHA * tookNanos + (1 - ALPHA) * avgResponseTimeNanos;
+            }
+            lastResponseTime = System.nanoTime();
+        }
+
+        public String nodeId() {
+            return NodeLoadTracker.this.nodeId();
+        }
+
+        public String targetNodeId() {
+            return targetNodeId;
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        public long requests() {
+            return requests.get();
+        }
+
+        public long failures() {
+            return failures.get();
+        }
+
+        /**
+         * @return the moving average of the response time in milliseconds
+         */
+        public double avgResponseTime() {
+            return avgResponseTimeNanos / 1_000_000d;
+        }
+
+        public long selected() {
+            return selected.get();
+        }
+
+        public long rerouted() {
+            return rerouted.get();
+        }
+    }
+}
@@ -167,6 +167,13 @@ public abstract class ShardRequest<T extends ReplicationRequest<T>, I extends Sh
             return id;
         }
 
+        /**
+         * rough estimate of the number of bytes this item will occupy once it is serialized
+         */
+        public long estimatedSizeInBytes() {
+            return id == null ? 0 : id.length();
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             id = in.readString();
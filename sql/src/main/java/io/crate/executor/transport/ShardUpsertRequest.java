@@ -26,6 +26,7 @@ import io.crate.Streamer;
 import io.crate.analyze.symbol.Reference;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.metadata.doc.DocSysColumns;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.bulk.BulkShardProcessor;
 import org.elasticsearch.action.index.IndexRequest;
@@ -299,6 +300,41 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
             return version == Versions.MATCH_ANY;
         }
 
+        @Override
+        public long estimatedSizeInBytes() {
+            long size = super.estimatedSizeInBytes();
+            if (source != null) {
+                size += source.length();
+            }
+            if (insertValues != null) {
+                for (Object insertValue : insertValues) {
+                    size += estimateValueSize(insertValue);
+                }
+            }
+            return size;
+        }
+
+        private static long estimateValueSize(@Nullable Object value) {
+            if (value == null) {
+                return 1;
+            }
+            if (value instanceof BytesRef) {
+                return ((BytesRef) value).length;
+            }
+            if (value instanceof String) {
+                return ((String) value).length();
+            }
+            if (value instanceof Object[]) {
+                long size = 0;
+                for (Object o : (Object[]) value) {
+                    size += estimateValueSize(o);
+                }
+                return size;
+            }
+            // numbers, booleans and unknown values
+            return 8;
+        }
+
         @Nullable
         public Symbol[] updateAssignments() {
             return updateAssignments;
@@ -69,6 +69,18 @@ public class StreamBucket implements Bucket, Streamable {
             }
         }
 
+        /**
+         * Adds a row which has already been serialized using the streamers of this builder.
+         */
+        public void addSerialized(BytesReference row) throws IOException {
+            size++;
+            row.writeTo(out);
+        }
+
+        public Streamer<?>[] streamers() {
+            return streamers;
+        }
+
         public void writeToStream(StreamOutput output) throws IOException {
             output.writeVInt(size);
             if (size > 0) {
@@ -99,6 +111,13 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * @return the size of the serialized rows, 0 if the bucket wasn't read from a stream
+     */
+    public long sizeInBytes() {
+        return bytes == null ? 0L : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -22,9 +22,12 @@
 package io.crate.executor.transport;
 
 import io.crate.action.job.TransportJobAction;
+import io.crate.action.job.TransportJobProfileAction;
 import io.crate.action.sql.TransportSQLAction;
+import io.crate.action.sql.TransportSQLBulkAction;
 import io.crate.executor.transport.kill.TransportKillAllNodeAction;
 import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
+import io.crate.lucene.zonemap.TransportZoneMapAction;
 import org.elasticsearch.action.admin.cluster.repositories.delete.TransportDeleteRepositoryAction;
 import org.elasticsearch.action.admin.cluster.repositories.put.TransportPutRepositoryAction;
 import org.elasticsearch.action.admin.cluster.settings.TransportClusterUpdateSettingsAction;
@@ -73,6 +76,8 @@ public class TransportActionProvider {
     private final Provider<TransportBulkCreateIndicesAction> transportBulkCreateIndicesActionProvider;
 
     private final Provider<TransportJobAction> transportJobInitActionProvider;
+    private final Provider<TransportJobProfileAction> transportJobProfileActionProvider;
+    private final Provider<TransportZoneMapAction> transportZoneMapActionProvider;
     private final Provider<TransportKillAllNodeAction> transportKillAllNodeActionProvider;
     private final Provider<TransportKillJobsNodeAction> transportKillJobsNodeActionProvider;
 
@@ -84,6 +89,7 @@ public class TransportActionProvider {
     private final Provider<TransportRestoreSnapshotAction> transportRestoreSnapshotActionProvider;
 
     private final Provider<TransportSQLAction> transportSQLActionProvider;
+    private final Provider<TransportSQLBulkAction> transportSQLBulkActionProvider;
 
     @Inject
     public TransportActionProvider(Provider<TransportFetchNodeAction> transportFetchNodeActionProvider,
@@ -104,6 +110,8 @@ public class TransportActionProvider {
                                    Provider<TransportForceMergeAction> transportForceMergeActionProvider,
                                    Provider<TransportUpdateSettingsAction> transportUpdateSettingsActionProvider,
                                    Provider<TransportJobAction> transportJobInitActionProvider,
+                                   Provider<TransportJobProfileAction> transportJobProfileActionProvider,
+                                   Provider<TransportZoneMapAction> transportZoneMapActionProvider,
                                    Provider<TransportBulkCreateIndicesAction> transportBulkCreateIndicesActionProvider,
                                    Provider<TransportKillJobsNodeAction> transportKillJobsNodeActionProvider,
                                    Provider<TransportPutRepositoryAction> transportPutRepositoryActionProvider,
@@ -111,7 +119,8 @@ public class TransportActionProvider {
                                    Provider<TransportDeleteSnapshotAction> transportDeleteSnapshotActionProvider,
                                    Provider<TransportCreateSnapshotAction> transportCreateSnapshotActionProvider,
                                    Provider<TransportRestoreSnapshotAction> transportRestoreSnapshotActionProvider,
-                                   Provider<TransportSQLAction> transportSQLActionProvider) {
+                                   Provider<TransportSQLAction> transportSQLActionProvider,
+                                   Provider<TransportSQLBulkAction> transportSQLBulkActionProvider) {
         this.transportCreateIndexActionProvider = transportCreateIndexActionProvider;
         this.transportDeleteIndexActionProvider = transportDeleteIndexActionProvider;
         this.transportPutIndexTemplateActionProvider = transportPutIndexTemplateActionProvider;
@@ -130,6 +139,8 @@ public class TransportActionProvider {
         this.transportForceMergeActionProvider = transportForceMergeActionProvider;
         this.transportUpdateSettingsActionProvider = transportUpdateSettingsActionProvider;
         this.transportJobInitActionProvider = transportJobInitActionProvider;
+        this.transportJobProfileActionProvider = transportJobProfileActionProvider;
+        this.transportZoneMapActionProvider = transportZoneMapActionProvider;
         this.transportBulkCreateIndicesActionProvider = transportBulkCreateIndicesActionProvider;
         this.transportKillJobsNodeActionProvider = transportKillJobsNodeActionProvider;
         this.transportPutRepositoryActionProvider = transportPutRepositoryActionProvider;
@@ -138,6 +149,7 @@ public class TransportActionProvider {
         this.transportCreateSnapshotActionProvider = transportCreateSnapshotActionProvider;
         this.transportRestoreSnapshotActionProvider = transportRestoreSnapshotActionProvider;
         this.transportSQLActionProvider = transportSQLActionProvider;
+        this.transportSQLBulkActionProvider = transportSQLBulkActionProvider;
     }
 
     public TransportCreateIndexAction transportCreateIndexAction() {
@@ -192,6 +204,14 @@ public class TransportActionProvider {
         return transportJobInitActionProvider.get();
     }
 
+    public TransportJobProfileAction transportJobProfileAction() {
+        return transportJobProfileActionProvider.get();
+    }
+
+    public TransportZoneMapAction transportZoneMapAction() {
+        return transportZoneMapActionProvider.get();
+    }
+
     public TransportFetchNodeAction transportFetchNodeAction() {
         return transportFetchNodeActionProvider.get();
     }
@@ -236,6 +256,10 @@ public class TransportActionProvider {
         return transportSQLActionProvider.get();
     }
 
+    public TransportSQLBulkAction transportSQLBulkAction() {
+        return transportSQLBulkActionProvider.get();
+    }
+
     public TransportCreateSnapshotAction transportCreateSnapshotAction() {
         return transportCreateSnapshotActionProvider.get();
     }
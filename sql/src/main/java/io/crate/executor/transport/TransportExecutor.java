@@ -62,6 +62,7 @@ import io.crate.planner.node.ddl.GenericDDLPlan;
 import io.crate.planner.node.dml.*;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.node.dql.join.NestedLoop;
+import io.crate.planner.node.dql.join.SemiJoinFilter;
 import io.crate.planner.node.management.ExplainPlan;
 import io.crate.planner.node.management.GenericShowPlan;
 import io.crate.planner.node.management.KillPlan;
@@ -161,15 +162,43 @@ public class TransportExecutor implements Executor {
 
         @Override
         public Task visitExplainPlan(ExplainPlan explainPlan, Void context) {
-            return new ExplainTask(explainPlan);
+            if (!explainPlan.analyze()) {
+                return new ExplainTask(explainPlan);
+            }
+            Plan subPlan = explainPlan.subPlan();
+            Task subTask = process(subPlan, context);
+            if (subTask instanceof ExecutionPhasesTask) {
+                subTask = executionPhasesTask(subPlan, true);
+            } else if (subTask instanceof SemiJoinTask) {
+                subTask = nestedLoopTask((NestedLoop) subPlan, true);
+            }
+            return new ExplainAnalyzeTask(
+                subPlan.jobId(),
+                explainPlan,
+                subTask,
+                transportActionProvider.transportJobProfileAction());
         }
 
         @Override
         protected Task visitPlan(Plan plan, Void context) {
-            return executionPhasesTask(plan);
+            return executionPhasesTask(plan, false);
+        }
+
+        @Override
+        public Task visitNestedLoop(NestedLoop plan, Void context) {
+            return nestedLoopTask(plan, false);
+        }
+
+        private Task nestedLoopTask(NestedLoop plan, boolean profile) {
+            Task joinTask = executionPhasesTask(plan, profile);
+            SemiJoinFilter semiJoinFilter = plan.semiJoinFilter();
+            if (semiJoinFilter == null) {
+                return joinTask;
+            }
+            return new SemiJoinTask(plan.jobId(), semiJoinFilter, process(semiJoinFilter.keysPlan(), null), joinTask);
         }
 
-        private ExecutionPhasesTask executionPhasesTask(Plan plan) {
+        private ExecutionPhasesTask executionPhasesTask(Plan plan, boolean profile) {
             List<NodeOperationTree> nodeOperationTrees = BULK_NODE_OPERATION_VISITOR.createNodeOperationTrees(
                     plan, clusterService.localNode().id());
             LOGGER.debug("Created NodeOperationTrees from Plan: {}", nodeOperationTrees);
@@ -181,7 +210,8 @@ public class TransportExecutor implements Executor {
                     indicesService,
                     transportActionProvider.transportJobInitAction(),
                     transportActionProvider.transportKillJobsNodeAction(),
-                    nodeOperationTrees
+                    nodeOperationTrees,
+                    profile
             );
         }
 
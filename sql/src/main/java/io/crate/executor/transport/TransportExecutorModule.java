@@ -23,10 +23,12 @@ package io.crate.executor.transport;
 
 import io.crate.action.job.ContextPreparer;
 import io.crate.action.job.TransportJobAction;
+import io.crate.action.job.TransportJobProfileAction;
 import io.crate.executor.Executor;
 import io.crate.executor.transport.distributed.TransportDistributedResultAction;
 import io.crate.executor.transport.kill.TransportKillAllNodeAction;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.lucene.zonemap.TransportZoneMapAction;
 import org.elasticsearch.common.inject.AbstractModule;
 
 public class TransportExecutorModule extends AbstractModule {
@@ -39,6 +41,8 @@ public class TransportExecutorModule extends AbstractModule {
         bind(LuceneQueryBuilder.class).asEagerSingleton();
 
         bind(TransportJobAction.class).asEagerSingleton();
+        bind(TransportJobProfileAction.class).asEagerSingleton();
+        bind(TransportZoneMapAction.class).asEagerSingleton();
         bind(TransportDistributedResultAction.class).asEagerSingleton();
         bind(TransportShardUpsertAction.class).asEagerSingleton();
         bind(TransportShardDeleteAction.class).asEagerSingleton();
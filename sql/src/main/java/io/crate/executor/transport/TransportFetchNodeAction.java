@@ -56,6 +56,7 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
     private final CircuitBreaker circuitBreaker;
     private final JobContextService jobContextService;
     private final ThreadPool threadPool;
+    private final NodeLoadTracker nodeLoadTracker;
 
     @Inject
     public TransportFetchNodeAction(TransportService transportService,
@@ -64,13 +65,15 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
                                     StatsTables statsTables,
                                     CircuitBreakerService breakerService,
                                     JobContextService jobContextService,
-                                    NodeFetchOperation nodeFetchOperation) {
+                                    NodeFetchOperation nodeFetchOperation,
+                                    NodeLoadTracker nodeLoadTracker) {
         this.transports = transports;
         this.statsTables = statsTables;
         this.nodeFetchOperation = nodeFetchOperation;
         this.circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
         this.jobContextService = jobContextService;
         this.threadPool = threadPool;
+        this.nodeLoadTracker = nodeLoadTracker;
 
         transportService.registerRequestHandler(TRANSPORT_ACTION,
                 NodeFetchRequest.class,
@@ -82,6 +85,7 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
                         final IntObjectMap<Streamer[]> streamers,
                         final NodeFetchRequest request,
                         ActionListener<NodeFetchResponse> listener) {
+        listener = nodeLoadTracker.track(targetNode, listener);
         transports.sendRequest(TRANSPORT_ACTION, targetNode, request, listener,
                 new DefaultTransportResponseHandler<NodeFetchResponse>(listener, RESPONSE_EXECUTOR) {
                     @Override
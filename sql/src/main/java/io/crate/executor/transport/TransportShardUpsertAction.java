@@ -27,13 +27,18 @@ import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import io.crate.Constants;
 import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Reference;
+import io.crate.analyze.symbol.Symbol;
 import io.crate.exceptions.JobKilledException;
 import io.crate.executor.transport.task.elasticsearch.FieldExtractorFactory;
 import io.crate.executor.transport.task.elasticsearch.SymbolToFieldExtractor;
 import io.crate.jobs.JobContextService;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.view.MaterializedView;
+import io.crate.metadata.view.MaterializedViews;
+import io.crate.operation.Input;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchGenerationException;
@@ -89,6 +94,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
     private final IndicesService indicesService;
     private final Functions functions;
     private final Schemas schemas;
+    private final MaterializedViews materializedViews;
 
     @Inject
     public TransportShardUpsertAction(Settings settings,
@@ -101,6 +107,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                       ShardStateAction shardStateAction,
                                       Functions functions,
                                       Schemas schemas,
+                                      MaterializedViews materializedViews,
                                       MappingUpdatedAction mappingUpdatedAction,
                                       IndexNameExpressionResolver indexNameExpressionResolver) {
         super(settings, ACTION_NAME, transportService, mappingUpdatedAction, indexNameExpressionResolver, clusterService,
@@ -108,6 +115,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         this.indicesService = indicesService;
         this.functions = functions;
         this.schemas = schemas;
+        this.materializedViews = materializedViews;
         jobContextService.addListener(this);
     }
 
@@ -121,10 +129,16 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                                 ShardUpsertRequest request,
                                                 AtomicBoolean killed) throws InterruptedException {
         ShardResponse shardResponse = new ShardResponse();
-        DocTableInfo tableInfo = schemas.getWritableTable(TableIdent.fromIndexName(request.index()));
+        TableIdent tableIdent = TableIdent.fromIndexName(request.index());
+        DocTableInfo tableInfo = schemas.getWritableTable(tableIdent);
         IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
         IndexShard indexShard = indexService.shardSafe(shardId.id());
 
+        List<MaterializedView> views = materializedViews.forSource(tableIdent);
+        List<Map<String, Object>> insertedRows = views.isEmpty() ? null : new ArrayList<Map<String, Object>>();
+        boolean viewsStale = false;
+        boolean written = false;
+
         Translog.Location translogLocation = null;
         for (int i = 0; i < request.itemIndices().size(); i++) {
             int location = request.itemIndices().get(i);
@@ -145,6 +159,15 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                         item.insertValues() != null, // try insert first
                         0);
                 shardResponse.add(location);
+                written = true;
+                if (insertedRows != null) {
+                    if (item.opType() == IndexRequest.OpType.CREATE) {
+                        insertedRows.add(buildMapFromSource(
+                                request.insertColumns(), item.insertValues(), request.isRawSourceInsert()));
+                    } else {
+                        viewsStale = true;
+                    }
+                }
             } catch (Throwable t) {
                 if (retryPrimaryException(t)) {
                     Throwables.propagate(t);
@@ -165,9 +188,64 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         if (indexShard.getTranslogDurability() == Translog.Durabilty.REQUEST && translogLocation != null) {
             indexShard.sync(translogLocation);
         }
+        if (viewsStale) {
+            // the previous values of updated or replaced documents are unknown, so the deltas would be wrong
+            for (MaterializedView view : views) {
+                materializedViews.markStale(view, "source table " + tableIdent.fqn() + " was updated");
+            }
+        } else if (insertedRows != null && !insertedRows.isEmpty()) {
+            writeMaterializedViewDeltas(tableInfo, views, insertedRows);
+        }
+        if (written) {
+            // the rows might or might not be part of the rows the pending views are filled with
+            for (MaterializedView view : materializedViews.pendingForSource(tableIdent)) {
+                materializedViews.markStale(view,
+                    "source table " + tableIdent.fqn() + " was written while the view was created");
+            }
+        }
         return shardResponse;
     }
 
+    /**
+     * Aggregates the newly inserted rows per group of each materialized view of the table
+     * and appends the resulting delta rows to the views.
+     * A view is marked stale if its deltas can't be computed.
+     */
+    private void writeMaterializedViewDeltas(DocTableInfo tableInfo,
+                                             List<MaterializedView> views,
+                                             List<Map<String, Object>> insertedRows) {
+        for (MaterializedView view : views) {
+            try {
+                MaterializedView.Deltas deltas = view.newDeltas();
+                for (Map<String, Object> row : insertedRows) {
+                    if (!tableInfo.generatedColumns().isEmpty()) {
+                        processGeneratedColumns(tableInfo, row, row, false);
+                    }
+                    SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, row);
+                    Object[] keyValues = new Object[view.keys().size()];
+                    for (int i = 0; i < keyValues.length; i++) {
+                        keyValues[i] = SYMBOL_TO_FIELD_EXTRACTOR.convert(view.keys().get(i), ctx).apply(null);
+                    }
+                    Input[][] arguments = new Input[view.aggregations().size()][];
+                    for (int i = 0; i < arguments.length; i++) {
+                        List<Symbol> aggregationArguments = view.aggregations().get(i).arguments();
+                        arguments[i] = new Input[aggregationArguments.size()];
+                        for (int j = 0; j < aggregationArguments.size(); j++) {
+                            Symbol argument = aggregationArguments.get(j);
+                            arguments[i][j] = Literal.newLiteral(argument.valueType(),
+                                    SYMBOL_TO_FIELD_EXTRACTOR.convert(argument, ctx).apply(null));
+                        }
+                    }
+                    deltas.add(keyValues, arguments);
+                }
+                materializedViews.write(view, deltas.rows());
+            } catch (Throwable t) {
+                logger.warn("failed to compute the deltas of materialized view {}", t, view.ident().fqn());
+                materializedViews.markStale(view, "failed to compute deltas: " + t.getMessage());
+            }
+        }
+    }
+
     @Override
     protected void processRequestItemsOnReplica(ShardId shardId, ShardUpsertRequest request) {
         IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
@@ -21,10 +21,12 @@
 
 package io.crate.executor.transport.distributed;
 
+import io.crate.core.collections.Bucket;
 import io.crate.exceptions.ContextMissingException;
 import io.crate.executor.transport.DefaultTransportResponseHandler;
 import io.crate.executor.transport.NodeAction;
 import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.executor.transport.Transports;
 import io.crate.jobs.*;
 import io.crate.operation.PageResultListener;
@@ -118,6 +120,12 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
 
         Throwable throwable = request.throwable();
         if (throwable == null) {
+            JobProfile profile = context.profile();
+            Bucket rows = request.rows();
+            if (profile != null && rows != null) {
+                profile.phase(request.executionPhaseId(), null).pageReceived(rows.size(),
+                    rows instanceof StreamBucket ? ((StreamBucket) rows).sizeInBytes() : 0L);
+            }
             request.streamers(pageBucketReceiver.streamer());
             pageBucketReceiver.setBucket(
                     request.bucketIdx(),
@@ -65,6 +65,7 @@ public class ExecutionPhasesTask extends JobTask {
     private ContextPreparer contextPreparer;
     private final JobContextService jobContextService;
     private final IndicesService indicesService;
+    private final boolean profile;
 
     private boolean hasDirectResponse;
 
@@ -75,7 +76,8 @@ public class ExecutionPhasesTask extends JobTask {
                                IndicesService indicesService,
                                TransportJobAction transportJobAction,
                                TransportKillJobsNodeAction transportKillJobsNodeAction,
-                               List<NodeOperationTree> nodeOperationTrees) {
+                               List<NodeOperationTree> nodeOperationTrees,
+                               boolean profile) {
         super(jobId);
         this.clusterService = clusterService;
         this.contextPreparer = contextPreparer;
@@ -84,6 +86,7 @@ public class ExecutionPhasesTask extends JobTask {
         this.transportJobAction = transportJobAction;
         this.transportKillJobsNodeAction = transportKillJobsNodeAction;
         this.nodeOperationTrees = nodeOperationTrees;
+        this.profile = profile;
 
         for (NodeOperationTree nodeOperationTree : nodeOperationTrees) {
             for (NodeOperation nodeOperation : nodeOperationTree.nodeOperations()) {
@@ -162,6 +165,9 @@ public class ExecutionPhasesTask extends JobTask {
         }
 
         JobExecutionContext.Builder builder = jobContextService.newBuilder(jobId(), localNodeId);
+        if (profile) {
+            builder.enableProfiling();
+        }
         List<ListenableFuture<Bucket>> directResponseFutures =
             contextPreparer.prepareOnHandler(localNodeOperations, builder, handlerPhases, new SharedShardContexts(indicesService));
         JobExecutionContext localJobContext = jobContextService.createContext(builder);
@@ -191,7 +197,7 @@ public class ExecutionPhasesTask extends JobTask {
                                  InitializationTracker initializationTracker) {
         for (Map.Entry<String, Collection<NodeOperation>> entry : operationByServer.entrySet()) {
             String serverNodeId = entry.getKey();
-            JobRequest request = new JobRequest(jobId(), localNodeId, entry.getValue());
+            JobRequest request = new JobRequest(jobId(), localNodeId, entry.getValue(), profile);
             if (hasDirectResponse) {
                 transportJobAction.execute(serverNodeId, request,
                     new SetBucketAction(pageBucketReceivers, bucketIdx, initializationTracker));
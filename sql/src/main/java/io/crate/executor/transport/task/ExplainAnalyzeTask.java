@@ -0,0 +1,173 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.action.job.JobProfileResponse;
+import io.crate.action.job.TransportJobProfileAction;
+import io.crate.action.sql.ResultReceiver;
+import io.crate.concurrent.CompletionListener;
+import io.crate.concurrent.CompletionMultiListener;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.Row1;
+import io.crate.executor.JobTask;
+import io.crate.executor.Task;
+import io.crate.executor.TaskResult;
+import io.crate.jobs.PhaseProfile;
+import io.crate.planner.PlanPrinter;
+import io.crate.planner.node.management.ExplainPlan;
+import org.elasticsearch.action.ActionListener;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Executes the sub plan of an EXPLAIN ANALYZE statement, discards its rows and returns the
+ * plan together with the per phase profiles collected from all nodes involved.
+ *
+ * The profiles are requested once the sub plan has finished or failed, at which point all nodes
+ * have created their job contexts (or killed them on failure). The nodes only respond once their
+ * job context has closed, so the profiles contain the measurements of all phases.
+ */
+public class ExplainAnalyzeTask extends JobTask {
+
+    private final ExplainPlan explainPlan;
+    private final Task subTask;
+    private final TransportJobProfileAction transportJobProfileAction;
+
+    public ExplainAnalyzeTask(UUID jobId,
+                              ExplainPlan explainPlan,
+                              Task subTask,
+                              TransportJobProfileAction transportJobProfileAction) {
+        super(jobId);
+        this.explainPlan = explainPlan;
+        this.subTask = subTask;
+        this.transportJobProfileAction = transportJobProfileAction;
+    }
+
+    @Override
+    public void execute(final ResultReceiver resultReceiver) {
+        final long started = System.nanoTime();
+        subTask.execute(new CountingResultReceiver() {
+            @Override
+            public void finish() {
+                final double took = (System.nanoTime() - started) / 1_000_000.0d;
+                final long numRows = rowCount;
+                super.finish();
+                transportJobProfileAction.executeOnAllNodes(jobId(), new ActionListener<List<JobProfileResponse>>() {
+                    @Override
+                    public void onResponse(List<JobProfileResponse> responses) {
+                        try {
+                            resultReceiver.setNextRow(new Row1(toMap(took, numRows, responses)));
+                            resultReceiver.finish();
+                        } catch (Throwable t) {
+                            resultReceiver.fail(t);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        resultReceiver.fail(e);
+                    }
+                });
+            }
+
+            @Override
+            public void fail(@Nonnull final Throwable t) {
+                super.fail(t);
+                // fetch the profiles anyway so that the nodes can release them
+                transportJobProfileAction.executeOnAllNodes(jobId(), new ActionListener<List<JobProfileResponse>>() {
+                    @Override
+                    public void onResponse(List<JobProfileResponse> responses) {
+                        resultReceiver.fail(t);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        resultReceiver.fail(t);
+                    }
+                });
+            }
+        });
+    }
+
+    private Map<String, Object> toMap(double took, long numRows, List<JobProfileResponse> responses) {
+        Map<String, Object> phases = new TreeMap<>();
+        for (JobProfileResponse response : responses) {
+            for (PhaseProfile phase : response.phases()) {
+                String key = phase.name() == null
+                    ? String.valueOf(phase.phaseId())
+                    : phase.phaseId() + "-" + phase.name();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> nodes = (Map<String, Object>) phases.get(key);
+                if (nodes == null) {
+                    nodes = new HashMap<>();
+                    phases.put(key, nodes);
+                }
+                nodes.put(response.nodeId(), phase.toMap());
+            }
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("plan", PlanPrinter.objectMap(explainPlan.subPlan()));
+        map.put("took", took);
+        map.put("rows", numRows);
+        map.put("phases", phases);
+        return map;
+    }
+
+    @Override
+    public List<? extends ListenableFuture<TaskResult>> executeBulk() {
+        throw new UnsupportedOperationException("ExplainAnalyzeTask cannot be executed as bulk operation");
+    }
+
+    private static class CountingResultReceiver implements ResultReceiver {
+
+        long rowCount = 0;
+        private CompletionListener listener = CompletionListener.NO_OP;
+
+        @Override
+        public boolean setNextRow(Row row) {
+            rowCount++;
+            return true;
+        }
+
+        @Override
+        public void finish() {
+            listener.onSuccess(null);
+        }
+
+        @Override
+        public void fail(@Nonnull Throwable t) {
+            listener.onFailure(t);
+        }
+
+        @Override
+        public void addListener(CompletionListener listener) {
+            this.listener = CompletionMultiListener.merge(this.listener, listener);
+        }
+    }
+}
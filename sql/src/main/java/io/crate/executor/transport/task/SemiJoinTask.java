@@ -0,0 +1,139 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.action.sql.ResultReceiver;
+import io.crate.concurrent.CompletionListener;
+import io.crate.concurrent.CompletionMultiListener;
+import io.crate.core.collections.Row;
+import io.crate.executor.JobTask;
+import io.crate.executor.Task;
+import io.crate.executor.TaskResult;
+import io.crate.planner.node.dql.join.SemiJoinFilter;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Collects the join keys of the smaller side of a join, pushes them down into the other side
+ * using {@link SemiJoinFilter#pushDown(java.util.Collection)} and executes the join afterwards.
+ *
+ * If there are too many keys or collecting them fails the join is executed without the filter.
+ */
+public class SemiJoinTask extends JobTask {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(SemiJoinTask.class);
+
+    private final SemiJoinFilter semiJoinFilter;
+    private final Task keysTask;
+    private final Task joinTask;
+
+    public SemiJoinTask(UUID jobId, SemiJoinFilter semiJoinFilter, Task keysTask, Task joinTask) {
+        super(jobId);
+        this.semiJoinFilter = semiJoinFilter;
+        this.keysTask = keysTask;
+        this.joinTask = joinTask;
+    }
+
+    @Override
+    public void execute(final ResultReceiver resultReceiver) {
+        keysTask.execute(new KeysResultReceiver(semiJoinFilter.maxKeys()) {
+            @Override
+            public void finish() {
+                super.finish();
+                if (exceeded) {
+                    LOGGER.debug("More than {} join keys, executing join {} without filter",
+                        semiJoinFilter.maxKeys(), jobId());
+                } else {
+                    semiJoinFilter.pushDown(keys);
+                }
+                joinTask.execute(resultReceiver);
+            }
+
+            @Override
+            public void fail(@Nonnull Throwable t) {
+                super.fail(t);
+                LOGGER.debug("Collecting join keys failed, executing join {} without filter", t, jobId());
+                joinTask.execute(resultReceiver);
+            }
+        });
+    }
+
+    @Override
+    public List<? extends ListenableFuture<TaskResult>> executeBulk() {
+        throw new UnsupportedOperationException("SemiJoinTask cannot be executed as bulk operation");
+    }
+
+    private static class KeysResultReceiver implements ResultReceiver {
+
+        private final int maxKeys;
+        final Set<Object> keys = new HashSet<>();
+        boolean exceeded = false;
+        private int rows = 0;
+        private CompletionListener listener = CompletionListener.NO_OP;
+
+        KeysResultReceiver(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        public boolean setNextRow(Row row) {
+            if (exceeded) {
+                return true;
+            }
+            // the keys plan is limited to maxKeys + 1 rows, so receiving more than maxKeys rows means
+            // that the keys may be incomplete, even if some of them are duplicates
+            rows++;
+            if (rows > maxKeys) {
+                exceeded = true;
+                keys.clear();
+                return true;
+            }
+            Object key = row.get(0);
+            if (key != null) {
+                keys.add(key);
+            }
+            return true;
+        }
+
+        @Override
+        public void finish() {
+            listener.onSuccess(null);
+        }
+
+        @Override
+        public void fail(@Nonnull Throwable t) {
+            listener.onFailure(t);
+        }
+
+        @Override
+        public void addListener(CompletionListener listener) {
+            this.listener = CompletionMultiListener.merge(this.listener, listener);
+        }
+    }
+}
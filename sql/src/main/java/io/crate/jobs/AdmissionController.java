@@ -0,0 +1,301 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jobs;
+
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.QuotaCircuitBreaker;
+import io.crate.operation.NodeOperation;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Node level admission control for the collect phases running on the SEARCH thread pool.
+ *
+ * Jobs are classified into {@link WorkloadClass}es. Each class has its own limit of concurrently running
+ * jobs, a bounded queue for the jobs exceeding that limit and a memory quota. Analytical jobs additionally
+ * only use a part of the SEARCH threads, so that interactive jobs don't have to queue behind them.
+ *
+ * A queued job is started anyway after {@link #QUEUE_TIMEOUT}; the collect phases of a job on different
+ * nodes may depend on each other (e.g. both sides of a nested loop) and must not wait on each other forever.
+ */
+@Singleton
+public class AdmissionController {
+
+    public static final String ENABLED_SETTING = "sql.admission.enabled";
+
+    public static final String CONCURRENCY = "concurrency";
+    public static final String QUEUE_SIZE = "queue_size";
+    public static final String QUEUE_TIMEOUT = "queue_timeout";
+    public static final String MEMORY_QUOTA = "memory_quota";
+
+    private static final TimeValue DEFAULT_QUEUE_TIMEOUT = TimeValue.timeValueSeconds(30);
+
+    private static final ESLogger LOGGER = Loggers.getLogger(AdmissionController.class);
+
+    private final ThreadPool threadPool;
+    private final boolean enabled;
+    private final int searchThreads;
+    private final EnumMap<WorkloadClass, WorkloadQueue> queues = new EnumMap<>(WorkloadClass.class);
+
+    @Inject
+    public AdmissionController(Settings settings,
+                               ThreadPool threadPool,
+                               CrateCircuitBreakerService breakerService) {
+        this.threadPool = threadPool;
+        this.enabled = settings.getAsBoolean(ENABLED_SETTING, false);
+        int processors = EsExecutors.boundedNumberOfProcessors(settings);
+        ThreadPool.Info searchInfo = threadPool.info(ThreadPool.Names.SEARCH);
+        this.searchThreads = searchInfo == null ? processors : Math.max(1, searchInfo.getMax());
+
+        CircuitBreaker queryBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            queues.put(workloadClass, new WorkloadQueue(workloadClass, settings, queryBreaker, processors));
+        }
+    }
+
+    /**
+     * @return a ticket which is used by all collect phases of the given node operations,
+     *         or null if admission control is disabled
+     */
+    @Nullable
+    public Ticket ticket(UUID jobId, Iterable<? extends NodeOperation> nodeOperations, String localNodeId) {
+        if (!enabled) {
+            return null;
+        }
+        WorkloadClass workloadClass = WorkloadClass.of(nodeOperations, localNodeId, searchThreads);
+        return new Ticket(jobId, queues.get(workloadClass));
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private class WorkloadQueue {
+
+        private final WorkloadClass workloadClass;
+        private final int concurrency;
+        private final int queueSize;
+        private final TimeValue queueTimeout;
+        private final int maxThreadsPerJob;
+        private final CircuitBreaker breaker;
+
+        private final ArrayDeque<Ticket> queued = new ArrayDeque<>();
+        private int running = 0;
+
+        WorkloadQueue(WorkloadClass workloadClass, Settings settings, CircuitBreaker queryBreaker, int processors) {
+            this.workloadClass = workloadClass;
+            boolean analytical = workloadClass == WorkloadClass.ANALYTICAL;
+            // a concurrency <= 0 means unlimited
+            concurrency = settings.getAsInt(workloadClass.settingName(CONCURRENCY),
+                analytical ? Math.max(1, processors / 2) : 0);
+            queueSize = settings.getAsInt(workloadClass.settingName(QUEUE_SIZE), analytical ? 100 : 1000);
+            queueTimeout = settings.getAsTime(workloadClass.settingName(QUEUE_TIMEOUT), DEFAULT_QUEUE_TIMEOUT);
+            // all analytical jobs together may occupy at most half of the search threads
+            maxThreadsPerJob = analytical ? Math.max(1, searchThreads / 2 / Math.max(1, concurrency)) : Integer.MAX_VALUE;
+
+            String quotaSetting = workloadClass.settingName(MEMORY_QUOTA);
+            String quota = settings.get(quotaSetting, analytical ? "30%" : null);
+            if (quota == null) {
+                breaker = queryBreaker;
+            } else {
+                breaker = new QuotaCircuitBreaker(
+                    CrateCircuitBreakerService.QUERY + "." + workloadClass.name().toLowerCase(Locale.ENGLISH),
+                    settings.getAsMemory(quotaSetting, quota).bytes(),
+                    queryBreaker);
+            }
+        }
+
+        private boolean hasCapacity() {
+            return concurrency <= 0 || running < concurrency;
+        }
+
+        /**
+         * must be called while holding the lock on this queue
+         */
+        private List<Runnable> admit(Ticket ticket) {
+            running++;
+            ticket.admitted = true;
+            ticket.queued = false;
+            List<Runnable> tasks = new ArrayList<>(ticket.waiting);
+            ticket.waiting.clear();
+            return tasks;
+        }
+
+        /**
+         * must be called while holding the lock on this queue
+         */
+        private List<Runnable> admitQueued() {
+            List<Runnable> tasks = new ArrayList<>();
+            Ticket ticket;
+            while (hasCapacity() && (ticket = queued.poll()) != null) {
+                tasks.addAll(admit(ticket));
+            }
+            return tasks;
+        }
+
+        /**
+         * must be called while holding the lock on this queue
+         */
+        private void enqueue(final Ticket ticket) {
+            if (queued.size() >= queueSize) {
+                throw new EsRejectedExecutionException(String.format(Locale.ENGLISH,
+                    "Too many queued %s jobs (%d), rejecting job %s",
+                    workloadClass.name().toLowerCase(Locale.ENGLISH), queued.size(), ticket.jobId));
+            }
+            queued.add(ticket);
+            ticket.queued = true;
+            threadPool.schedule(queueTimeout, ThreadPool.Names.GENERIC, new Runnable() {
+                @Override
+                public void run() {
+                    List<Runnable> tasks;
+                    synchronized (WorkloadQueue.this) {
+                        if (!ticket.queued) {
+                            return;
+                        }
+                        queued.remove(ticket);
+                        tasks = admit(ticket);
+                    }
+                    LOGGER.debug("job {} admitted after waiting {} in the {} queue",
+                        ticket.jobId, queueTimeout, workloadClass);
+                    runAll(tasks);
+                }
+            });
+        }
+    }
+
+    /**
+     * Admission of a single job on this node.
+     *
+     * Each {@link #launch(Runnable)} must be followed by exactly one {@link #release()} once the launched
+     * operation is done. The job occupies a slot of its {@link WorkloadClass} until all its operations are released.
+     */
+    public class Ticket {
+
+        private final UUID jobId;
+        private final WorkloadQueue queue;
+        private final List<Runnable> waiting = new ArrayList<>();
+
+        private int pending = 0;
+        private boolean admitted = false;
+        private boolean queued = false;
+
+        private Ticket(UUID jobId, WorkloadQueue queue) {
+            this.jobId = jobId;
+            this.queue = queue;
+        }
+
+        public WorkloadClass workloadClass() {
+            return queue.workloadClass;
+        }
+
+        /**
+         * the breaker the memory of the job should be accounted on
+         */
+        public CircuitBreaker breaker() {
+            return queue.breaker;
+        }
+
+        /**
+         * the number of threads the collectors of the job may occupy
+         */
+        public int maxThreads() {
+            return queue.maxThreadsPerJob;
+        }
+
+        /**
+         * @return true if the job is admitted and the caller must run the task itself,
+         *         false if the task has been queued and will be run once the job is admitted
+         * @throws EsRejectedExecutionException if the queue of the workload class is full
+         */
+        public boolean launch(Runnable task) throws EsRejectedExecutionException {
+            synchronized (queue) {
+                if (admitted) {
+                    pending++;
+                    return true;
+                }
+                if (!queued) {
+                    if (queue.hasCapacity()) {
+                        queue.admit(this);
+                        pending++;
+                        return true;
+                    }
+                    queue.enqueue(this);
+                }
+                pending++;
+                waiting.add(task);
+                return false;
+            }
+        }
+
+        public void release() {
+            List<Runnable> tasks;
+            synchronized (queue) {
+                pending--;
+                if (pending > 0) {
+                    return;
+                }
+                if (queued) {
+                    // all operations got killed while waiting
+                    queue.queued.remove(this);
+                    queued = false;
+                    waiting.clear();
+                    return;
+                }
+                if (!admitted) {
+                    return;
+                }
+                admitted = false;
+                queue.running--;
+                tasks = queue.admitQueued();
+            }
+            runAll(tasks);
+        }
+
+        @Override
+        public String toString() {
+            return "Ticket{" +
+                   "jobId=" + jobId +
+                   ", class=" + queue.workloadClass +
+                   ", admitted=" + admitted +
+                   ", pending=" + pending +
+                   '}';
+        }
+    }
+}
@@ -37,16 +37,24 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Singleton
 public class JobContextService extends AbstractLifecycleComponent<JobContextService> {
 
+    private static final long PROFILE_RETENTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+
     private final ClusterService clusterService;
     private final StatsTables statsTables;
     private final ConcurrentMap<UUID, JobExecutionContext> activeContexts =
             ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
+    /**
+     * profiles of jobs executed by EXPLAIN ANALYZE, kept until the coordinator fetched them
+     */
+    private final ConcurrentMap<UUID, JobProfile> profiles = ConcurrentCollections.newConcurrentMap();
+
     private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
     private final ReentrantReadWriteLock.ReadLock readLock = rwLock.readLock();
     private final ReentrantReadWriteLock.WriteLock writeLock = rwLock.writeLock();
@@ -127,6 +135,10 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
         } finally {
             readLock.unlock();
         }
+        JobProfile profile = newContext.profile();
+        if (profile != null) {
+            registerProfile(jobId, profile);
+        }
         if (logger.isTraceEnabled()) {
             logger.trace("JobExecutionContext created for job {},  activeContexts: {}",
                     jobId, activeContexts.size());
@@ -134,6 +146,27 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
         return newContext;
     }
 
+    private void registerProfile(UUID jobId, JobProfile profile) {
+        // profiles which are never fetched (e.g. because the coordinator left) are removed eventually
+        long expired = System.nanoTime() - PROFILE_RETENTION_NANOS;
+        for (Map.Entry<UUID, JobProfile> entry : profiles.entrySet()) {
+            if (entry.getValue().finishedBefore(expired)) {
+                profiles.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        profiles.put(jobId, profile);
+    }
+
+    /**
+     * Remove and return the profile of a job.
+     *
+     * @return the profile or null if the job wasn't profiled or had no operations on this node
+     */
+    @Nullable
+    public JobProfile removeProfile(UUID jobId) {
+        return profiles.remove(jobId);
+    }
+
     public long killAll() {
         long numKilled = 0L;
         long now = System.nanoTime();
@@ -63,6 +63,8 @@ public class JobExecutionContext implements CompletionListenable {
     private final StatsTables statsTables;
     private final SettableFuture<Void> finishedFuture = SettableFuture.create();
     private final AtomicBoolean killSubContextsOngoing = new AtomicBoolean(false);
+    @Nullable
+    private final JobProfile profile;
     private CompletionListener listener = CompletionListener.NO_OP;
     private volatile Throwable failure;
 
@@ -72,6 +74,7 @@ public class JobExecutionContext implements CompletionListenable {
         private final String coordinatorNode;
         private final StatsTables statsTables;
         private final LinkedHashMap<Integer, ExecutionSubContext> subContexts = new LinkedHashMap<>();
+        private JobProfile profile;
 
         Builder(UUID jobId, String coordinatorNode, StatsTables statsTables) {
             this.jobId = jobId;
@@ -101,8 +104,22 @@ public class JobExecutionContext implements CompletionListenable {
             return jobId;
         }
 
+        /**
+         * record a {@link JobProfile} for the execution of the job
+         */
+        public void enableProfiling() {
+            if (profile == null) {
+                profile = new JobProfile();
+            }
+        }
+
+        @Nullable
+        public JobProfile profile() {
+            return profile;
+        }
+
         JobExecutionContext build() throws Exception {
-            return new JobExecutionContext(jobId, coordinatorNode, statsTables, subContexts);
+            return new JobExecutionContext(jobId, coordinatorNode, statsTables, subContexts, profile);
         }
     }
 
@@ -110,8 +127,10 @@ public class JobExecutionContext implements CompletionListenable {
     private JobExecutionContext(UUID jobId,
                                 String coordinatorNodeId,
                                 StatsTables statsTables,
-                                LinkedHashMap<Integer, ExecutionSubContext> contextMap) throws Exception {
+                                LinkedHashMap<Integer, ExecutionSubContext> contextMap,
+                                @Nullable JobProfile profile) throws Exception {
         this.coordinatorNodeId = coordinatorNodeId;
+        this.profile = profile;
         orderedContextIds = Lists.newArrayList(contextMap.keySet());
         this.jobId = jobId;
         this.statsTables = statsTables;
@@ -137,12 +156,23 @@ public class JobExecutionContext implements CompletionListenable {
         return coordinatorNodeId;
     }
 
+    /**
+     * @return the profile of the job or null if the job isn't profiled
+     */
+    @Nullable
+    public JobProfile profile() {
+        return profile;
+    }
+
     private void prepare(Map<Integer, ExecutionSubContext> contextMap) throws Exception {
 
         for (int i = 0; i < orderedContextIds.size(); i++) {
             Integer id = orderedContextIds.get(i);
             ExecutionSubContext subContext = contextMap.get(id);
             statsTables.operationStarted(id, jobId, subContext.name());
+            if (profile != null) {
+                profile.phase(id, subContext.name()).started();
+            }
             try {
                 subContext.prepare();
             } catch (Exception e) {
@@ -215,6 +245,9 @@ public class JobExecutionContext implements CompletionListenable {
     }
 
     private void finish() {
+        if (profile != null) {
+            profile.finish();
+        }
         if (failure != null) {
             listener.onFailure(failure);
         } else {
@@ -260,6 +293,9 @@ public class JobExecutionContext implements CompletionListenable {
         public void onSuccess(@Nullable CompletionState state) {
             assert state != null;
             statsTables.operationFinished(id, jobId, null, state.bytesUsed());
+            if (profile != null) {
+                profile.phase(id, null).finished(state.bytesUsed());
+            }
             remove();
         }
 
@@ -267,6 +303,9 @@ public class JobExecutionContext implements CompletionListenable {
         public void onFailure(@Nonnull Throwable t) {
             failure = t;
             statsTables.operationFinished(id, jobId, Exceptions.messageOf(t), -1);
+            if (profile != null) {
+                profile.phase(id, null).finished(-1);
+            }
             if (remove() == RemoveSubContextPosition.LAST) {
                 return;
             }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jobs;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.elasticsearch.Version;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link PhaseProfile}s of all phases of a job which are executed on this node.
+ *
+ * Only created for jobs executed by EXPLAIN ANALYZE.
+ */
+public class JobProfile {
+
+    /**
+     * nodes before this version don't profile jobs, they neither receive the profile flag of
+     * a {@link io.crate.action.job.JobRequest} nor are asked for their profiles
+     */
+    public static final Version MIN_VERSION = Version.V_2_3_3;
+
+    private final ConcurrentMap<Integer, PhaseProfile> phases = new ConcurrentHashMap<>();
+    private final SettableFuture<JobProfile> finishedFuture = SettableFuture.create();
+    private volatile long finishedTime;
+
+    /**
+     * get or create the profile of a phase
+     *
+     * @param name name of the phase, might be null if it's unknown to the caller
+     */
+    public PhaseProfile phase(int phaseId, @Nullable String name) {
+        PhaseProfile profile = phases.get(phaseId);
+        if (profile == null) {
+            profile = new PhaseProfile(phaseId, name);
+            PhaseProfile existing = phases.putIfAbsent(phaseId, profile);
+            if (existing != null) {
+                profile = existing;
+            }
+        }
+        if (name != null) {
+            profile.name(name);
+        }
+        return profile;
+    }
+
+    public Collection<PhaseProfile> phases() {
+        return phases.values();
+    }
+
+    void finish() {
+        finishedTime = System.nanoTime();
+        finishedFuture.set(this);
+    }
+
+    /**
+     * @return a future which is completed once the job has finished on this node
+     */
+    public ListenableFuture<JobProfile> finishedFuture() {
+        return finishedFuture;
+    }
+
+    boolean finishedBefore(long nanoTime) {
+        return finishedFuture.isDone() && nanoTime - finishedTime > 0;
+    }
+}
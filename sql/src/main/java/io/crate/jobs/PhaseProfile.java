@@ -0,0 +1,197 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jobs;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measurements of a single execution phase on one node, recorded if a job is profiled.
+ */
+public class PhaseProfile implements Streamable {
+
+    private int phaseId;
+    private String name;
+    private volatile long startTime = -1L;
+    private volatile long took = -1L;
+    private volatile long bytesUsed = -1L;
+    private final AtomicLong rowsIn = new AtomicLong();
+    private final AtomicLong rowsOut = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong bypassedGroupings = new AtomicLong();
+
+    PhaseProfile() {
+    }
+
+    PhaseProfile(int phaseId, @Nullable String name) {
+        this.phaseId = phaseId;
+        this.name = name;
+    }
+
+    public static PhaseProfile fromStream(StreamInput in) throws IOException {
+        PhaseProfile profile = new PhaseProfile();
+        profile.readFrom(in);
+        return profile;
+    }
+
+    public int phaseId() {
+        return phaseId;
+    }
+
+    @Nullable
+    public String name() {
+        return name;
+    }
+
+    void name(String name) {
+        if (this.name == null) {
+            this.name = name;
+        }
+    }
+
+    void started() {
+        startTime = System.nanoTime();
+    }
+
+    void finished(long bytesUsed) {
+        if (startTime > -1L) {
+            took = System.nanoTime() - startTime;
+        }
+        this.bytesUsed = bytesUsed;
+    }
+
+    /**
+     * called for every row the phase emits to its downstream
+     */
+    public void rowOut() {
+        rowsOut.incrementAndGet();
+    }
+
+    /**
+     * called for every page the phase receives from its upstreams
+     *
+     * @param numRows number of rows of the page
+     * @param numBytes size of the page in bytes if it was received from another node, otherwise 0
+     */
+    public void pageReceived(int numRows, long numBytes) {
+        rowsIn.addAndGet(numRows);
+        bytesReceived.addAndGet(numBytes);
+    }
+
+    public void paused() {
+        pauses.incrementAndGet();
+    }
+
+    /**
+     * called if a grouping of the phase passes its rows through instead of aggregating them
+     * because they hardly reduce the number of rows
+     */
+    public void groupingBypassed() {
+        bypassedGroupings.incrementAndGet();
+    }
+
+    /**
+     * @return the duration from preparing to closing the phase in milliseconds or -1 if unknown
+     */
+    public double took() {
+        long took = this.took;
+        return took < 0 ? -1 : took / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long rowsIn() {
+        return rowsIn.get();
+    }
+
+    public long rowsOut() {
+        return rowsOut.get();
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * @return the bytes accounted on the circuit breaker by the phase or -1 if unknown
+     */
+    public long bytesUsed() {
+        return bytesUsed;
+    }
+
+    public long pauses() {
+        return pauses.get();
+    }
+
+    public long bypassedGroupings() {
+        return bypassedGroupings.get();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("took", took());
+        map.put("rows_in", rowsIn());
+        map.put("rows_out", rowsOut());
+        map.put("bytes_received", bytesReceived());
+        map.put("bytes_used", bytesUsed());
+        map.put("pauses", pauses());
+        map.put("bypassed_groupings", bypassedGroupings());
+        return map;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        phaseId = in.readVInt();
+        name = in.readOptionalString();
+        took = in.readLong();
+        bytesUsed = in.readLong();
+        if (in.getVersion().onOrAfter(JobProfile.MIN_VERSION)) {
+            rowsIn.set(in.readVLong());
+            rowsOut.set(in.readVLong());
+            bytesReceived.set(in.readVLong());
+            pauses.set(in.readVLong());
+            bypassedGroupings.set(in.readVLong());
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(phaseId);
+        out.writeOptionalString(name);
+        out.writeLong(took);
+        out.writeLong(bytesUsed);
+        if (out.getVersion().onOrAfter(JobProfile.MIN_VERSION)) {
+            out.writeVLong(rowsIn.get());
+            out.writeVLong(rowsOut.get());
+            out.writeVLong(bytesReceived.get());
+            out.writeVLong(pauses.get());
+            out.writeVLong(bypassedGroupings.get());
+        }
+    }
+}
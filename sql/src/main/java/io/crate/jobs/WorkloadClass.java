@@ -0,0 +1,101 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jobs;
+
+import io.crate.metadata.RowGranularity;
+import io.crate.operation.NodeOperation;
+import io.crate.planner.node.ExecutionPhase;
+import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.Projection;
+
+import java.util.Locale;
+
+/**
+ * Classification of jobs by their estimated cost, used by the {@link AdmissionController}
+ * to run cheap and expensive jobs with separate limits.
+ */
+public enum WorkloadClass {
+
+    /**
+     * lookups and small scans which should be served with low latency
+     */
+    INTERACTIVE,
+
+    /**
+     * aggregations, large scans and bulk operations
+     */
+    ANALYTICAL;
+
+    /**
+     * a collect phase which has to provide more rows than this per node is considered analytical
+     */
+    static final int INTERACTIVE_MAX_ROWS = 1000;
+
+    /**
+     * @param maxShards number of local shards that can still be collected in parallel,
+     *                  collect phases with a larger fan-out are considered analytical
+     * @return {@link #ANALYTICAL} if any of the node operations is an analytical collect phase on this node
+     */
+    public static WorkloadClass of(Iterable<? extends NodeOperation> nodeOperations, String localNodeId, int maxShards) {
+        for (NodeOperation nodeOperation : nodeOperations) {
+            ExecutionPhase phase = nodeOperation.executionPhase();
+            if (phase instanceof RoutedCollectPhase
+                && of((RoutedCollectPhase) phase, localNodeId, maxShards) == ANALYTICAL) {
+                return ANALYTICAL;
+            }
+        }
+        return INTERACTIVE;
+    }
+
+    static WorkloadClass of(RoutedCollectPhase phase, String localNodeId, int maxShards) {
+        if (phase.maxRowGranularity() != RowGranularity.DOC) {
+            return INTERACTIVE;
+        }
+        for (Projection projection : phase.projections()) {
+            switch (projection.projectionType()) {
+                case GROUP:
+                case AGGREGATION:
+                case WRITER:
+                case INDEX_WRITER:
+                case COLUMN_INDEX_WRITER:
+                case UPDATE:
+                case DELETE:
+                    return ANALYTICAL;
+            }
+        }
+        if (phase.whereClause().docKeys().isPresent()) {
+            return INTERACTIVE;
+        }
+        Integer nodePageSizeHint = phase.nodePageSizeHint();
+        if (nodePageSizeHint == null || nodePageSizeHint > INTERACTIVE_MAX_ROWS) {
+            return ANALYTICAL;
+        }
+        if (phase.routing().numShards(localNodeId) > maxShards) {
+            return ANALYTICAL;
+        }
+        return INTERACTIVE;
+    }
+
+    public String settingName(String name) {
+        return "sql.admission." + name().toLowerCase(Locale.ENGLISH) + "." + name;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.columncache;
+
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The terms dictionary of a segment in a direct buffer: the start offsets of all terms followed by their bytes.
+ */
+final class CachedTerms implements Accountable {
+
+    private final int valueCount;
+    private final int termsOffset;
+    private final ByteBuffer data;
+
+    private CachedTerms(int valueCount, int termsOffset, ByteBuffer data) {
+        this.valueCount = valueCount;
+        this.termsOffset = termsOffset;
+        this.data = data;
+    }
+
+    /**
+     * @return the copied dictionary or null if it is too large
+     */
+    @Nullable
+    static CachedTerms build(SortedSetDocValues values) {
+        long valueCount = values.getValueCount();
+        long termBytes = 0;
+        for (long ord = 0; ord < valueCount; ord++) {
+            termBytes += values.lookupOrd(ord).length;
+        }
+        long termsOffset = (valueCount + 1) * 4;
+        if (termsOffset + termBytes > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.allocateDirect((int) (termsOffset + termBytes)).order(ByteOrder.nativeOrder());
+        ByteBuffer terms = data.duplicate();
+        terms.position((int) termsOffset);
+        int position = 0;
+        for (int ord = 0; ord < valueCount; ord++) {
+            BytesRef term = values.lookupOrd(ord);
+            data.putInt(ord * 4, position);
+            terms.put(term.bytes, term.offset, term.length);
+            position += term.length;
+        }
+        data.putInt((int) valueCount * 4, position);
+        return new CachedTerms((int) valueCount, (int) termsOffset, data);
+    }
+
+    int valueCount() {
+        return valueCount;
+    }
+
+    /**
+     * @return a view of the dictionary for {@link #lookup(ByteBuffer, int, BytesRefBuilder)}, not thread safe
+     */
+    ByteBuffer reader() {
+        return data.duplicate();
+    }
+
+    /**
+     * copies the term of the ordinal into the given builder
+     */
+    BytesRef lookup(ByteBuffer reader, int ord, BytesRefBuilder builder) {
+        int start = data.getInt(ord * 4);
+        int length = data.getInt((ord + 1) * 4) - start;
+        builder.grow(length);
+        reader.position(termsOffset + start);
+        reader.get(builder.bytes(), 0, length);
+        builder.setLength(length);
+        return builder.get();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return data.capacity();
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+}
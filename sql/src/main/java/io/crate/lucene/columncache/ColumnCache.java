@@ -0,0 +1,497 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.columncache;
+
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.settings.CrateTableSettings;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node wide cache of the numeric and string doc values of the most recent partitions of tables
+ * which enable it with the <code>column_cache.partitions</code> table setting.
+ *
+ * The columns are copied per segment into compressed direct buffers the first time they are read.
+ * Segments survive refreshes, so a new reader only needs to load the columns of its new segments,
+ * the entries of a segment are dropped once it is closed.
+ * Segments with multi valued documents aren't cached, reads fall back to the field data.
+ *
+ * The size limits the off-heap memory used by the cache, a percentage is relative to the
+ * maximum direct memory of the JVM.
+ */
+@Singleton
+public class ColumnCache {
+
+    public static final String SIZE_SETTING = "indices.column_cache.size";
+    public static final String DEFAULT_SIZE = "10%";
+
+    private static final int NUM_SEGMENTS = 16;
+
+    /**
+     * stored for columns which can't be cached so that they aren't scanned again on every read
+     */
+    private static final Entry NOT_CACHEABLE = new Entry(null, null);
+
+    private enum Kind {
+        LONG,
+        DOUBLE,
+        ORDINALS
+    }
+
+    private final long size;
+    private final Segment[] segments;
+    private final Set<Object> cores = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    private final LeafReader.CoreClosedListener coreClosedListener = new LeafReader.CoreClosedListener() {
+        @Override
+        public void onClose(Object ownerCoreCacheKey) {
+            cores.remove(ownerCoreCacheKey);
+            for (Segment segment : segments) {
+                segment.removeCore(ownerCoreCacheKey);
+            }
+        }
+    };
+
+    private volatile HotIndices hotIndices = new HotIndices(-1L);
+
+    @Inject
+    public ColumnCache(Settings settings) {
+        this.size = parseSize(settings.get(SIZE_SETTING, DEFAULT_SIZE), maxDirectMemory());
+        this.segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment(size / NUM_SEGMENTS);
+        }
+    }
+
+    private static long maxDirectMemory() {
+        long maxDirectMemory = JvmInfo.jvmInfo().getMem().getDirectMemoryMax().bytes();
+        // without -XX:MaxDirectMemorySize the JVM limits the direct memory to the max heap size
+        return maxDirectMemory > 0 ? maxDirectMemory : JvmInfo.jvmInfo().getMem().getHeapMax().bytes();
+    }
+
+    static long parseSize(String size, long maxDirectMemory) {
+        if (size.endsWith("%")) {
+            double percent = Double.parseDouble(size.substring(0, size.length() - 1));
+            return (long) (maxDirectMemory * (percent / 100.0));
+        }
+        return ByteSizeValue.parseBytesSizeValue(size, SIZE_SETTING).bytes();
+    }
+
+    public boolean enabled() {
+        return size > 0;
+    }
+
+    /**
+     * @return true if the columns of the index should be read through the cache.
+     *         This is the case if the table enables the cache and the index is one of its latest partitions.
+     */
+    public boolean cachesIndex(String index, MetaData metaData) {
+        if (!enabled()) {
+            return false;
+        }
+        HotIndices hotIndices = this.hotIndices;
+        if (hotIndices.version != metaData.version()) {
+            hotIndices = new HotIndices(metaData.version());
+            this.hotIndices = hotIndices;
+        }
+        Boolean hot = hotIndices.indices.get(index);
+        if (hot == null) {
+            hot = isHot(index, metaData);
+            hotIndices.indices.put(index, hot);
+        }
+        return hot;
+    }
+
+    static boolean isHot(String index, MetaData metaData) {
+        IndexMetaData indexMetaData = metaData.index(index);
+        if (indexMetaData == null) {
+            return false;
+        }
+        int partitions = CrateTableSettings.COLUMN_CACHE_PARTITIONS.extract(indexMetaData.getSettings());
+        if (partitions <= 0) {
+            return false;
+        }
+        if (!PartitionName.isPartition(index)) {
+            return true;
+        }
+        PartitionName partitionName = PartitionName.fromIndexOrTemplate(index);
+        String templateName = PartitionName.templateName(
+            partitionName.tableIdent().schema(), partitionName.tableIdent().name());
+        long creationDate = indexMetaData.getCreationDate();
+        int newer = 0;
+        for (IndexMetaData other : metaData) {
+            String otherIndex = other.getIndex();
+            if (otherIndex.equals(index) || !otherIndex.startsWith(templateName)) {
+                continue;
+            }
+            if (other.getCreationDate() > creationDate
+                || (other.getCreationDate() == creationDate && otherIndex.compareTo(index) > 0)) {
+                newer++;
+                if (newer >= partitions) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the values of a numeric column which are read as longs
+     */
+    public SortedNumericDocValues longValues(LeafReaderContext context, String column, IndexNumericFieldData fieldData) {
+        Key key = new Key(context.reader().getCoreCacheKey(), column, Kind.LONG);
+        Entry entry = segment(key).get(key);
+        if (entry == null) {
+            final SortedNumericDocValues values = fieldData.load(context).getLongValues();
+            PackedColumn packedColumn = PackedColumn.build(new PackedColumn.Source() {
+                @Override
+                public int count(int doc) {
+                    values.setDocument(doc);
+                    return values.count();
+                }
+
+                @Override
+                public long value(int doc) {
+                    return values.valueAt(0);
+                }
+            }, context.reader().maxDoc());
+            entry = put(context.reader(), key, packedColumn, null);
+        }
+        if (entry == NOT_CACHEABLE) {
+            return fieldData.load(context).getLongValues();
+        }
+        return new CachedLongValues(entry.column);
+    }
+
+    /**
+     * @return the values of a numeric column which are read as doubles
+     */
+    public SortedNumericDoubleValues doubleValues(LeafReaderContext context, String column, IndexNumericFieldData fieldData) {
+        Key key = new Key(context.reader().getCoreCacheKey(), column, Kind.DOUBLE);
+        Entry entry = segment(key).get(key);
+        if (entry == null) {
+            final SortedNumericDoubleValues values = fieldData.load(context).getDoubleValues();
+            PackedColumn packedColumn = PackedColumn.build(new PackedColumn.Source() {
+                @Override
+                public int count(int doc) {
+                    values.setDocument(doc);
+                    return values.count();
+                }
+
+                @Override
+                public long value(int doc) {
+                    return NumericUtils.doubleToSortableLong(values.valueAt(0));
+                }
+            }, context.reader().maxDoc());
+            entry = put(context.reader(), key, packedColumn, null);
+        }
+        if (entry == NOT_CACHEABLE) {
+            return fieldData.load(context).getDoubleValues();
+        }
+        return new CachedDoubleValues(entry.column);
+    }
+
+    /**
+     * @return the segment ordinals of a string column
+     */
+    public RandomAccessOrds ordinalsValues(LeafReaderContext context, String column, IndexOrdinalsFieldData fieldData) {
+        Key key = new Key(context.reader().getCoreCacheKey(), column, Kind.ORDINALS);
+        Entry entry = segment(key).get(key);
+        if (entry == null) {
+            final RandomAccessOrds values = fieldData.load(context).getOrdinalsValues();
+            PackedColumn packedColumn = PackedColumn.build(new PackedColumn.Source() {
+                @Override
+                public int count(int doc) {
+                    values.setDocument(doc);
+                    return values.cardinality();
+                }
+
+                @Override
+                public long value(int doc) {
+                    return values.ordAt(0);
+                }
+            }, context.reader().maxDoc());
+            CachedTerms terms = packedColumn == null ? null : CachedTerms.build(values);
+            entry = put(context.reader(), key, terms == null ? null : packedColumn, terms);
+        }
+        if (entry == NOT_CACHEABLE) {
+            return fieldData.load(context).getOrdinalsValues();
+        }
+        return new CachedOrdinals(entry.column, entry.terms);
+    }
+
+    /**
+     * @return the bytes used by cached columns
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Segment segment : segments) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    private Entry put(LeafReader reader, Key key, @Nullable PackedColumn column, @Nullable CachedTerms terms) {
+        Entry entry = column == null ? NOT_CACHEABLE : new Entry(column, terms);
+        if (cores.add(key.core)) {
+            reader.addCoreClosedListener(coreClosedListener);
+        }
+        // a column which would evict everything else is used for this read only
+        segment(key).put(key, entry.bytes() > size / NUM_SEGMENTS ? NOT_CACHEABLE : entry);
+        return entry;
+    }
+
+    private Segment segment(Key key) {
+        return segments[(key.hashCode() & 0x7fffffff) % NUM_SEGMENTS];
+    }
+
+    private static class HotIndices {
+        private final long version;
+        private final Map<String, Boolean> indices = new ConcurrentHashMap<>();
+
+        HotIndices(long version) {
+            this.version = version;
+        }
+    }
+
+    private static class Key {
+        private final Object core;
+        private final String column;
+        private final Kind kind;
+
+        Key(Object core, String column, Kind kind) {
+            this.core = core;
+            this.column = column;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return core.equals(key.core) && column.equals(key.column) && kind == key.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = core.hashCode();
+            result = 31 * result + column.hashCode();
+            result = 31 * result + kind.hashCode();
+            return result;
+        }
+    }
+
+    private static class Entry {
+        private final PackedColumn column;
+        private final CachedTerms terms;
+
+        Entry(PackedColumn column, CachedTerms terms) {
+            this.column = column;
+            this.terms = terms;
+        }
+
+        long bytes() {
+            long bytes = column == null ? 0L : column.ramBytesUsed();
+            return terms == null ? bytes : bytes + terms.ramBytesUsed();
+        }
+    }
+
+    private static class Segment {
+
+        private final long capacity;
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long usedBytes = 0;
+
+        Segment(long capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized Entry get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                usedBytes -= previous.bytes();
+            }
+            usedBytes += entry.bytes();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (usedBytes > capacity && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                usedBytes -= eldest.bytes();
+            }
+        }
+
+        synchronized void removeCore(Object core) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> entry = it.next();
+                if (entry.getKey().core.equals(core)) {
+                    it.remove();
+                    usedBytes -= entry.getValue().bytes();
+                }
+            }
+        }
+
+        synchronized long usedBytes() {
+            return usedBytes;
+        }
+    }
+
+    private static class CachedLongValues extends SortedNumericDocValues {
+
+        private final PackedColumn column;
+        private int doc;
+        private int count;
+
+        CachedLongValues(PackedColumn column) {
+            this.column = column;
+        }
+
+        @Override
+        public void setDocument(int doc) {
+            this.doc = doc;
+            count = column.exists(doc) ? 1 : 0;
+        }
+
+        @Override
+        public long valueAt(int index) {
+            return column.get(doc);
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+    }
+
+    private static class CachedDoubleValues extends SortedNumericDoubleValues {
+
+        private final PackedColumn column;
+        private int doc;
+        private int count;
+
+        CachedDoubleValues(PackedColumn column) {
+            this.column = column;
+        }
+
+        @Override
+        public void setDocument(int doc) {
+            this.doc = doc;
+            count = column.exists(doc) ? 1 : 0;
+        }
+
+        @Override
+        public double valueAt(int index) {
+            return NumericUtils.sortableLongToDouble(column.get(doc));
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+    }
+
+    private static class CachedOrdinals extends RandomAccessOrds {
+
+        private final PackedColumn column;
+        private final CachedTerms terms;
+        private final ByteBuffer termsReader;
+        private final BytesRefBuilder term = new BytesRefBuilder();
+        private long ord;
+        private int cardinality;
+        private int nextIndex;
+
+        CachedOrdinals(PackedColumn column, CachedTerms terms) {
+            this.column = column;
+            this.terms = terms;
+            this.termsReader = terms.reader();
+        }
+
+        @Override
+        public void setDocument(int docID) {
+            if (column.exists(docID)) {
+                cardinality = 1;
+                ord = column.get(docID);
+            } else {
+                cardinality = 0;
+                ord = NO_MORE_ORDS;
+            }
+            nextIndex = 0;
+        }
+
+        @Override
+        public long nextOrd() {
+            if (nextIndex < cardinality) {
+                nextIndex++;
+                return ord;
+            }
+            return NO_MORE_ORDS;
+        }
+
+        @Override
+        public long ordAt(int index) {
+            return ord;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public BytesRef lookupOrd(long ord) {
+            return terms.lookup(termsReader, (int) ord, term);
+        }
+
+        @Override
+        public long getValueCount() {
+            return terms.valueCount();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.columncache;
+
+import org.apache.lucene.util.Accountable;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The single valued column of a segment, stored frame of reference encoded in a direct buffer.
+ *
+ * Every document takes 0, 1, 2, 4 or 8 bytes depending on the range between the smallest and the
+ * largest value of the segment. Documents without a value are marked in a bitmap which is only
+ * allocated if there are any.
+ */
+final class PackedColumn implements Accountable {
+
+    interface Source {
+
+        /**
+         * @return the number of values of the document
+         */
+        int count(int doc);
+
+        /**
+         * @return the value of the document, only called if {@link #count(int)} returned 1
+         */
+        long value(int doc);
+    }
+
+    private final long min;
+    private final int bytesPerValue;
+    private final boolean hasMissing;
+    private final int valuesOffset;
+    private final ByteBuffer data;
+
+    private PackedColumn(long min, int bytesPerValue, boolean hasMissing, int valuesOffset, ByteBuffer data) {
+        this.min = min;
+        this.bytesPerValue = bytesPerValue;
+        this.hasMissing = hasMissing;
+        this.valuesOffset = valuesOffset;
+        this.data = data;
+    }
+
+    /**
+     * @return the packed column or null if a document has more than one value or the column is too large
+     */
+    @Nullable
+    static PackedColumn build(Source source, int maxDoc) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        boolean hasMissing = false;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            switch (source.count(doc)) {
+                case 0:
+                    hasMissing = true;
+                    break;
+                case 1:
+                    long value = source.value(doc);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        if (min > max) {
+            // no values at all
+            min = max = 0L;
+        }
+        int bytesPerValue = bytesPerValue(max - min);
+        int bitmapBytes = hasMissing ? ((maxDoc + 63) >>> 6) << 3 : 0;
+        long size = bitmapBytes + (long) maxDoc * bytesPerValue;
+        if (size > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (source.count(doc) == 0) {
+                int word = (doc >>> 6) << 3;
+                data.putLong(word, data.getLong(word) | (1L << doc));
+                continue;
+            }
+            long delta = source.value(doc) - min;
+            int offset = bitmapBytes + doc * bytesPerValue;
+            switch (bytesPerValue) {
+                case 0:
+                    break;
+                case 1:
+                    data.put(offset, (byte) delta);
+                    break;
+                case 2:
+                    data.putShort(offset, (short) delta);
+                    break;
+                case 4:
+                    data.putInt(offset, (int) delta);
+                    break;
+                default:
+                    data.putLong(offset, delta);
+            }
+        }
+        return new PackedColumn(min, bytesPerValue, hasMissing, bitmapBytes, data);
+    }
+
+    /**
+     * @param range the difference between max and min, interpreted as unsigned
+     */
+    static int bytesPerValue(long range) {
+        if (range == 0) {
+            return 0;
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(range);
+        if (bits <= 8) {
+            return 1;
+        }
+        if (bits <= 16) {
+            return 2;
+        }
+        if (bits <= 32) {
+            return 4;
+        }
+        return 8;
+    }
+
+    boolean exists(int doc) {
+        return !hasMissing || (data.getLong((doc >>> 6) << 3) & (1L << doc)) == 0;
+    }
+
+    /**
+     * @return the value of the document, undefined if {@link #exists(int)} is false
+     */
+    long get(int doc) {
+        int offset = valuesOffset + doc * bytesPerValue;
+        switch (bytesPerValue) {
+            case 0:
+                return min;
+            case 1:
+                return min + (data.get(offset) & 0xFFL);
+            case 2:
+                return min + (data.getShort(offset) & 0xFFFFL);
+            case 4:
+                return min + (data.getInt(offset) & 0xFFFFFFFFL);
+            default:
+                return min + data.getLong(offset);
+        }
+    }
+
+    int bytesPerValue() {
+        return bytesPerValue;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return data.capacity();
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import java.io.IOException;
+
+/**
+ * min/max and null statistics of a single column of a shard.
+ *
+ * The bounds are encoded as sortable longs (see {@link ZoneMaps#encode}), so
+ * the values of all supported types can be compared the same way.
+ * The counts include deleted documents which haven't been merged away yet, so the
+ * zone may be wider than the live values, but never narrower.
+ */
+public class ColumnZone implements Streamable {
+
+    private long min;
+    private long max;
+    private int docCount;
+    private int maxDoc;
+
+    public ColumnZone() {
+    }
+
+    public ColumnZone(long min, long max, int docCount, int maxDoc) {
+        this.min = min;
+        this.max = max;
+        this.docCount = docCount;
+        this.maxDoc = maxDoc;
+    }
+
+    /**
+     * zone of a column without any values in the shard
+     */
+    public static ColumnZone noValues(int maxDoc) {
+        return new ColumnZone(Long.MAX_VALUE, Long.MIN_VALUE, 0, maxDoc);
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public boolean hasValues() {
+        return docCount > 0;
+    }
+
+    /**
+     * upper bound of the number of documents without a value
+     */
+    public int nullCount() {
+        return maxDoc - docCount;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        min = in.readLong();
+        max = in.readLong();
+        docCount = in.readVInt();
+        maxDoc = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeVInt(docCount);
+        out.writeVInt(maxDoc);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnZone{min=" + min + ", max=" + max + ", docCount=" + docCount + ", maxDoc=" + maxDoc + '}';
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import com.google.common.base.Throwables;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Reference;
+import io.crate.types.DataType;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.IndicesService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@link ColumnZone}s of the shards of this node.
+ *
+ * The zones of a shard are computed lazily per column and cached until the reader of the shard changes.
+ */
+@Singleton
+public class ShardZoneMaps {
+
+    private final ConcurrentMap<ShardId, ReaderZones> shardZones = new ConcurrentHashMap<>();
+
+    @Inject
+    public ShardZoneMaps(IndicesService indicesService) {
+        indicesService.indicesLifecycle().addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void afterIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
+                shardZones.remove(shardId);
+            }
+        });
+    }
+
+    /**
+     * @return false if no document visible to the searcher can match the where clause
+     */
+    public boolean canMatch(ShardId shardId, Engine.Searcher searcher, WhereClause whereClause) {
+        if (!whereClause.hasQuery()) {
+            return true;
+        }
+        return ZoneMapPredicate.canMatch(whereClause.query(), zones(shardId, searcher));
+    }
+
+    public ZoneMapPredicate.Zones zones(ShardId shardId, Engine.Searcher searcher) {
+        final IndexReader reader = searcher.reader();
+        final ReaderZones readerZones = readerZones(shardId, reader);
+        return new ZoneMapPredicate.Zones() {
+            @Override
+            public ColumnZone zone(Reference reference) {
+                return readerZones.zone(reader, reference.info().ident().columnIdent().fqn(), reference.valueType());
+            }
+        };
+    }
+
+    /**
+     * @return the zone of the column or null if it can't be determined
+     */
+    @Nullable
+    public ColumnZone zone(ShardId shardId, Engine.Searcher searcher, String column, DataType type) {
+        IndexReader reader = searcher.reader();
+        return readerZones(shardId, reader).zone(reader, column, type);
+    }
+
+    /**
+     * @return the version of the reader of the searcher, -1 if it isn't versioned
+     */
+    public static long readerVersion(Engine.Searcher searcher) {
+        IndexReader reader = searcher.reader();
+        if (reader instanceof DirectoryReader) {
+            return ((DirectoryReader) reader).getVersion();
+        }
+        return -1L;
+    }
+
+    private ReaderZones readerZones(ShardId shardId, IndexReader reader) {
+        if (!(reader instanceof DirectoryReader)) {
+            return new ReaderZones(-1L);
+        }
+        long version = ((DirectoryReader) reader).getVersion();
+        ReaderZones zones = shardZones.get(shardId);
+        if (zones == null || zones.version != version) {
+            zones = new ReaderZones(version);
+            shardZones.put(shardId, zones);
+        }
+        return zones;
+    }
+
+    private static class ReaderZones {
+
+        private final long version;
+        private final Map<String, ColumnZone> columns = new ConcurrentHashMap<>();
+
+        ReaderZones(long version) {
+            this.version = version;
+        }
+
+        @Nullable
+        ColumnZone zone(IndexReader reader, String column, DataType type) {
+            ColumnZone zone = columns.get(column);
+            if (zone == null) {
+                try {
+                    zone = ZoneMaps.compute(reader, column, type);
+                } catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+                if (zone != null) {
+                    columns.put(column, zone);
+                }
+            }
+            return zone;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import io.crate.executor.transport.DefaultTransportResponseHandler;
+import io.crate.executor.transport.NodeAction;
+import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.executor.transport.Transports;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.indexing.IndexingStats;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Retrieves the {@link ColumnZone}s of a shard of a write blocked index from a node holding a copy of it.
+ *
+ * The zones are only computed once the block is visible on the node and no indexing operation
+ * is running on the shard. The shard is refreshed before, so that the zones cover every document
+ * the shard will ever contain while the block is in place. The version of the reader the zones were
+ * computed from is returned with them, so that zones of different readers are never combined.
+ */
+@Singleton
+public class TransportZoneMapAction implements NodeAction<ZoneMapRequest, ZoneMapResponse> {
+
+    private static final String ACTION_NAME = "crate/sql/shard/zone_map";
+
+    private final ClusterService clusterService;
+    private final Transports transports;
+    private final IndicesService indicesService;
+    private final ShardZoneMaps shardZoneMaps;
+
+    @Inject
+    public TransportZoneMapAction(ClusterService clusterService,
+                                  TransportService transportService,
+                                  Transports transports,
+                                  IndicesService indicesService,
+                                  ShardZoneMaps shardZoneMaps) {
+        this.clusterService = clusterService;
+        this.transports = transports;
+        this.indicesService = indicesService;
+        this.shardZoneMaps = shardZoneMaps;
+        transportService.registerRequestHandler(ACTION_NAME,
+                ZoneMapRequest.class,
+                ThreadPool.Names.SEARCH,
+                new NodeActionRequestHandler<ZoneMapRequest, ZoneMapResponse>(this) { });
+    }
+
+    public void execute(String targetNode, ZoneMapRequest request, ActionListener<ZoneMapResponse> listener) {
+        transports.sendRequest(ACTION_NAME, targetNode, request, listener,
+            new DefaultTransportResponseHandler<ZoneMapResponse>(listener) {
+                @Override
+                public ZoneMapResponse newInstance() {
+                    return new ZoneMapResponse();
+                }
+            });
+    }
+
+    @Override
+    public void nodeOperation(ZoneMapRequest request, ActionListener<ZoneMapResponse> listener) {
+        Map<String, ColumnZone> zones;
+        long readerVersion;
+        try {
+            String index = request.shardId().getIndex();
+            if (!clusterService.state().blocks().indexBlocked(ClusterBlockLevel.WRITE, index)) {
+                throw new IllegalStateException(String.format(Locale.ENGLISH,
+                    "zones of %s are only provided while the index is write blocked", request.shardId()));
+            }
+            IndexShard indexShard = indicesService.indexServiceSafe(index).shardSafe(request.shardId().id());
+            IndexingStats.Stats indexing = indexShard.indexingStats().getTotal();
+            if (indexing.getIndexCurrent() > 0 || indexing.getDeleteCurrent() > 0) {
+                throw new IllegalStateException(String.format(Locale.ENGLISH,
+                    "%s has running indexing operations", request.shardId()));
+            }
+            indexShard.refresh("zone-map");
+            try (Engine.Searcher searcher = indexShard.acquireSearcher("zone-map")) {
+                readerVersion = ShardZoneMaps.readerVersion(searcher);
+                List<String> columns = request.columns();
+                zones = new HashMap<>(columns.size());
+                for (int i = 0; i < columns.size(); i++) {
+                    ColumnZone zone = shardZoneMaps.zone(
+                        request.shardId(), searcher, columns.get(i), request.types().get(i));
+                    if (zone != null) {
+                        zones.put(columns.get(i), zone);
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            listener.onFailure(t);
+            return;
+        }
+        listener.onResponse(new ZoneMapResponse(readerVersion, zones));
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Reference;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitor;
+import io.crate.operation.operator.*;
+import io.crate.operation.predicate.IsNullPredicate;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides whether a shard may contain rows matching a query using the {@link ColumnZone}s of the shard.
+ *
+ * Only AND, OR, comparisons and IN between a column and a literal, and IS NULL are taken into account.
+ * Any other expression is assumed to possibly match.
+ */
+public class ZoneMapPredicate {
+
+    public interface Zones {
+
+        /**
+         * @return the zone of the column or null if it is unknown
+         */
+        @Nullable
+        ColumnZone zone(Reference reference);
+    }
+
+    private static final Set<String> COMPARISONS = ImmutableSet.of(
+        EqOperator.NAME, GtOperator.NAME, GteOperator.NAME, LtOperator.NAME, LteOperator.NAME, InOperator.NAME);
+
+    private static final Visitor VISITOR = new Visitor();
+    private static final ReferenceCollector REFERENCE_COLLECTOR = new ReferenceCollector();
+
+    private ZoneMapPredicate() {
+    }
+
+    /**
+     * @return false if no row of the shard the zones belong to can match the query
+     */
+    public static boolean canMatch(Symbol query, Zones zones) {
+        return VISITOR.process(query, zones);
+    }
+
+    /**
+     * @return the references of the query {@link #canMatch(Symbol, Zones)} would look up zones for
+     */
+    public static Set<Reference> references(Symbol query) {
+        Set<Reference> references = new HashSet<>();
+        REFERENCE_COLLECTOR.process(query, references);
+        return references;
+    }
+
+    private static class Visitor extends SymbolVisitor<Zones, Boolean> {
+
+        @Override
+        public Boolean visitFunction(Function function, Zones zones) {
+            String name = function.info().ident().name();
+            List<Symbol> arguments = function.arguments();
+            switch (name) {
+                case AndOperator.NAME:
+                    for (Symbol argument : arguments) {
+                        if (!process(argument, zones)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                case OrOperator.NAME:
+                    for (Symbol argument : arguments) {
+                        if (process(argument, zones)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case IsNullPredicate.NAME:
+                    ColumnZone zone = zone(arguments.get(0), zones);
+                    return zone == null || zone.nullCount() > 0;
+                default:
+                    return canMatchComparison(name, arguments, zones);
+            }
+        }
+
+        private static boolean canMatchComparison(String name, List<Symbol> arguments, Zones zones) {
+            if (!COMPARISONS.contains(name) || arguments.size() != 2) {
+                return true;
+            }
+            Symbol left = arguments.get(0);
+            Symbol right = arguments.get(1);
+            if (right instanceof Reference && left instanceof Literal) {
+                name = swapOperator(name);
+                Symbol tmp = left;
+                left = right;
+                right = tmp;
+            }
+            if (name == null || !(right instanceof Literal)) {
+                return true;
+            }
+            ColumnZone zone = zone(left, zones);
+            if (zone == null) {
+                return true;
+            }
+            Literal literal = (Literal) right;
+            if (name.equals(InOperator.NAME)) {
+                if (!DataTypes.isCollectionType(literal.valueType())) {
+                    return true;
+                }
+                Collection<Literal> values = Literal.explodeCollection(literal);
+                for (Literal value : values) {
+                    if (canMatchComparison(EqOperator.NAME, left, value, zone)) {
+                        return true;
+                    }
+                }
+                return values.isEmpty();
+            }
+            return canMatchComparison(name, left, literal, zone);
+        }
+
+        private static boolean canMatchComparison(String name, Symbol column, Literal literal, ColumnZone zone) {
+            if (!literal.valueType().equals(column.valueType())) {
+                return true;
+            }
+            Long value = ZoneMaps.encode(column.valueType(), literal.value());
+            if (value == null) {
+                return true;
+            }
+            if (!zone.hasValues()) {
+                return false;
+            }
+            switch (name) {
+                case EqOperator.NAME:
+                    return zone.min() <= value && value <= zone.max();
+                case GtOperator.NAME:
+                    return zone.max() > value;
+                case GteOperator.NAME:
+                    return zone.max() >= value;
+                case LtOperator.NAME:
+                    return zone.min() < value;
+                case LteOperator.NAME:
+                    return zone.min() <= value;
+                default:
+                    return true;
+            }
+        }
+
+        @Nullable
+        private static String swapOperator(String name) {
+            switch (name) {
+                case EqOperator.NAME:
+                    return EqOperator.NAME;
+                case GtOperator.NAME:
+                    return LtOperator.NAME;
+                case GteOperator.NAME:
+                    return LteOperator.NAME;
+                case LtOperator.NAME:
+                    return GtOperator.NAME;
+                case LteOperator.NAME:
+                    return GteOperator.NAME;
+                default:
+                    return null;
+            }
+        }
+
+        @Nullable
+        private static ColumnZone zone(Symbol symbol, Zones zones) {
+            if (symbol instanceof Reference && ZoneMaps.supports((Reference) symbol)) {
+                return zones.zone((Reference) symbol);
+            }
+            return null;
+        }
+
+        @Override
+        protected Boolean visitSymbol(Symbol symbol, Zones zones) {
+            return true;
+        }
+    }
+
+    private static class ReferenceCollector extends SymbolVisitor<Set<Reference>, Void> {
+
+        @Override
+        public Void visitFunction(Function function, Set<Reference> references) {
+            switch (function.info().ident().name()) {
+                case AndOperator.NAME:
+                case OrOperator.NAME:
+                    for (Symbol argument : function.arguments()) {
+                        process(argument, references);
+                    }
+                    break;
+                case IsNullPredicate.NAME:
+                    addSupported(function.arguments(), references);
+                    break;
+                default:
+                    if (COMPARISONS.contains(function.info().ident().name())) {
+                        addSupported(function.arguments(), references);
+                    }
+            }
+            return null;
+        }
+
+        private static void addSupported(List<Symbol> arguments, Set<Reference> references) {
+            for (Symbol argument : arguments) {
+                if (argument instanceof Reference && ZoneMaps.supports((Reference) argument)) {
+                    references.add((Reference) argument);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import com.google.common.cache.CacheBuilder;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Reference;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.executor.transport.TransportActionProvider;
+import io.crate.metadata.Routing;
+import io.crate.types.DataType;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.shard.ShardId;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes shards which can't contain rows matching a where clause from a {@link Routing}.
+ *
+ * Only shards of write blocked indices (e.g. old partitions set to read only) are removed:
+ * their zones can't change until the index meta data changes. Zones are cached on the handler
+ * node per shard copy, index meta data version and the version of the reader they were computed
+ * from. If a copy returns zones of a different reader (e.g. a replication operation which was
+ * in flight when the block was added has been applied since) all zones cached for it are dropped.
+ * Shards of other indices are skipped by the nodes holding them (see {@link ShardZoneMaps}).
+ *
+ * The zones of a shard are fetched asynchronously the first time a query uses one of its columns,
+ * so a query never waits for them and only later queries benefit.
+ */
+@Singleton
+public class ZoneMapPruner {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(ZoneMapPruner.class);
+
+    /**
+     * marks columns whose zone couldn't be determined so that they aren't requested again
+     */
+    private static final ColumnZone UNKNOWN = new ColumnZone();
+
+    private final ClusterService clusterService;
+    private final TransportActionProvider transportActionProvider;
+    /**
+     * zones by shard and the node holding the copy they were computed from
+     */
+    private final ConcurrentMap<Tuple<ShardId, String>, ShardZones> shardZones = CacheBuilder.newBuilder()
+        .expireAfterAccess(30, TimeUnit.MINUTES)
+        .<Tuple<ShardId, String>, ShardZones>build()
+        .asMap();
+
+    @Inject
+    public ZoneMapPruner(ClusterService clusterService, TransportActionProvider transportActionProvider) {
+        this.clusterService = clusterService;
+        this.transportActionProvider = transportActionProvider;
+    }
+
+    public Routing prune(Routing routing, WhereClause whereClause) {
+        if (!whereClause.hasQuery() || !routing.hasLocations()) {
+            return routing;
+        }
+        Symbol query = whereClause.query();
+        Set<Reference> references = ZoneMapPredicate.references(query);
+        if (references.isEmpty()) {
+            return routing;
+        }
+        ClusterState state = clusterService.state();
+        Map<String, Map<String, List<Integer>>> locations = new TreeMap<>();
+        boolean changed = false;
+        for (Map.Entry<String, Map<String, List<Integer>>> nodeEntry : routing.locations().entrySet()) {
+            if (nodeEntry.getValue() == null) {
+                return routing;
+            }
+            Map<String, List<Integer>> nodeRouting = new TreeMap<>();
+            for (Map.Entry<String, List<Integer>> indexEntry : nodeEntry.getValue().entrySet()) {
+                String index = indexEntry.getKey();
+                List<Integer> shards = indexEntry.getValue();
+                if (shards == null) {
+                    return routing;
+                }
+                IndexMetaData indexMetaData = state.metaData().index(index);
+                if (indexMetaData == null || !state.blocks().indexBlocked(ClusterBlockLevel.WRITE, index)) {
+                    nodeRouting.put(index, shards);
+                    continue;
+                }
+                List<Integer> remaining = new ArrayList<>(shards.size());
+                for (Integer shard : shards) {
+                    ShardZones zones = shardZones(
+                        new ShardId(index, shard), indexMetaData.getVersion(), nodeEntry.getKey(), references);
+                    if (ZoneMapPredicate.canMatch(query, zones)) {
+                        remaining.add(shard);
+                    }
+                }
+                if (remaining.size() < shards.size()) {
+                    changed = true;
+                }
+                if (!remaining.isEmpty()) {
+                    nodeRouting.put(index, remaining);
+                }
+            }
+            if (!nodeRouting.isEmpty()) {
+                locations.put(nodeEntry.getKey(), nodeRouting);
+            }
+        }
+        if (!changed) {
+            return routing;
+        }
+        if (locations.isEmpty()) {
+            // the plan needs at least one node to execute on; keep the first shard, the node
+            // holding it skips it without searching it
+            Map.Entry<String, Map<String, List<Integer>>> first = routing.locations().entrySet().iterator().next();
+            for (Map.Entry<String, List<Integer>> indexEntry : first.getValue().entrySet()) {
+                if (!indexEntry.getValue().isEmpty()) {
+                    Map<String, List<Integer>> nodeRouting = new TreeMap<>();
+                    nodeRouting.put(indexEntry.getKey(), Collections.singletonList(indexEntry.getValue().get(0)));
+                    locations.put(first.getKey(), nodeRouting);
+                    break;
+                }
+            }
+        }
+        return new Routing(locations);
+    }
+
+    private ShardZones shardZones(ShardId shardId, long metaDataVersion, String nodeId, Set<Reference> references) {
+        Tuple<ShardId, String> key = new Tuple<>(shardId, nodeId);
+        ShardZones zones = shardZones.get(key);
+        if (zones == null || zones.metaDataVersion != metaDataVersion) {
+            zones = new ShardZones(metaDataVersion);
+            shardZones.put(key, zones);
+        }
+        fetchMissing(zones, key, references);
+        return zones;
+    }
+
+    private void fetchMissing(final ShardZones zones, final Tuple<ShardId, String> key, Set<Reference> references) {
+        final List<String> columns = new ArrayList<>();
+        List<DataType> types = new ArrayList<>();
+        for (Reference reference : references) {
+            String column = reference.info().ident().columnIdent().fqn();
+            if (!zones.columns.containsKey(column) && zones.pending.add(column)) {
+                columns.add(column);
+                types.add(reference.valueType());
+            }
+        }
+        if (columns.isEmpty()) {
+            return;
+        }
+        final ShardId shardId = key.v1();
+        transportActionProvider.transportZoneMapAction().execute(
+            key.v2(),
+            new ZoneMapRequest(shardId, columns, types),
+            new ActionListener<ZoneMapResponse>() {
+                @Override
+                public void onResponse(ZoneMapResponse response) {
+                    ShardZones target = zones;
+                    if (!zones.readerVersionMatches(response.readerVersion())) {
+                        // the shard copy changed since the cached zones were computed, they may miss documents
+                        target = new ShardZones(zones.metaDataVersion);
+                        target.readerVersionMatches(response.readerVersion());
+                        shardZones.replace(key, zones, target);
+                    }
+                    for (String column : columns) {
+                        ColumnZone zone = response.zones().get(column);
+                        target.columns.put(column, zone == null ? UNKNOWN : zone);
+                    }
+                    zones.pending.removeAll(columns);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    LOGGER.debug("couldn't retrieve zones of {}", e, shardId);
+                    zones.pending.removeAll(columns);
+                }
+            });
+    }
+
+    private static class ShardZones implements ZoneMapPredicate.Zones {
+
+        private static final long NO_READER = Long.MIN_VALUE;
+
+        private final long metaDataVersion;
+        private final AtomicLong readerVersion = new AtomicLong(NO_READER);
+        private final ConcurrentMap<String, ColumnZone> columns = new ConcurrentHashMap<>();
+        private final Set<String> pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        ShardZones(long metaDataVersion) {
+            this.metaDataVersion = metaDataVersion;
+        }
+
+        /**
+         * @return true if the zones were computed from the reader with the given version.
+         *         The first reader version seen is adopted.
+         */
+        boolean readerVersionMatches(long version) {
+            return readerVersion.compareAndSet(NO_READER, version) || readerVersion.get() == version;
+        }
+
+        @Nullable
+        @Override
+        public ColumnZone zone(Reference reference) {
+            ColumnZone zone = columns.get(reference.info().ident().columnIdent().fqn());
+            return zone == UNKNOWN ? null : zone;
+        }
+    }
+}
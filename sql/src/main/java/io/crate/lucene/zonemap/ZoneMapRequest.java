@@ -0,0 +1,87 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ZoneMapRequest extends TransportRequest {
+
+    private ShardId shardId;
+    private List<String> columns;
+    private List<DataType> types;
+
+    public ZoneMapRequest() {
+    }
+
+    public ZoneMapRequest(ShardId shardId, List<String> columns, List<DataType> types) {
+        assert columns.size() == types.size() : "columns and types must have the same size";
+        this.shardId = shardId;
+        this.columns = columns;
+        this.types = types;
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public List<DataType> types() {
+        return types;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        shardId = new ShardId(in.readString(), in.readVInt());
+        int size = in.readVInt();
+        columns = new ArrayList<>(size);
+        types = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            columns.add(in.readString());
+            types.add(DataTypes.fromStream(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(shardId.getIndex());
+        out.writeVInt(shardId.id());
+        out.writeVInt(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            out.writeString(columns.get(i));
+            DataTypes.toStream(types.get(i), out);
+        }
+    }
+}
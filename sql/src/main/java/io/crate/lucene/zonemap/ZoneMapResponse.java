@@ -0,0 +1,83 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ZoneMapResponse extends TransportResponse {
+
+    private long readerVersion;
+    private Map<String, ColumnZone> zones;
+
+    public ZoneMapResponse() {
+    }
+
+    public ZoneMapResponse(long readerVersion, Map<String, ColumnZone> zones) {
+        this.readerVersion = readerVersion;
+        this.zones = zones;
+    }
+
+    /**
+     * the version of the reader of the shard copy the zones were computed from
+     */
+    public long readerVersion() {
+        return readerVersion;
+    }
+
+    /**
+     * the zones by column, columns whose zone couldn't be determined are missing
+     */
+    public Map<String, ColumnZone> zones() {
+        return zones;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        readerVersion = in.readLong();
+        int size = in.readVInt();
+        zones = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String column = in.readString();
+            ColumnZone zone = new ColumnZone();
+            zone.readFrom(in);
+            zones.put(column, zone);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeLong(readerVersion);
+        out.writeVInt(zones.size());
+        for (Map.Entry<String, ColumnZone> entry : zones.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.symbol.Reference;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.RowGranularity;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.NumericUtils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Computes {@link ColumnZone}s from the trie encoded terms of numeric and timestamp columns.
+ *
+ * The smallest and largest full precision terms of a field are its min and max value,
+ * so the zone of a column can be read from the terms dictionary without visiting any document.
+ */
+public class ZoneMaps {
+
+    private static final Set<DataType> LONG_ENCODED_TYPES = ImmutableSet.<DataType>of(
+        DataTypes.LONG, DataTypes.TIMESTAMP, DataTypes.DOUBLE);
+    private static final Set<DataType> INT_ENCODED_TYPES = ImmutableSet.<DataType>of(
+        DataTypes.INTEGER, DataTypes.SHORT, DataTypes.BYTE, DataTypes.FLOAT);
+
+    private ZoneMaps() {
+    }
+
+    /**
+     * @return true if the column of the reference is indexed in a way zones can be computed for
+     */
+    public static boolean supports(Reference reference) {
+        ReferenceInfo info = reference.info();
+        DataType type = info.type();
+        return (LONG_ENCODED_TYPES.contains(type) || INT_ENCODED_TYPES.contains(type))
+               && info.granularity() == RowGranularity.DOC
+               && info.indexType() == ReferenceInfo.IndexType.NOT_ANALYZED
+               && !info.ident().columnIdent().isSystemColumn();
+    }
+
+    /**
+     * encodes a value so that it can be compared with the bounds of a {@link ColumnZone}
+     *
+     * @return the encoded value or null if the value can't be compared
+     */
+    @Nullable
+    public static Long encode(DataType type, @Nullable Object value) {
+        if (!(value instanceof Number)) {
+            return null;
+        }
+        Number number = (Number) value;
+        if (type.equals(DataTypes.DOUBLE)) {
+            double d = number.doubleValue();
+            return Double.isNaN(d) ? null : NumericUtils.doubleToSortableLong(d);
+        }
+        if (type.equals(DataTypes.FLOAT)) {
+            float f = number.floatValue();
+            return Float.isNaN(f) ? null : (long) NumericUtils.floatToSortableInt(f);
+        }
+        if (LONG_ENCODED_TYPES.contains(type) || INT_ENCODED_TYPES.contains(type)) {
+            return number.longValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return the zone of the column or null if it can't be determined
+     */
+    @Nullable
+    public static ColumnZone compute(IndexReader reader, String field, DataType type) throws IOException {
+        int maxDoc = reader.maxDoc();
+        Terms terms = MultiFields.getTerms(reader, field);
+        if (terms == null) {
+            return ColumnZone.noValues(maxDoc);
+        }
+        int docCount = terms.getDocCount();
+        if (docCount < 0) {
+            return null;
+        }
+        if (docCount == 0) {
+            return ColumnZone.noValues(maxDoc);
+        }
+        if (LONG_ENCODED_TYPES.contains(type)) {
+            long min = NumericUtils.getMinLong(terms);
+            long max = NumericUtils.getMaxLong(terms);
+            return new ColumnZone(min, max, docCount, maxDoc);
+        }
+        if (INT_ENCODED_TYPES.contains(type)) {
+            int min = NumericUtils.getMinInt(terms);
+            int max = NumericUtils.getMaxInt(terms);
+            return new ColumnZone(min, max, docCount, maxDoc);
+        }
+        return null;
+    }
+}
@@ -80,6 +80,9 @@ public class CrateTableSettings {
 
     public static final IntSetting FLUSH_THRESHOLD_OPS = new IntSetting(TableParameterInfo.FLUSH_THRESHOLD_OPS, Integer.MAX_VALUE, true);
 
+    public static final IntSetting COLUMN_CACHE_PARTITIONS = new IntSetting(
+            TableParameterInfo.COLUMN_CACHE_PARTITIONS, 0, false, 0, null);
+
     public static final TimeSetting FLUSH_THRESHOLD_PERIOD = new TimeSetting() {
 
         @Override
@@ -0,0 +1,84 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.table.ColumnRegistrar;
+import io.crate.metadata.table.StaticTableInfo;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterService;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+
+public class SysBulkRetriesTableInfo extends StaticTableInfo {
+
+    public static final TableIdent IDENT = new TableIdent(SysSchemaInfo.NAME, "bulk_retries");
+    private static final RowGranularity GRANULARITY = RowGranularity.DOC;
+
+    private final ClusterService clusterService;
+
+    public static class Columns {
+        public static final ColumnIdent NODE_ID = new ColumnIdent("node_id");
+        public static final ColumnIdent SCHEMA_NAME = new ColumnIdent("schema_name");
+        public static final ColumnIdent TABLE_NAME = new ColumnIdent("table_name");
+        public static final ColumnIdent PARTITION_IDENT = new ColumnIdent("partition_ident");
+        public static final ColumnIdent SHARD_ID = new ColumnIdent("shard_id");
+        public static final ColumnIdent RETRIES = new ColumnIdent("retries");
+        public static final ColumnIdent REJECTIONS = new ColumnIdent("rejections");
+        public static final ColumnIdent BACKOFF_TIME = new ColumnIdent("backoff_time");
+        public static final ColumnIdent CONCURRENCY = new ColumnIdent("concurrency");
+        public static final ColumnIdent ACTIVE = new ColumnIdent("active");
+        public static final ColumnIdent PENDING = new ColumnIdent("pending");
+    }
+
+    public SysBulkRetriesTableInfo(ClusterService clusterService) {
+        super(IDENT, new ColumnRegistrar(IDENT, GRANULARITY)
+                .register(Columns.NODE_ID, DataTypes.STRING)
+                .register(Columns.SCHEMA_NAME, DataTypes.STRING)
+                .register(Columns.TABLE_NAME, DataTypes.STRING)
+                .register(Columns.PARTITION_IDENT, DataTypes.STRING)
+                .register(Columns.SHARD_ID, DataTypes.INTEGER)
+                .register(Columns.RETRIES, DataTypes.LONG)
+                .register(Columns.REJECTIONS, DataTypes.LONG)
+                .register(Columns.BACKOFF_TIME, DataTypes.LONG)
+                .register(Columns.CONCURRENCY, DataTypes.INTEGER)
+                .register(Columns.ACTIVE, DataTypes.INTEGER)
+                .register(Columns.PENDING, DataTypes.INTEGER),
+            Collections.<ColumnIdent>emptyList());
+        this.clusterService = clusterService;
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return GRANULARITY;
+    }
+
+    @Override
+    public Routing getRouting(WhereClause whereClause, @Nullable String preference) {
+        return Routing.forTableOnAllNodes(IDENT, clusterService.state().nodes());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.*;
+import io.crate.metadata.table.ColumnRegistrar;
+import io.crate.metadata.table.StaticTableInfo;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterService;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+
+public class SysQueryLatenciesTableInfo extends StaticTableInfo {
+
+    public static final TableIdent IDENT = new TableIdent(SysSchemaInfo.NAME, "query_latencies");
+    private static final RowGranularity GRANULARITY = RowGranularity.DOC;
+
+    private final ClusterService clusterService;
+    private final TableColumn nodesTableColumn;
+
+    public static class Columns {
+        public static final ColumnIdent STATEMENT_TYPE = new ColumnIdent("statement_type");
+        public static final ColumnIdent TABLE_NAME = new ColumnIdent("table_name");
+        public static final ColumnIdent EXECUTIONS = new ColumnIdent("executions");
+        public static final ColumnIdent FAILURES = new ColumnIdent("failures");
+        public static final ColumnIdent AVG = new ColumnIdent("avg");
+        public static final ColumnIdent MAX = new ColumnIdent("max");
+        public static final ColumnIdent P50 = new ColumnIdent("p50");
+        public static final ColumnIdent P90 = new ColumnIdent("p90");
+        public static final ColumnIdent P95 = new ColumnIdent("p95");
+        public static final ColumnIdent P99 = new ColumnIdent("p99");
+    }
+
+    public SysQueryLatenciesTableInfo(ClusterService clusterService, SysNodesTableInfo sysNodesTableInfo) {
+        super(IDENT, new ColumnRegistrar(IDENT, GRANULARITY)
+                .register(Columns.STATEMENT_TYPE, DataTypes.STRING)
+                .register(Columns.TABLE_NAME, DataTypes.STRING)
+                .register(Columns.EXECUTIONS, DataTypes.LONG)
+                .register(Columns.FAILURES, DataTypes.LONG)
+                .register(Columns.AVG, DataTypes.DOUBLE)
+                .register(Columns.MAX, DataTypes.DOUBLE)
+                .register(Columns.P50, DataTypes.DOUBLE)
+                .register(Columns.P90, DataTypes.DOUBLE)
+                .register(Columns.P95, DataTypes.DOUBLE)
+                .register(Columns.P99, DataTypes.DOUBLE)
+                .putInfoOnly(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT)),
+            Collections.<ColumnIdent>emptyList());
+        this.clusterService = clusterService;
+        nodesTableColumn = sysNodesTableInfo.tableColumn();
+    }
+
+    @Nullable
+    @Override
+    public ReferenceInfo getReferenceInfo(ColumnIdent columnIdent) {
+        ReferenceInfo info = super.getReferenceInfo(columnIdent);
+        if (info == null) {
+            return nodesTableColumn.getReferenceInfo(this.ident(), columnIdent);
+        }
+        return info;
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return GRANULARITY;
+    }
+
+    @Override
+    public Routing getRouting(WhereClause whereClause, @Nullable String preference) {
+        return Routing.forTableOnAllNodes(IDENT, clusterService.state().nodes());
+    }
+}
@@ -54,6 +54,10 @@ public class SysSchemaInfo implements SchemaInfo {
                 .put(SysNodeChecksTableInfo.IDENT.name(), new SysNodeChecksTableInfo(clusterService))
                 .put(SysRepositoriesTableInfo.IDENT.name(), new SysRepositoriesTableInfo(clusterService))
                 .put(SysSnapshotsTableInfo.IDENT.name(), new SysSnapshotsTableInfo(clusterService))
+                .put(SysBulkRetriesTableInfo.IDENT.name(), new SysBulkRetriesTableInfo(clusterService))
+                .put(SysResultCacheTableInfo.IDENT.name(), new SysResultCacheTableInfo(clusterService))
+                .put(SysNodeLoadTableInfo.IDENT.name(), new SysNodeLoadTableInfo(clusterService))
+                .put(SysQueryLatenciesTableInfo.IDENT.name(), new SysQueryLatenciesTableInfo(clusterService, sysNodesTableInfo))
                 .build();
     }
 
@@ -0,0 +1,370 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.view;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.QuerySpec;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.symbol.Field;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.format.SymbolFormatter;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.metadata.TableIdent;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.SumAggregation;
+import io.crate.operation.scalar.cast.CastFunctionResolver;
+import io.crate.sql.Identifiers;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+
+import java.util.*;
+
+/**
+ * A rollup table which is maintained from the inserts into its source table.
+ *
+ * The rollup holds the group keys and the aggregation values of a <code>SELECT ... GROUP BY</code>
+ * on the source table. Every insert request appends one row per group it touched, holding the
+ * values of only the inserted rows, so the rows of the rollup are deltas which have to be merged
+ * again when reading it. Only aggregations which can be merged that way are supported.
+ */
+public class MaterializedView {
+
+    /**
+     * key of the view definition inside the <code>_meta</code> of the rollup table mapping
+     */
+    public static final String META_KEY = "materialized_view";
+
+    private final TableIdent ident;
+    private final TableIdent source;
+    private final List<Symbol> keys;
+    private final List<String> keyColumns;
+    private final List<Function> aggregations;
+    private final List<String> aggregationColumns;
+    private final List<AggregationFunction> aggregationImplementations;
+    private final List<FunctionInfo> mergeFunctions;
+
+    private MaterializedView(TableIdent ident,
+                             TableIdent source,
+                             List<Symbol> keys,
+                             List<String> keyColumns,
+                             List<Function> aggregations,
+                             List<String> aggregationColumns,
+                             List<AggregationFunction> aggregationImplementations,
+                             List<FunctionInfo> mergeFunctions) {
+        this.ident = ident;
+        this.source = source;
+        this.keys = keys;
+        this.keyColumns = keyColumns;
+        this.aggregations = aggregations;
+        this.aggregationColumns = aggregationColumns;
+        this.aggregationImplementations = aggregationImplementations;
+        this.mergeFunctions = mergeFunctions;
+    }
+
+    /**
+     * Validates the analyzed query of a materialized view and creates the view from it.
+     *
+     * @throws UnsupportedOperationException if the query can't be maintained on insert
+     * @throws IllegalArgumentException if the output columns of the query are invalid
+     */
+    public static MaterializedView of(TableIdent ident, AnalyzedRelation relation, Functions functions) {
+        if (!(relation instanceof QueriedDocTable)) {
+            throw new UnsupportedOperationException("A materialized view must select from a single table");
+        }
+        QueriedDocTable table = (QueriedDocTable) relation;
+        if (table.tableRelation().tableInfo().isAlias()) {
+            throw new UnsupportedOperationException("A materialized view cannot select from an alias");
+        }
+        QuerySpec querySpec = table.querySpec();
+        if (!querySpec.groupBy().isPresent()) {
+            throw new UnsupportedOperationException("A materialized view requires a GROUP BY clause");
+        }
+        if (querySpec.where().hasQuery() || querySpec.where().noMatch() || querySpec.having().isPresent()
+            || querySpec.orderBy().isPresent() || querySpec.limit().isPresent() || querySpec.offset() > 0) {
+            throw new UnsupportedOperationException(
+                    "A materialized view does not support WHERE, HAVING, ORDER BY, LIMIT or OFFSET");
+        }
+
+        List<Symbol> groupBy = querySpec.groupBy().get();
+        List<Symbol> keys = new ArrayList<>(groupBy.size());
+        List<String> keyColumns = new ArrayList<>(groupBy.size());
+        List<Function> aggregations = new ArrayList<>();
+        List<String> aggregationColumns = new ArrayList<>();
+        List<AggregationFunction> aggregationImplementations = new ArrayList<>();
+        List<FunctionInfo> mergeFunctions = new ArrayList<>();
+        Set<String> columnNames = new HashSet<>();
+
+        List<Field> fields = table.fields();
+        for (int i = 0; i < fields.size(); i++) {
+            Symbol output = querySpec.outputs().get(i);
+            String column = columnName(fields.get(i).path().outputName());
+            if (!columnNames.add(column)) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Duplicate column name '%s' in materialized view, use an alias for the output", column));
+            }
+            if (groupBy.contains(output)) {
+                if (!DataTypes.PRIMITIVE_TYPES.contains(output.valueType())) {
+                    throw new UnsupportedOperationException(SymbolFormatter.format(
+                            "Cannot use '%s' as a key of a materialized view, only primitive types are supported", output));
+                }
+                keys.add(output);
+                keyColumns.add(column);
+            } else if (output instanceof Function
+                       && ((Function) output).info().type() == FunctionInfo.Type.AGGREGATE) {
+                Function aggregation = (Function) output;
+                FunctionInfo mergeFunction = mergeFunction(aggregation.info(), functions);
+                if (mergeFunction == null) {
+                    throw new UnsupportedOperationException(SymbolFormatter.format(
+                            "Aggregation '%s' cannot be used in a materialized view, its partial results can't be merged",
+                            aggregation));
+                }
+                aggregations.add(aggregation);
+                aggregationColumns.add(column);
+                aggregationImplementations.add((AggregationFunction) functions.getSafe(aggregation.info().ident()));
+                mergeFunctions.add(mergeFunction);
+            } else {
+                throw new UnsupportedOperationException(SymbolFormatter.format(
+                        "Output '%s' of a materialized view must be a GROUP BY expression or an aggregation", output));
+            }
+        }
+        if (keys.size() != groupBy.size()) {
+            throw new UnsupportedOperationException("A materialized view must select all of its GROUP BY expressions");
+        }
+        if (aggregations.isEmpty()) {
+            throw new UnsupportedOperationException("A materialized view must select at least one aggregation");
+        }
+        return new MaterializedView(ident, table.tableRelation().tableInfo().ident(),
+                keys, keyColumns, aggregations, aggregationColumns, aggregationImplementations, mergeFunctions);
+    }
+
+    /**
+     * Returns the aggregation which merges the values an aggregation returned for parts of a group
+     * or null if there is none.
+     * A count is merged with a sum, the other aggregations must be able to aggregate their own results.
+     */
+    private static FunctionInfo mergeFunction(FunctionInfo info, Functions functions) {
+        DataType returnType = info.returnType();
+        if (!DataTypes.PRIMITIVE_TYPES.contains(returnType)) {
+            return null;
+        }
+        if (info.ident().name().equals(CountAggregation.NAME)) {
+            return functions.getSafe(
+                    new FunctionIdent(SumAggregation.NAME, ImmutableList.<DataType>of(DataTypes.LONG))).info();
+        }
+        FunctionImplementation implementation = functions.get(info.ident());
+        if (!(implementation instanceof AggregationFunction)
+            || !((AggregationFunction) implementation).partialType().equals(returnType)) {
+            return null;
+        }
+        FunctionImplementation merge = functions.get(
+                new FunctionIdent(info.ident().name(), ImmutableList.of(returnType)));
+        if (!(merge instanceof AggregationFunction) || !merge.info().returnType().equals(returnType)) {
+            return null;
+        }
+        return merge.info();
+    }
+
+    /**
+     * turns the output name of a query column into a column name, e.g. <code>sum(price)</code> into <code>sum_price</code>
+     */
+    static String columnName(String outputName) {
+        String name = outputName.toLowerCase(Locale.ENGLISH)
+                .replaceAll("[^a-z0-9_]+", "_")
+                .replaceAll("_+", "_")
+                .replaceAll("^_|_$", "");
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            name = "col_" + name;
+        }
+        return name;
+    }
+
+    public TableIdent ident() {
+        return ident;
+    }
+
+    public TableIdent source() {
+        return source;
+    }
+
+    /**
+     * the group keys, evaluated against the rows of the source table
+     */
+    public List<Symbol> keys() {
+        return keys;
+    }
+
+    public List<String> keyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * the aggregations, their arguments are evaluated against the rows of the source table
+     */
+    public List<Function> aggregations() {
+        return aggregations;
+    }
+
+    public List<String> aggregationColumns() {
+        return aggregationColumns;
+    }
+
+    /**
+     * the columns of the rollup table, the keys followed by the aggregations
+     */
+    public List<String> columns() {
+        List<String> columns = new ArrayList<>(keyColumns.size() + aggregationColumns.size());
+        columns.addAll(keyColumns);
+        columns.addAll(aggregationColumns);
+        return columns;
+    }
+
+    public List<DataType> columnTypes() {
+        List<DataType> types = new ArrayList<>(keys.size() + aggregations.size());
+        for (Symbol key : keys) {
+            types.add(key.valueType());
+        }
+        for (Function aggregation : aggregations) {
+            types.add(aggregation.valueType());
+        }
+        return types;
+    }
+
+    /**
+     * Creates the symbol which computes the value of an aggregation of this view from its
+     * column in the rollup table.
+     *
+     * @param idx the index of the aggregation
+     * @param column the symbol of the aggregation column of the rollup table
+     */
+    public Symbol merge(int idx, Symbol column) {
+        DataType returnType = aggregations.get(idx).valueType();
+        Function merged = new Function(mergeFunctions.get(idx), ImmutableList.of(column));
+        if (merged.valueType().equals(returnType)) {
+            return merged;
+        }
+        return new Function(CastFunctionResolver.functionInfo(merged.valueType(), returnType, false),
+                ImmutableList.<Symbol>of(merged));
+    }
+
+    /**
+     * the statement used to append delta rows to the rollup table
+     */
+    public String insertStatement() {
+        List<String> columns = columns();
+        StringBuilder sb = new StringBuilder("INSERT INTO ")
+                .append(Identifiers.quote(ident.schema()))
+                .append('.')
+                .append(Identifiers.quote(ident.name()))
+                .append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Identifiers.quote(columns.get(i)));
+        }
+        sb.append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i > 0 ? ", ?" : "?");
+        }
+        return sb.append(')').toString();
+    }
+
+    public Deltas newDeltas() {
+        return new Deltas();
+    }
+
+    /**
+     * Aggregates the rows of one insert request into one delta row per group.
+     */
+    public class Deltas {
+
+        private final Map<List<Object>, Object[]> states = new HashMap<>();
+        private final RamAccountingContext ramAccountingContext =
+                new RamAccountingContext("materialized-view", new NoopCircuitBreaker(CircuitBreaker.REQUEST));
+
+        /**
+         * @param keyValues the values of the keys of one source row
+         * @param arguments the argument inputs of every aggregation for the same row
+         */
+        public void add(Object[] keyValues, Input[][] arguments) {
+            List<Object> key = Arrays.asList(keyValues);
+            Object[] groupStates = states.get(key);
+            if (groupStates == null) {
+                groupStates = new Object[aggregationImplementations.size()];
+                for (int i = 0; i < groupStates.length; i++) {
+                    groupStates[i] = aggregationImplementations.get(i).newState(ramAccountingContext);
+                }
+                states.put(key, groupStates);
+            }
+            for (int i = 0; i < groupStates.length; i++) {
+                //noinspection unchecked
+                groupStates[i] = aggregationImplementations.get(i).iterate(
+                        ramAccountingContext, groupStates[i], arguments[i]);
+            }
+        }
+
+        public boolean isEmpty() {
+            return states.isEmpty();
+        }
+
+        /**
+         * the delta rows in the order of {@link #columns()}
+         */
+        public Object[][] rows() {
+            Object[][] rows = new Object[states.size()][];
+            int r = 0;
+            for (Map.Entry<List<Object>, Object[]> entry : states.entrySet()) {
+                List<Object> key = entry.getKey();
+                Object[] groupStates = entry.getValue();
+                Object[] row = new Object[key.size() + groupStates.length];
+                for (int i = 0; i < key.size(); i++) {
+                    row[i] = argumentValue(key.get(i));
+                }
+                for (int i = 0; i < groupStates.length; i++) {
+                    //noinspection unchecked
+                    row[key.size() + i] = argumentValue(
+                            aggregationImplementations.get(i).terminatePartial(ramAccountingContext, groupStates[i]));
+                }
+                rows[r++] = row;
+            }
+            return rows;
+        }
+    }
+
+    private static Object argumentValue(Object value) {
+        if (value instanceof BytesRef) {
+            return ((BytesRef) value).utf8ToString();
+        }
+        return value;
+    }
+}
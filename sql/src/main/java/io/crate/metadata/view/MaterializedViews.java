@@ -0,0 +1,387 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.view;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.Constants;
+import io.crate.action.sql.SQLBulkRequest;
+import io.crate.action.sql.SQLBulkResponse;
+import io.crate.analyze.Analysis;
+import io.crate.analyze.Analyzer;
+import io.crate.analyze.ParameterContext;
+import io.crate.analyze.SelectAnalyzedStatement;
+import io.crate.exceptions.TableUnknownException;
+import io.crate.executor.transport.TransportActionProvider;
+import io.crate.metadata.Functions;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.TableIdent;
+import io.crate.sql.parser.SqlParser;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Provider;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node wide registry of the materialized views, looked up by their source table.
+ *
+ * The views are read from the <code>_meta</code> of the mappings of the open rollup tables. Their queries are
+ * analyzed again whenever the cluster metadata changed, so that they follow schema changes of the
+ * source tables. Views whose query became invalid are ignored.
+ *
+ * A view is pending while it's filled with the existing rows of its source table after it was created, see
+ * {@link #activate(TableIdent, ActionListener)}. Pending views aren't maintained or used to answer queries.
+ *
+ * A view becomes stale once its source table was written by anything but a plain insert, once its
+ * deltas couldn't be written or once its source table was written while the view was pending.
+ * Stale views are neither maintained nor used to answer queries anymore, they have to be dropped and
+ * created again. The flag is stored in the <code>_meta</code> of the rollup
+ * table, so that it survives restarts and reaches the other nodes.
+ */
+@Singleton
+public class MaterializedViews {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(MaterializedViews.class);
+
+    /**
+     * key of the stale flag inside the view definition
+     */
+    static final String STALE_KEY = "stale";
+
+    /**
+     * key of the pending flag inside the view definition, set by the CREATE statement until the view is filled
+     */
+    public static final String PENDING_KEY = "pending";
+
+    private final ClusterService clusterService;
+    private final Functions functions;
+    private final Provider<Analyzer> analyzerProvider;
+    private final TransportActionProvider transportActionProvider;
+
+    /**
+     * the view definitions of the indices by index name, the mappings only need to be parsed if the index changed
+     */
+    private final Map<String, IndexDefinition> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * the uuids of the rollup tables which have been marked stale by this node, used until the flag is part
+     * of the mapping. The uuid distinguishes a view from one which is created again with the same name.
+     */
+    private final Set<String> staleIndices = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private volatile Views views = Views.EMPTY;
+
+    @Inject
+    public MaterializedViews(ClusterService clusterService,
+                             Functions functions,
+                             Provider<Analyzer> analyzerProvider,
+                             TransportActionProvider transportActionProvider) {
+        this.clusterService = clusterService;
+        this.functions = functions;
+        this.analyzerProvider = analyzerProvider;
+        this.transportActionProvider = transportActionProvider;
+    }
+
+    /**
+     * @return the views which are maintained from inserts into the given table and aren't stale
+     */
+    public List<MaterializedView> forSource(TableIdent source) {
+        return viewsOf(views(clusterService.state().metaData()).bySource, source);
+    }
+
+    /**
+     * @return the views of the given table which are still being filled, they become stale if the table is written
+     */
+    public List<MaterializedView> pendingForSource(TableIdent source) {
+        return viewsOf(views(clusterService.state().metaData()).pendingBySource, source);
+    }
+
+    private static List<MaterializedView> viewsOf(Map<TableIdent, List<MaterializedView>> bySource, TableIdent source) {
+        List<MaterializedView> sourceViews = bySource.get(source);
+        if (sourceViews == null) {
+            return ImmutableList.of();
+        }
+        return sourceViews;
+    }
+
+    private Views views(MetaData metaData) {
+        Views views = this.views;
+        if (views.version == metaData.version()) {
+            return views;
+        }
+        synchronized (this) {
+            views = this.views;
+            if (views.version != metaData.version()) {
+                views = load(metaData);
+                this.views = views;
+            }
+        }
+        return views;
+    }
+
+    private Views load(MetaData metaData) {
+        Map<TableIdent, List<MaterializedView>> bySource = new HashMap<>();
+        Map<TableIdent, List<MaterializedView>> pendingBySource = new HashMap<>();
+        Set<String> indices = new HashSet<>();
+        for (String index : metaData.concreteAllOpenIndices()) {
+            if (PartitionName.isPartition(index)) {
+                continue;
+            }
+            IndexMetaData indexMetaData = metaData.index(index);
+            indices.add(index);
+            IndexDefinition definition = definitions.get(index);
+            if (definition == null || definition.version != indexMetaData.getVersion()) {
+                definition = new IndexDefinition(indexMetaData.getVersion(), readDefinition(indexMetaData));
+                definitions.put(index, definition);
+            }
+            if (definition.source == null || definition.stale || staleIndices.contains(indexMetaData.getIndexUUID())) {
+                continue;
+            }
+            TableIdent ident = TableIdent.fromIndexName(index);
+            MaterializedView view;
+            try {
+                view = analyze(ident, definition.source, definition.query);
+            } catch (Throwable t) {
+                LOGGER.warn("ignoring materialized view {}, its query is invalid: {}", ident.fqn(), t.getMessage());
+                continue;
+            }
+            add(definition.pending ? pendingBySource : bySource, view);
+        }
+        definitions.keySet().retainAll(indices);
+        Set<String> uuids = new HashSet<>();
+        for (String index : indices) {
+            uuids.add(metaData.index(index).getIndexUUID());
+        }
+        staleIndices.retainAll(uuids);
+        return new Views(metaData.version(), bySource, pendingBySource);
+    }
+
+    private static void add(Map<TableIdent, List<MaterializedView>> bySource, MaterializedView view) {
+        List<MaterializedView> sourceViews = bySource.get(view.source());
+        if (sourceViews == null) {
+            sourceViews = new ArrayList<>(1);
+            bySource.put(view.source(), sourceViews);
+        }
+        sourceViews.add(view);
+    }
+
+    private MaterializedView analyze(TableIdent ident, TableIdent source, String query) {
+        Analysis analysis = analyzerProvider.get().analyze(
+                SqlParser.createStatement(query),
+                new ParameterContext(new Object[0], new Object[0][], source.schema()));
+        return MaterializedView.of(ident, ((SelectAnalyzedStatement) analysis.analyzedStatement()).relation(), functions);
+    }
+
+    @Nullable
+    private static Map<String, Object> readDefinition(IndexMetaData indexMetaData) {
+        Map<String, Object> mapping = readMapping(indexMetaData);
+        if (mapping == null) {
+            return null;
+        }
+        return definition(mapping);
+    }
+
+    @Nullable
+    private static Map<String, Object> readMapping(IndexMetaData indexMetaData) {
+        MappingMetaData mappingMetaData = indexMetaData.mapping(Constants.DEFAULT_MAPPING_TYPE);
+        if (mappingMetaData == null) {
+            return null;
+        }
+        try {
+            return mappingMetaData.getSourceAsMap();
+        } catch (IOException e) {
+            LOGGER.warn("could not read the mapping of index {}", e, indexMetaData.getIndex());
+            return null;
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> definition(Map<String, Object> mapping) {
+        Map<String, Object> meta = (Map<String, Object>) mapping.get("_meta");
+        if (meta == null) {
+            return null;
+        }
+        return (Map<String, Object>) meta.get(MaterializedView.META_KEY);
+    }
+
+    /**
+     * Stops maintaining the view and using it to answer queries.
+     * The view is skipped by this node right away and by the other nodes once the stale flag
+     * is stored in the mapping of the rollup table.
+     */
+    public void markStale(final MaterializedView view, String reason) {
+        MetaData metaData = clusterService.state().metaData();
+        final String index = view.ident().indexName();
+        IndexMetaData indexMetaData = metaData.index(index);
+        if (indexMetaData == null || !staleIndices.add(indexMetaData.getIndexUUID())) {
+            return;
+        }
+        LOGGER.warn("materialized view {} is stale and won't be used anymore: {}", view.ident().fqn(), reason);
+        synchronized (this) {
+            // the loaded views may still contain the stale view
+            views = Views.EMPTY;
+        }
+
+        Map<String, Object> mapping = readMapping(indexMetaData);
+        Map<String, Object> definition = mapping == null ? null : definition(mapping);
+        if (definition == null) {
+            return;
+        }
+        definition.put(STALE_KEY, true);
+        putMapping(index, mapping, new ActionListener<PutMappingResponse>() {
+            @Override
+            public void onResponse(PutMappingResponse putMappingResponse) {
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                LOGGER.error("could not mark materialized view {} as stale", e, view.ident().fqn());
+            }
+        });
+    }
+
+    /**
+     * Starts maintaining a pending view and using it to answer queries once it has been filled with
+     * the existing rows of its source table. Rows written to the source table in the meantime
+     * have marked the view stale, it isn't activated then.
+     *
+     * @param listener is called with false if the view is stale
+     */
+    public void activate(final TableIdent ident, final ActionListener<Boolean> listener) {
+        IndexMetaData indexMetaData = clusterService.state().metaData().index(ident.indexName());
+        Map<String, Object> mapping = indexMetaData == null ? null : readMapping(indexMetaData);
+        Map<String, Object> definition = mapping == null ? null : definition(mapping);
+        if (definition == null) {
+            listener.onFailure(new TableUnknownException(ident));
+            return;
+        }
+        if (Boolean.TRUE.equals(definition.get(STALE_KEY)) || staleIndices.contains(indexMetaData.getIndexUUID())) {
+            listener.onResponse(false);
+            return;
+        }
+        definition.remove(PENDING_KEY);
+        putMapping(ident.indexName(), mapping, new ActionListener<PutMappingResponse>() {
+            @Override
+            public void onResponse(PutMappingResponse putMappingResponse) {
+                listener.onResponse(true);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    private void putMapping(String index, Map<String, Object> mapping, ActionListener<PutMappingResponse> listener) {
+        PutMappingRequest request = new PutMappingRequest(index);
+        request.type(Constants.DEFAULT_MAPPING_TYPE);
+        request.source(mapping);
+        transportActionProvider.transportPutMappingAction().execute(request, listener);
+    }
+
+    /**
+     * Appends the given delta rows to the rollup table of the view.
+     * This is done asynchronously as the rows of the source table are already written,
+     * the view is marked stale if the rows can't be written.
+     */
+    public void write(final MaterializedView view, Object[][] rows) {
+        transportActionProvider.transportSQLBulkAction().execute(
+                new SQLBulkRequest(view.insertStatement(), rows),
+                new ActionListener<SQLBulkResponse>() {
+                    @Override
+                    public void onResponse(SQLBulkResponse response) {
+                        for (SQLBulkResponse.Result result : response.results()) {
+                            if (result.errorMessage() != null) {
+                                markStale(view, "failed to write deltas: " + result.errorMessage());
+                                return;
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        markStale(view, "failed to write deltas: " + e.getMessage());
+                    }
+                });
+    }
+
+    private static class IndexDefinition {
+
+        private final long version;
+        @Nullable
+        private final TableIdent source;
+        @Nullable
+        private final String query;
+        private final boolean stale;
+        private final boolean pending;
+
+        @SuppressWarnings("unchecked")
+        IndexDefinition(long version, @Nullable Map<String, Object> definition) {
+            this.version = version;
+            if (definition == null) {
+                this.source = null;
+                this.query = null;
+                this.stale = false;
+                this.pending = false;
+            } else {
+                Map<String, Object> source = (Map<String, Object>) definition.get("source");
+                this.source = new TableIdent((String) source.get("schema"), (String) source.get("name"));
+                this.query = (String) definition.get("query");
+                this.stale = Boolean.TRUE.equals(definition.get(STALE_KEY));
+                this.pending = Boolean.TRUE.equals(definition.get(PENDING_KEY));
+            }
+        }
+    }
+
+    private static class Views {
+
+        private static final Views EMPTY = new Views(-1L,
+            Collections.<TableIdent, List<MaterializedView>>emptyMap(),
+            Collections.<TableIdent, List<MaterializedView>>emptyMap());
+
+        private final long version;
+        private final Map<TableIdent, List<MaterializedView>> bySource;
+        private final Map<TableIdent, List<MaterializedView>> pendingBySource;
+
+        Views(long version,
+              Map<TableIdent, List<MaterializedView>> bySource,
+              Map<TableIdent, List<MaterializedView>> pendingBySource) {
+            this.version = version;
+            this.bySource = bySource;
+            this.pendingBySource = pendingBySource;
+        }
+    }
+}
@@ -44,6 +44,13 @@ public class InputRow implements Row {
         return inputs.get(index).value();
     }
 
+    /**
+     * @return the input backing the column at the given index
+     */
+    public Input<?> input(int index) {
+        return inputs.get(index);
+    }
+
     @Override
     public Object[] materialize() {
         return Buckets.materialize(this);
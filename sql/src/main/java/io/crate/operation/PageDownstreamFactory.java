@@ -53,7 +53,15 @@ import java.util.concurrent.Executor;
 @Singleton
 public class PageDownstreamFactory {
 
+    /**
+     * number of rows per batch passed through the projections of a merge phase, batching is disabled if 0.
+     * The batch interface of most projectors still processes the rows one by one, so it is off by default.
+     */
+    public static final String BATCH_SIZE_SETTING = "sql.merge.batch_size";
+    public static final int DEFAULT_BATCH_SIZE = 0;
+
     private final ProjectionToProjectorVisitor projectionToProjectorVisitor;
+    private final int batchSize;
 
     @Inject
     public PageDownstreamFactory(ClusterService clusterService,
@@ -64,6 +72,7 @@ public class PageDownstreamFactory {
                                  BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
                                  NestedReferenceResolver referenceResolver,
                                  Functions functions) {
+        this.batchSize = settings.getAsInt(BATCH_SIZE_SETTING, DEFAULT_BATCH_SIZE);
         ImplementationSymbolVisitor implementationSymbolVisitor = new ImplementationSymbolVisitor(functions);
         EvaluatingNormalizer normalizer = new EvaluatingNormalizer(functions, RowGranularity.DOC, referenceResolver);
         this.projectionToProjectorVisitor = new ProjectionToProjectorVisitor(
@@ -95,7 +104,8 @@ public class PageDownstreamFactory {
                     ramAccountingContext,
                     mergeNode.projections(),
                     downstream,
-                    mergeNode.jobId()
+                    mergeNode.jobId(),
+                    batchSize
             );
             downstream = projectorChain.firstProjector();
         }
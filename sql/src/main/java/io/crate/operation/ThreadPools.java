@@ -45,7 +45,18 @@ public class ThreadPools {
      */
     public static void runWithAvailableThreads(ThreadPoolExecutor executor,
                                                Collection<Runnable> runnableCollection) throws RejectedExecutionException {
-        int availableThreads = Math.max(executor.getMaximumPoolSize() - executor.getActiveCount(), 2);
+        runWithAvailableThreads(executor, Integer.MAX_VALUE, runnableCollection);
+    }
+
+    /**
+     * Similar to {@link #runWithAvailableThreads(ThreadPoolExecutor, Collection)} but uses at most
+     * <code>maxThreads</code> threads.
+     */
+    public static void runWithAvailableThreads(ThreadPoolExecutor executor,
+                                               int maxThreads,
+                                               Collection<Runnable> runnableCollection) throws RejectedExecutionException {
+        int availableThreads = Math.min(
+            Math.max(executor.getMaximumPoolSize() - executor.getActiveCount(), 2), Math.max(maxThreads, 1));
         if (availableThreads < runnableCollection.size()) {
             Iterable<List<Runnable>> partition = Iterables.partition(runnableCollection,
                     runnableCollection.size() / availableThreads);
@@ -27,6 +27,7 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
+import io.crate.operation.NumericInput;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.types.DataType;
 import io.crate.types.DataTypeFactory;
@@ -160,6 +161,14 @@ public class AverageAggregation extends AggregationFunction<AverageAggregation.A
     @Override
     public AverageState iterate(RamAccountingContext ramAccountingContext, AverageState state, Input... args) {
         if (state != null) {
+            if (args[0] instanceof NumericInput) {
+                NumericInput input = (NumericInput) args[0];
+                if (!input.isNull()) {
+                    state.count++;
+                    state.sum += input.getDouble();
+                }
+                return state;
+            }
             Number value = (Number) args[0].value();
             if (value != null) {
                 state.count++;
@@ -32,6 +32,7 @@ import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
+import io.crate.operation.NumericInput;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.types.DataType;
 import io.crate.types.DataTypeFactory;
@@ -81,7 +82,11 @@ public class CountAggregation extends AggregationFunction<CountAggregation.LongS
 
     @Override
     public LongState iterate(RamAccountingContext ramAccountingContext, LongState state, Input... args) {
-        if (!hasArgs || args[0].value() != null) {
+        if (!hasArgs) {
+            return state.add(1L);
+        }
+        boolean isNull = args[0] instanceof NumericInput ? ((NumericInput) args[0]).isNull() : args[0].value() == null;
+        if (!isNull) {
             return state.add(1L);
         }
         return state;
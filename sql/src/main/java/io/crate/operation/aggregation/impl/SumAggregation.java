@@ -26,6 +26,7 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
+import io.crate.operation.NumericInput;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
@@ -51,6 +52,14 @@ public class SumAggregation extends AggregationFunction<Double, Double> {
 
     @Override
     public Double iterate(RamAccountingContext ramAccountingContext, Double state, Input... args) throws CircuitBreakingException {
+        if (args[0] instanceof NumericInput) {
+            NumericInput input = (NumericInput) args[0];
+            if (input.isNull()) {
+                return state;
+            }
+            double value = input.getDouble();
+            return state == null ? value : state + value;
+        }
         return reduce(ramAccountingContext, state, DataTypes.DOUBLE.value(args[0].value()));
     }
 
@@ -21,6 +21,8 @@
 
 package io.crate.operation.collect;
 
+import io.crate.lucene.columncache.ColumnCache;
+import io.crate.lucene.zonemap.ShardZoneMaps;
 import io.crate.operation.collect.sources.InformationSchemaIterables;
 import io.crate.operation.collect.sources.SystemCollectSource;
 import org.elasticsearch.common.inject.AbstractModule;
@@ -32,5 +34,7 @@ public class CollectOperationModule extends AbstractModule {
 
         bind(StatsTables.class).asEagerSingleton();
         bind(SystemCollectSource.class).asEagerSingleton();
+        bind(ShardZoneMaps.class).asEagerSingleton();
+        bind(ColumnCache.class).asEagerSingleton();
     }
 }
@@ -22,11 +22,26 @@
 package io.crate.operation.collect;
 
 import io.crate.core.collections.Row;
+import io.crate.operation.Input;
+import io.crate.operation.InputRow;
+import io.crate.operation.NumericInput;
+import io.crate.operation.OrdinalInput;
+import org.apache.lucene.index.RandomAccessOrds;
 
-public class InputCollectExpression implements CollectExpression<Row, Object> {
+/**
+ * Expression returning the value of a row at a fixed position.
+ *
+ * If the row is backed by a {@link NumericInput} or an {@link OrdinalInput} (e.g. a docValues column reference)
+ * the value is read lazily from that input, so that consumers using the
+ * {@link NumericInput} methods can read it without boxing and consumers using the
+ * {@link OrdinalInput} can use the ordinals instead of the values.
+ */
+public class InputCollectExpression implements CollectExpression<Row, Object>, NumericInput, OrdinalInput {
 
     private final int position;
     private Object value;
+    private Input<?> numericInput;
+    private Input<?> ordinalInput;
 
     public InputCollectExpression(int position) {
         this.position = position;
@@ -35,14 +50,92 @@ public class InputCollectExpression implements CollectExpression<Row, Object> {
     @Override
     public void setNextRow(Row row) {
         assert row.size() > position: "row smaller than input position " + row.size() + "<=" + position;
+        if (row instanceof InputRow) {
+            Input<?> input = ((InputRow) row).input(position);
+            if (input instanceof NumericInput) {
+                numericInput = input;
+                ordinalInput = null;
+                value = null;
+                return;
+            }
+            if (input instanceof OrdinalInput) {
+                ordinalInput = input;
+                numericInput = null;
+                value = null;
+                return;
+            }
+        }
+        numericInput = null;
+        ordinalInput = null;
         value = row.get(position);
     }
 
+    /**
+     * @return true if the current row is backed by a {@link NumericInput},
+     *         otherwise the {@link NumericInput} methods unbox the value
+     */
+    public boolean supportsNumeric() {
+        return numericInput != null;
+    }
+
+    /**
+     * @return true if the current row is backed by an {@link OrdinalInput},
+     *         otherwise {@link #ordinals()} returns null
+     */
+    public boolean supportsOrdinals() {
+        return ordinalInput != null;
+    }
+
     @Override
     public Object value() {
+        if (numericInput != null) {
+            return numericInput.value();
+        }
+        if (ordinalInput != null) {
+            return ordinalInput.value();
+        }
         return value;
     }
 
+    @Override
+    public RandomAccessOrds ordinals() {
+        if (ordinalInput != null) {
+            return ((OrdinalInput) ordinalInput).ordinals();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isNull() {
+        if (numericInput != null) {
+            return ((NumericInput) numericInput).isNull();
+        }
+        if (ordinalInput != null) {
+            RandomAccessOrds ordinals = ((OrdinalInput) ordinalInput).ordinals();
+            if (ordinals != null) {
+                return ordinals.cardinality() == 0;
+            }
+            return ordinalInput.value() == null;
+        }
+        return value == null;
+    }
+
+    @Override
+    public long getLong() {
+        if (numericInput != null) {
+            return ((NumericInput) numericInput).getLong();
+        }
+        return ((Number) value).longValue();
+    }
+
+    @Override
+    public double getDouble() {
+        if (numericInput != null) {
+            return ((NumericInput) numericInput).getDouble();
+        }
+        return ((Number) value).doubleValue();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -51,7 +144,9 @@ public class InputCollectExpression implements CollectExpression<Row, Object> {
         InputCollectExpression that = (InputCollectExpression) o;
 
         if (position != that.position) return false;
-        if (value != null ? !value.equals(that.value) : that.value != null) return false;
+        Object value = value();
+        Object thatValue = that.value();
+        if (value != null ? !value.equals(thatValue) : thatValue != null) return false;
 
         return true;
     }
@@ -59,6 +154,7 @@ public class InputCollectExpression implements CollectExpression<Row, Object> {
     @Override
     public int hashCode() {
         int result = position;
+        Object value = value();
         result = 31 * result + (value != null ? value.hashCode() : 0);
         return result;
     }
@@ -31,6 +31,8 @@ import io.crate.action.job.SharedShardContexts;
 import io.crate.action.sql.query.CrateSearchContext;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.AbstractExecutionSubContext;
+import io.crate.jobs.AdmissionController;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.RowGranularity;
 import io.crate.operation.projectors.ListenableRowReceiver;
 import io.crate.operation.projectors.RowReceiver;
@@ -62,8 +64,14 @@ public class JobCollectContext extends AbstractExecutionSubContext {
     private final Object subContextLock = new Object();
     private final ListenableRowReceiver listenableRowReceiver;
     private final String threadPoolName;
+    @Nullable
+    private final AdmissionController.Ticket admissionTicket;
+    private final Object admissionLock = new Object();
+    private boolean launched = false;
 
     private Collection<CrateCollector> collectors;
+    @Nullable
+    private PhaseProfile profile;
 
     public JobCollectContext(final CollectPhase collectPhase,
                              MapSideDataCollectOperation collectOperation,
@@ -71,6 +79,21 @@ public class JobCollectContext extends AbstractExecutionSubContext {
                              RamAccountingContext queryPhaseRamAccountingContext,
                              final RowReceiver rowReceiver,
                              SharedShardContexts sharedShardContexts) {
+        this(collectPhase, collectOperation, localNodeId, queryPhaseRamAccountingContext, rowReceiver,
+            sharedShardContexts, null);
+    }
+
+    /**
+     * @param admissionTicket if not null, collectors running on the SEARCH thread pool are only launched
+     *                        once the job got admitted
+     */
+    public JobCollectContext(final CollectPhase collectPhase,
+                             MapSideDataCollectOperation collectOperation,
+                             String localNodeId,
+                             RamAccountingContext queryPhaseRamAccountingContext,
+                             final RowReceiver rowReceiver,
+                             SharedShardContexts sharedShardContexts,
+                             @Nullable AdmissionController.Ticket admissionTicket) {
         super(collectPhase.executionPhaseId(), LOGGER);
         this.collectPhase = collectPhase;
         this.collectOperation = collectOperation;
@@ -91,6 +114,7 @@ public class JobCollectContext extends AbstractExecutionSubContext {
         });
         this.rowReceiver = listenableRowReceiver;
         this.threadPoolName = threadPoolName(collectPhase, localNodeId);
+        this.admissionTicket = ThreadPool.Names.SEARCH.equals(threadPoolName) ? admissionTicket : null;
     }
 
     public void addSearchContext(int jobSearchContextId, CrateSearchContext searchContext) {
@@ -119,6 +143,19 @@ public class JobCollectContext extends AbstractExecutionSubContext {
     public void cleanup() {
         closeSearchContexts();
         queryPhaseRamAccountingContext.close();
+        releaseAdmission();
+    }
+
+    private void releaseAdmission() {
+        boolean release;
+        synchronized (admissionLock) {
+            release = launched;
+            launched = false;
+        }
+        if (release) {
+            assert admissionTicket != null : "admissionTicket must not be null if collectors got launched";
+            admissionTicket.release();
+        }
     }
 
     @Override
@@ -175,7 +212,40 @@ public class JobCollectContext extends AbstractExecutionSubContext {
             if (logger.isTraceEnabled()) {
                 measureCollectTime();
             }
-            collectOperation.launchCollectors(collectors, threadPoolName);
+            if (admissionTicket == null) {
+                collectOperation.launchCollectors(collectors, threadPoolName);
+            } else {
+                launchAdmitted(admissionTicket);
+            }
+        }
+    }
+
+    private void launchAdmitted(final AdmissionController.Ticket ticket) {
+        Runnable launchCollectors = new Runnable() {
+            @Override
+            public void run() {
+                if (future.closed()) {
+                    return;
+                }
+                try {
+                    collectOperation.launchCollectors(collectors, threadPoolName, ticket.maxThreads());
+                } catch (Throwable t) {
+                    close(t);
+                }
+            }
+        };
+        boolean admitted;
+        synchronized (admissionLock) {
+            if (future.closed()) {
+                return;
+            }
+            admitted = ticket.launch(launchCollectors);
+            launched = true;
+        }
+        if (admitted) {
+            launchCollectors.run();
+        } else {
+            logger.trace("collect phase {} of {} job is waiting for admission", id(), ticket.workloadClass());
         }
     }
 
@@ -195,6 +265,18 @@ public class JobCollectContext extends AbstractExecutionSubContext {
         return queryPhaseRamAccountingContext;
     }
 
+    /**
+     * @return the profile of the collect phase or null if the job isn't profiled
+     */
+    @Nullable
+    public PhaseProfile profile() {
+        return profile;
+    }
+
+    public void profile(@Nullable PhaseProfile profile) {
+        this.profile = profile;
+    }
+
     public SharedShardContexts sharedShardContexts() {
         return sharedShardContexts;
     }
@@ -0,0 +1,156 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import com.twitter.jsr166e.LongAdder;
+import io.crate.metadata.TableIdent;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of the durations of the statements of one type on one table.
+ *
+ * Durations are recorded in microseconds into log-linear buckets: every power of two is split into
+ * 4 sub-buckets, so percentiles are accurate within 25%. Recording doesn't allocate nor lock.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // ~12 days in microseconds
+    static final int NUM_BUCKETS = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final String statementType;
+    @Nullable
+    private final TableIdent tableIdent;
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    LatencyHistogram(String statementType, @Nullable TableIdent tableIdent) {
+        this.statementType = statementType;
+        this.tableIdent = tableIdent;
+    }
+
+    void record(long tookNanos, boolean failed) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0L, tookNanos));
+        buckets.incrementAndGet(bucketIndex(micros));
+        executions.increment();
+        sumMicros.add(micros);
+        if (failed) {
+            failures.increment();
+        }
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return Math.min((exponent - 1) * SUB_BUCKETS + subBucket, NUM_BUCKETS - 1);
+    }
+
+    /**
+     * @return the smallest value in microseconds which is counted into the given bucket
+     */
+    static long lowerBound(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKETS) {
+            return bucketIndex;
+        }
+        int exponent = bucketIndex / SUB_BUCKETS + 1;
+        int subBucket = bucketIndex % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket)) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public String statementType() {
+        return statementType;
+    }
+
+    @Nullable
+    public String tableName() {
+        return tableIdent == null ? null : tableIdent.fqn();
+    }
+
+    public long executions() {
+        return executions.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return the average duration in milliseconds
+     */
+    public double avg() {
+        long executions = this.executions.sum();
+        return executions == 0 ? 0.0d : toMillis(sumMicros.sum()) / executions;
+    }
+
+    /**
+     * @return the maximum duration in milliseconds
+     */
+    public double max() {
+        return toMillis(maxMicros.get());
+    }
+
+    /**
+     * @param percentile a value between 0 and 1
+     * @return the upper bound of the bucket containing the percentile in milliseconds,
+     *         at most the maximum recorded duration
+     */
+    public double percentile(double percentile) {
+        long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0.0d;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long upperBound = i + 1 < NUM_BUCKETS ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                return toMillis(Math.min(upperBound, maxMicros.get()));
+            }
+        }
+        return max();
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0d;
+    }
+}
@@ -111,11 +111,21 @@ public class MapSideDataCollectOperation {
     }
 
     public void launchCollectors(Collection<CrateCollector> shardCollectors, String threadPoolName) throws RejectedExecutionException {
+        launchCollectors(shardCollectors, threadPoolName, Integer.MAX_VALUE);
+    }
+
+    /**
+     * launch the collectors using at most <code>maxThreads</code> threads of the given thread pool
+     */
+    public void launchCollectors(Collection<CrateCollector> shardCollectors,
+                                 String threadPoolName,
+                                 int maxThreads) throws RejectedExecutionException {
         assert !shardCollectors.isEmpty() : "must have at least one collector to launch";
         Executor executor = threadPool.executor(threadPoolName);
         if (executor instanceof ThreadPoolExecutor) {
             ThreadPools.runWithAvailableThreads(
                     (ThreadPoolExecutor) executor,
+                    maxThreads,
                     collectors2Runnables(shardCollectors));
         } else {
             // assume executor is just a wrapper to 1 thread
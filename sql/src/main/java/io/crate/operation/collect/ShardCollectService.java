@@ -30,6 +30,8 @@ import io.crate.analyze.symbol.Symbols;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.lucene.CrateDocIndexService;
+import io.crate.lucene.columncache.ColumnCache;
+import io.crate.lucene.zonemap.ShardZoneMaps;
 import io.crate.metadata.AbstractReferenceResolver;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RowGranularity;
@@ -87,6 +89,8 @@ public class ShardCollectService {
     private final IndexFieldDataService indexFieldDataService;
     private final Functions functions;
     private final AbstractReferenceResolver shardResolver;
+    private final ShardZoneMaps shardZoneMaps;
+    private final ColumnCache columnCache;
 
     @Inject
     public ShardCollectService(SearchContextFactory searchContextFactory,
@@ -104,7 +108,9 @@ public class ShardCollectService {
                                MapperService mapperService,
                                IndexFieldDataService indexFieldDataService,
                                BlobShardReferenceResolver blobShardReferenceResolver,
-                               CrateDocIndexService crateDocIndexService) {
+                               CrateDocIndexService crateDocIndexService,
+                               ShardZoneMaps shardZoneMaps,
+                               ColumnCache columnCache) {
         this.searchContextFactory = searchContextFactory;
         this.threadPool = threadPool;
         this.clusterService = clusterService;
@@ -113,6 +119,8 @@ public class ShardCollectService {
         this.blobIndices = blobIndices;
         this.mapperService = mapperService;
         this.indexFieldDataService = indexFieldDataService;
+        this.shardZoneMaps = shardZoneMaps;
+        this.columnCache = columnCache;
         isBlobShard = BlobIndices.isBlobShard(this.shardId);
 
         shardResolver = isBlobShard ? blobShardReferenceResolver : referenceResolver;
@@ -225,6 +233,12 @@ public class ShardCollectService {
                     collectPhase.whereClause()
             );
             jobCollectContext.addSearchContext(sharedShardContext.readerId(), searchContext);
+            RowReceiver downstream = projectorChain.newShardDownstreamProjector(projectorVisitor);
+            if (!shardZoneMaps.canMatch(shardId, searcher, collectPhase.whereClause())) {
+                // the min/max values of the shard rule out any match, the search context is
+                // still registered so that it is released together with the job
+                return RowsCollector.empty(downstream);
+            }
             CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.extractImplementations(collectPhase);
             Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
 
@@ -233,9 +247,10 @@ public class ShardCollectService {
                     executor,
                     Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
                     jobCollectContext.queryPhaseRamAccountingContext(),
-                    projectorChain.newShardDownstreamProjector(projectorVisitor),
+                    downstream,
                     docCtx.topLevelInputs(),
-                    docCtx.docLevelExpressions()
+                    docCtx.docLevelExpressions(),
+                    columnCache.cachesIndex(shardId.getIndex(), clusterService.state().metaData()) ? columnCache : null
             );
         } catch (Throwable t) {
             if (searchContext == null) {
@@ -292,7 +307,8 @@ public class ShardCollectService {
                 collectPhase.orderBy(),
                 LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputSymbolVisitor),
                 ctx.topLevelInputs(),
-                ctx.docLevelExpressions()
+                ctx.docLevelExpressions(),
+                jobCollectContext.queryPhaseRamAccountingContext()
         );
     }
 }
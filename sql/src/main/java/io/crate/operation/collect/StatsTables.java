@@ -23,14 +23,21 @@ package io.crate.operation.collect;
 
 import com.google.common.base.Supplier;
 import com.twitter.jsr166e.LongAdder;
-import io.crate.core.collections.BlockingEvictingQueue;
 import io.crate.core.collections.NoopQueue;
+import io.crate.core.collections.StripedRingBuffer;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.information.InformationSchemaInfo;
 import io.crate.metadata.settings.CrateSettings;
+import io.crate.metadata.sys.SysSchemaInfo;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
 import io.crate.operation.reference.sys.operation.OperationContext;
 import io.crate.operation.reference.sys.operation.OperationContextLog;
-import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
@@ -38,11 +45,14 @@ import org.elasticsearch.node.settings.NodeSettingsService;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -56,18 +66,37 @@ import java.util.concurrent.atomic.AtomicReference;
 @Singleton
 public class StatsTables {
 
-    private final static BlockingQueue<OperationContextLog> NOOP_OPERATIONS_LOG = NoopQueue.instance();
-    private final static BlockingQueue<JobContextLog> NOOP_JOBS_LOG = NoopQueue.instance();
+    private final static Queue<OperationContextLog> NOOP_OPERATIONS_LOG = NoopQueue.instance();
+    private final static Queue<JobContextLog> NOOP_JOBS_LOG = NoopQueue.instance();
+    private final static TableIdent NO_TABLE = new TableIdent("", "");
 
     private final Map<UUID, JobContext> jobsTable = new ConcurrentHashMap<>();
-    private final Map<Tuple<Integer, UUID>, OperationContext> operationsTable = new ConcurrentHashMap<>();
-    final AtomicReference<BlockingQueue<JobContextLog>> jobsLog = new AtomicReference<>(NOOP_JOBS_LOG);
-    final AtomicReference<BlockingQueue<OperationContextLog>> operationsLog = new AtomicReference<>(NOOP_OPERATIONS_LOG);
+    private final Map<OperationKey, OperationContext> operationsTable = new ConcurrentHashMap<>();
+    final AtomicReference<Queue<JobContextLog>> jobsLog = new AtomicReference<>(NOOP_JOBS_LOG);
+    final AtomicReference<Queue<OperationContextLog>> operationsLog = new AtomicReference<>(NOOP_OPERATIONS_LOG);
+
+    /**
+     * mutable keys used to look up operations without allocating a key per lookup
+     */
+    private final ThreadLocal<OperationKey> lookupKeys = new ThreadLocal<OperationKey>() {
+        @Override
+        protected OperationKey initialValue() {
+            return new OperationKey();
+        }
+    };
+
+    /**
+     * latency histograms by statement type and table, always recorded regardless of {@link #isEnabled()}.
+     * Histograms of dropped tables are removed by the {@link DroppedTablesListener}.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<TableIdent, LatencyHistogram>> latencies =
+        new ConcurrentHashMap<>();
 
     private final JobsLogIterableGetter jobsLogIterableGetter;
     private final JobsIterableGetter jobsIterableGetter;
     private final OperationsIterableGetter operationsIterableGetter;
     private final OperationsLogIterableGetter operationsLogIterableGetter;
+    private final LatenciesIterableGetter latenciesIterableGetter;
     private final LongAdder activeRequests = new LongAdder();
 
     protected final NodeSettingsService.Listener listener = new NodeSettingListener();
@@ -76,7 +105,7 @@ public class StatsTables {
     private volatile boolean lastIsEnabled;
 
     @Inject
-    public StatsTables(Settings settings, NodeSettingsService nodeSettingsService) {
+    public StatsTables(Settings settings, NodeSettingsService nodeSettingsService, ClusterService clusterService) {
         int operationsLogSize = CrateSettings.STATS_OPERATIONS_LOG_SIZE.extract(settings);
         int jobsLogSize = CrateSettings.STATS_JOBS_LOG_SIZE.extract(settings);
         boolean isEnabled = CrateSettings.STATS_ENABLED.extract(settings);
@@ -94,10 +123,12 @@ public class StatsTables {
         lastIsEnabled = isEnabled;
 
         nodeSettingsService.addListener(listener);
+        clusterService.add(new DroppedTablesListener());
         jobsLogIterableGetter = new JobsLogIterableGetter();
         jobsIterableGetter = new JobsIterableGetter();
         operationsIterableGetter = new OperationsIterableGetter();
         operationsLogIterableGetter = new OperationsLogIterableGetter();
+        latenciesIterableGetter = new LatenciesIterableGetter();
     }
 
     /**
@@ -108,11 +139,11 @@ public class StatsTables {
         return lastIsEnabled;
     }
 
-    /**
-     * Generate a unique ID for an operation based on jobId and operationId.
-     */
-    private static Tuple<Integer, UUID> uniqueOperationId(int operationId, UUID jobId) {
-        return Tuple.tuple(operationId, jobId);
+    private OperationKey lookupKey(int operationId, UUID jobId) {
+        OperationKey key = lookupKeys.get();
+        key.operationId = operationId;
+        key.jobId = jobId;
+        return key;
     }
 
     /**
@@ -150,7 +181,7 @@ public class StatsTables {
     public void operationStarted(int operationId, UUID jobId, String name) {
         if (isEnabled()) {
             operationsTable.put(
-                    uniqueOperationId(operationId, jobId),
+                    new OperationKey(operationId, jobId),
                     new OperationContext(operationId, jobId, name, System.currentTimeMillis()));
         }
     }
@@ -159,7 +190,9 @@ public class StatsTables {
         if (operationId == null || jobId == null | !isEnabled()) {
             return;
         }
-        OperationContext operationContext = operationsTable.remove(uniqueOperationId(operationId, jobId));
+        OperationKey key = lookupKey(operationId, jobId);
+        OperationContext operationContext = operationsTable.remove(key);
+        key.jobId = null;
         if (operationContext == null) {
             // this might be the case if the stats were disabled when the operation started but have
             // been enabled before the finish
@@ -170,6 +203,32 @@ public class StatsTables {
         operationContextLogs.offer(new OperationContextLog(operationContext, errorMessage));
     }
 
+    /**
+     * Record the duration of a statement in the latency histogram of its type and table.
+     * This is done even if {@link #isEnabled()} is false.
+     *
+     * @param table the table the statement operates on, null if there is none or more than one
+     */
+    public void statementFinished(String statementType, @Nullable TableIdent table, long tookNanos, boolean failed) {
+        ConcurrentMap<TableIdent, LatencyHistogram> tables = latencies.get(statementType);
+        if (tables == null) {
+            tables = new ConcurrentHashMap<>();
+            ConcurrentMap<TableIdent, LatencyHistogram> existing = latencies.putIfAbsent(statementType, tables);
+            if (existing != null) {
+                tables = existing;
+            }
+        }
+        TableIdent key = table == null ? NO_TABLE : table;
+        LatencyHistogram histogram = tables.get(key);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(statementType, table);
+            LatencyHistogram existing = tables.putIfAbsent(key, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        histogram.record(tookNanos, failed);
+    }
 
     public Supplier<Iterable<?>> jobsGetter() {
         return jobsIterableGetter;
@@ -187,6 +246,10 @@ public class StatsTables {
         return operationsLogIterableGetter;
     }
 
+    public Supplier<Iterable<?>> latenciesGetter() {
+        return latenciesIterableGetter;
+    }
+
     public long activeRequests() {
         return activeRequests.longValue();
     }
@@ -223,12 +286,24 @@ public class StatsTables {
         }
     }
 
+    private class LatenciesIterableGetter implements Supplier<Iterable<?>> {
+
+        @Override
+        public Iterable<?> get() {
+            List<LatencyHistogram> histograms = new ArrayList<>();
+            for (ConcurrentMap<TableIdent, LatencyHistogram> tables : latencies.values()) {
+                histograms.addAll(tables.values());
+            }
+            return histograms;
+        }
+    }
+
     private void setOperationsLog(int size) {
         if (size == 0) {
             operationsLog.set(NOOP_OPERATIONS_LOG);
         } else {
             Queue<OperationContextLog> oldQ = operationsLog.get();
-            BlockingEvictingQueue<OperationContextLog> newQ = new BlockingEvictingQueue<>(size);
+            StripedRingBuffer<OperationContextLog> newQ = new StripedRingBuffer<>(size);
             newQ.addAll(oldQ);
             operationsLog.set(newQ);
         }
@@ -239,12 +314,46 @@ public class StatsTables {
             jobsLog.set(NOOP_JOBS_LOG);
         } else {
             Queue<JobContextLog> oldQ = jobsLog.get();
-            BlockingEvictingQueue<JobContextLog> newQ = new BlockingEvictingQueue<>(size);
+            StripedRingBuffer<JobContextLog> newQ = new StripedRingBuffer<>(size);
             newQ.addAll(oldQ);
             jobsLog.set(newQ);
         }
     }
 
+    /**
+     * Removes the latency histograms of tables which don't exist anymore
+     */
+    void removeLatenciesOfDroppedTables(MetaData metaData) {
+        for (ConcurrentMap<TableIdent, LatencyHistogram> tables : latencies.values()) {
+            Iterator<TableIdent> it = tables.keySet().iterator();
+            while (it.hasNext()) {
+                TableIdent table = it.next();
+                if (table != NO_TABLE && !tableExists(metaData, table)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static boolean tableExists(MetaData metaData, TableIdent table) {
+        String schema = table.schema();
+        if (schema.equals(SysSchemaInfo.NAME) || schema.equals(InformationSchemaInfo.NAME)) {
+            return true;
+        }
+        return metaData.hasIndex(table.indexName())
+               || metaData.templates().containsKey(PartitionName.templateName(schema, table.name()));
+    }
+
+    private class DroppedTablesListener implements ClusterStateListener {
+
+        @Override
+        public void clusterChanged(ClusterChangedEvent event) {
+            if (event.metaDataChanged()) {
+                removeLatenciesOfDroppedTables(event.state().metaData());
+            }
+        }
+    }
+
     private class NodeSettingListener implements NodeSettingsService.Listener {
 
         @Override
@@ -286,4 +395,35 @@ public class StatsTables {
             }
         }
     }
+
+    /**
+     * Identifies an operation by its id and the id of its job.
+     * Mutable so that a single instance per thread can be used for lookups.
+     */
+    private static final class OperationKey {
+
+        private int operationId;
+        private UUID jobId;
+
+        OperationKey() {
+        }
+
+        OperationKey(int operationId, UUID jobId) {
+            this.operationId = operationId;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            OperationKey that = (OperationKey) o;
+            return operationId == that.operationId && jobId.equals(that.jobId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * jobId.hashCode() + operationId;
+        }
+    }
 }
@@ -26,6 +26,7 @@ import io.crate.action.sql.query.CrateSearchContext;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
+import io.crate.lucene.columncache.ColumnCache;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.CollectionFinishedEarlyException;
@@ -71,7 +72,8 @@ public class CrateDocCollector implements CrateCollector {
                              RamAccountingContext ramAccountingContext,
                              RowReceiver rowReceiver,
                              List<Input<?>> inputs,
-                             Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                             Collection<? extends LuceneCollectorExpression<?>> expressions,
+                             @Nullable ColumnCache columnCache) {
         this.searchContext = searchContext;
         this.rowReceiver = rowReceiver;
         upstreamState = new TopRowUpstream(
@@ -99,7 +101,8 @@ public class CrateDocCollector implements CrateCollector {
                 searchContext.mapperService(),
                 searchContext.fieldData(),
                 fieldsVisitor,
-                ((int) searchContext.id())
+                ((int) searchContext.id()),
+                columnCache
         );
         rowReceiver.setUpstream(upstreamState);
         this.doScores = doScores || searchContext.minimumScore() != null;
@@ -24,6 +24,7 @@ package io.crate.operation.collect.collectors;
 
 import com.google.common.collect.Iterables;
 import io.crate.analyze.OrderBy;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.analyze.symbol.Reference;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.core.collections.Row;
@@ -34,6 +35,8 @@ import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneMissingValue;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
@@ -49,10 +52,26 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+/**
+ * Pages through a shard in the order of {@link OrderBy}.
+ *
+ * Every search which is needed to continue after the last returned document has to run the
+ * query again. To keep the number of these searches low, each search after the initial one
+ * fetches twice as many documents as the previous one (up to {@link #MAX_SEARCH_SIZE}) and the
+ * documents are returned in batches of batchSize from the result of the last search.
+ *
+ * The documents of the last search are accounted on the {@link RamAccountingContext} of the
+ * collect phase for as long as they are buffered.
+ */
 public class OrderedDocCollector implements Callable<KeyIterable<ShardId, Row>>, AutoCloseable {
 
     private static final ESLogger LOGGER = Loggers.getLogger(OrderedDocCollector.class);
 
+    /**
+     * maximum number of documents fetched by one search, unless the batchSize is larger
+     */
+    static final int MAX_SEARCH_SIZE = 100_000;
+
     private final SearchContext searchContext;
     private final boolean doDocsScores;
     private final int batchSize;
@@ -65,6 +84,7 @@ public class OrderedDocCollector implements Callable<KeyIterable<ShardId, Row>>,
     private final ScoreDocRowFunction rowFunction;
     private final DummyScorer scorer;
     private final ContextIndexSearcher searcher;
+    private final RamAccountingContext ramAccountingContext;
 
     private final Object[] missingValues;
 
@@ -72,6 +92,13 @@ public class OrderedDocCollector implements Callable<KeyIterable<ShardId, Row>>,
     @Nullable
     private volatile FieldDoc lastDoc = null;
 
+    // documents of the last search which haven't been returned yet
+    private ScoreDoc[] scoreDocs = new ScoreDoc[0];
+    private int scoreDocsPos = 0;
+    private int searchSize;
+    private boolean searchExhausted = false;
+    private long bufferedBytes = 0;
+
     volatile boolean exhausted = false;
 
 
@@ -82,17 +109,20 @@ public class OrderedDocCollector implements Callable<KeyIterable<ShardId, Row>>,
                                OrderBy orderBy,
                                Sort sort,
                                List<Input<?>> inputs,
-                               Collection<LuceneCollectorExpression<?>> expressions) {
+                               Collection<LuceneCollectorExpression<?>> expressions,
+                               RamAccountingContext ramAccountingContext) {
         this.searchContext = searchContext;
         this.shardId = searchContext.indexShard().shardId();
         this.doDocsScores = doDocsScores;
         this.batchSize = batchSize;
+        this.searchSize = batchSize;
         this.orderBy = orderBy;
         searcher = searchContext.searcher();
         this.collectorContext = collectorContext;
         this.sort = sort;
         this.scorer = new DummyScorer();
         this.expressions = expressions;
+        this.ramAccountingContext = ramAccountingContext;
         this.rowFunction = new ScoreDocRowFunction(
                 searcher.getIndexReader(),
                 inputs,
@@ -120,42 +150,111 @@ public class OrderedDocCollector implements Callable<KeyIterable<ShardId, Row>>,
         if (exhausted) {
             return empty;
         }
-        if (lastDoc == null) {
-            return initialSearch();
+        if (scoreDocsPos == scoreDocs.length) {
+            if (lastDoc == null) {
+                initialSearch();
+            } else {
+                searchMore();
+            }
+        }
+        return nextBatch();
+    }
+
+    /**
+     * @return the number of documents to fetch with the search following a search of searchSize documents
+     */
+    static int nextSearchSize(int searchSize, int batchSize) {
+        return (int) Math.min(searchSize * 2L, Math.max(batchSize, MAX_SEARCH_SIZE));
+    }
+
+    /**
+     * @return the estimated number of bytes used by a {@link FieldDoc} and its slot in the result array
+     */
+    static long ramBytesUsed(ScoreDoc scoreDoc) {
+        long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                     + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+                     + RamUsageEstimator.NUM_BYTES_FLOAT
+                     + 2 * RamUsageEstimator.NUM_BYTES_INT
+                     + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        if (!(scoreDoc instanceof FieldDoc)) {
+            return bytes;
+        }
+        Object[] fields = ((FieldDoc) scoreDoc).fields;
+        bytes += RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + fields.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        for (Object field : fields) {
+            if (field == null) {
+                continue;
+            }
+            if (field instanceof BytesRef) {
+                bytes += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                         + ((BytesRef) field).length;
+            } else if (field instanceof String) {
+                bytes += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                         + ((String) field).length() * RamUsageEstimator.NUM_BYTES_CHAR;
+            } else {
+                bytes += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_LONG;
+            }
         }
-        return searchMore();
+        return bytes;
+    }
+
+    /**
+     * @return the estimated number of bytes of the documents which are currently buffered
+     */
+    long bufferedBytes() {
+        return bufferedBytes;
     }
 
     @Override
     public void close() {
+        releaseBufferedBytes();
         searchContext.clearReleasables(SearchContext.Lifetime.PHASE);
         searchContext.close();
     }
 
-    private KeyIterable<ShardId, Row> scoreDocToIterable(ScoreDoc[] scoreDocs) {
-        exhausted = scoreDocs.length < batchSize;
+    private KeyIterable<ShardId, Row> nextBatch() {
+        int end = Math.min(scoreDocsPos + batchSize, scoreDocs.length);
+        List<ScoreDoc> batch = Arrays.asList(scoreDocs).subList(scoreDocsPos, end);
+        scoreDocsPos = end;
+        exhausted = searchExhausted && scoreDocsPos == scoreDocs.length;
+        return new KeyIterable<>(shardId, Iterables.transform(batch, rowFunction));
+    }
+
+    private void searchResult(ScoreDoc[] scoreDocs, int searchSize) {
+        long newBytes = 0;
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            newBytes += ramBytesUsed(scoreDoc);
+        }
+        // the previous result is replaced, so only the difference has to be accounted
+        long delta = newBytes - bufferedBytes;
+        bufferedBytes = newBytes;
+        ramAccountingContext.addBytes(delta);
+        this.scoreDocs = scoreDocs;
+        scoreDocsPos = 0;
+        searchExhausted = scoreDocs.length < searchSize;
         if (scoreDocs.length > 0) {
             lastDoc = (FieldDoc) scoreDocs[scoreDocs.length - 1];
         }
-        return new KeyIterable<>(shardId, Iterables.transform(Arrays.asList(scoreDocs), rowFunction));
     }
 
-    private KeyIterable<ShardId, Row> searchMore() throws IOException {
-        if (exhausted) {
-            LOGGER.trace("searchMore but EXHAUSTED");
-            return empty;
-        }
-        LOGGER.debug("searchMore from [{}]", lastDoc);
-        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), batchSize, sort, doDocsScores, false);
-        return scoreDocToIterable(topDocs.scoreDocs);
+    private void releaseBufferedBytes() {
+        ramAccountingContext.addBytes(-bufferedBytes);
+        bufferedBytes = 0;
+    }
+
+    private void searchMore() throws IOException {
+        searchSize = nextSearchSize(searchSize, batchSize);
+        LOGGER.debug("searchMore from [{}] size={}", lastDoc, searchSize);
+        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), searchSize, sort, doDocsScores, false);
+        searchResult(topDocs.scoreDocs, searchSize);
     }
 
-    private KeyIterable<ShardId, Row> initialSearch() throws IOException {
+    private void initialSearch() throws IOException {
         for (LuceneCollectorExpression<?> expression : expressions) {
             expression.startCollect(collectorContext);
             expression.setScorer(scorer);
         }
-        TopFieldCollector topFieldCollector = TopFieldCollector.create(sort, batchSize, true, doDocsScores, doDocsScores);
+        TopFieldCollector topFieldCollector = TopFieldCollector.create(sort, searchSize, true, doDocsScores, doDocsScores);
         Collector collector = topFieldCollector;
         if (searchContext.minimumScore() != null) {
             collector = new MinimumScoreCollector(collector, searchContext.minimumScore());
@@ -164,7 +263,7 @@ public class OrderedDocCollector implements Callable<KeyIterable<ShardId, Row>>,
         assert searchContext.parsedPostFilter() == null : "parsedPostFilter not supported";
 
         searcher.search(searchContext.query(), collector);
-        return scoreDocToIterable(topFieldCollector.topDocs().scoreDocs);
+        searchResult(topFieldCollector.topDocs().scoreDocs, searchSize);
     }
 
     private Query query(FieldDoc lastDoc) {
@@ -51,7 +51,9 @@ public class ProjectorSetupCollectSource implements CollectSource {
                 jobCollectContext.queryPhaseRamAccountingContext(),
                 collectPhase.projections(),
                 downstream,
-                collectPhase.jobId()
+                collectPhase.jobId(),
+                0,
+                jobCollectContext.profile()
         );
         projectorChain.prepare();
         return sourceDelegate.getCollectors(collectPhase, projectorChain.firstProjector(), jobCollectContext);
@@ -142,7 +142,9 @@ public class ShardCollectSource implements CollectSource {
                         jobCollectContext.queryPhaseRamAccountingContext(),
                         normalizedPhase.projections(),
                         downstream,
-                        collectPhase.jobId()
+                        collectPhase.jobId(),
+                        0,
+                        jobCollectContext.profile()
                 );
             } else {
                 flatProjectorChain = FlatProjectorChain.withReceivers(ImmutableList.of(downstream));
@@ -165,7 +167,8 @@ public class ShardCollectSource implements CollectSource {
                 normalizedPhase.projections(),
                 downstream,
                 projectorFactory,
-                jobCollectContext.queryPhaseRamAccountingContext());
+                jobCollectContext.queryPhaseRamAccountingContext(),
+                jobCollectContext.profile());
 
         Map<String, Map<String, List<Integer>>> locations = normalizedPhase.routing().locations();
         final List<CrateCollector> shardCollectors = new ArrayList<>(maxNumShards);
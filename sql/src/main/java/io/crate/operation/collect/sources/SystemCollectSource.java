@@ -23,12 +23,14 @@ package io.crate.operation.collect.sources;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.*;
+import io.crate.action.sql.QueryResultCache;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.WhereClause;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.core.collections.Buckets;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.NodeLoadTracker;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RowCollectExpression;
 import io.crate.metadata.information.*;
@@ -47,6 +49,7 @@ import io.crate.operation.reference.sys.snapshot.SysSnapshots;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
 import io.crate.types.DataTypes;
+import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.discovery.DiscoveryService;
 
@@ -72,7 +75,10 @@ public class SystemCollectSource implements CollectSource {
                                Set<SysCheck> sysChecks,
                                Set<SysNodeCheck> sysNodeChecks,
                                SysRepositories sysRepositories,
-                               SysSnapshots sysSnapshots) {
+                               SysSnapshots sysSnapshots,
+                               BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
+                               QueryResultCache queryResultCache,
+                               NodeLoadTracker nodeLoadTracker) {
         docInputSymbolVisitor = new CollectInputSymbolVisitor<>(functions, RowContextReferenceResolver.INSTANCE);
 
         iterableGetters = ImmutableMap.<String, Supplier<Iterable<?>>>builder()
@@ -90,6 +96,10 @@ public class SystemCollectSource implements CollectSource {
             .put(SysNodeChecksTableInfo.IDENT.fqn(), new SysChecker(sysNodeChecks))
             .put(SysRepositoriesTableInfo.IDENT.fqn(), sysRepositories)
             .put(SysSnapshotsTableInfo.IDENT.fqn(), sysSnapshots)
+            .put(SysBulkRetriesTableInfo.IDENT.fqn(), bulkRetryCoordinatorPool)
+            .put(SysResultCacheTableInfo.IDENT.fqn(), queryResultCache)
+            .put(SysNodeLoadTableInfo.IDENT.fqn(), nodeLoadTracker)
+            .put(SysQueryLatenciesTableInfo.IDENT.fqn(), statsTables.latenciesGetter())
             .build();
         this.discoveryService = discoveryService;
     }
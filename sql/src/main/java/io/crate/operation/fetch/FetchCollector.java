@@ -24,19 +24,26 @@ package io.crate.operation.fetch;
 
 import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.cursors.IntCursor;
+import io.crate.Streamer;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.MapperService;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -47,6 +54,7 @@ public class FetchCollector {
     private final Collection<LuceneCollectorExpression<?>> collectorExpressions;
     private final InputRow row;
     private LeafReader currentReader;
+    private StoredFieldsReader currentFieldsReader;
     private final List<LeafReaderContext> readerContexts;
 
     public FetchCollector(List<LuceneCollectorExpression<?>> collectorExpressions,
@@ -68,6 +76,15 @@ public class FetchCollector {
 
     public void setNextReader(LeafReaderContext context) throws IOException {
         currentReader = context.reader();
+        currentFieldsReader = null;
+        if (visitorEnabled) {
+            LeafReader reader = FilterLeafReader.unwrap(currentReader);
+            if (reader instanceof CodecReader) {
+                // the merge instance keeps the last decompressed block, which is re-used
+                // as the docIds are visited in ascending order
+                currentFieldsReader = ((CodecReader) reader).getFieldsReader().getMergeInstance();
+            }
+        }
         for (LuceneCollectorExpression expr : collectorExpressions) {
             expr.setNextReader(context);
         }
@@ -76,21 +93,82 @@ public class FetchCollector {
     public void setNextDocId(int doc) throws IOException {
         if (visitorEnabled) {
             fieldsVisitor.reset();
-            currentReader.document(doc, fieldsVisitor);
+            if (currentFieldsReader == null) {
+                currentReader.document(doc, fieldsVisitor);
+            } else {
+                currentFieldsReader.visitDocument(doc, fieldsVisitor);
+            }
         }
         for (LuceneCollectorExpression e : collectorExpressions) {
             e.setNextDocId(doc);
         }
     }
 
+    /**
+     * Adds the rows of the given docIds to the builder in the order of the docIds.
+     * The documents are read in ascending docId order, segment by segment, and the rows
+     * are rearranged afterwards, reading them in the requested order would mean random
+     * access across all segments.
+     */
     public void collect(IntContainer docIds, StreamBucket.Builder builder) throws IOException {
-        for (IntCursor cursor : docIds) {
-            final int docId = cursor.value;
-            int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
-            LeafReaderContext subReaderContext = readerContexts.get(readerIndex);
+        long[] sortedDocIds = sortedDocIds(docIds);
+        if (sortedDocIds == null) {
+            for (IntCursor cursor : docIds) {
+                collect(cursor.value);
+                builder.add(row);
+            }
+            return;
+        }
+
+        Streamer<?>[] streamers = builder.streamers();
+        BytesStreamOutput sortedRows = new BytesStreamOutput();
+        int[] sortedPositions = new int[sortedDocIds.length];
+        int[] rowOffsets = new int[sortedDocIds.length + 1];
+        for (int i = 0; i < sortedDocIds.length; i++) {
+            collect((int) (sortedDocIds[i] >>> 32));
+            sortedPositions[(int) sortedDocIds[i]] = i;
+            rowOffsets[i] = (int) sortedRows.position();
+            for (int c = 0; c < streamers.length; c++) {
+                streamers[c].writeValueTo(sortedRows, row.get(c));
+            }
+        }
+        rowOffsets[sortedDocIds.length] = (int) sortedRows.position();
+
+        BytesReference rows = sortedRows.bytes();
+        for (int sortedPosition : sortedPositions) {
+            int offset = rowOffsets[sortedPosition];
+            builder.addSerialized(rows.slice(offset, rowOffsets[sortedPosition + 1] - offset));
+        }
+    }
+
+    private void collect(int docId) throws IOException {
+        int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
+        LeafReaderContext subReaderContext = readerContexts.get(readerIndex);
+        if (currentReader != subReaderContext.reader()) {
             setNextReader(subReaderContext);
-            setNextDocId(docId - subReaderContext.docBase);
-            builder.add(row);
         }
+        setNextDocId(docId - subReaderContext.docBase);
+    }
+
+    /**
+     * @return the docIds in the upper and their position in the given container in the lower half,
+     *         sorted by docId, or null if the docIds are already in ascending order
+     */
+    static long[] sortedDocIds(IntContainer docIds) {
+        long[] sorted = new long[docIds.size()];
+        boolean ascending = true;
+        int previous = -1;
+        int position = 0;
+        for (IntCursor cursor : docIds) {
+            ascending &= cursor.value >= previous;
+            previous = cursor.value;
+            sorted[position] = ((long) cursor.value << 32) | position;
+            position++;
+        }
+        if (ascending) {
+            return null;
+        }
+        Arrays.sort(sorted);
+        return sorted;
     }
 }
@@ -30,7 +30,7 @@ import io.crate.operation.collect.CollectExpression;
 
 import java.util.Set;
 
-public class AggregationPipe extends AbstractProjector {
+public class AggregationPipe extends AbstractProjector implements BatchRowReceiver {
 
     private final Aggregator[] aggregators;
     private final Set<CollectExpression<Row, ?>> collectExpressions;
@@ -71,6 +71,25 @@ public class AggregationPipe extends AbstractProjector {
         return true;
     }
 
+    @Override
+    public boolean acceptsBatches() {
+        return true;
+    }
+
+    @Override
+    public boolean setNextBatch(RowBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Row row = batch.get(i);
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            for (int j = 0; j < aggregators.length; j++) {
+                states[j] = aggregators[j].processRow(states[j]);
+            }
+        }
+        return true;
+    }
+
     @Override
     public void fail(Throwable t) {
         downstream.fail(t);
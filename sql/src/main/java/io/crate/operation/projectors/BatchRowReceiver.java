@@ -0,0 +1,46 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+/**
+ * A {@link RowReceiver} which is also able to receive rows in batches.
+ *
+ * Batches are only sent if {@link #acceptsBatches()} returns true.
+ * Such a receiver must not pause its upstream and must either only emit rows in
+ * {@link #finish()} or forward batches to a downstream which accepts batches, too.
+ */
+public interface BatchRowReceiver extends RowReceiver {
+
+    /**
+     * @return true if batches may be sent to this receiver.
+     *         Must only be called once the downstream of the receiver is set.
+     */
+    boolean acceptsBatches();
+
+    /**
+     * Feed the receiver with the next batch of rows.
+     * The batch is a shared object, its content changes after the call.
+     *
+     * @return false if the receiver doesn't need any more rows, true otherwise.
+     */
+    boolean setNextBatch(RowBatch batch);
+}
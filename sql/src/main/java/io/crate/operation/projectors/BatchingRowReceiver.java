@@ -0,0 +1,121 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.Row;
+import io.crate.operation.RowUpstream;
+
+import java.util.Set;
+
+/**
+ * Adapter which buffers the rows of a row based upstream and passes them to
+ * a {@link BatchRowReceiver} in batches.
+ */
+public class BatchingRowReceiver implements RowReceiver, RowUpstream {
+
+    private final BatchRowReceiver downstream;
+    private final int batchSize;
+    private RowUpstream upstream;
+    private RowBatch batch = null;
+    private boolean wantMore = true;
+
+    public BatchingRowReceiver(BatchRowReceiver downstream, int batchSize) {
+        assert downstream.acceptsBatches() : "downstream must accept batches";
+        this.downstream = downstream;
+        this.batchSize = batchSize;
+        downstream.setUpstream(this);
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        if (!wantMore) {
+            return false;
+        }
+        if (batch == null) {
+            batch = new RowBatch(row.size(), batchSize);
+        }
+        batch.add(row);
+        if (batch.isFull()) {
+            return flush();
+        }
+        return true;
+    }
+
+    private boolean flush() {
+        if (batch != null && batch.size() > 0) {
+            wantMore = downstream.setNextBatch(batch);
+            batch.clear();
+        }
+        return wantMore;
+    }
+
+    @Override
+    public void finish() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            downstream.fail(t);
+            return;
+        }
+        downstream.finish();
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        batch = null;
+        downstream.fail(throwable);
+    }
+
+    @Override
+    public void kill(Throwable throwable) {
+        downstream.kill(throwable);
+    }
+
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public void setUpstream(RowUpstream rowUpstream) {
+        this.upstream = rowUpstream;
+    }
+
+    @Override
+    public Set<Requirement> requirements() {
+        return downstream.requirements();
+    }
+
+    @Override
+    public void pause() {
+        upstream.pause();
+    }
+
+    @Override
+    public void resume(boolean async) {
+        upstream.resume(async);
+    }
+
+    @Override
+    public void repeat() {
+        upstream.repeat();
+    }
+}
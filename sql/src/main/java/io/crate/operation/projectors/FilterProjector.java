@@ -27,7 +27,7 @@ import io.crate.operation.collect.CollectExpression;
 
 import java.util.Collection;
 
-public class FilterProjector extends AbstractProjector {
+public class FilterProjector extends AbstractProjector implements BatchRowReceiver {
 
     private final Collection<CollectExpression<Row, ?>> collectExpressions;
     private final Input<Boolean> condition;
@@ -50,6 +50,26 @@ public class FilterProjector extends AbstractProjector {
         return true;
     }
 
+    @Override
+    public boolean acceptsBatches() {
+        return RowReceivers.acceptsBatches(downstream);
+    }
+
+    @Override
+    public boolean setNextBatch(RowBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Row row = batch.get(i);
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            if (InputCondition.matches(condition)) {
+                batch.retain(i);
+            }
+        }
+        batch.finishRetain();
+        return batch.size() == 0 || ((BatchRowReceiver) downstream).setNextBatch(batch);
+    }
+
     @Override
     public void finish() {
         downstream.finish();
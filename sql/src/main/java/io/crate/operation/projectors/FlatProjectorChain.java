@@ -24,8 +24,10 @@ package io.crate.operation.projectors;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.jobs.PhaseProfile;
 import io.crate.planner.projection.Projection;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -70,10 +72,41 @@ public class FlatProjectorChain {
                                                             Collection<? extends Projection> projections,
                                                             RowReceiver downstream,
                                                             UUID jobId) {
+        return withAttachedDownstream(projectorFactory, ramAccountingContext, projections, downstream, jobId, 0);
+    }
+
+    /**
+     * Like {@link #withAttachedDownstream(ProjectorFactory, RamAccountingContext, Collection, RowReceiver, UUID)}
+     * but if the projectors accept batches ({@link BatchRowReceiver}) the rows fed into the chain are buffered
+     * and passed through the projectors in batches of <code>batchSize</code> rows.
+     *
+     * @param batchSize the number of rows per batch, batching is disabled if &lt;= 0
+     */
+    public static FlatProjectorChain withAttachedDownstream(final ProjectorFactory projectorFactory,
+                                                            final RamAccountingContext ramAccountingContext,
+                                                            Collection<? extends Projection> projections,
+                                                            RowReceiver downstream,
+                                                            UUID jobId,
+                                                            int batchSize) {
+        return withAttachedDownstream(
+            projectorFactory, ramAccountingContext, projections, downstream, jobId, batchSize, null);
+    }
+
+    /**
+     * Like {@link #withAttachedDownstream(ProjectorFactory, RamAccountingContext, Collection, RowReceiver, UUID, int)}
+     * but the projectors report to the profile of the execution phase
+     */
+    public static FlatProjectorChain withAttachedDownstream(final ProjectorFactory projectorFactory,
+                                                            final RamAccountingContext ramAccountingContext,
+                                                            Collection<? extends Projection> projections,
+                                                            RowReceiver downstream,
+                                                            UUID jobId,
+                                                            int batchSize,
+                                                            @Nullable PhaseProfile profile) {
         List<RowReceiver> rowReceivers = new ArrayList<>();
         Projector previousProjector = null;
         for (Projection projection : projections) {
-            Projector projector = projectorFactory.create(projection, ramAccountingContext, jobId);
+            Projector projector = projectorFactory.create(projection, ramAccountingContext, jobId, profile);
             rowReceivers.add(projector);
             if (previousProjector != null) {
                 previousProjector.downstream(projector);
@@ -84,6 +117,9 @@ public class FlatProjectorChain {
             rowReceivers.add(downstream);
             previousProjector.downstream(downstream);
         }
+        if (batchSize > 0 && !rowReceivers.isEmpty() && RowReceivers.acceptsBatches(rowReceivers.get(0))) {
+            rowReceivers.add(0, new BatchingRowReceiver((BatchRowReceiver) rowReceivers.get(0), batchSize));
+        }
         return new FlatProjectorChain(rowReceivers);
     }
 
@@ -21,22 +21,33 @@
 
 package io.crate.operation.projectors;
 
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.RowN;
+import io.crate.jobs.PhaseProfile;
 import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
+import io.crate.operation.NumericInput;
+import io.crate.operation.OrdinalInput;
 import io.crate.operation.aggregation.Aggregator;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -44,25 +55,109 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import javax.annotation.Nullable;
 import java.util.*;
 
-public class GroupingProjector extends AbstractProjector {
+/**
+ * Groups the incoming rows by their keys and aggregates them.
+ *
+ * If all aggregations return partial states, the result is merged again by a downstream phase. In this case
+ * the projector checks how much the grouping reduces the rows after {@link #BYPASS_SAMPLE_SIZE} rows.
+ * If there are almost as many groups as rows, all following rows are passed through to the downstream,
+ * each one as a group of its own, which saves hashing and memory for groups which won't be hit again.
+ */
+public class GroupingProjector extends AbstractProjector implements BatchRowReceiver {
+
+    static final int BYPASS_SAMPLE_SIZE = 10_000;
+    static final double BYPASS_MIN_GROUPS_PER_ROW = 0.9;
 
+    /**
+     * segments with more distinct values are grouped by hashing the values instead of using their ordinals
+     */
+    static final long MAX_SEGMENT_ORDINALS = 1 << 20;
 
     private static final ESLogger logger = Loggers.getLogger(GroupingProjector.class);
     private final RamAccountingContext ramAccountingContext;
 
-    private final Grouper grouper;
+    private final List<? extends DataType> keyTypes;
+    private final List<Input<?>> keyInputs;
+    private final CollectExpression[] collectExpressions;
+    private final AggregationContext[] aggregations;
+    private final Aggregator[] aggregators;
+    private Grouper grouper;
+    private final boolean bypassAllowed;
+    @Nullable
+    private final PhaseProfile profile;
     private EnumSet<Requirement> requirements;
     private boolean killed = false;
+    private long numRows = 0;
+    private boolean bypassed = false;
 
     public GroupingProjector(List<? extends DataType> keyTypes,
                              List<Input<?>> keyInputs,
                              CollectExpression[] collectExpressions,
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext, null);
+    }
+
+    /**
+     * @param profile the profile of the execution phase, the bypass decision is reported to it
+     */
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             @Nullable PhaseProfile profile) {
         assert keyTypes.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(keyTypes) : "must have a known type for each key input";
         this.ramAccountingContext = ramAccountingContext;
+        this.keyTypes = keyTypes;
+        this.keyInputs = keyInputs;
+        this.collectExpressions = collectExpressions;
+        this.aggregations = aggregations;
+        this.bypassAllowed = allPartial(aggregations);
+        this.profile = profile;
+        this.aggregators = newAggregators(aggregations, ramAccountingContext);
 
+        // grouper object size overhead
+        ramAccountingContext.addBytes(8);
+    }
+
+    /**
+     * Creates the grouper matching the key inputs.
+     * Whether a key can be read as number or ordinal is only known once its input is positioned on a row,
+     * so this is called with the first row.
+     */
+    private Grouper newGrouper() {
+        if (keyInputs.size() > 1) {
+            return new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
+        }
+        Input<?> keyInput = keyInputs.get(0);
+        DataType keyType = keyTypes.get(0);
+        if (isIntegralType(keyType) && supportsNumeric(keyInput)) {
+            return new SingleLongKeyGrouper(keyInput, keyType, collectExpressions, aggregators);
+        }
+        if (keyType.equals(DataTypes.STRING) && supportsOrdinals(keyInput)) {
+            return new SingleOrdinalKeyGrouper(keyInput, collectExpressions, aggregators);
+        }
+        return new SingleKeyGrouper(keyInput, keyType, collectExpressions, aggregators);
+    }
+
+    private static boolean supportsNumeric(Input<?> input) {
+        if (input instanceof InputCollectExpression) {
+            return ((InputCollectExpression) input).supportsNumeric();
+        }
+        return input instanceof NumericInput;
+    }
+
+    private static boolean supportsOrdinals(Input<?> input) {
+        if (input instanceof InputCollectExpression) {
+            return ((InputCollectExpression) input).supportsOrdinals();
+        }
+        return input instanceof OrdinalInput;
+    }
+
+    private static Aggregator[] newAggregators(AggregationContext[] aggregations,
+                                               RamAccountingContext ramAccountingContext) {
         Aggregator[] aggregators = new Aggregator[aggregations.length];
         for (int i = 0; i < aggregations.length; i++) {
             aggregators[i] = new Aggregator(
@@ -72,14 +167,20 @@ public class GroupingProjector extends AbstractProjector {
                     aggregations[i].inputs()
             );
         }
+        return aggregators;
+    }
 
-        // grouper object size overhead
-        ramAccountingContext.addBytes(8);
-        if (keyInputs.size() == 1) {
-            grouper = new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators);
-        } else {
-            grouper = new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
+    private static boolean allPartial(AggregationContext[] aggregations) {
+        if (aggregations.length == 0) {
+            // without aggregations there is no way to tell if this is the final grouping
+            return false;
         }
+        for (AggregationContext aggregation : aggregations) {
+            if (aggregation.symbol().toStep() != Aggregation.Step.PARTIAL) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static boolean allTypesKnown(List<? extends DataType> keyTypes) {
@@ -92,16 +193,79 @@ public class GroupingProjector extends AbstractProjector {
     }
 
 
+    private static boolean isIntegralType(DataType dataType) {
+        return dataType.equals(DataTypes.LONG)
+               || dataType.equals(DataTypes.INTEGER)
+               || dataType.equals(DataTypes.SHORT)
+               || dataType.equals(DataTypes.BYTE)
+               || dataType.equals(DataTypes.TIMESTAMP);
+    }
+
     @Override
     public boolean setNextRow(Row row) {
         if (killed) {
             return false;
         }
-        return grouper.setNextRow(row);
+        if (bypassed) {
+            return grouper.passThrough(row);
+        }
+        if (grouper == null) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            grouper = newGrouper();
+        }
+        boolean wantsMore = grouper.setNextRow(row);
+        if (bypassAllowed && ++numRows == BYPASS_SAMPLE_SIZE) {
+            checkReduction();
+        }
+        return wantsMore;
+    }
+
+    private void checkReduction() {
+        int numGroups = grouper.size();
+        if (numGroups >= numRows * BYPASS_MIN_GROUPS_PER_ROW) {
+            // the groups so far are emitted on finish, the pass through aggregators don't count against the
+            // breaker because their states are released as soon as the row is emitted
+            grouper.startPassThrough(newAggregators(aggregations,
+                new RamAccountingContext(ramAccountingContext.contextId(), new NoopCircuitBreaker(CircuitBreaker.REQUEST))));
+            bypassed = true;
+            if (profile != null) {
+                profile.groupingBypassed();
+            }
+        }
+    }
+
+    /**
+     * @return true if the rows are passed through to the downstream instead of being grouped
+     */
+    public boolean bypassed() {
+        return bypassed;
+    }
+
+    @Override
+    public boolean acceptsBatches() {
+        return true;
+    }
+
+    @Override
+    public boolean setNextBatch(RowBatch batch) {
+        if (killed) {
+            return false;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (!setNextRow(batch.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public void finish() {
+        if (grouper == null) {
+            grouper = newGrouper();
+        }
         grouper.finish();
         if (logger.isDebugEnabled()) {
             logger.debug("grouping operation size is: {}", new ByteSizeValue(ramAccountingContext.totalBytes()));
@@ -111,7 +275,12 @@ public class GroupingProjector extends AbstractProjector {
     @Override
     public void kill(Throwable throwable) {
         killed = true;
-        grouper.kill(throwable);
+        Grouper currentGrouper = grouper;
+        if (currentGrouper == null) {
+            downstream.kill(throwable);
+        } else {
+            currentGrouper.kill(throwable);
+        }
     }
 
     @Override
@@ -152,25 +321,122 @@ public class GroupingProjector extends AbstractProjector {
         }
     }
 
+    /**
+     * sets the states of a group consisting of the current row only
+     */
+    private static void singleRowStates(Object[] cells, int offset, Aggregator[] aggregators) {
+        for (int i = 0; i < aggregators.length; i++) {
+            Aggregator aggregator = aggregators[i];
+            cells[offset + i] = aggregator.finishCollect(aggregator.processRow(aggregator.prepareState()));
+        }
+    }
+
     private interface Grouper extends AutoCloseable {
         boolean setNextRow(final Row row);
+
+        /**
+         * @return the number of groups
+         */
+        int size();
+
+        /**
+         * @param aggregators aggregators used for the rows which are passed through
+         */
+        void startPassThrough(Aggregator[] aggregators);
+
+        /**
+         * emits the current row as a group of its own to the downstream
+         */
+        boolean passThrough(final Row row);
         void finish();
         void kill(Throwable t);
     }
 
-    private class SingleKeyGrouper implements Grouper {
+    /**
+     * base class for groupers which emits single row groups in pass through mode
+     */
+    private abstract class AbstractGrouper implements Grouper {
+
+        private final CollectExpression[] collectExpressions;
+        private final int numKeys;
+        private Aggregator[] passThroughAggregators;
+        private RowN passThroughRow;
+        private Object[] passThroughCells;
+        private volatile IterableRowEmitter rowEmitter = null;
+
+        AbstractGrouper(CollectExpression[] collectExpressions, int numKeys) {
+            this.collectExpressions = collectExpressions;
+            this.numKeys = numKeys;
+        }
+
+        @Override
+        public void startPassThrough(Aggregator[] aggregators) {
+            passThroughAggregators = aggregators;
+            passThroughRow = new RowN(numKeys + aggregators.length);
+            passThroughCells = new Object[passThroughRow.size()];
+        }
+
+        @Override
+        public boolean passThrough(Row row) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            setKeys(passThroughCells);
+            singleRowStates(passThroughCells, numKeys, passThroughAggregators);
+            passThroughRow.cells(passThroughCells);
+            return downstream.setNextRow(passThroughRow);
+        }
+
+        /**
+         * sets the keys of the current row into the first cells
+         */
+        protected abstract void setKeys(Object[] cells);
+
+        /**
+         * accounts the rows which are built from the groups and emits them to the downstream
+         *
+         * @param numGroups the number of groups
+         * @param rowSize the number of cells of each row
+         */
+        protected void emit(int numGroups, int rowSize, Iterable<Row> rows) {
+            try {
+                // account the multi-dimension `rows` array
+                // 1st level
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + numGroups * 4));
+                // 2nd level
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + rowSize * 4));
+            } catch (CircuitBreakingException e) {
+                downstream.fail(e);
+                return;
+            }
+            rowEmitter = new IterableRowEmitter(downstream, rows);
+            rowEmitter.run();
+        }
+
+        @Override
+        public void kill(Throwable t) {
+            IterableRowEmitter emitter = rowEmitter;
+            if (emitter == null) {
+                downstream.kill(t);
+            } else {
+                emitter.kill(t);
+            }
+        }
+    }
+
+    private class SingleKeyGrouper extends AbstractGrouper {
 
         private final Map<Object, Object[]> result;
         private final Aggregator[] aggregators;
         private final Input keyInput;
         private final CollectExpression[] collectExpressions;
         private final SizeEstimator<Object> sizeEstimator;
-        private volatile IterableRowEmitter rowEmitter = null;
 
         public SingleKeyGrouper(Input keyInput,
                                 DataType keyInputType,
                                 CollectExpression[] collectExpressions,
                                 Aggregator[] aggregators) {
+            super(collectExpressions, 1);
             this.collectExpressions = collectExpressions;
             this.result = new HashMap<>();
             this.keyInput = keyInput;
@@ -210,21 +476,8 @@ public class GroupingProjector extends AbstractProjector {
 
         @Override
         public void finish() {
-            try {
-                // TODO: check ram accounting
-                // account the multi-dimension `rows` array
-                // 1st level
-                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + result.size() * 4));
-                // 2nd level
-                ramAccountingContext.addBytes(RamAccountingContext.roundUp(
-                        (1 + aggregators.length) * 4 + 12));
-            } catch (CircuitBreakingException e) {
-                downstream.fail(e);
-                return;
-            }
-
-            rowEmitter = new IterableRowEmitter(
-                    downstream, Iterables.transform(result.entrySet(), new Function<Map.Entry<Object, Object[]>, Row>() {
+            emit(result.size(), 1 + aggregators.length,
+                    Iterables.transform(result.entrySet(), new Function<Map.Entry<Object, Object[]>, Row>() {
 
                 RowN row = new RowN(1 + aggregators.length); // 1 for key
                 Object[] cells = new Object[row.size()];
@@ -238,26 +491,317 @@ public class GroupingProjector extends AbstractProjector {
                     return row;
                 }
             }));
-            rowEmitter.run();
         }
 
         @Override
-        public void kill(Throwable t) {
-            IterableRowEmitter emitter = rowEmitter;
-            if (emitter == null) {
-                downstream.kill(t);
+        public int size() {
+            return result.size();
+        }
+
+        @Override
+        protected void setKeys(Object[] cells) {
+            cells[0] = keyInput.value();
+        }
+
+        @Override
+        public void close() throws Exception {
+            result.clear();
+        }
+    }
+
+    /**
+     * Grouper for a single integral key which is read without boxing from a {@link NumericInput}.
+     * Keys are only converted into their boxed representation once the result is emitted.
+     */
+    private class SingleLongKeyGrouper extends AbstractGrouper {
+
+        private final LongObjectHashMap<Object[]> result;
+        private final Aggregator[] aggregators;
+        private final NumericInput numericKeyInput;
+        private final DataType keyInputType;
+        private final CollectExpression[] collectExpressions;
+        private final RowN row;
+        private final Object[] cells;
+        private Object[] nullKeyStates = null;
+
+        public SingleLongKeyGrouper(Input keyInput,
+                                    DataType keyInputType,
+                                    CollectExpression[] collectExpressions,
+                                    Aggregator[] aggregators) {
+            super(collectExpressions, 1);
+            this.collectExpressions = collectExpressions;
+            this.result = new LongObjectHashMap<>();
+            this.numericKeyInput = (NumericInput) keyInput;
+            this.keyInputType = keyInputType;
+            this.aggregators = aggregators;
+            this.row = new RowN(1 + aggregators.length); // 1 for key
+            this.cells = new Object[row.size()];
+        }
+
+        @Override
+        public boolean setNextRow(Row row) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+
+            if (numericKeyInput.isNull()) {
+                if (nullKeyStates == null) {
+                    ramAccountingContext.addBytes(24); // 24 bytes overhead for the states array
+                    nullKeyStates = newStates();
+                } else {
+                    processRow(nullKeyStates);
+                }
+                return true;
+            }
+
+            long key = numericKeyInput.getLong();
+            Object[] states = result.get(key);
+            if (states == null) {
+                // 8 bytes key + 4 bytes value reference + 12 bytes overhead for the states array
+                ramAccountingContext.addBytes(24);
+                result.put(key, newStates());
             } else {
-                emitter.kill(t);
+                processRow(states);
+            }
+            return true;
+        }
+
+        private Object[] newStates() {
+            Object[] states = new Object[aggregators.length];
+            for (int i = 0; i < aggregators.length; i++) {
+                Object state = aggregators[i].prepareState();
+                states[i] = aggregators[i].processRow(state);
+            }
+            return states;
+        }
+
+        private void processRow(Object[] states) {
+            for (int i = 0; i < aggregators.length; i++) {
+                states[i] = aggregators[i].processRow(states[i]);
             }
         }
 
+        @Override
+        public void finish() {
+            Iterable<Row> rows = Iterables.transform(result, new Function<LongObjectCursor<Object[]>, Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable LongObjectCursor<Object[]> input) {
+                    assert input != null : "input must not be null";
+                    return transformToRow(keyInputType.value(input.key), input.value);
+                }
+            });
+            if (nullKeyStates != null) {
+                rows = Iterables.concat(
+                    Iterables.transform(Collections.singletonList(nullKeyStates), new Function<Object[], Row>() {
+                        @Nullable
+                        @Override
+                        public Row apply(@Nullable Object[] input) {
+                            return transformToRow(null, input);
+                        }
+                    }), rows);
+            }
+            emit(size(), 1 + aggregators.length, rows);
+        }
+
+        private Row transformToRow(@Nullable Object key, Object[] states) {
+            cells[0] = key;
+            for (int i = 0; i < states.length; i++) {
+                cells[i + 1] = aggregators[i].finishCollect(states[i]);
+            }
+            row.cells(cells);
+            return row;
+        }
+
+        @Override
+        public int size() {
+            return nullKeyStates == null ? result.size() : result.size() + 1;
+        }
+
+        @Override
+        protected void setKeys(Object[] cells) {
+            cells[0] = numericKeyInput.isNull() ? null : keyInputType.value(numericKeyInput.getLong());
+        }
+
         @Override
         public void close() throws Exception {
             result.clear();
+            nullKeyStates = null;
         }
     }
 
-    private class ManyKeyGrouper implements Grouper {
+    /**
+     * Grouper for a single string key which is backed by the ordinals of a docValues column.
+     *
+     * Each ordinal of a segment is resolved to its group only once, all further rows of the segment with
+     * the same ordinal are mapped to their group using a dense array. The values are only hashed and
+     * copied when an ordinal is seen for the first time within a segment.
+     * If the input isn't backed by ordinals the values are grouped by hashing them.
+     */
+    private class SingleOrdinalKeyGrouper extends AbstractGrouper {
+
+        private final Input keyInput;
+        private final OrdinalInput ordinalInput;
+        private final Aggregator[] aggregators;
+        private final CollectExpression[] collectExpressions;
+        private final SizeEstimator<Object> sizeEstimator = SizeEstimatorFactory.create(DataTypes.STRING);
+        private final Map<BytesRef, Integer> groupIds = new HashMap<>();
+        private final List<BytesRef> keys = new ArrayList<>();
+        private final List<Object[]> states = new ArrayList<>();
+        private Object[] nullKeyStates = null;
+
+        private RandomAccessOrds currentOrdinals = null;
+        // group id + 1 per ordinal of the current segment, 0 if the ordinal wasn't resolved yet
+        private int[] ordinalGroupIds = null;
+        private long ordinalGroupIdsBytes = 0;
+
+        SingleOrdinalKeyGrouper(Input keyInput,
+                                CollectExpression[] collectExpressions,
+                                Aggregator[] aggregators) {
+            super(collectExpressions, 1);
+            this.keyInput = keyInput;
+            this.ordinalInput = (OrdinalInput) keyInput;
+            this.collectExpressions = collectExpressions;
+            this.aggregators = aggregators;
+        }
+
+        @Override
+        public boolean setNextRow(Row row) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+
+            RandomAccessOrds ordinals = ordinalInput.ordinals();
+            Object[] groupStates;
+            if (ordinals == null || ordinals.cardinality() > 1) {
+                // keyInput.value() rejects arrays
+                groupStates = statesForKey((BytesRef) keyInput.value());
+            } else if (ordinals.cardinality() == 0) {
+                groupStates = statesForKey(null);
+            } else {
+                if (ordinals != currentOrdinals) {
+                    nextSegment(ordinals);
+                }
+                long ordinal = ordinals.ordAt(0);
+                if (ordinalGroupIds == null) {
+                    groupStates = statesForKey(ordinals.lookupOrd(ordinal));
+                } else {
+                    int groupId = ordinalGroupIds[(int) ordinal] - 1;
+                    if (groupId < 0) {
+                        groupId = groupId(ordinals.lookupOrd(ordinal));
+                        ordinalGroupIds[(int) ordinal] = groupId + 1;
+                    }
+                    groupStates = states.get(groupId);
+                }
+            }
+            for (int i = 0; i < aggregators.length; i++) {
+                groupStates[i] = aggregators[i].processRow(groupStates[i]);
+            }
+            return true;
+        }
+
+        private void nextSegment(RandomAccessOrds ordinals) {
+            ramAccountingContext.addBytes(-ordinalGroupIdsBytes);
+            ordinalGroupIds = null;
+            ordinalGroupIdsBytes = 0;
+            currentOrdinals = ordinals;
+
+            long valueCount = ordinals.getValueCount();
+            if (valueCount <= MAX_SEGMENT_ORDINALS) {
+                ordinalGroupIdsBytes = RamAccountingContext.roundUp(12 + valueCount * 4);
+                ramAccountingContext.addBytes(ordinalGroupIdsBytes);
+                ordinalGroupIds = new int[(int) valueCount];
+            }
+        }
+
+        private Object[] statesForKey(@Nullable BytesRef key) {
+            if (key == null) {
+                if (nullKeyStates == null) {
+                    ramAccountingContext.addBytes(24); // 24 bytes overhead for the states array
+                    nullKeyStates = prepareStates();
+                }
+                return nullKeyStates;
+            }
+            return states.get(groupId(key));
+        }
+
+        /**
+         * @return the id of the group of the key, the group is created if it doesn't exist yet
+         */
+        private int groupId(BytesRef key) {
+            // HashMap.get requires some objects (iterators) and at least 2 integers
+            ramAccountingContext.addBytes(32);
+            Integer groupId = groupIds.get(key);
+            ramAccountingContext.addBytes(-32);
+            if (groupId == null) {
+                BytesRef copy = BytesRef.deepCopyOf(key);
+                // 24 bytes overhead per map entry, 16 bytes for the boxed id and 8 bytes for the list entries
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(sizeEstimator.estimateSize(copy)) + 48);
+                groupId = states.size();
+                groupIds.put(copy, groupId);
+                keys.add(copy);
+                states.add(prepareStates());
+            }
+            return groupId;
+        }
+
+        private Object[] prepareStates() {
+            Object[] groupStates = new Object[aggregators.length];
+            for (int i = 0; i < aggregators.length; i++) {
+                groupStates[i] = aggregators[i].prepareState();
+            }
+            return groupStates;
+        }
+
+        @Override
+        public void finish() {
+            List<Integer> ids = new ArrayList<>(size());
+            if (nullKeyStates != null) {
+                ids.add(-1);
+            }
+            for (int i = 0; i < states.size(); i++) {
+                ids.add(i);
+            }
+            final RowN row = new RowN(1 + aggregators.length); // 1 for key
+            final Object[] cells = new Object[row.size()];
+            emit(ids.size(), row.size(), Iterables.transform(ids, new Function<Integer, Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable Integer input) {
+                    assert input != null : "input must not be null";
+                    cells[0] = input < 0 ? null : keys.get(input);
+                    Object[] groupStates = input < 0 ? nullKeyStates : states.get(input);
+                    for (int i = 0; i < groupStates.length; i++) {
+                        cells[i + 1] = aggregators[i].finishCollect(groupStates[i]);
+                    }
+                    row.cells(cells);
+                    return row;
+                }
+            }));
+        }
+
+        @Override
+        public int size() {
+            return nullKeyStates == null ? states.size() : states.size() + 1;
+        }
+
+        @Override
+        protected void setKeys(Object[] cells) {
+            cells[0] = keyInput.value();
+        }
+
+        @Override
+        public void close() throws Exception {
+            groupIds.clear();
+            keys.clear();
+            states.clear();
+            nullKeyStates = null;
+            currentOrdinals = null;
+            ordinalGroupIds = null;
+        }
+    }
+
+    private class ManyKeyGrouper extends AbstractGrouper {
 
         private final Aggregator[] aggregators;
         private final Map<List<Object>, Object[]> result;
@@ -265,12 +809,12 @@ public class GroupingProjector extends AbstractProjector {
         private final CollectExpression[] collectExpressions;
         private final List<SizeEstimator<Object>> sizeEstimators;
         private final Object killLock = new Object();
-        private IterableRowEmitter rowEmitter = null;
 
         ManyKeyGrouper(List<Input<?>> keyInputs,
                        List<? extends DataType> keyTypes,
                        CollectExpression[] collectExpressions,
                        Aggregator[] aggregators) {
+            super(collectExpressions, keyInputs.size());
             this.collectExpressions = collectExpressions;
             this.result = new HashMap<>();
             this.keyInputs = keyInputs;
@@ -325,20 +869,8 @@ public class GroupingProjector extends AbstractProjector {
 
         @Override
         public void finish() {
-            try {
-                // account the multi-dimension `rows` array
-                // 1st level
-                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + result.size() * 4));
-                // 2nd level
-                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 +
-                        (keyInputs.size() + aggregators.length) * 4));
-            } catch (CircuitBreakingException e) {
-                downstream.fail(e);
-                return;
-            }
-
-            rowEmitter = new IterableRowEmitter(
-                    downstream, Iterables.transform(result.entrySet(), new Function<Map.Entry<List<Object>, Object[]>, Row>() {
+            emit(result.size(), keyInputs.size() + aggregators.length,
+                    Iterables.transform(result.entrySet(), new Function<Map.Entry<List<Object>, Object[]>, Row>() {
 
                 RowN row = new RowN(keyInputs.size() + aggregators.length);
                 Object[] cells = new Object[row.size()];
@@ -352,16 +884,17 @@ public class GroupingProjector extends AbstractProjector {
                     return row;
                 }
             }));
-            rowEmitter.run();
         }
 
         @Override
-        public void kill(Throwable t) {
-            IterableRowEmitter emitter = rowEmitter;
-            if (emitter == null) {
-                downstream.kill(t);
-            } else {
-                emitter.kill(t);
+        public int size() {
+            return result.size();
+        }
+
+        @Override
+        protected void setKeys(Object[] cells) {
+            for (int i = 0; i < keyInputs.size(); i++) {
+                cells[i] = keyInputs.get(i).value();
             }
         }
 
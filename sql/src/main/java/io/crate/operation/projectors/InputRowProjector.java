@@ -35,10 +35,11 @@ import java.util.List;
  *
  * Differs from {@link SimpleTopNProjector} in that it does not apply any limit or offset.
  */
-public class InputRowProjector extends AbstractProjector {
+public class InputRowProjector extends AbstractProjector implements BatchRowReceiver {
 
     protected final InputRow inputRow;
     protected final Iterable<? extends CollectExpression<Row, ?>> collectExpressions;
+    private RowBatch outputBatch = null;
 
     public InputRowProjector(List<Input<?>> inputs,
                              Iterable<? extends CollectExpression<Row, ?>> collectExpressions) {
@@ -54,6 +55,37 @@ public class InputRowProjector extends AbstractProjector {
         return downstream.setNextRow(this.inputRow);
     }
 
+    @Override
+    public boolean acceptsBatches() {
+        return RowReceivers.acceptsBatches(downstream);
+    }
+
+    @Override
+    public boolean setNextBatch(RowBatch batch) {
+        if (outputBatch == null) {
+            outputBatch = new RowBatch(inputRow.size(), RowBatch.DEFAULT_SIZE);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(batch.get(i));
+            }
+            outputBatch.add(inputRow);
+            if (outputBatch.isFull() && !flushOutputBatch()) {
+                return false;
+            }
+        }
+        return flushOutputBatch();
+    }
+
+    private boolean flushOutputBatch() {
+        if (outputBatch.size() == 0) {
+            return true;
+        }
+        boolean wantMore = ((BatchRowReceiver) downstream).setNextBatch(outputBatch);
+        outputBatch.clear();
+        return wantMore;
+    }
+
     @Override
     public void finish() {
         downstream.finish();
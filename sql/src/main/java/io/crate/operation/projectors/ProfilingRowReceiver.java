@@ -0,0 +1,66 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.Row;
+import io.crate.jobs.PhaseProfile;
+import io.crate.operation.RowUpstream;
+
+/**
+ * RowReceiver which counts the rows an execution phase emits and how often the phase is paused by its downstream.
+ */
+public class ProfilingRowReceiver extends ForwardingRowReceiver {
+
+    private final PhaseProfile profile;
+
+    public ProfilingRowReceiver(RowReceiver rowReceiver, PhaseProfile profile) {
+        super(rowReceiver);
+        this.profile = profile;
+    }
+
+    @Override
+    public void setUpstream(final RowUpstream rowUpstream) {
+        super.setUpstream(new RowUpstream() {
+            @Override
+            public void pause() {
+                profile.paused();
+                rowUpstream.pause();
+            }
+
+            @Override
+            public void resume(boolean async) {
+                rowUpstream.resume(async);
+            }
+
+            @Override
+            public void repeat() {
+                rowUpstream.repeat();
+            }
+        });
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        profile.rowOut();
+        return super.setNextRow(row);
+    }
+}
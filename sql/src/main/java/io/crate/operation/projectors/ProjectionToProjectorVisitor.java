@@ -27,6 +27,7 @@ import io.crate.analyze.symbol.*;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.TransportActionProvider;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RowCollectExpression;
@@ -157,12 +158,21 @@ public class ProjectionToProjectorVisitor
         for (Aggregation aggregation : projection.values()) {
             symbolVisitor.process(aggregation, symbolContext);
         }
+        if (projection.inputSortedByKeys()) {
+            return new StreamingGroupingProjector(
+                    keyInputs,
+                    symbolContext.collectExpressions().toArray(new CollectExpression[symbolContext.collectExpressions().size()]),
+                    symbolContext.aggregations(),
+                    context.ramAccountingContext
+            );
+        }
         return new GroupingProjector(
                 Symbols.extractTypes(projection.keys()),
                 keyInputs,
                 symbolContext.collectExpressions().toArray(new CollectExpression[symbolContext.collectExpressions().size()]),
                 symbolContext.aggregations(),
-                context.ramAccountingContext
+                context.ramAccountingContext,
+                context.profile
         );
     }
 
@@ -417,7 +427,15 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId) {
-        return process(projection, new Context(ramAccountingContext, jobId));
+        return create(projection, ramAccountingContext, jobId, null);
+    }
+
+    @Override
+    public Projector create(Projection projection,
+                            RamAccountingContext ramAccountingContext,
+                            UUID jobId,
+                            @Nullable PhaseProfile profile) {
+        return process(projection, new Context(ramAccountingContext, jobId, profile));
     }
 
     @Override
@@ -429,10 +447,13 @@ public class ProjectionToProjectorVisitor
 
         private final RamAccountingContext ramAccountingContext;
         private final UUID jobId;
+        @Nullable
+        private final PhaseProfile profile;
 
-        public Context(RamAccountingContext ramAccountingContext, UUID jobId) {
+        public Context(RamAccountingContext ramAccountingContext, UUID jobId, @Nullable PhaseProfile profile) {
             this.ramAccountingContext = ramAccountingContext;
             this.jobId = jobId;
+            this.profile = profile;
         }
     }
 }
@@ -22,11 +22,21 @@
 package io.crate.operation.projectors;
 
 import io.crate.breaker.RamAccountingContext;
+import io.crate.jobs.PhaseProfile;
 import io.crate.planner.projection.Projection;
 
+import javax.annotation.Nullable;
 import java.util.UUID;
 
 public interface ProjectorFactory {
 
     Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId);
+
+    /**
+     * @param profile the profile of the execution phase the projector is part of, null if the job isn't profiled
+     */
+    Projector create(Projection projection,
+                     RamAccountingContext ramAccountingContext,
+                     UUID jobId,
+                     @Nullable PhaseProfile profile);
 }
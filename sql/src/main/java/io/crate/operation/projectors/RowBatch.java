@@ -0,0 +1,155 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.Buckets;
+import io.crate.core.collections.Row;
+
+/**
+ * A batch of rows which are stored column wise.
+ *
+ * Rows are added using {@link #add(Row)} until the batch {@link #isFull()}.
+ * Receivers of a batch may narrow the rows of the batch down using {@link #retain(int)}
+ * and {@link #finishRetain()} without copying any values.
+ *
+ * The row returned by {@link #get(int)} is a shared object, its content changes on the next call.
+ */
+public class RowBatch {
+
+    public static final int DEFAULT_SIZE = 1024;
+
+    private final Object[][] columns;
+    private final int capacity;
+    private final int[] selection;
+    private final BatchRow row = new BatchRow();
+
+    private int numRows = 0;
+    private int size = 0;
+    private int numRetained = 0;
+    private boolean selectionActive = false;
+
+    public RowBatch(int numColumns, int capacity) {
+        assert capacity > 0 : "capacity must be greater than 0";
+        this.capacity = capacity;
+        this.columns = new Object[numColumns][capacity];
+        this.selection = new int[capacity];
+    }
+
+    /**
+     * copies the values of the given row into the batch.
+     */
+    public void add(Row row) {
+        assert !selectionActive : "rows cannot be added to a batch with a selection";
+        assert numRows < capacity : "batch is full";
+        for (int c = 0; c < columns.length; c++) {
+            columns[c][numRows] = row.get(c);
+        }
+        numRows++;
+        size = numRows;
+    }
+
+    public boolean isFull() {
+        return numRows == capacity;
+    }
+
+    /**
+     * @return the number of (selected) rows of this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    public int numColumns() {
+        return columns.length;
+    }
+
+    /**
+     * @return the value of the given column of the row at index
+     */
+    public Object get(int index, int column) {
+        return columns[column][rowIndex(index)];
+    }
+
+    /**
+     * @return a shared row for the row at index
+     */
+    public Row get(int index) {
+        row.rowIndex = rowIndex(index);
+        return row;
+    }
+
+    private int rowIndex(int index) {
+        assert index < size : "index out of bounds: " + index + " >= " + size;
+        return selectionActive ? selection[index] : index;
+    }
+
+    /**
+     * marks the row at index to be kept by the following {@link #finishRetain()} call.
+     * Rows must be retained in ascending order.
+     */
+    public void retain(int index) {
+        assert numRetained <= index : "rows must be retained in ascending order";
+        selection[numRetained] = rowIndex(index);
+        numRetained++;
+    }
+
+    /**
+     * removes all rows from the batch which haven't been retained since the last call.
+     */
+    public void finishRetain() {
+        size = numRetained;
+        numRetained = 0;
+        selectionActive = true;
+    }
+
+    public void clear() {
+        for (Object[] column : columns) {
+            for (int i = 0; i < numRows; i++) {
+                column[i] = null;
+            }
+        }
+        numRows = 0;
+        size = 0;
+        numRetained = 0;
+        selectionActive = false;
+    }
+
+    private class BatchRow implements Row {
+
+        private int rowIndex;
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index][rowIndex];
+        }
+
+        @Override
+        public Object[] materialize() {
+            return Buckets.materialize(this);
+        }
+    }
+}
@@ -24,12 +24,14 @@ package io.crate.operation.projectors;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.RowGranularity;
 import io.crate.operation.RowDownstream;
 import io.crate.planner.projection.Projection;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -71,6 +73,8 @@ public class ShardProjectorChain {
 
     private final UUID jobId;
     private final RamAccountingContext ramAccountingContext;
+    @Nullable
+    private final PhaseProfile profile;
     protected final List<Projector> shardProjectors;
     protected final List<Projector> nodeProjectors;
     private final RowReceiver finalDownstream;
@@ -87,13 +91,28 @@ public class ShardProjectorChain {
                                                        RowReceiver finalDownstream,
                                                        ProjectorFactory projectorFactory,
                                                        RamAccountingContext ramAccountingContext) {
+        return passThroughMerge(
+            jobId, maxNumShards, projections, finalDownstream, projectorFactory, ramAccountingContext, null);
+    }
+
+    /**
+     * @param profile the profile of the execution phase the projectors report to, null if the job isn't profiled
+     */
+    public static ShardProjectorChain passThroughMerge(UUID jobId,
+                                                       int maxNumShards,
+                                                       List<? extends Projection> projections,
+                                                       RowReceiver finalDownstream,
+                                                       ProjectorFactory projectorFactory,
+                                                       RamAccountingContext ramAccountingContext,
+                                                       @Nullable PhaseProfile profile) {
         return new ShardProjectorChain(
                 jobId,
                 projections,
                 maxNumShards,
                 finalDownstream,
                 projectorFactory,
-                ramAccountingContext
+                ramAccountingContext,
+                profile
         );
     }
 
@@ -103,9 +122,11 @@ public class ShardProjectorChain {
                                 int maxNumShards,
                                 RowReceiver finalDownstream,
                                 ProjectorFactory projectorFactory,
-                                RamAccountingContext ramAccountingContext) {
+                                RamAccountingContext ramAccountingContext,
+                                @Nullable PhaseProfile profile) {
         this.jobId = jobId;
         this.ramAccountingContext = ramAccountingContext;
+        this.profile = profile;
         this.projections = projections;
         nodeProjectors = new ArrayList<>();
 
@@ -122,7 +143,7 @@ public class ShardProjectorChain {
         Projector previousUpstream = null;
         // create the node level projectors
         for (int i = shardProjectionsIndex + 1; i < projections.size(); i++) {
-            Projector projector = projectorFactory.create(projections.get(i), ramAccountingContext, jobId);
+            Projector projector = projectorFactory.create(projections.get(i), ramAccountingContext, jobId, profile);
             nodeProjectors.add(projector);
             if (previousUpstream != null) {
                 previousUpstream.downstream(projector);
@@ -176,7 +197,7 @@ public class ShardProjectorChain {
         RowReceiver previousProjector = rowDownstream.newRowReceiver();
         Projector projector = null;
         for (int i = shardProjectionsIndex; i >= 0; i--) {
-            projector = projectorFactory.create(projections.get(i), ramAccountingContext, jobId);
+            projector = projectorFactory.create(projections.get(i), ramAccountingContext, jobId, profile);
             projector.downstream(previousProjector);
 
             shardProjectors.add(projector);
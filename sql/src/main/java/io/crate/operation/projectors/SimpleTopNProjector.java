@@ -45,6 +45,12 @@ public class SimpleTopNProjector extends InputRowProjector {
         this.toCollect = limit;
     }
 
+    @Override
+    public boolean acceptsBatches() {
+        // limit and offset are applied per row
+        return false;
+    }
+
     @Override
     public boolean setNextRow(Row row) {
         if (toCollect < 1){
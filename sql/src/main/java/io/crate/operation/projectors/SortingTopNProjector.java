@@ -34,7 +34,7 @@ import io.crate.operation.projectors.sorting.RowPriorityQueue;
 import java.util.Collection;
 import java.util.Set;
 
-public class SortingTopNProjector extends AbstractProjector {
+public class SortingTopNProjector extends AbstractProjector implements BatchRowReceiver {
 
     private final int offset;
     private final int numOutputs;
@@ -91,6 +91,19 @@ public class SortingTopNProjector extends AbstractProjector {
         return true;
     }
 
+    @Override
+    public boolean acceptsBatches() {
+        return true;
+    }
+
+    @Override
+    public boolean setNextBatch(RowBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            setNextRow(batch.get(i));
+        }
+        return true;
+    }
+
     @Override
     public void finish() {
         final int resultSize = Math.max(pq.size() - offset, 0);
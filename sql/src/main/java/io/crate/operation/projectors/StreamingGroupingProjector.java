@@ -0,0 +1,215 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.Sets;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.collect.CollectExpression;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Groups rows which arrive sorted by their keys, or at least with all rows of a group next to each other.
+ *
+ * Only the states of the current group are kept, the group is emitted as soon as a row with different keys
+ * arrives. This uses constant memory and lets the downstream stop the upstream early, e.g. once a limit is reached.
+ * The states of the current group are accounted on the {@link RamAccountingContext} and released once the
+ * group is emitted.
+ *
+ * See {@link GroupingProjector} for input in arbitrary order.
+ */
+public class StreamingGroupingProjector extends AbstractProjector implements BatchRowReceiver {
+
+    private final List<Input<?>> keyInputs;
+    private final CollectExpression[] collectExpressions;
+    private final Aggregator[] aggregators;
+    private final Object[] keys;
+    private final Object[] states;
+    private final Object[] cells;
+    private final RowN row;
+    private final GroupRamAccountingContext groupRamAccountingContext;
+
+    private EnumSet<Requirement> requirements;
+    private boolean hasGroup = false;
+    private boolean killed = false;
+
+    public StreamingGroupingProjector(List<Input<?>> keyInputs,
+                                      CollectExpression[] collectExpressions,
+                                      AggregationContext[] aggregations,
+                                      RamAccountingContext ramAccountingContext) {
+        this.keyInputs = keyInputs;
+        this.collectExpressions = collectExpressions;
+        // a large group (e.g. a collect_set over many values) can still trip the breaker,
+        // the bytes of a group are released again as soon as it is emitted
+        groupRamAccountingContext = new GroupRamAccountingContext(ramAccountingContext);
+        aggregators = new Aggregator[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            aggregators[i] = new Aggregator(
+                    groupRamAccountingContext,
+                    aggregations[i].symbol(),
+                    aggregations[i].function(),
+                    aggregations[i].inputs()
+            );
+        }
+        keys = new Object[keyInputs.size()];
+        states = new Object[aggregations.length];
+        cells = new Object[keys.length + states.length];
+        row = new RowN(cells);
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        if (killed) {
+            return false;
+        }
+        for (CollectExpression collectExpression : collectExpressions) {
+            collectExpression.setNextRow(row);
+        }
+        if (hasGroup && !sameKeys()) {
+            hasGroup = false;
+            if (!emitGroup()) {
+                return false;
+            }
+        }
+        if (!hasGroup) {
+            startGroup();
+        }
+        for (int i = 0; i < aggregators.length; i++) {
+            states[i] = aggregators[i].processRow(states[i]);
+        }
+        return true;
+    }
+
+    private boolean sameKeys() {
+        for (int i = 0; i < keys.length; i++) {
+            if (!Objects.equals(keys[i], keyInputs.get(i).value())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void startGroup() {
+        for (int i = 0; i < keys.length; i++) {
+            Object key = keyInputs.get(i).value();
+            // the input may re-use the BytesRef for the following rows
+            keys[i] = key instanceof BytesRef ? BytesRef.deepCopyOf((BytesRef) key) : key;
+        }
+        for (int i = 0; i < aggregators.length; i++) {
+            states[i] = aggregators[i].prepareState();
+        }
+        hasGroup = true;
+    }
+
+    private boolean emitGroup() {
+        System.arraycopy(keys, 0, cells, 0, keys.length);
+        for (int i = 0; i < aggregators.length; i++) {
+            cells[keys.length + i] = aggregators[i].finishCollect(states[i]);
+        }
+        boolean wantMore = downstream.setNextRow(row);
+        groupRamAccountingContext.releaseGroup();
+        return wantMore;
+    }
+
+    @Override
+    public boolean acceptsBatches() {
+        return true;
+    }
+
+    @Override
+    public boolean setNextBatch(RowBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!setNextRow(batch.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void finish() {
+        if (hasGroup) {
+            hasGroup = false;
+            emitGroup();
+        }
+        downstream.finish();
+    }
+
+    @Override
+    public void kill(Throwable throwable) {
+        killed = true;
+        downstream.kill(throwable);
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        downstream.fail(throwable);
+    }
+
+    @Override
+    public Set<Requirement> requirements() {
+        if (requirements == null) {
+            requirements = Sets.newEnumSet(downstream.requirements(), Requirement.class);
+            requirements.remove(Requirement.REPEAT);
+        }
+        return requirements;
+    }
+
+    /**
+     * Adds the bytes of the states to the context of the projector and remembers the bytes of the current group.
+     * {@link RamAccountingContext#totalBytes()} of the projector context can't be used for that as it only
+     * contains flushed bytes and may be shared with other operations.
+     */
+    private static class GroupRamAccountingContext extends RamAccountingContext {
+
+        private final RamAccountingContext delegate;
+        private long groupBytes = 0;
+
+        GroupRamAccountingContext(RamAccountingContext delegate) {
+            super(delegate.contextId(), new NoopCircuitBreaker(CircuitBreaker.REQUEST));
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void addBytes(long bytes) throws CircuitBreakingException {
+            groupBytes += bytes;
+            delegate.addBytes(bytes);
+        }
+
+        void releaseGroup() {
+            delegate.addBytes(-groupBytes);
+            groupBytes = 0;
+        }
+    }
+}
@@ -23,12 +23,14 @@ package io.crate.operation.reference.doc.lucene;
 
 import io.crate.exceptions.GroupByOnArrayUnsupportedException;
 import io.crate.exceptions.ValidationException;
+import io.crate.operation.OrdinalInput;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 
-public class BytesRefColumnReference extends FieldCacheExpression<IndexOrdinalsFieldData, BytesRef> {
+public class BytesRefColumnReference extends FieldCacheExpression<IndexOrdinalsFieldData, BytesRef>
+    implements OrdinalInput {
 
     private RandomAccessOrds values;
 
@@ -49,10 +51,15 @@ public class BytesRefColumnReference extends FieldCacheExpression<IndexOrdinalsF
         }
     }
 
+    @Override
+    public RandomAccessOrds ordinals() {
+        return values;
+    }
+
     @Override
     public void setNextReader(LeafReaderContext context) {
         super.setNextReader(context);
-        values = indexFieldData.load(context).getOrdinalsValues();
+        values = ordinalsValues(context);
     }
 
     @Override
@@ -21,10 +21,12 @@
 
 package io.crate.operation.reference.doc.lucene;
 
+import io.crate.lucene.columncache.ColumnCache;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.MapperService;
-import org.elasticsearch.search.lookup.SourceLookup;
+
+import javax.annotation.Nullable;
 
 public class CollectorContext {
 
@@ -32,8 +34,9 @@ public class CollectorContext {
     private final IndexFieldDataService fieldData;
     private final CollectorFieldsVisitor fieldsVisitor;
     private final int jobSearchContextId;
+    private final ColumnCache columnCache;
 
-    private SourceLookup sourceLookup;
+    private StreamingSourceLookup sourceLookup;
 
     public CollectorContext(MapperService mapperService,
                         IndexFieldDataService fieldData,
@@ -45,10 +48,19 @@ public class CollectorContext {
                             IndexFieldDataService fieldData,
                             CollectorFieldsVisitor visitor,
                             int jobSearchContextId) {
+        this(mapperService, fieldData, visitor, jobSearchContextId, null);
+    }
+
+    public CollectorContext(MapperService mapperService,
+                            IndexFieldDataService fieldData,
+                            CollectorFieldsVisitor visitor,
+                            int jobSearchContextId,
+                            @Nullable ColumnCache columnCache) {
         this.mapperService = mapperService;
         this.fieldData = fieldData;
         fieldsVisitor = visitor;
         this.jobSearchContextId = jobSearchContextId;
+        this.columnCache = columnCache;
     }
 
     public CollectorFieldsVisitor visitor(){
@@ -67,9 +79,17 @@ public class CollectorContext {
         return fieldData;
     }
 
-    public SourceLookup sourceLookup() {
+    /**
+     * @return the cache to read numeric and string columns from or null if the index isn't cached
+     */
+    @Nullable
+    public ColumnCache columnCache() {
+        return columnCache;
+    }
+
+    public StreamingSourceLookup sourceLookup() {
         if (sourceLookup == null) {
-            sourceLookup = new SourceLookup();
+            sourceLookup = new StreamingSourceLookup();
         }
         return sourceLookup;
     }
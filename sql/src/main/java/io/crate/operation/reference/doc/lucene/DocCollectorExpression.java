@@ -27,7 +27,6 @@ import io.crate.metadata.doc.DocSysColumns;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
@@ -61,6 +60,7 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
             @Override
             public void startCollect(CollectorContext context) {
                 super.startCollect(context);
+                sourceLookup.addPath(fqn);
             }
 
             @Override
@@ -77,7 +77,7 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
     public abstract static class ChildDocCollectorExpression<ReturnType> extends
             LuceneCollectorExpression<ReturnType> {
 
-        protected SourceLookup sourceLookup;
+        protected StreamingSourceLookup sourceLookup;
         private LeafReaderContext context;
 
         @Override
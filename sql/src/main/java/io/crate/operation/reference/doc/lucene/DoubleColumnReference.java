@@ -22,11 +22,13 @@
 package io.crate.operation.reference.doc.lucene;
 
 import io.crate.exceptions.GroupByOnArrayUnsupportedException;
+import io.crate.operation.NumericInput;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 
-public class DoubleColumnReference extends FieldCacheExpression<IndexNumericFieldData, Double> {
+public class DoubleColumnReference extends FieldCacheExpression<IndexNumericFieldData, Double>
+    implements NumericInput {
 
     private SortedNumericDoubleValues values;
 
@@ -46,10 +48,32 @@ public class DoubleColumnReference extends FieldCacheExpression<IndexNumericFiel
         }
     }
 
+    @Override
+    public boolean isNull() {
+        switch (values.count()) {
+            case 0:
+                return true;
+            case 1:
+                return false;
+            default:
+                throw new GroupByOnArrayUnsupportedException(columnName());
+        }
+    }
+
+    @Override
+    public long getLong() {
+        return (long) getDouble();
+    }
+
+    @Override
+    public double getDouble() {
+        return values.valueAt(0);
+    }
+
     @Override
     public void setNextReader(LeafReaderContext context) {
         super.setNextReader(context);
-        values = indexFieldData.load(context).getDoubleValues();
+        values = doubleValues(context);
     }
 
     @Override
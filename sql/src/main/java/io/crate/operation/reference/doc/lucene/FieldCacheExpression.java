@@ -22,8 +22,14 @@
 package io.crate.operation.reference.doc.lucene;
 
 import io.crate.Constants;
+import io.crate.lucene.columncache.ColumnCache;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
-import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.index.mapper.MappedFieldType;
 
 
@@ -34,6 +40,7 @@ public abstract class FieldCacheExpression<IFD extends IndexFieldData, ReturnTyp
             Constants.DEFAULT_MAPPING_TYPE};
 
     protected IFD indexFieldData;
+    private ColumnCache columnCache;
 
     public FieldCacheExpression(String columnName) {
         super(columnName);
@@ -42,5 +49,30 @@ public abstract class FieldCacheExpression<IFD extends IndexFieldData, ReturnTyp
     public void startCollect(CollectorContext context){
         MappedFieldType mapper = context.mapperService().smartNameFieldType(columnName, DEFAULT_MAPPING_TYPES);
         indexFieldData = context.fieldData().getForField(mapper);
+        columnCache = context.columnCache();
+    }
+
+    protected SortedNumericDocValues longValues(LeafReaderContext context) {
+        IndexNumericFieldData fieldData = (IndexNumericFieldData) indexFieldData;
+        if (columnCache == null) {
+            return fieldData.load(context).getLongValues();
+        }
+        return columnCache.longValues(context, columnName, fieldData);
+    }
+
+    protected SortedNumericDoubleValues doubleValues(LeafReaderContext context) {
+        IndexNumericFieldData fieldData = (IndexNumericFieldData) indexFieldData;
+        if (columnCache == null) {
+            return fieldData.load(context).getDoubleValues();
+        }
+        return columnCache.doubleValues(context, columnName, fieldData);
+    }
+
+    protected RandomAccessOrds ordinalsValues(LeafReaderContext context) {
+        IndexOrdinalsFieldData fieldData = (IndexOrdinalsFieldData) indexFieldData;
+        if (columnCache == null) {
+            return fieldData.load(context).getOrdinalsValues();
+        }
+        return columnCache.ordinalsValues(context, columnName, fieldData);
     }
 }
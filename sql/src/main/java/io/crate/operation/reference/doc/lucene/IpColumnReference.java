@@ -57,6 +57,6 @@ public class IpColumnReference extends FieldCacheExpression<IndexNumericFieldDat
     @Override
     public void setNextReader(LeafReaderContext context) {
         super.setNextReader(context);
-        values = indexFieldData.load(context).getLongValues();
+        values = longValues(context);
     }
 }
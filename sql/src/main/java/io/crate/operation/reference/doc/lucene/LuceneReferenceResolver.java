@@ -21,6 +21,7 @@
 
 package io.crate.operation.reference.doc.lucene;
 
+import com.google.common.base.Joiner;
 import io.crate.exceptions.UnhandledServerException;
 import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.metadata.ReferenceInfo;
@@ -28,8 +29,10 @@ import io.crate.metadata.RowGranularity;
 import io.crate.operation.reference.ReferenceResolver;
 import io.crate.types.*;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
 
+import java.util.List;
 import java.util.Locale;
 
 public class LuceneReferenceResolver implements ReferenceResolver<LuceneCollectorExpression<?>> {
@@ -58,6 +61,10 @@ public class LuceneReferenceResolver implements ReferenceResolver<LuceneCollecto
         } else if (IdCollectorExpression.COLUMN_NAME.equals(refInfo.ident().columnIdent().name())) {
             return new IdCollectorExpression();
         } else if (DocCollectorExpression.COLUMN_NAME.equals(refInfo.ident().columnIdent().name())) {
+            LuceneCollectorExpression<?> docValuesExpression = docValuesImplementation(refInfo);
+            if (docValuesExpression != null) {
+                return docValuesExpression;
+            }
             return DocCollectorExpression.create(refInfo);
         } else if (DocIdCollectorExpression.COLUMN_NAME.equals(refInfo.ident().columnIdent().name())) {
             return new DocIdCollectorExpression();
@@ -101,6 +108,49 @@ public class LuceneReferenceResolver implements ReferenceResolver<LuceneCollecto
         }
     }
 
+    /**
+     * Columns of the _doc column are read from the _source, but if the column has doc values and
+     * its type is a primitive type, which has the same value in the _source and in the doc values,
+     * the doc values are used instead as they don't require loading and parsing the _source.
+     *
+     * @return the doc values implementation for a child of the _doc column or null if there's none
+     */
+    @Nullable
+    private LuceneCollectorExpression<?> docValuesImplementation(ReferenceInfo refInfo) {
+        List<String> path = refInfo.ident().columnIdent().path();
+        if (mapperService == null || path.isEmpty()) {
+            return null;
+        }
+        String colName = Joiner.on('.').join(path);
+        MappedFieldType fieldType = mapperService.smartNameFieldType(colName);
+        if (fieldType == null || !fieldType.hasDocValues()) {
+            return null;
+        }
+        switch (refInfo.type().id()) {
+            case ByteType.ID:
+                return new ByteColumnReference(colName);
+            case ShortType.ID:
+                return new ShortColumnReference(colName);
+            case IpType.ID:
+                return new IpColumnReference(colName);
+            case StringType.ID:
+                return new BytesRefColumnReference(colName);
+            case DoubleType.ID:
+                return new DoubleColumnReference(colName);
+            case BooleanType.ID:
+                return new BooleanColumnReference(colName);
+            case FloatType.ID:
+                return new FloatColumnReference(colName);
+            case LongType.ID:
+            case TimestampType.ID:
+                return new LongColumnReference(colName);
+            case IntegerType.ID:
+                return new IntegerColumnReference(colName);
+            default:
+                return null;
+        }
+    }
+
     private static class NullValueCollectorExpression extends LuceneCollectorExpression<Void> {
 
         @Override
@@ -23,13 +23,12 @@ package io.crate.operation.reference.doc.lucene;
 
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
 public class ObjectColumnReference extends ColumnReferenceCollectorExpression<Map<String, Object>> {
 
-    protected SourceLookup sourceLookup;
+    protected StreamingSourceLookup sourceLookup;
     private LeafReaderContext context;
 
     public ObjectColumnReference(String columnName) {
@@ -49,6 +48,7 @@ public class ObjectColumnReference extends ColumnReferenceCollectorExpression<Ma
     @Override
     public void startCollect(CollectorContext context) {
         sourceLookup = context.sourceLookup();
+        sourceLookup.addPath(columnName);
     }
 
 
@@ -22,11 +22,13 @@
 package io.crate.operation.reference.doc.lucene;
 
 import io.crate.exceptions.GroupByOnArrayUnsupportedException;
+import io.crate.operation.NumericInput;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 
-public class ShortColumnReference extends FieldCacheExpression<IndexNumericFieldData, Short> {
+public class ShortColumnReference extends FieldCacheExpression<IndexNumericFieldData, Short>
+    implements NumericInput {
 
     private SortedNumericDocValues values;
 
@@ -46,10 +48,32 @@ public class ShortColumnReference extends FieldCacheExpression<IndexNumericField
         }
     }
 
+    @Override
+    public boolean isNull() {
+        switch (values.count()) {
+            case 0:
+                return true;
+            case 1:
+                return false;
+            default:
+                throw new GroupByOnArrayUnsupportedException(columnName());
+        }
+    }
+
+    @Override
+    public long getLong() {
+        return (short) values.valueAt(0);
+    }
+
+    @Override
+    public double getDouble() {
+        return getLong();
+    }
+
     @Override
     public void setNextReader(LeafReaderContext context) {
         super.setNextReader(context);
-        values = indexFieldData.load(context).getLongValues();
+        values = longValues(context);
     }
 
     @Override
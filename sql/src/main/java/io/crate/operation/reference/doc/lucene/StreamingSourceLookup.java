@@ -0,0 +1,209 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import com.google.common.base.Splitter;
+import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extracts values of object paths from the stored _source of documents.
+ * <p>
+ * In contrast to {@link org.elasticsearch.search.lookup.SourceLookup} the _source isn't parsed
+ * into a map. It is parsed as a stream and only the values of the paths that have been added
+ * are read, everything else is skipped. The values of all paths are extracted with a single
+ * pass over the _source of a document.
+ * <p>
+ * Paths leading into arrays are resolved like {@link XContentMapValues#extractValue(String, Map)}
+ * does it, on the array read as a whole.
+ */
+public class StreamingSourceLookup {
+
+    private static final Splitter PATH_SPLITTER = Splitter.on('.');
+
+    private static class PathNode {
+
+        private final String name;
+        private final String path;
+        private boolean requested = false;
+        private final Map<String, PathNode> children = new HashMap<>();
+
+        PathNode(String name, String path) {
+            this.name = name;
+            this.path = path;
+        }
+
+        PathNode child(String name) {
+            PathNode child = children.get(name);
+            if (child == null) {
+                child = new PathNode(name, path == null ? name : path + "." + name);
+                children.put(name, child);
+            }
+            return child;
+        }
+    }
+
+    private final PathNode root = new PathNode(null, null);
+    private final CollectorFieldsVisitor fieldsVisitor = new CollectorFieldsVisitor(0);
+    private final Map<String, Object> values = new HashMap<>();
+
+    private LeafReaderContext context;
+    private int docId = -1;
+    private boolean extracted = false;
+
+    /**
+     * Adds a path which values are extracted, must be called before the values are accessed.
+     */
+    public void addPath(String path) {
+        PathNode node = root;
+        for (String name : PATH_SPLITTER.split(path)) {
+            node = node.child(name);
+        }
+        if (!node.requested) {
+            node.requested = true;
+            extracted = false;
+        }
+    }
+
+    public void setSegmentAndDocument(LeafReaderContext context, int docId) {
+        if (this.context == context && this.docId == docId) {
+            return;
+        }
+        this.context = context;
+        this.docId = docId;
+        extracted = false;
+    }
+
+    public Object extractValue(String path) {
+        if (!values.containsKey(path)) {
+            addPath(path);
+        }
+        if (!extracted) {
+            extract();
+        }
+        return values.get(path);
+    }
+
+    private void extract() {
+        values.clear();
+        try {
+            fieldsVisitor.reset();
+            context.reader().document(docId, fieldsVisitor);
+            BytesReference source = fieldsVisitor.source();
+            if (source != null) {
+                try (XContentParser parser = XContentHelper.createParser(source)) {
+                    if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                        extract(parser, root);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to extract values from _source", e);
+        }
+        putMissing(root);
+        extracted = true;
+    }
+
+    /**
+     * extracts the values of the children of the given node from the object the parser is positioned at
+     */
+    private void extract(XContentParser parser, PathNode node) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            PathNode child = node.children.get(parser.currentName());
+            token = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (!child.requested && token == XContentParser.Token.START_OBJECT) {
+                extract(parser, child);
+            } else if (!child.requested && token != XContentParser.Token.START_ARRAY) {
+                // a value where an object is expected, the paths below it don't exist
+                parser.skipChildren();
+            } else {
+                putValues(child, readValue(parser, token));
+            }
+        }
+    }
+
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * puts the value of the node and the values of the requested paths below it
+     */
+    private void putValues(PathNode node, Object value) {
+        if (node.requested) {
+            values.put(node.path, value);
+        }
+        if (node.children.isEmpty()) {
+            return;
+        }
+        Map<String, Object> parent = Collections.singletonMap(node.name, value);
+        putDescendantValues(node, parent, node.path.length() - node.name.length());
+    }
+
+    private void putDescendantValues(PathNode node, Map<String, Object> parent, int offset) {
+        for (PathNode child : node.children.values()) {
+            if (child.requested) {
+                values.put(child.path, XContentMapValues.extractValue(child.path.substring(offset), parent));
+            }
+            putDescendantValues(child, parent, offset);
+        }
+    }
+
+    /**
+     * all requested paths are known to be extracted, missing values are null
+     */
+    private void putMissing(PathNode node) {
+        for (PathNode child : node.children.values()) {
+            if (child.requested && !values.containsKey(child.path)) {
+                values.put(child.path, null);
+            }
+            putMissing(child);
+        }
+    }
+}
@@ -24,11 +24,14 @@ package io.crate.operation.reference.sys;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import io.crate.action.sql.QueryResultCache;
+import io.crate.executor.transport.NodeLoadTracker;
 import io.crate.metadata.*;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
 import io.crate.metadata.expressions.WriteableRowContextExpression;
 import io.crate.metadata.information.*;
 import io.crate.metadata.sys.*;
+import io.crate.operation.collect.LatencyHistogram;
 import io.crate.operation.reference.ReferenceResolver;
 import io.crate.operation.reference.information.InformationSchemaExpressionFactories;
 import io.crate.operation.reference.sys.check.SysCheck;
@@ -41,8 +44,10 @@ import io.crate.operation.reference.sys.repositories.SysRepository;
 import io.crate.operation.reference.sys.shard.unassigned.UnassignedShardsExpressionFactories;
 import io.crate.operation.reference.sys.snapshot.SysSnapshot;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.bulk.BulkRetryCoordinator;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nullable;
 import java.util.HashMap;
@@ -67,6 +72,10 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
         tableFactories.put(SysNodeChecksTableInfo.IDENT, getSysNodeChecksExpressions());
         tableFactories.put(SysRepositoriesTableInfo.IDENT, getSysRepositoriesExpressions());
         tableFactories.put(SysSnapshotsTableInfo.IDENT, getSysSnapshotsExpressions());
+        tableFactories.put(SysBulkRetriesTableInfo.IDENT, getSysBulkRetriesExpressions());
+        tableFactories.put(SysResultCacheTableInfo.IDENT, getSysResultCacheExpressions());
+        tableFactories.put(SysNodeLoadTableInfo.IDENT, getSysNodeLoadExpressions());
+        tableFactories.put(SysQueryLatenciesTableInfo.IDENT, getSysQueryLatenciesExpressions());
 
         tableFactories.put(InformationSchemataTableInfo.IDENT, InformationSchemaExpressionFactories.schemataFactories());
         tableFactories.put(InformationRoutinesTableInfo.IDENT, InformationSchemaExpressionFactories.routineFactories());
@@ -584,6 +593,449 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                 .build();
     }
 
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysBulkRetriesExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysBulkRetriesTableInfo.Columns.NODE_ID, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.nodeId());
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.SCHEMA_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                ShardId shardId = row.shardId();
+                                if (shardId == null) {
+                                    return null;
+                                }
+                                return new BytesRef(TableIdent.fromIndexName(shardId.getIndex()).schema());
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.TABLE_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                ShardId shardId = row.shardId();
+                                if (shardId == null) {
+                                    return null;
+                                }
+                                return new BytesRef(TableIdent.fromIndexName(shardId.getIndex()).name());
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.PARTITION_IDENT, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                ShardId shardId = row.shardId();
+                                if (shardId == null || !PartitionName.isPartition(shardId.getIndex())) {
+                                    return null;
+                                }
+                                return new BytesRef(PartitionName.fromIndexOrTemplate(shardId.getIndex()).ident());
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.SHARD_ID, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Integer>() {
+                            @Override
+                            public Integer value() {
+                                ShardId shardId = row.shardId();
+                                if (shardId == null) {
+                                    return null;
+                                }
+                                return shardId.id();
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.RETRIES, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.retries();
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.REJECTIONS, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.rejections();
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.BACKOFF_TIME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.backoffMillis();
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.CONCURRENCY, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Integer>() {
+                            @Override
+                            public Integer value() {
+                                return row.concurrencyLimit();
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.ACTIVE, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Integer>() {
+                            @Override
+                            public Integer value() {
+                                return row.numActiveOperations();
+                            }
+                        };
+                    }
+                })
+                .put(SysBulkRetriesTableInfo.Columns.PENDING, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<BulkRetryCoordinator, Integer>() {
+                            @Override
+                            public Integer value() {
+                                return row.numPendingOperations();
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysResultCacheExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysResultCacheTableInfo.Columns.NODE_ID, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.nodeId());
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.ENABLED, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Boolean>() {
+                            @Override
+                            public Boolean value() {
+                                return row.enabled();
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.ENTRIES, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.entries();
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.SIZE, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.sizeInBytes();
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.MAX_SIZE, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.maxSizeInBytes();
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.HITS, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.hits();
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.MISSES, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.misses();
+                            }
+                        };
+                    }
+                })
+                .put(SysResultCacheTableInfo.Columns.EVICTIONS, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<QueryResultCache, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.evictions();
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysNodeLoadExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysNodeLoadTableInfo.Columns.NODE_ID, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.nodeId());
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.TARGET_NODE_ID, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.targetNodeId());
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.IN_FLIGHT, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, Integer>() {
+                            @Override
+                            public Integer value() {
+                                return row.inFlight();
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.REQUESTS, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.requests();
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.FAILURES, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.failures();
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.AVG_RESPONSE_TIME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.avgResponseTime();
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.SELECTED, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.selected();
+                            }
+                        };
+                    }
+                })
+                .put(SysNodeLoadTableInfo.Columns.REROUTED, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<NodeLoadTracker.NodeLoad, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.rerouted();
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysQueryLatenciesExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysQueryLatenciesTableInfo.Columns.STATEMENT_TYPE, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.statementType());
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.TABLE_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.tableName());
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.EXECUTIONS, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.executions();
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.FAILURES, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.failures();
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.AVG, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.avg();
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.MAX, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.max();
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.P50, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.percentile(0.5);
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.P90, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.percentile(0.9);
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.P95, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.percentile(0.95);
+                            }
+                        };
+                    }
+                })
+                .put(SysQueryLatenciesTableInfo.Columns.P99, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.percentile(0.99);
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
     @Override
     public RowCollectExpression<?, ?> getImplementation(ReferenceInfo refInfo) {
         return rowCollectExpressionFromFactoryMap(tableFactories, refInfo);
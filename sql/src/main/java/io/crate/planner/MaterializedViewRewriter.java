@@ -0,0 +1,304 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.analyze.HavingClause;
+import io.crate.analyze.OrderBy;
+import io.crate.analyze.QuerySpec;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.symbol.*;
+import io.crate.exceptions.ResourceUnknownException;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Path;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.metadata.view.MaterializedView;
+import io.crate.metadata.view.MaterializedViews;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites aggregating queries on a table to read the rollup table of one of its materialized views instead.
+ *
+ * A query can be answered from a view if all the columns it uses outside of aggregations are group keys of the view
+ * and all of its aggregations are computed by the view. The group keys are replaced by the key columns of the view
+ * and the aggregations by the aggregations merging the delta rows of the view.
+ *
+ * The rewrite is disabled by default ({@link #ENABLED_SETTING}) because the delta rows are written
+ * asynchronously after an insert and only become visible once the rollup table is refreshed,
+ * so rewritten queries can lag behind the source table.
+ */
+@Singleton
+public class MaterializedViewRewriter {
+
+    public static final String ENABLED_SETTING = "sql.materialized_views.rewrite.enabled";
+
+    private static final Visitor VISITOR = new Visitor();
+
+    private final MaterializedViews materializedViews;
+    private final Schemas schemas;
+    private final boolean enabled;
+
+    @Inject
+    public MaterializedViewRewriter(Settings settings, MaterializedViews materializedViews, Schemas schemas) {
+        this.materializedViews = materializedViews;
+        this.schemas = schemas;
+        this.enabled = settings.getAsBoolean(ENABLED_SETTING, false);
+    }
+
+    /**
+     * @return a relation on the rollup table of a matching view or the given relation if no view matches
+     */
+    public QueriedDocTable rewrite(QueriedDocTable table) {
+        if (!enabled) {
+            return table;
+        }
+        WhereClause where = table.querySpec().where();
+        if (where.noMatch() || where.docKeys().isPresent() || !where.partitions().isEmpty() || where.hasVersions()) {
+            return table;
+        }
+        for (MaterializedView view : materializedViews.forSource(table.tableRelation().tableInfo().ident())) {
+            TableInfo viewInfo;
+            try {
+                viewInfo = schemas.getTableInfo(view.ident());
+            } catch (ResourceUnknownException e) {
+                continue;
+            }
+            if (!(viewInfo instanceof DocTableInfo)) {
+                continue;
+            }
+            QueriedDocTable rewritten = rewrite(table, view, (DocTableInfo) viewInfo);
+            if (rewritten != null) {
+                return rewritten;
+            }
+        }
+        return table;
+    }
+
+    @Nullable
+    static QueriedDocTable rewrite(QueriedDocTable table, MaterializedView view, DocTableInfo viewInfo) {
+        QuerySpec querySpec = table.querySpec();
+        Context context = Context.create(table.tableRelation(), view, viewInfo, !querySpec.groupBy().isPresent());
+        if (context == null) {
+            return null;
+        }
+        QuerySpec newSpec = new QuerySpec()
+                .limit(querySpec.limit().orNull())
+                .offset(querySpec.offset())
+                .hasAggregates(querySpec.hasAggregates());
+
+        List<Symbol> outputs = rewrite(querySpec.outputs(), context);
+        if (outputs == null) {
+            return null;
+        }
+        newSpec.outputs(outputs);
+
+        WhereClause where = querySpec.where();
+        if (where.hasQuery()) {
+            Symbol query = VISITOR.process(where.query(), context);
+            if (query == null) {
+                return null;
+            }
+            newSpec.where(new WhereClause(query));
+        } else {
+            newSpec.where(WhereClause.MATCH_ALL);
+        }
+
+        if (querySpec.groupBy().isPresent()) {
+            List<Symbol> groupBy = rewrite(querySpec.groupBy().get(), context);
+            if (groupBy == null) {
+                return null;
+            }
+            newSpec.groupBy(groupBy);
+        }
+
+        if (querySpec.having().isPresent()) {
+            HavingClause having = querySpec.having().get();
+            if (having.noMatch()) {
+                return null;
+            }
+            if (having.hasQuery()) {
+                Symbol query = VISITOR.process(having.query(), context);
+                if (query == null) {
+                    return null;
+                }
+                newSpec.having(new HavingClause(query));
+            }
+        }
+
+        if (querySpec.orderBy().isPresent()) {
+            OrderBy orderBy = querySpec.orderBy().get();
+            List<Symbol> orderBySymbols = rewrite(orderBy.orderBySymbols(), context);
+            if (orderBySymbols == null) {
+                return null;
+            }
+            newSpec.orderBy(new OrderBy(orderBySymbols, orderBy.reverseFlags(), orderBy.nullsFirst()));
+        }
+
+        List<Path> paths = new ArrayList<>(table.fields().size());
+        for (Field field : table.fields()) {
+            paths.add(field.path());
+        }
+        return new QueriedDocTable(new DocTableRelation(viewInfo), paths, newSpec);
+    }
+
+    @Nullable
+    private static List<Symbol> rewrite(List<Symbol> symbols, Context context) {
+        List<Symbol> rewritten = new ArrayList<>(symbols.size());
+        for (Symbol symbol : symbols) {
+            Symbol newSymbol = VISITOR.process(symbol, context);
+            if (newSymbol == null) {
+                return null;
+            }
+            rewritten.add(newSymbol);
+        }
+        return rewritten;
+    }
+
+    private static class Context {
+
+        private final DocTableRelation source;
+        private final MaterializedView view;
+        private final List<Reference> keyColumns;
+        private final List<Reference> aggregationColumns;
+        private final boolean globalAggregate;
+
+        private Context(DocTableRelation source,
+                        MaterializedView view,
+                        List<Reference> keyColumns,
+                        List<Reference> aggregationColumns,
+                        boolean globalAggregate) {
+            this.source = source;
+            this.view = view;
+            this.keyColumns = keyColumns;
+            this.aggregationColumns = aggregationColumns;
+            this.globalAggregate = globalAggregate;
+        }
+
+        /**
+         * @return the context or null if the columns of the view don't exist in its table anymore
+         */
+        @Nullable
+        static Context create(DocTableRelation source,
+                              MaterializedView view,
+                              DocTableInfo viewInfo,
+                              boolean globalAggregate) {
+            List<Reference> keyColumns = columns(view.keyColumns(), viewInfo);
+            List<Reference> aggregationColumns = columns(view.aggregationColumns(), viewInfo);
+            if (keyColumns == null || aggregationColumns == null) {
+                return null;
+            }
+            return new Context(source, view, keyColumns, aggregationColumns, globalAggregate);
+        }
+
+        @Nullable
+        private static List<Reference> columns(List<String> names, DocTableInfo viewInfo) {
+            List<Reference> columns = new ArrayList<>(names.size());
+            for (String name : names) {
+                ReferenceInfo info = viewInfo.getReferenceInfo(new ColumnIdent(name));
+                if (info == null) {
+                    return null;
+                }
+                columns.add(new Reference(info));
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Replaces the symbols of the source table by the ones of the view, returns null if a symbol can't be replaced.
+     */
+    private static class Visitor extends SymbolVisitor<Context, Symbol> {
+
+        @Override
+        public Symbol visitFunction(Function function, Context context) {
+            int keyIdx = context.view.keys().indexOf(function);
+            if (keyIdx >= 0) {
+                return context.keyColumns.get(keyIdx);
+            }
+            if (function.info().type() == FunctionInfo.Type.AGGREGATE) {
+                int idx = context.view.aggregations().indexOf(function);
+                if (idx < 0) {
+                    return null;
+                }
+                // a count is merged with a sum which is null instead of 0 if no delta row matches
+                if (context.globalAggregate && function.info().ident().name().equals(CountAggregation.NAME)) {
+                    return null;
+                }
+                return context.view.merge(idx, context.aggregationColumns.get(idx));
+            }
+            List<Symbol> arguments = new ArrayList<>(function.arguments().size());
+            for (Symbol argument : function.arguments()) {
+                Symbol newArgument = process(argument, context);
+                if (newArgument == null) {
+                    return null;
+                }
+                arguments.add(newArgument);
+            }
+            return new Function(function.info(), arguments);
+        }
+
+        @Override
+        public Symbol visitReference(Reference symbol, Context context) {
+            int keyIdx = context.view.keys().indexOf(symbol);
+            if (keyIdx < 0) {
+                return null;
+            }
+            return context.keyColumns.get(keyIdx);
+        }
+
+        @Override
+        public Symbol visitDynamicReference(DynamicReference symbol, Context context) {
+            return null;
+        }
+
+        @Override
+        public Symbol visitField(Field field, Context context) {
+            Reference reference = context.source.resolveField(field);
+            if (reference == null) {
+                return null;
+            }
+            return process(reference, context);
+        }
+
+        @Override
+        public Symbol visitLiteral(Literal symbol, Context context) {
+            return symbol;
+        }
+
+        @Override
+        protected Symbol visitSymbol(Symbol symbol, Context context) {
+            return null;
+        }
+    }
+}
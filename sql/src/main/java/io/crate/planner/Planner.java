@@ -32,6 +32,8 @@ import io.crate.analyze.relations.PlannedAnalyzedRelation;
 import io.crate.analyze.symbol.Reference;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.executor.transport.NodeLoadTracker;
+import io.crate.lucene.zonemap.ZoneMapPruner;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.Routing;
 import io.crate.metadata.TableIdent;
@@ -51,6 +53,10 @@ import io.crate.planner.node.management.KillPlan;
 import io.crate.planner.statement.CopyStatementPlanner;
 import io.crate.planner.statement.DeleteStatementPlanner;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
@@ -68,6 +74,8 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
     private final CopyStatementPlanner copyStatementPlanner;
     private final SelectStatementPlanner selectStatementPlanner;
     private final DeleteStatementPlanner deleteStatementPlanner;
+    private final NodeLoadTracker nodeLoadTracker;
+    private final ZoneMapPruner zoneMapPruner;
 
     public static class Context {
 
@@ -77,15 +85,27 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
         private final ClusterService clusterService;
         private final UUID jobId;
         private final ConsumingPlanner consumingPlanner;
+        private final NodeLoadTracker nodeLoadTracker;
+        private final ZoneMapPruner zoneMapPruner;
         private int executionPhaseId = 0;
         private final Multimap<TableIdent, TableRouting> tableRoutings = HashMultimap.create();
         private ReaderAllocations readerAllocations;
         private HashMultimap<TableIdent, String> tableIndices;
 
         public Context(ClusterService clusterService, UUID jobId, ConsumingPlanner consumingPlanner) {
+            this(clusterService, jobId, consumingPlanner, null, null);
+        }
+
+        public Context(ClusterService clusterService,
+                       UUID jobId,
+                       ConsumingPlanner consumingPlanner,
+                       @Nullable NodeLoadTracker nodeLoadTracker,
+                       @Nullable ZoneMapPruner zoneMapPruner) {
             this.clusterService = clusterService;
             this.jobId = jobId;
             this.consumingPlanner = consumingPlanner;
+            this.nodeLoadTracker = nodeLoadTracker;
+            this.zoneMapPruner = zoneMapPruner;
         }
 
         public static class ReaderAllocations {
@@ -240,6 +260,12 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             Routing routing;
             if (existingRoutings.isEmpty()) {
                 routing = tableInfo.getRouting(where, preference);
+                if (zoneMapPruner != null && tableInfo instanceof DocTableInfo) {
+                    routing = zoneMapPruner.prune(routing, where);
+                }
+                if (preference == null && tableInfo instanceof DocTableInfo) {
+                    routing = selectShardCopies(routing);
+                }
             } else {
                 for (TableRouting existing : existingRoutings) {
                     assert preference == null || preference.equals(existing.preference);
@@ -263,6 +289,57 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             tableRoutings.put(tableInfo.ident(), new TableRouting(where, preference, routing));
             return routing;
         }
+
+        /**
+         * move shards of the routing to other active copies if the {@link NodeLoadTracker}
+         * considers the nodes holding them to be less loaded
+         */
+        private Routing selectShardCopies(Routing routing) {
+            if (nodeLoadTracker == null || !nodeLoadTracker.hasMeasurements() || !routing.hasLocations()) {
+                return routing;
+            }
+            ClusterState state = clusterService.state();
+            Map<String, Map<String, List<Integer>>> locations = new TreeMap<>();
+            boolean changed = false;
+            for (Map.Entry<String, Map<String, List<Integer>>> nodeEntry : routing.locations().entrySet()) {
+                String defaultNodeId = nodeEntry.getKey();
+                if (nodeEntry.getValue() == null) {
+                    return routing;
+                }
+                for (Map.Entry<String, List<Integer>> indexEntry : nodeEntry.getValue().entrySet()) {
+                    if (indexEntry.getValue() == null) {
+                        return routing;
+                    }
+                    IndexRoutingTable indexRoutingTable = state.routingTable().index(indexEntry.getKey());
+                    for (Integer shardId : indexEntry.getValue()) {
+                        String nodeId = defaultNodeId;
+                        IndexShardRoutingTable shardRoutingTable =
+                            indexRoutingTable == null ? null : indexRoutingTable.shard(shardId);
+                        if (shardRoutingTable != null && shardRoutingTable.activeShards().size() > 1) {
+                            List<ShardRouting> activeShards = shardRoutingTable.activeShards();
+                            List<String> candidates = new ArrayList<>(activeShards.size());
+                            for (ShardRouting shardRouting : activeShards) {
+                                candidates.add(shardRouting.currentNodeId());
+                            }
+                            nodeId = nodeLoadTracker.selectNode(defaultNodeId, candidates);
+                            changed |= !nodeId.equals(defaultNodeId);
+                        }
+                        Map<String, List<Integer>> nodeRouting = locations.get(nodeId);
+                        if (nodeRouting == null) {
+                            nodeRouting = new TreeMap<>();
+                            locations.put(nodeId, nodeRouting);
+                        }
+                        List<Integer> shards = nodeRouting.get(indexEntry.getKey());
+                        if (shards == null) {
+                            shards = new ArrayList<>();
+                            nodeRouting.put(indexEntry.getKey(), shards);
+                        }
+                        shards.add(shardId);
+                    }
+                }
+            }
+            return changed ? new Routing(locations) : routing;
+        }
     }
 
     private static class TableRouting {
@@ -284,13 +361,17 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                    UpdateConsumer updateConsumer,
                    CopyStatementPlanner copyStatementPlanner,
                    SelectStatementPlanner selectStatementPlanner,
-                   DeleteStatementPlanner deleteStatementPlanner) {
+                   DeleteStatementPlanner deleteStatementPlanner,
+                   NodeLoadTracker nodeLoadTracker,
+                   ZoneMapPruner zoneMapPruner) {
         this.clusterService = clusterService;
         this.updateConsumer = updateConsumer;
         this.consumingPlanner = consumingPlanner;
         this.copyStatementPlanner = copyStatementPlanner;
         this.selectStatementPlanner = selectStatementPlanner;
         this.deleteStatementPlanner = deleteStatementPlanner;
+        this.nodeLoadTracker = nodeLoadTracker;
+        this.zoneMapPruner = zoneMapPruner;
     }
 
     /**
@@ -301,7 +382,7 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
      */
     public Plan plan(Analysis analysis, UUID jobId) {
         AnalyzedStatement analyzedStatement = analysis.analyzedStatement();
-        return process(analyzedStatement, new Context(clusterService, jobId, consumingPlanner));
+        return process(analyzedStatement, new Context(clusterService, jobId, consumingPlanner, nodeLoadTracker, zoneMapPruner));
     }
 
     @Override
@@ -426,7 +507,8 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
 
     @Override
     public Plan visitExplainStatement(ExplainAnalyzedStatement explainAnalyzedStatement, Context context) {
-        return new ExplainPlan(process(explainAnalyzedStatement.statement(), context));
+        return new ExplainPlan(process(explainAnalyzedStatement.statement(), context),
+            explainAnalyzedStatement.isAnalyze());
     }
 
     private UpsertById processInsertStatement(InsertFromValuesAnalyzedStatement analysis, Context context) {
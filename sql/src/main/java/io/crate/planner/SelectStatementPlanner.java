@@ -64,8 +64,10 @@ public class SelectStatementPlanner {
     private final Visitor visitor;
 
     @Inject
-    public SelectStatementPlanner(ClusterService clusterService, ConsumingPlanner consumingPlanner) {
-        visitor = new Visitor(clusterService, consumingPlanner);
+    public SelectStatementPlanner(ClusterService clusterService,
+                                  ConsumingPlanner consumingPlanner,
+                                  MaterializedViewRewriter materializedViewRewriter) {
+        visitor = new Visitor(clusterService, consumingPlanner, materializedViewRewriter);
     }
 
     public Plan plan(SelectAnalyzedStatement statement, Planner.Context context) {
@@ -87,10 +89,14 @@ public class SelectStatementPlanner {
 
         private final ClusterService clusterService;
         private final ConsumingPlanner consumingPlanner;
+        private final MaterializedViewRewriter materializedViewRewriter;
 
-        public Visitor(ClusterService clusterService, ConsumingPlanner consumingPlanner) {
+        public Visitor(ClusterService clusterService,
+                       ConsumingPlanner consumingPlanner,
+                       MaterializedViewRewriter materializedViewRewriter) {
             this.clusterService = clusterService;
             this.consumingPlanner = consumingPlanner;
+            this.materializedViewRewriter = materializedViewRewriter;
         }
 
         @Override
@@ -102,7 +108,7 @@ public class SelectStatementPlanner {
         public Plan visitQueriedDocTable(QueriedDocTable table, Planner.Context context) {
             QuerySpec querySpec = table.querySpec();
             if (querySpec.hasAggregates() || querySpec.groupBy().isPresent()) {
-                return consumingPlanner.plan(table, context);
+                return consumingPlanner.plan(materializedViewRewriter.rewrite(table), context);
             }
             if (querySpec.where().docKeys().isPresent() && !table.tableRelation().tableInfo().isAlias()) {
                 return ESGetStatementPlanner.convert(table, context);
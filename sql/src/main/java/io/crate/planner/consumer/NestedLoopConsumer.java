@@ -30,20 +30,34 @@ import io.crate.analyze.*;
 import io.crate.analyze.relations.*;
 import io.crate.analyze.symbol.*;
 import io.crate.exceptions.ValidationException;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
 import io.crate.operation.projectors.TopN;
+import io.crate.planner.Plan;
+import io.crate.planner.Planner;
 import io.crate.planner.TableStatsService;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.UpstreamPhase;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
+import io.crate.planner.node.dql.CollectAndMerge;
+import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.node.dql.QueryThenFetch;
+import io.crate.planner.node.dql.RoutedCollectPhase;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
+import io.crate.planner.node.dql.join.SemiJoinFilter;
 import io.crate.planner.projection.FilterProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.TopNProjection;
 import io.crate.planner.projection.builder.ProjectionBuilder;
 import io.crate.sql.tree.QualifiedName;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
@@ -150,6 +164,9 @@ public class NestedLoopConsumer implements Consumer {
                 ((QueriedTableRelation) right).normalize(analysisMetaData);
             }
 
+            // resolve the join keys before planning, the sub relations may be rewritten by their consumers
+            Reference[] joinKeys = filterNeeded ? equiJoinKeys(statement, left, right, where.query()) : null;
+
             PlannedAnalyzedRelation leftPlan = context.plannerContext().planSubRelation(left, context);
             PlannedAnalyzedRelation rightPlan = context.plannerContext().planSubRelation(right, context);
             context.requiredPageSize(null);
@@ -158,6 +175,10 @@ public class NestedLoopConsumer implements Consumer {
                 // one of the plans or both are noops
                 return new NoopPlannedAnalyzedRelation(statement, context.plannerContext().jobId());
             }
+            SemiJoinFilter semiJoinFilter = null;
+            if (joinKeys != null) {
+                semiJoinFilter = semiJoinFilter(context, left, right, leftPlan, rightPlan, joinKeys);
+            }
 
             boolean broadcastLeftTable = false;
             if (isDistributed) {
@@ -265,7 +286,148 @@ public class NestedLoopConsumer implements Consumer {
                 );
                 localMergePhase.addProjection(finalTopN);
             }
-            return new NestedLoop(nl, leftPlan, rightPlan, localMergePhase, handlerNodes);
+            NestedLoop nestedLoop = new NestedLoop(nl, leftPlan, rightPlan, localMergePhase, handlerNodes);
+            nestedLoop.semiJoinFilter(semiJoinFilter);
+            return nestedLoop;
+        }
+
+        /**
+         * finds a <code>left.x = right.y</code> condition which is part of the top level AND of the join condition.
+         *
+         * @return the references of the left and right relation or null if there is no such condition
+         */
+        @Nullable
+        private static Reference[] equiJoinKeys(TwoTableJoin statement,
+                                                QueriedRelation left,
+                                                QueriedRelation right,
+                                                Symbol joinCondition) {
+            if (!(left instanceof QueriedDocTable && right instanceof QueriedDocTable)) {
+                return null;
+            }
+            List<Symbol> conditions = new ArrayList<>();
+            splitConjunction(joinCondition, conditions);
+            for (Symbol condition : conditions) {
+                if (!(condition instanceof Function)
+                    || !((Function) condition).info().ident().name().equals(EqOperator.NAME)) {
+                    continue;
+                }
+                List<Symbol> arguments = ((Function) condition).arguments();
+                if (!(arguments.get(0) instanceof RelationColumn && arguments.get(1) instanceof RelationColumn)) {
+                    continue;
+                }
+                RelationColumn first = (RelationColumn) arguments.get(0);
+                RelationColumn second = (RelationColumn) arguments.get(1);
+                if (first.relationName().equals(statement.rightName())) {
+                    RelationColumn tmp = first;
+                    first = second;
+                    second = tmp;
+                }
+                if (!first.relationName().equals(statement.leftName())
+                    || !second.relationName().equals(statement.rightName())) {
+                    continue;
+                }
+                Symbol leftKey = left.querySpec().outputs().get(first.index());
+                Symbol rightKey = right.querySpec().outputs().get(second.index());
+                if (isSemiJoinKey(leftKey) && isSemiJoinKey(rightKey)
+                    && leftKey.valueType().equals(rightKey.valueType())) {
+                    return new Reference[] { (Reference) leftKey, (Reference) rightKey };
+                }
+            }
+            return null;
+        }
+
+        private static void splitConjunction(Symbol symbol, List<Symbol> conditions) {
+            if (symbol instanceof Function && ((Function) symbol).info().equals(AndOperator.INFO)) {
+                for (Symbol argument : ((Function) symbol).arguments()) {
+                    splitConjunction(argument, conditions);
+                }
+            } else {
+                conditions.add(symbol);
+            }
+        }
+
+        private static boolean isSemiJoinKey(Symbol symbol) {
+            if (!(symbol instanceof Reference)) {
+                return false;
+            }
+            ReferenceInfo info = ((Reference) symbol).info();
+            return info.granularity() == RowGranularity.DOC
+                   && info.indexType() == ReferenceInfo.IndexType.NOT_ANALYZED
+                   && DataTypes.PRIMITIVE_TYPES.contains(info.type());
+        }
+
+        /**
+         * creates a filter which restricts the larger side of the join to the join keys of the smaller side,
+         * if the smaller side is small enough to collect its keys upfront.
+         */
+        @Nullable
+        private SemiJoinFilter semiJoinFilter(ConsumerContext context,
+                                              QueriedRelation left,
+                                              QueriedRelation right,
+                                              PlannedAnalyzedRelation leftPlan,
+                                              PlannedAnalyzedRelation rightPlan,
+                                              Reference[] joinKeys) {
+            DocTableInfo leftTable = ((QueriedDocTable) left).tableRelation().tableInfo();
+            DocTableInfo rightTable = ((QueriedDocTable) right).tableRelation().tableInfo();
+            long leftNumDocs = tableStatsService.numDocs(leftTable.ident());
+            long rightNumDocs = tableStatsService.numDocs(rightTable.ident());
+            if (leftNumDocs < 0 || rightNumDocs < 0 || leftNumDocs == rightNumDocs) {
+                return null;
+            }
+            boolean buildLeft = leftNumDocs < rightNumDocs;
+            if ((buildLeft ? leftNumDocs : rightNumDocs) > SemiJoinFilter.MAX_KEYS) {
+                return null;
+            }
+            RoutedCollectPhase probePhase = routedCollectPhase(buildLeft ? rightPlan : leftPlan);
+            if (probePhase == null || probePhase.maxRowGranularity() != RowGranularity.DOC) {
+                return null;
+            }
+            QueriedDocTable build = (QueriedDocTable) (buildLeft ? left : right);
+            Reference buildKey = joinKeys[buildLeft ? 0 : 1];
+            Reference probeKey = joinKeys[buildLeft ? 1 : 0];
+
+            WhereClause buildWhere = build.querySpec().where();
+            Planner.Context plannerContext = context.plannerContext();
+            UUID keysJobId = UUID.randomUUID();
+            RoutedCollectPhase keysCollect = new RoutedCollectPhase(
+                    keysJobId,
+                    plannerContext.nextExecutionPhaseId(),
+                    "semi-join-keys",
+                    plannerContext.allocateRouting(build.tableRelation().tableInfo(), buildWhere, null),
+                    RowGranularity.DOC,
+                    ImmutableList.<Symbol>of(buildKey),
+                    ImmutableList.<Projection>of(),
+                    buildWhere,
+                    DistributionInfo.DEFAULT_BROADCAST
+            );
+            if (keysCollect.executionNodes().isEmpty()) {
+                return null;
+            }
+            TopNProjection topN = new TopNProjection(SemiJoinFilter.MAX_KEYS + 1, 0);
+            topN.outputs(ImmutableList.<Symbol>of(new InputColumn(0, buildKey.valueType())));
+            MergePhase keysMerge = MergePhase.localMerge(
+                    keysJobId,
+                    plannerContext.nextExecutionPhaseId(),
+                    ImmutableList.<Projection>of(topN),
+                    keysCollect.executionNodes().size(),
+                    ImmutableList.<DataType>of(buildKey.valueType())
+            );
+            LOGGER.debug("Using the join keys of {} to filter {}", build.tableRelation().tableInfo().ident(),
+                    (buildLeft ? rightTable : leftTable).ident());
+            return new SemiJoinFilter(
+                    new CollectAndMerge(keysCollect, keysMerge), probePhase, probeKey, SemiJoinFilter.MAX_KEYS);
+        }
+
+        @Nullable
+        private static RoutedCollectPhase routedCollectPhase(PlannedAnalyzedRelation plan) {
+            Plan collectPlan = plan instanceof QueryThenFetch ? ((QueryThenFetch) plan).subPlan() : (Plan) plan;
+            if (collectPlan instanceof CollectAndMerge) {
+                CollectPhase collectPhase = ((CollectAndMerge) collectPlan).collectPhase();
+                if (collectPhase.getClass() == RoutedCollectPhase.class) {
+                    return (RoutedCollectPhase) collectPhase;
+                }
+            }
+            return null;
         }
 
         private void addOutputsAndSymbolMap(Iterable<? extends Symbol> outputs,
@@ -25,14 +25,18 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import io.crate.Constants;
 import io.crate.analyze.HavingClause;
+import io.crate.analyze.OrderBy;
+import io.crate.analyze.QuerySpec;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.DocTableRelation;
 import io.crate.analyze.relations.PlannedAnalyzedRelation;
 import io.crate.analyze.relations.QueriedDocTable;
 import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.Reference;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.exceptions.VersionInvalidException;
 import io.crate.metadata.Functions;
+import io.crate.metadata.ReferenceInfo;
 import io.crate.metadata.RowGranularity;
 import io.crate.operation.projectors.TopN;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
@@ -45,9 +49,11 @@ import io.crate.planner.projection.GroupProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.builder.ProjectionBuilder;
 import io.crate.planner.projection.builder.SplitPoints;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -101,6 +107,9 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
          * SELECT:
          * CollectNode ( GroupProjection, [FilterProjection], [TopN] )
          * LocalMergeNode ( TopN )
+         *
+         * If the collect phase can emit the rows sorted by the group keys, see {@link #streamingOrder},
+         * the groups are aggregated while streaming and the collector stops as soon as the TopN has enough rows.
          */
         private PlannedAnalyzedRelation optimizedReduceOnCollectorGroupBy(QueriedDocTable table, DocTableRelation tableRelation, ConsumerContext context) {
             assert GroupByConsumer.groupedByClusteredColumnOrPrimaryKeys(
@@ -133,6 +142,8 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
                     Aggregation.Step.FINAL
             );
             groupProjection.setRequiredGranularity(RowGranularity.SHARD);
+            OrderBy streamingOrder = streamingOrder(table.querySpec(), splitPoints.leaves(), context);
+            groupProjection.inputSortedByKeys(streamingOrder != null);
             projections.add(groupProjection);
 
             Optional<HavingClause> havingClause = table.querySpec().having();
@@ -163,7 +174,8 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
             if (collectorTopN) {
                 projections.add(ProjectionBuilder.topNProjection(
                         collectOutputs,
-                        table.querySpec().orderBy().orNull(),
+                        // the groups are already emitted in the requested order
+                        streamingOrder == null ? table.querySpec().orderBy().orNull() : null,
                         0, // no offset
                         collectTopNLimit,
                         table.querySpec().outputs()
@@ -176,6 +188,11 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
                     splitPoints.leaves(),
                     ImmutableList.copyOf(projections)
             );
+            if (streamingOrder != null) {
+                collectPhase.orderBy(streamingOrder);
+                // each group consists of at least one row, the sorted collectors fetch growing windows if more are needed
+                collectPhase.nodePageSizeHint(table.querySpec().limit().get() + table.querySpec().offset());
+            }
 
             // handler
             List<Projection> handlerProjections = new ArrayList<>();
@@ -225,6 +242,37 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
             return new CollectAndMerge(collectPhase, localMerge);
         }
 
+        /**
+         * Returns the order in which the collect phase must emit the rows to aggregate the groups while
+         * streaming, or null if the groups should be hashed.
+         *
+         * Sorting the rows only pays off if a limit allows to stop early, so the result must be either
+         * unordered or ordered by the group keys. The keys must be columns which can be sorted by Lucene.
+         */
+        @Nullable
+        private static OrderBy streamingOrder(QuerySpec querySpec, List<Symbol> leaves, ConsumerContext context) {
+            if (!context.isRoot() || !querySpec.limit().isPresent()) {
+                return null;
+            }
+            List<Symbol> groupBy = querySpec.groupBy().get();
+            for (Symbol key : groupBy) {
+                if (!(key instanceof Reference) || !leaves.contains(key)) {
+                    return null;
+                }
+                ReferenceInfo info = ((Reference) key).info();
+                if (info.granularity() != RowGranularity.DOC
+                    || info.ident().columnIdent().isSystemColumn()
+                    || !DataTypes.PRIMITIVE_TYPES.contains(info.type())) {
+                    return null;
+                }
+            }
+            Optional<OrderBy> orderBy = querySpec.orderBy();
+            if (orderBy.isPresent()) {
+                return orderBy.get().orderBySymbols().equals(groupBy) ? orderBy.get() : null;
+            }
+            return new OrderBy(groupBy, new boolean[groupBy.size()], new Boolean[groupBy.size()]);
+        }
+
 
     }
 }
@@ -180,6 +180,10 @@ public class RoutedCollectPhase extends AbstractProjectionsPhase implements Coll
         return whereClause;
     }
 
+    public void whereClause(WhereClause whereClause) {
+        this.whereClause = whereClause;
+    }
+
     public Routing routing() {
         return routing;
     }
@@ -68,6 +68,9 @@ public class NestedLoop extends PlanAndPlannedAnalyzedRelation {
     private final MergePhase localMerge;
     private final boolean resultIsDistributed;
 
+    @Nullable
+    private SemiJoinFilter semiJoinFilter;
+
     /**
      * create a new NestedLoop
      *
@@ -152,4 +155,16 @@ public class NestedLoop extends PlanAndPlannedAnalyzedRelation {
     public MergePhase localMerge() {
         return localMerge;
     }
+
+    /**
+     * @return the filter to push down into one side before executing the join, if any
+     */
+    @Nullable
+    public SemiJoinFilter semiJoinFilter() {
+        return semiJoinFilter;
+    }
+
+    public void semiJoinFilter(@Nullable SemiJoinFilter semiJoinFilter) {
+        this.semiJoinFilter = semiJoinFilter;
+    }
 }
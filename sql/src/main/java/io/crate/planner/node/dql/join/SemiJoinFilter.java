@@ -0,0 +1,110 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.node.dql.join;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.InOperator;
+import io.crate.planner.node.dql.CollectAndMerge;
+import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.SetType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Restricts the collect phase of one side of an equi join to the join keys of the other, smaller side.
+ *
+ * The keys are collected by the {@link #keysPlan()}, which runs as a separate job before the join.
+ * If the smaller side has no more than {@link #maxKeys()} rows, the where clause of the
+ * probe phase is extended by <code>probeKey IN (keys)</code>. The condition is compiled into a terms
+ * query on the data nodes, so the probe side only ships rows which can find a join partner.
+ */
+public class SemiJoinFilter {
+
+    /**
+     * the maximum number of keys which are pushed down into the probe side
+     */
+    public static final int MAX_KEYS = 10_000;
+
+    private final CollectAndMerge keysPlan;
+    private final RoutedCollectPhase probePhase;
+    private final Symbol probeKey;
+    private final int maxKeys;
+
+    public SemiJoinFilter(CollectAndMerge keysPlan, RoutedCollectPhase probePhase, Symbol probeKey, int maxKeys) {
+        this.keysPlan = keysPlan;
+        this.probePhase = probePhase;
+        this.probeKey = probeKey;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * plan returning the join keys of the smaller side, at most maxKeys + 1 rows.
+     * The keys aren't distinct, so receiving more than maxKeys rows means that the keys may be incomplete.
+     */
+    public CollectAndMerge keysPlan() {
+        return keysPlan;
+    }
+
+    public RoutedCollectPhase probePhase() {
+        return probePhase;
+    }
+
+    public Symbol probeKey() {
+        return probeKey;
+    }
+
+    public int maxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * extends the where clause of the probe phase so that it only matches rows whose key is one of the given keys
+     */
+    public void pushDown(Collection<?> keys) {
+        WhereClause where = probePhase.whereClause();
+        if (where.noMatch()) {
+            return;
+        }
+        if (keys.isEmpty()) {
+            probePhase.whereClause(WhereClause.NO_MATCH);
+            return;
+        }
+        DataType type = probeKey.valueType();
+        SetType setType = new SetType(type);
+        Function in = new Function(
+            new FunctionInfo(new FunctionIdent(InOperator.NAME, ImmutableList.<DataType>of(type, setType)), DataTypes.BOOLEAN),
+            Arrays.asList(probeKey, Literal.newLiteral(setType, new HashSet<>(keys))));
+        Symbol query = where.hasQuery() ? AndOperator.join(Arrays.asList(where.query(), in)) : in;
+        probePhase.whereClause(new WhereClause(query, where.docKeys().orNull(), where.partitions()));
+    }
+}
@@ -30,9 +30,15 @@ import java.util.UUID;
 public class ExplainPlan implements Plan {
 
     private final Plan subPlan;
+    private final boolean analyze;
 
     public ExplainPlan(Plan subPlan) {
+        this(subPlan, false);
+    }
+
+    public ExplainPlan(Plan subPlan, boolean analyze) {
         this.subPlan = subPlan;
+        this.analyze = analyze;
     }
 
     @Override
@@ -48,4 +54,8 @@ public class ExplainPlan implements Plan {
     public Plan subPlan() {
         return subPlan;
     }
+
+    public boolean analyze() {
+        return analyze;
+    }
 }
@@ -38,6 +38,7 @@ public class GroupProjection extends Projection {
     List<Symbol> outputs;
 
     private RowGranularity requiredGranularity = RowGranularity.CLUSTER;
+    private boolean inputSortedByKeys = false;
 
     public static final ProjectionFactory<GroupProjection> FACTORY = new ProjectionFactory<GroupProjection>() {
         @Override
@@ -70,6 +71,18 @@ public class GroupProjection extends Projection {
         this.values = values;
     }
 
+    /**
+     * true if all rows of a group arrive one after another,
+     * each group is then emitted as soon as its keys change instead of hashing all groups
+     */
+    public boolean inputSortedByKeys() {
+        return inputSortedByKeys;
+    }
+
+    public void inputSortedByKeys(boolean inputSortedByKeys) {
+        this.inputSortedByKeys = inputSortedByKeys;
+    }
+
     @Override
     public ProjectionType projectionType() {
         return ProjectionType.GROUP;
@@ -103,6 +116,7 @@ public class GroupProjection extends Projection {
             values.add((Aggregation) Symbol.fromStream(in));
         }
         requiredGranularity = RowGranularity.fromStream(in);
+        inputSortedByKeys = in.readBoolean();
     }
 
     @Override
@@ -110,6 +124,7 @@ public class GroupProjection extends Projection {
         Symbol.toStream(keys, out);
         Symbol.toStream(values, out);
         RowGranularity.toStream(requiredGranularity, out);
+        out.writeBoolean(inputSortedByKeys);
     }
 
     @Override
@@ -121,6 +136,7 @@ public class GroupProjection extends Projection {
 
         if (!keys.equals(that.keys)) return false;
         if (values != null ? !values.equals(that.values) : that.values != null) return false;
+        if (inputSortedByKeys != that.inputSortedByKeys) return false;
 
         return true;
     }
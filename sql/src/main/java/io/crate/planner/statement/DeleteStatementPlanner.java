@@ -36,6 +36,8 @@ import io.crate.metadata.Routing;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.TableInfo;
+import io.crate.metadata.view.MaterializedView;
+import io.crate.metadata.view.MaterializedViews;
 import io.crate.planner.NoopPlan;
 import io.crate.planner.Plan;
 import io.crate.planner.Planner;
@@ -51,6 +53,7 @@ import io.crate.planner.projection.MergeCountProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.routing.Preference;
+import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
 import java.util.ArrayList;
@@ -60,6 +63,13 @@ import java.util.List;
 @Singleton
 public class DeleteStatementPlanner {
 
+    private final MaterializedViews materializedViews;
+
+    @Inject
+    public DeleteStatementPlanner(MaterializedViews materializedViews) {
+        this.materializedViews = materializedViews;
+    }
+
     public Plan planDelete(DeleteAnalyzedStatement analyzedStatement, Planner.Context context) {
         DocTableRelation tableRelation = analyzedStatement.analyzedRelation();
         List<WhereClause> whereClauses = new ArrayList<>(analyzedStatement.whereClauses().size());
@@ -74,6 +84,16 @@ public class DeleteStatementPlanner {
                 whereClauses.add(whereClause);
             }
         }
+        if (!docKeys.isEmpty() || !whereClauses.isEmpty()) {
+            // deleted rows can't be subtracted from the deltas of the views
+            for (MaterializedView view : materializedViews.forSource(tableRelation.tableInfo().ident())) {
+                materializedViews.markStale(view, "rows of source table " + view.source().fqn() + " were deleted");
+            }
+            for (MaterializedView view : materializedViews.pendingForSource(tableRelation.tableInfo().ident())) {
+                materializedViews.markStale(view, "rows of source table " + view.source().fqn() +
+                                                  " were deleted while the view was created");
+            }
+        }
         if (!docKeys.isEmpty()) {
             return new ESDelete(context.jobId(), context.nextExecutionPhaseId(), tableRelation.tableInfo(), docKeys);
         } else if (!whereClauses.isEmpty()) {
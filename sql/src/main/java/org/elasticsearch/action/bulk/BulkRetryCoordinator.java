@@ -26,44 +26,68 @@ import io.crate.exceptions.Exceptions;
 import io.crate.executor.transport.ShardRequest;
 import io.crate.executor.transport.ShardResponse;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
-import java.util.Locale;
-import java.util.Queue;
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
- * coordinates bulk operation retries for one node
+ * coordinates bulk operation retries for one shard
+ *
+ * The number of retries which are executed concurrently is adapted using
+ * additive increase / multiplicative decrease:
+ * every successful retry raises the limit by one (up to {@link #MAX_CONCURRENT_RETRIES}),
+ * every rejection halves it.
  */
 public class BulkRetryCoordinator {
 
     private static final ESLogger LOGGER = Loggers.getLogger(BulkRetryCoordinator.class);
 
+    static final int MAX_CONCURRENT_RETRIES = 8;
+
     private final ReadWriteLock retryLock;
     private static final BackoffPolicy backoff = LimitedExponentialBackoff.limitedExponential(1000);
 
     private final ThreadPool threadPool;
+    @Nullable
+    private final ShardId shardId;
+    @Nullable
+    private final String nodeId;
 
     private final Object pendingLock = new Object();
     private final Queue<PendingOperation<ShardRequest, ShardResponse>> pendingOperations = new ArrayDeque<>();
     private volatile int activeOperations = 0;
+    private volatile int concurrencyLimit = 1;
+
+    private final AtomicLong retries = new AtomicLong(0);
+    private final AtomicLong rejections = new AtomicLong(0);
+    private final AtomicLong backoffMillis = new AtomicLong(0);
 
     public BulkRetryCoordinator(ThreadPool threadPool) {
+        this(threadPool, null, null);
+    }
+
+    public BulkRetryCoordinator(ThreadPool threadPool, @Nullable ShardId shardId, @Nullable String nodeId) {
         this.threadPool = threadPool;
+        this.shardId = shardId;
+        this.nodeId = nodeId;
         this.retryLock = new ReadWriteLock();
     }
 
     private void trace(String message, Object ... args) {
         if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace("BulkRetryCoordinator{activeOperations='" + activeOperations + "', " +
+            LOGGER.trace("BulkRetryCoordinator{shardId='" + shardId + "', " +
+                         "activeOperations='" + activeOperations + "', " +
+                         "concurrencyLimit='" + concurrencyLimit + "', " +
                          "pendingOperations='" + pendingOperations.size() + "'} {}",
                 String.format(Locale.ENGLISH, message, args));
         }
@@ -77,58 +101,111 @@ public class BulkRetryCoordinator {
         retryLock.acquireReadLock();
     }
 
-    public void releaseWriteLock() {
-        /**
-         * In order to keep the {@link retryLock} field private we expose only this proxy method.
-         * This method is only used by the BulkShardProcessor.
-         */
-        retryLock.releaseWriteLock();
+    public int numPendingOperations() {
+        synchronized (pendingLock) {
+            return pendingOperations.size();
+        }
     }
 
-    public int numPendingOperations() {
-        return pendingOperations.size();
+    public int numActiveOperations() {
+        return activeOperations;
     }
 
-    public void retry(ShardRequest request, BulkRequestExecutor executor, ActionListener<ShardResponse> responseListener) {
-        retryOperation(new PendingOperation(request, responseListener, executor));
+    public int concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * total number of requests which have been handed over to this coordinator for retrying
+     */
+    public long retries() {
+        return retries.get();
+    }
+
+    /**
+     * number of times a retried request has been rejected again
+     */
+    public long rejections() {
+        return rejections.get();
+    }
+
+    /**
+     * sum of all delays (in ms) retried requests have been scheduled with
+     */
+    public long backoffMillis() {
+        return backoffMillis.get();
+    }
+
+    @Nullable
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    /**
+     * id of the node holding the primary shard this coordinator sends its retries to
+     */
+    @Nullable
+    public String nodeId() {
+        return nodeId;
     }
 
-    private void retryOperation(final PendingOperation<ShardRequest, ShardResponse> operation) {
-        trace("retryOperation - activeOperations=%d", activeOperations);
+    public void retry(ShardRequest request, BulkRequestExecutor executor, ActionListener<ShardResponse> responseListener) {
+        retries.incrementAndGet();
+        PendingOperation<ShardRequest, ShardResponse> operation = new PendingOperation<>(request, responseListener, executor);
         synchronized (pendingLock) {
-            if (activeOperations > 0) {
+            if (activeOperations >= concurrencyLimit) {
                 pendingOperations.add(operation);
+                trace("retry - operation queued");
                 return;
             }
             activeOperations++;
         }
+        execute(operation);
+    }
 
-        try {
-            retryLock.acquireWriteLock();
-        } catch (InterruptedException e) {
-            operation.responseListener.onFailure(e);
-            return;
-        }
+    private void execute(final PendingOperation<ShardRequest, ShardResponse> operation) {
+        trace("execute - activeOperations=%d", activeOperations);
+        retryLock.acquireWriteLock();
 
         final ActionListener<ShardResponse> triggeringListener = new PendingTriggeringActionListener(operation);
         operation.executor.execute(operation.request, triggeringListener);
     }
 
-    private void triggerNext() {
-        releaseWriteLock();
-        PendingOperation<ShardRequest, ShardResponse> pendingOperation = null;
+    private void onRejection() {
+        rejections.incrementAndGet();
+        synchronized (pendingLock) {
+            concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+        }
+    }
+
+    private void triggerNext(boolean succeeded) {
+        retryLock.releaseWriteLock();
+        List<PendingOperation<ShardRequest, ShardResponse>> nextOperations = null;
         synchronized (pendingLock) {
             activeOperations--;
-            if (activeOperations == 0) {
-                pendingOperation = pendingOperations.poll();
+            if (succeeded && concurrencyLimit < MAX_CONCURRENT_RETRIES) {
+                concurrencyLimit++;
+            }
+            while (activeOperations < concurrencyLimit) {
+                PendingOperation<ShardRequest, ShardResponse> pendingOperation = pendingOperations.poll();
+                if (pendingOperation == null) {
+                    break;
+                }
+                if (nextOperations == null) {
+                    nextOperations = new ArrayList<>();
+                }
+                nextOperations.add(pendingOperation);
+                activeOperations++;
             }
         }
-        trace("triggerNext - pendingOperation=%s pendingOperations=%d", pendingOperation, pendingOperations.size());
+        trace("triggerNext - nextOperations=%s", nextOperations);
 
-        if (pendingOperation == null) {
+        if (nextOperations == null) {
             return;
         }
-        retryOperation(pendingOperation);
+        for (PendingOperation<ShardRequest, ShardResponse> nextOperation : nextOperations) {
+            execute(nextOperation);
+        }
     }
 
     static class PendingOperation<Request, Response> {
@@ -155,7 +232,7 @@ public class BulkRetryCoordinator {
 
         @Override
         public void onResponse(ShardResponse response) {
-            triggerNext();
+            triggerNext(true);
             operation.responseListener.onResponse(response);
         }
 
@@ -163,14 +240,17 @@ public class BulkRetryCoordinator {
         public void onFailure(Throwable e) {
             e = Exceptions.unwrap(e);
             if (e instanceof EsRejectedExecutionException && operation.delay.hasNext()) {
-                threadPool.schedule(operation.delay.next(), ThreadPool.Names.SAME, new Runnable() {
+                onRejection();
+                TimeValue delay = operation.delay.next();
+                backoffMillis.addAndGet(delay.millis());
+                threadPool.schedule(delay, ThreadPool.Names.SAME, new Runnable() {
                     @Override
                     public void run() {
                         operation.executor.execute(operation.request, PendingTriggeringActionListener.this);
                     }
                 });
             } else {
-                triggerNext();
+                triggerNext(false);
                 operation.responseListener.onFailure(e);
             }
         }
@@ -178,26 +258,24 @@ public class BulkRetryCoordinator {
 
     /**
      * A {@link Semaphore} based read/write lock allowing multiple readers,
-     * no reader will block others, and only 1 active writer. Writers take
-     * precedence over readers, a writer will block all readers.
-     * Compared to a {@link ReadWriteLock}, no lock is owned by a thread.
+     * no reader will block others, and multiple concurrent writers.
+     * Writers take precedence over readers, an active writer will block all readers.
+     * Compared to a {@link java.util.concurrent.locks.ReadWriteLock}, no lock is owned by a thread.
      */
     static private class ReadWriteLock {
         private final Semaphore readLock = new Semaphore(1, true);
-        private final Semaphore writeLock = new Semaphore(1, true);
         private final AtomicInteger activeWriters = new AtomicInteger(0);
         private final AtomicInteger waitingReaders = new AtomicInteger(0);
 
         public ReadWriteLock() {
         }
 
-        public void acquireWriteLock() throws InterruptedException {
+        public void acquireWriteLock() {
             // check readLock permits to prevent deadlocks
             if (activeWriters.getAndIncrement() == 0 && readLock.availablePermits() == 1) {
                 // draining read permits, so all reads will block
                 readLock.drainPermits();
             }
-            writeLock.acquire();
         }
 
         public void releaseWriteLock() {
@@ -205,7 +283,6 @@ public class BulkRetryCoordinator {
                 // unlock all readers
                 readLock.release(waitingReaders.getAndSet(0)+1);
             }
-            writeLock.release();
         }
 
         public void acquireReadLock() throws InterruptedException {
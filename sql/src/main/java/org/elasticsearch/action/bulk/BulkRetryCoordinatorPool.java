@@ -21,6 +21,7 @@
 
 package org.elasticsearch.action.bulk;
 
+import com.google.common.base.Supplier;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterService;
@@ -28,6 +29,8 @@ import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
@@ -39,15 +42,21 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.threadpool.ThreadPool;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * Holds one {@link BulkRetryCoordinator} per shard so that a rejected shard request
+ * only delays further requests to the same shard.
+ *
+ * A coordinator is dropped once the primary of its shard moved to another node
+ * or the node holding it left the cluster.
+ */
 @Singleton
-public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRetryCoordinatorPool> implements ClusterStateListener {
+public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRetryCoordinatorPool>
+    implements ClusterStateListener, Supplier<Iterable<?>> {
 
     private static final ESLogger LOGGER = Loggers.getLogger(BulkRetryCoordinatorPool.class);
 
-    private final Map<String, BulkRetryCoordinator> coordinatorsByNodeId;
     private final Map<ShardId, BulkRetryCoordinator> coordinatorsByShardId;
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
@@ -59,7 +68,6 @@ public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRet
         super(settings);
         this.threadPool = threadPool;
         this.coordinatorsByShardId = new HashMap<>();
-        this.coordinatorsByNodeId = new HashMap<>();
         this.clusterService = clusterService;
     }
 
@@ -67,36 +75,37 @@ public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRet
         synchronized (coordinatorsByShardId) {
             BulkRetryCoordinator coordinator = coordinatorsByShardId.get(shardId);
             if (coordinator == null) {
-                IndexRoutingTable indexRoutingTable = clusterService.state().routingTable()
-                        .index(shardId.getIndex());
-                if (indexRoutingTable == null) {
-                    throw new IndexNotFoundException("cannot find index " + shardId.index());
-                }
-                IndexShardRoutingTable shardRoutingTable = indexRoutingTable.shard(shardId.id());
-                if (shardRoutingTable == null) {
-                    throw new ShardNotFoundException(shardId);
-                }
-                String nodeId = shardRoutingTable.primaryShard().currentNodeId();
                 // for currently unassigned shards the nodeId will be null
-                // so we at some point we will always keep one coordinator around
-                // for all the orphaned unassigned shards that might end up here
                 // The requests for unassigned shards will be retried at the transport action level
-                // so no problem here :)
-                // wow, that is a long comment!
-                synchronized (coordinatorsByNodeId) {
-                    coordinator = coordinatorsByNodeId.get(nodeId);
-                    if (coordinator == null) {
-                        LOGGER.debug("create new coordinator for node {} and shard {}", nodeId, shardId);
-                        coordinator = new BulkRetryCoordinator(threadPool);
-                        coordinatorsByNodeId.put(nodeId, coordinator);
-                    }
-                }
+                String nodeId = primaryNodeId(clusterService.state().routingTable(), shardId);
+                LOGGER.debug("create new coordinator for node {} and shard {}", nodeId, shardId);
+                coordinator = new BulkRetryCoordinator(threadPool, shardId, nodeId);
                 coordinatorsByShardId.put(shardId, coordinator);
             }
             return coordinator;
         }
     }
 
+    @Nullable
+    private static String primaryNodeId(RoutingTable routingTable, ShardId shardId) {
+        IndexRoutingTable indexRoutingTable = routingTable.index(shardId.getIndex());
+        if (indexRoutingTable == null) {
+            throw new IndexNotFoundException("cannot find index " + shardId.index());
+        }
+        IndexShardRoutingTable shardRoutingTable = indexRoutingTable.shard(shardId.id());
+        if (shardRoutingTable == null) {
+            throw new ShardNotFoundException(shardId);
+        }
+        return shardRoutingTable.primaryShard().currentNodeId();
+    }
+
+    @Override
+    public Iterable<?> get() {
+        synchronized (coordinatorsByShardId) {
+            return new ArrayList<>(coordinatorsByShardId.values());
+        }
+    }
+
     @Override
     protected void doStart() throws ElasticsearchException {
         clusterService.addLast(this);
@@ -105,25 +114,42 @@ public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRet
     @Override
     protected void doStop() throws ElasticsearchException {
         clusterService.remove(this);
-        coordinatorsByShardId.clear();
+        synchronized (coordinatorsByShardId) {
+            coordinatorsByShardId.clear();
+        }
     }
 
     @Override
     protected void doClose() throws ElasticsearchException {
         doStop();
-        coordinatorsByNodeId.clear();
     }
 
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
-        if (event.routingTableChanged()) {
-            coordinatorsByShardId.clear();
+        if (!event.routingTableChanged() && !event.nodesRemoved()) {
+            return;
+        }
+        Set<String> removedNodeIds = new HashSet<>();
+        for (DiscoveryNode node : event.nodesDelta().removedNodes()) {
+            removedNodeIds.add(node.id());
         }
-        if (event.nodesRemoved()) {
-            // remove retrycoordinators of removed nodes
-            synchronized (coordinatorsByNodeId) {
-                for (DiscoveryNode node : event.nodesDelta().removedNodes()) {
-                    coordinatorsByNodeId.remove(node.id());
+        RoutingTable routingTable = event.state().routingTable();
+        synchronized (coordinatorsByShardId) {
+            Iterator<Map.Entry<ShardId, BulkRetryCoordinator>> it = coordinatorsByShardId.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<ShardId, BulkRetryCoordinator> entry = it.next();
+                String nodeId = entry.getValue().nodeId();
+                if (nodeId == null || removedNodeIds.contains(nodeId)) {
+                    it.remove();
+                    continue;
+                }
+                try {
+                    if (!nodeId.equals(primaryNodeId(routingTable, entry.getKey()))) {
+                        // primary relocated
+                        it.remove();
+                    }
+                } catch (IndexNotFoundException | ShardNotFoundException e) {
+                    it.remove();
                 }
             }
         }
@@ -45,13 +45,14 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -59,6 +60,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * Processor to do Bulk Inserts, similar to {@link org.elasticsearch.action.bulk.BulkProcessor}
  * but less flexible (only supports IndexRequests)
  *
+ * Items are buffered per shard. Once a shard request contains {@code bulkSize} items it is
+ * swapped out of the buffer and dispatched while new items are collected into a fresh request.
+ * The number of bytes which are sent to a node but not yet acknowledged is bound by
+ * {@link #MAX_OUTSTANDING_BYTES_PER_NODE}, requests exceeding it are queued and sent
+ * once responses arrive. Once the queue of a node holds as many bytes as may be outstanding,
+ * the {@link #add} method blocks for items of that node until responses arrive.
+ *
  * If the Bulk threadPool Queue is full retries are made and
  * the {@link #add} method will start to block.
  */
@@ -66,18 +74,29 @@ public class BulkShardProcessor<Request extends ShardRequest> {
 
     public static final int MAX_CREATE_INDICES_BULK_SIZE = 100;
 
+    public static final String MAX_OUTSTANDING_BYTES_PER_NODE = "bulk.max_outstanding_bytes_per_node";
+    private static final ByteSizeValue DEFAULT_MAX_OUTSTANDING_BYTES_PER_NODE = new ByteSizeValue(16, ByteSizeUnit.MB);
+
+    /**
+     * all buffered shard requests are flushed once the total number of buffered items
+     * reaches {@code bulkSize * MAX_BUFFERED_ITEMS_FACTOR}
+     */
+    private static final int MAX_BUFFERED_ITEMS_FACTOR = 10;
+
     private final boolean autoCreateIndices;
     private final Predicate<String> shouldAutocreateIndexPredicate;
 
     private final int bulkSize;
+    private final int maxBufferedItems;
+    private final long maxOutstandingBytesPerNode;
     private final UUID jobId;
     private final int createIndicesBulkSize;
 
     private final Map<ShardId, Request> requestsByShard = new HashMap<>();
+    private final Map<String, NodeDispatcher> dispatchersByNode = new HashMap<>();
     private final AtomicInteger globalCounter = new AtomicInteger(0);
     private final AtomicInteger requestItemCounter = new AtomicInteger(0);
     private final AtomicInteger pending = new AtomicInteger(0);
-    private final Semaphore executeLock = new Semaphore(1);
 
     private final SettableFuture<BitSet> result;
     private final AtomicReference<Throwable> failure = new AtomicReference<>();
@@ -114,6 +133,9 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         this.clusterService = clusterService;
         this.autoCreateIndices = autoCreateIndices;
         this.bulkSize = bulkSize;
+        this.maxBufferedItems = bulkSize * MAX_BUFFERED_ITEMS_FACTOR;
+        this.maxOutstandingBytesPerNode = settings.getAsBytesSize(
+            MAX_OUTSTANDING_BYTES_PER_NODE, DEFAULT_MAX_OUTSTANDING_BYTES_PER_NODE).bytes();
         this.jobId = jobId;
         this.createIndicesBulkSize = Math.min(bulkSize, MAX_CREATE_INDICES_BULK_SIZE);
 
@@ -160,6 +182,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
             try {
                 // will only block if retries/writer are active
                 bulkRetryCoordinatorPool.coordinator(shardId).acquireReadLock();
+                awaitNodeCapacity(shardId);
             } catch (InterruptedException e) {
                 Thread.interrupted();
             } catch (Throwable e) {
@@ -184,6 +207,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         // will only block if retries/writer are active
         try {
             bulkRetryCoordinatorPool.coordinator(shardId).acquireReadLock();
+            awaitNodeCapacity(shardId);
         } catch (InterruptedException e) {
             Thread.interrupted();
         } catch (Throwable e) {
@@ -195,6 +219,20 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         return true;
     }
 
+    /**
+     * blocks while the queue of the node holding the shard is full, so that a slow node
+     * doesn't make the producer buffer its whole input
+     */
+    private void awaitNodeCapacity(ShardId shardId) throws InterruptedException {
+        String nodeId = bulkRetryCoordinatorPool.coordinator(shardId).nodeId();
+        synchronized (dispatchersByNode) {
+            NodeDispatcher dispatcher = dispatchersByNode.get(nodeId);
+            while (dispatcher != null && dispatcher.isFull() && failure.get() == null) {
+                dispatchersByNode.wait();
+            }
+        }
+    }
+
     @Nullable
     private ShardId shardId(String indexName, String id, @Nullable String routing) {
         ShardId shardId = null;
@@ -227,8 +265,8 @@ public class BulkShardProcessor<Request extends ShardRequest> {
     }
 
     private void partitionRequestByShard(ShardId shardId, Request.Item item, @Nullable String routing) {
-        try {
-            executeLock.acquire();
+        Request fullRequest = null;
+        synchronized (requestsByShard) {
             Request request = requestsByShard.get(shardId);
             if (request == null) {
                 request = requestBuilder.newRequest(shardId, routing);
@@ -236,43 +274,102 @@ public class BulkShardProcessor<Request extends ShardRequest> {
             }
             requestItemCounter.getAndIncrement();
             request.add(globalCounter.getAndIncrement(), item);
-        } catch (InterruptedException e) {
-            Thread.interrupted();
-        } finally {
-            executeLock.release();
+            if (request.itemIndices().size() >= bulkSize) {
+                // swap the full request out, new items for this shard go into a new request
+                requestsByShard.remove(shardId);
+                requestItemCounter.addAndGet(-request.itemIndices().size());
+                fullRequest = request;
+            }
+        }
+        if (fullRequest != null) {
+            dispatch(shardId, fullRequest);
         }
     }
 
+    /**
+     * dispatch all buffered requests
+     */
     private void executeRequests() {
+        List<Map.Entry<ShardId, Request>> requests;
+        synchronized (requestsByShard) {
+            requests = new ArrayList<>(requestsByShard.entrySet());
+            requestsByShard.clear();
+            requestItemCounter.set(0);
+        }
+        for (Map.Entry<ShardId, Request> entry : requests) {
+            if (failure.get() != null) {
+                return;
+            }
+            dispatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void dispatch(ShardId shardId, Request request) {
+        final String nodeId;
+        try {
+            nodeId = bulkRetryCoordinatorPool.coordinator(shardId).nodeId();
+        } catch (Throwable e) {
+            setFailure(e);
+            return;
+        }
+        long sizeInBytes = 0;
+        for (Object item : request.items()) {
+            sizeInBytes += ((ShardRequest.Item) item).estimatedSizeInBytes();
+        }
+        ShardBatch batch = new ShardBatch(shardId, request, nodeId, sizeInBytes);
+        NodeDispatcher dispatcher;
+        synchronized (dispatchersByNode) {
+            dispatcher = dispatchersByNode.get(nodeId);
+            if (dispatcher == null) {
+                dispatcher = new NodeDispatcher();
+                dispatchersByNode.put(nodeId, dispatcher);
+            }
+            if (!dispatcher.tryAcquire(batch)) {
+                trace("outstanding bytes for node %s exceeded, queue request", nodeId);
+                return;
+            }
+        }
+        execute(batch);
+    }
+
+    private void execute(final ShardBatch batch) {
         try {
-            executeLock.acquire();
-            for (Iterator<Map.Entry<ShardId, Request>> it = requestsByShard.entrySet().iterator(); it.hasNext(); ) {
-                if (failure.get() != null) {
-                    return;
+            requestExecutor.execute(batch.request, new ActionListener<ShardResponse>() {
+                @Override
+                public void onResponse(ShardResponse response) {
+                    batchDone(batch);
+                    processResponse(response);
                 }
-                Map.Entry<ShardId, Request> entry = it.next();
-                final Request request = entry.getValue();
-                final ShardId shardId = entry.getKey();
-                requestExecutor.execute(request, new ActionListener<ShardResponse>() {
-                    @Override
-                    public void onResponse(ShardResponse response) {
-                        processResponse(response);
-                    }
 
-                    @Override
-                    public void onFailure(Throwable e) {
-                        processFailure(e, shardId, request, com.google.common.base.Optional.<BulkRetryCoordinator>absent());
-                    }
-                });
-                it.remove();
-            }
-        } catch (InterruptedException e) {
-            Thread.interrupted();
+                @Override
+                public void onFailure(Throwable e) {
+                    processFailure(e, batch);
+                }
+            });
         } catch (Throwable e) {
+            batchDone(batch);
             setFailure(e);
-        } finally {
-            requestItemCounter.set(0);
-            executeLock.release();
+        }
+    }
+
+    /**
+     * releases the outstanding bytes of a finished batch and sends queued batches of the same node
+     */
+    private void batchDone(ShardBatch batch) {
+        List<ShardBatch> nextBatches;
+        synchronized (dispatchersByNode) {
+            NodeDispatcher dispatcher = dispatchersByNode.get(batch.nodeId);
+            if (dispatcher == null) {
+                return;
+            }
+            nextBatches = dispatcher.release(batch);
+            dispatchersByNode.notifyAll();
+        }
+        for (ShardBatch nextBatch : nextBatches) {
+            if (failure.get() != null) {
+                return;
+            }
+            execute(nextBatch);
         }
     }
 
@@ -369,11 +466,19 @@ public class BulkShardProcessor<Request extends ShardRequest> {
     public void kill(@Nullable Throwable throwable) {
         failure.compareAndSet(null, throwable);
         result.setException(new InterruptedException(JobKilledException.MESSAGE));
+        wakeUpProducer();
     }
 
     private void setFailure(Throwable e) {
         failure.compareAndSet(null, e);
         result.setException(e);
+        wakeUpProducer();
+    }
+
+    private void wakeUpProducer() {
+        synchronized (dispatchersByNode) {
+            dispatchersByNode.notifyAll();
+        }
     }
 
     private void setResult() {
@@ -401,7 +506,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
     }
 
     private void executeRequestsIfNeeded() {
-        if ((closed || requestItemCounter.get() >= bulkSize) && failure.get() == null) {
+        if ((closed || requestItemCounter.get() >= maxBufferedItems) && failure.get() == null) {
             executeRequests();
         }
     }
@@ -427,12 +532,14 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         trace("response executed.");
     }
 
-    private void processFailure(Throwable e, final ShardId shardId, final Request request, com.google.common.base.Optional<BulkRetryCoordinator> retryCoordinator) {
+    private void processFailure(Throwable e, final ShardBatch batch) {
         trace("execute failure");
         e = Exceptions.unwrap(e);
+        final Request request = batch.request;
 
         // index missing exception on a partition should never bubble, mark all items as failed instead
         if (e instanceof IndexNotFoundException && PartitionName.isPartition(request.index())) {
+            batchDone(batch);
             indicesDeleted.add(request.index());
             int size = request.itemIndices().size();
             for (int i = 0; i < request.itemIndices().size(); i++) {
@@ -442,43 +549,33 @@ public class BulkShardProcessor<Request extends ShardRequest> {
                 }
             }
             setResultIfDone(size);
-
-            if (retryCoordinator.isPresent()) {
-                // release failed retry
-                retryCoordinator.get().releaseWriteLock();
-            }
             return;
         }
 
-        final BulkRetryCoordinator coordinator;
-        if (retryCoordinator.isPresent()) {
-            coordinator = retryCoordinator.get();
-        } else {
+        if (e instanceof EsRejectedExecutionException) {
+            final BulkRetryCoordinator coordinator;
             try {
-                coordinator = bulkRetryCoordinatorPool.coordinator(shardId);
+                coordinator = bulkRetryCoordinatorPool.coordinator(batch.shardId);
             } catch (Throwable coordinatorException) {
+                batchDone(batch);
                 setFailure(coordinatorException);
                 return;
             }
-        }
-        if (e instanceof EsRejectedExecutionException) {
             trace("rejected execution: [%s] - retrying", e.getMessage());
             coordinator.retry(request, requestExecutor, new ActionListener<ShardResponse>() {
                 @Override
                 public void onResponse(ShardResponse response) {
+                    batchDone(batch);
                     processResponse(response);
                 }
 
                 @Override
                 public void onFailure(Throwable e) {
-                    processFailure(e, shardId, request, com.google.common.base.Optional.of(coordinator));
+                    processFailure(e, batch);
                 }
             });
         } else {
-            if (retryCoordinator.isPresent()) {
-                // release failed retry
-                coordinator.releaseWriteLock();
-            }
+            batchDone(batch);
             for (IntCursor intCursor : request.itemIndices()) {
                 synchronized (responsesLock) {
                     responses.set(intCursor.value, false);
@@ -510,6 +607,70 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         }
     }
 
+    private class ShardBatch {
+        private final ShardId shardId;
+        private final Request request;
+        @Nullable
+        private final String nodeId;
+        private final long sizeInBytes;
+
+        ShardBatch(ShardId shardId, Request request, @Nullable String nodeId, long sizeInBytes) {
+            this.shardId = shardId;
+            this.request = request;
+            this.nodeId = nodeId;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
+    /**
+     * Keeps track of the bytes sent to one node which haven't been acknowledged yet.
+     * Not thread-safe, access is synchronized on {@link #dispatchersByNode}.
+     */
+    private class NodeDispatcher {
+        private final Queue<ShardBatch> queuedBatches = new ArrayDeque<>();
+        private long outstandingBytes = 0;
+        private long queuedBytes = 0;
+
+        /**
+         * @return true if no more items for this node should be accepted until responses arrive
+         */
+        boolean isFull() {
+            return queuedBytes >= maxOutstandingBytesPerNode;
+        }
+
+        /**
+         * @return true if the batch may be sent, otherwise it is queued
+         */
+        boolean tryAcquire(ShardBatch batch) {
+            // always allow one batch in flight so that oversized batches are sent at all
+            if (outstandingBytes > 0 && outstandingBytes + batch.sizeInBytes > maxOutstandingBytesPerNode) {
+                queuedBatches.add(batch);
+                queuedBytes += batch.sizeInBytes;
+                return false;
+            }
+            outstandingBytes += batch.sizeInBytes;
+            return true;
+        }
+
+        /**
+         * @return queued batches which may be sent now
+         */
+        List<ShardBatch> release(ShardBatch batch) {
+            outstandingBytes -= batch.sizeInBytes;
+            List<ShardBatch> nextBatches = new ArrayList<>();
+            ShardBatch next = queuedBatches.peek();
+            while (next != null
+                   && (outstandingBytes == 0 || outstandingBytes + next.sizeInBytes <= maxOutstandingBytesPerNode)) {
+                queuedBatches.poll();
+                queuedBytes -= next.sizeInBytes;
+                outstandingBytes += next.sizeInBytes;
+                nextBatches.add(next);
+                next = queuedBatches.peek();
+            }
+            return nextBatches;
+        }
+    }
+
     public interface BulkRequestBuilder<Request extends ShardRequest> {
         Request newRequest(ShardId shardId, String routing);
     }
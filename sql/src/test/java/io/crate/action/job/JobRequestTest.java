@@ -48,5 +48,20 @@ public class JobRequestTest {
         assertThat(r1.coordinatorNodeId(), is(r2.coordinatorNodeId()));
         assertThat(r1.jobId(), is(r2.jobId()));
         assertThat(r1.nodeOperations().isEmpty(), is(true));
+        assertThat(r2.profile(), is(false));
+    }
+
+    @Test
+    public void testProfiledJobRequestStreaming() throws Exception {
+        JobRequest r1 = new JobRequest(UUID.randomUUID(), "n1", Collections.<NodeOperation>emptyList(), true);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        r1.writeTo(out);
+
+        JobRequest r2 = new JobRequest();
+        r2.readFrom(StreamInput.wrap(out.bytes()));
+
+        assertThat(r2.jobId(), is(r1.jobId()));
+        assertThat(r2.profile(), is(true));
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.analyze.Analysis;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.sql.parser.SqlParser;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class QueryResultCacheTest extends CrateUnitTest {
+
+    private static QueryResultCache newCache(Settings settings) {
+        CrateCircuitBreakerService breakerService = mock(CrateCircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY))
+            .thenReturn(new NoopCircuitBreaker(CrateCircuitBreakerService.QUERY));
+        return new QueryResultCache(settings, mock(ClusterService.class), null, breakerService);
+    }
+
+    private static QueryResultCache.Key key(String stmt, Object... args) {
+        return new QueryResultCache.Key(stmt, args, null, 0, 1L, new String[] { "t" });
+    }
+
+    @Test
+    public void testCacheIsDisabledByDefault() throws Exception {
+        QueryResultCache cache = newCache(Settings.EMPTY);
+        assertThat(cache.enabled(), is(false));
+        assertThat(cache.key(SqlParser.createStatement("select 1"), mock(Analysis.class), new SQLRequest("select 1")), nullValue());
+    }
+
+    @Test
+    public void testStatementsUsingCurrentTimeAreDetected() throws Exception {
+        assertThat(QueryResultCache.usesCurrentTime(SqlParser.createStatement(
+            "select x from t where x > 1")), is(false));
+        assertThat(QueryResultCache.usesCurrentTime(SqlParser.createStatement(
+            "select x, current_timestamp from t")), is(true));
+        assertThat(QueryResultCache.usesCurrentTime(SqlParser.createStatement(
+            "select x from t where ts < current_timestamp(3) - 1000")), is(true));
+        assertThat(QueryResultCache.usesCurrentTime(SqlParser.createStatement(
+            "select max(x) from t group by y having max(ts) > date_trunc('day', current_timestamp)")), is(true));
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        QueryResultCache cache = newCache(Settings.builder()
+            .put(QueryResultCache.ENABLED_SETTING, true).build());
+
+        assertThat(cache.get(key("select x from t where x = ?", 1), 1L), nullValue());
+        Object[][] rows = new Object[][] { new Object[] { 1, "foo" } };
+        cache.put(key("select x from t where x = ?", 1), 1L, rows);
+
+        assertThat(cache.get(key("select x from t where x = ?", 1), 1L), is(rows));
+        assertThat(cache.get(key("select x from t where x = ?", 2), 1L), nullValue());
+        assertThat(cache.entries(), is(1L));
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.misses(), is(2L));
+        assertThat(cache.sizeInBytes(), greaterThan(0L));
+    }
+
+    @Test
+    public void testEntryOfOtherReaderVersionIsNotReturned() throws Exception {
+        QueryResultCache cache = newCache(Settings.builder()
+            .put(QueryResultCache.ENABLED_SETTING, true).build());
+        cache.put(key("select x from t"), 1L, new Object[][] { new Object[] { "foo" } });
+
+        assertThat(cache.get(key("select x from t"), 2L), nullValue());
+        assertThat(cache.entries(), is(0L));
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(cache.misses(), is(1L));
+    }
+
+    @Test
+    public void testShardVersionChangesWithWritesRefreshesAndRelocations() throws Exception {
+        ShardId shardId = new ShardId("t", 0);
+        long version = QueryResultCache.shardVersion(shardId, "n1", 2L, 10L, 0L);
+        assertThat(QueryResultCache.shardVersion(shardId, "n1", 2L, 10L, 0L), is(version));
+        assertThat(QueryResultCache.shardVersion(shardId, "n1", 3L, 10L, 0L), not(version));
+        assertThat(QueryResultCache.shardVersion(shardId, "n1", 2L, 11L, 0L), not(version));
+        assertThat(QueryResultCache.shardVersion(shardId, "n1", 2L, 10L, 1L), not(version));
+        assertThat(QueryResultCache.shardVersion(shardId, "n2", 2L, 10L, 0L), not(version));
+        assertThat(QueryResultCache.shardVersion(new ShardId("t", 1), "n1", 2L, 10L, 0L), not(version));
+    }
+
+    @Test
+    public void testInvalidateAllReleasesMemory() throws Exception {
+        QueryResultCache cache = newCache(Settings.builder()
+            .put(QueryResultCache.ENABLED_SETTING, true).build());
+        cache.put(key("select x from t"), 1L, new Object[][] { new Object[] { "foo" } });
+        assertThat(cache.sizeInBytes(), greaterThan(0L));
+
+        cache.invalidateAll();
+        assertThat(cache.entries(), is(0L));
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(cache.get(key("select x from t"), 1L), nullValue());
+    }
+
+    @Test
+    public void testLargeResultsAreNotCached() throws Exception {
+        QueryResultCache cache = newCache(Settings.builder()
+            .put(QueryResultCache.ENABLED_SETTING, true)
+            .put(QueryResultCache.SIZE_SETTING, "1kb").build());
+        Object[][] rows = new Object[100][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] { "some value " + i };
+        }
+        cache.put(key("select x from t"), 1L, rows);
+        assertThat(cache.entries(), is(0L));
+        assertThat(cache.sizeInBytes(), is(0L));
+    }
+}
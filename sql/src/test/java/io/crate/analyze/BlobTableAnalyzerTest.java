@@ -195,6 +195,21 @@ public class BlobTableAnalyzerTest extends BaseAnalyzerTest {
         analyze("create blob table screenshots with (blobs_path=?)", new Object[]{ 1 });
     }
 
+    @Test
+    public void testCreateBlobTableWithPackThreshold() {
+        CreateBlobTableAnalyzedStatement analysis = (CreateBlobTableAnalyzedStatement)analyze(
+                "create blob table screenshots with (blobs_pack_threshold='16kb')");
+
+        assertThat(analysis.tableParameter().settings().get(BlobIndices.SETTING_INDEX_BLOBS_PACK_THRESHOLD), is("16384"));
+    }
+
+    @Test
+    public void testCreateBlobTableWithPackThresholdInvalidValue() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid value for argument 'blobs_pack_threshold'");
+        analyze("create blob table screenshots with (blobs_pack_threshold='foo')");
+    }
+
     @Test(expected = InvalidTableNameException.class)
     public void testCreateBlobTableIllegalTableName() throws Exception {
         analyze("create blob table \"blob.s\"");
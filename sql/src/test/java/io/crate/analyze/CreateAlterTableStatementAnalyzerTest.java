@@ -740,6 +740,20 @@ public class CreateAlterTableStatementAnalyzerTest extends BaseAnalyzerTest {
         assertThat(analysis.tableParameter().settings().get(TableParameterInfo.FLUSH_THRESHOLD_OPS), is("10"));
     }
 
+    @Test
+    public void testCreateTableWithColumnCachePartitions() throws Exception {
+        CreateTableAnalyzedStatement analysis = analyze(
+                "create table foo (id integer, ts timestamp) partitioned by (ts) with (\"column_cache.partitions\"=2)");
+        assertThat(analysis.tableParameter().settings().get(TableParameterInfo.COLUMN_CACHE_PARTITIONS), is("2"));
+    }
+
+    @Test
+    public void testCreateTableWithNegativeColumnCachePartitions() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid value for argument");
+        analyze("create table foo (id integer) with (\"column_cache.partitions\"=-1)");
+    }
+
     @Test
     public void testChangeFlushThresholdSize() throws Exception {
         AlterTableAnalyzedStatement analysis =
@@ -0,0 +1,150 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.metadata.FulltextAnalyzerResolver;
+import io.crate.metadata.MetaDataModule;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.information.MetaDataInformationModule;
+import io.crate.metadata.sys.MetaDataSysModule;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.metadata.view.MaterializedView;
+import io.crate.metadata.view.MaterializedViews;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.scalar.ScalarFunctionModule;
+import io.crate.testing.MockedClusterServiceModule;
+import org.elasticsearch.common.inject.Module;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CreateMaterializedViewAnalyzerTest extends BaseAnalyzerTest {
+
+    static class TestMetaDataModule extends MetaDataModule {
+        @Override
+        protected void configure() {
+            bind(FulltextAnalyzerResolver.class).toInstance(mock(FulltextAnalyzerResolver.class));
+            super.configure();
+        }
+
+        @Override
+        protected void bindSchemas() {
+            super.bindSchemas();
+            SchemaInfo schemaInfo = mock(SchemaInfo.class);
+            when(schemaInfo.getTableInfo(USER_TABLE_IDENT.name())).thenReturn(USER_TABLE_INFO);
+            schemaBinder.addBinding(Schemas.DEFAULT_SCHEMA_NAME).toInstance(schemaInfo);
+        }
+    }
+
+    @Override
+    protected List<Module> getModules() {
+        List<Module> modules = super.getModules();
+        modules.addAll(Arrays.<Module>asList(
+                new MockedClusterServiceModule(),
+                new MetaDataInformationModule(),
+                new TestMetaDataModule(),
+                new MetaDataSysModule(),
+                new OperatorModule(),
+                new ScalarFunctionModule(),
+                new AggregationImplModule())
+        );
+        return modules;
+    }
+
+    @Test
+    public void testCreateMaterializedView() throws Exception {
+        CreateMaterializedViewAnalyzedStatement analysis = analyze(
+                "create materialized view v as select name, count(*), sum(ints), max(other_id) from users group by name");
+
+        assertThat(analysis.source(), is(USER_TABLE_IDENT));
+        CreateTableAnalyzedStatement createTable = analysis.createTableStatement();
+        assertThat(createTable.tableIdent(), is(new TableIdent(Schemas.DEFAULT_SCHEMA_NAME, "v")));
+        assertThat(createTable.primaryKeys().isEmpty(), is(true));
+
+        Map<String, Object> properties = createTable.mappingProperties();
+        assertThat(properties.keySet(), containsInAnyOrder("name", "count", "sum_ints", "max_other_id"));
+
+        //noinspection unchecked
+        Map<String, Object> definition = (Map<String, Object>)
+                ((Map<String, Object>) createTable.mapping().get("_meta")).get(MaterializedView.META_KEY);
+        assertThat(definition, notNullValue());
+        //noinspection unchecked
+        Map<String, Object> source = (Map<String, Object>) definition.get("source");
+        assertThat((String) source.get("schema"), is(Schemas.DEFAULT_SCHEMA_NAME));
+        assertThat((String) source.get("name"), is("users"));
+        assertThat((String) definition.get("query"), containsString("GROUP BY \"name\""));
+        assertThat((Boolean) definition.get(MaterializedViews.PENDING_KEY), is(true));
+
+        assertThat(analysis.backfillStatement(), startsWith(
+                "INSERT INTO \"doc\".\"v\" (\"name\", \"count\", \"sum_ints\", \"max_other_id\") (SELECT "));
+    }
+
+    @Test
+    public void testAggregationWithoutMergeFunctionIsRejected() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("cannot be used in a materialized view");
+        analyze("create materialized view v as select name, avg(ints) from users group by name");
+    }
+
+    @Test
+    public void testViewWithoutGroupByIsRejected() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("A materialized view requires a GROUP BY clause");
+        analyze("create materialized view v as select count(*) from users");
+    }
+
+    @Test
+    public void testViewWithWhereClauseIsRejected() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("A materialized view does not support WHERE, HAVING, ORDER BY, LIMIT or OFFSET");
+        analyze("create materialized view v as select name, count(*) from users where id > 1 group by name");
+    }
+
+    @Test
+    public void testViewWithoutAllGroupByExpressionsIsRejected() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("A materialized view must select all of its GROUP BY expressions");
+        analyze("create materialized view v as select name, count(*) from users group by name, other_id");
+    }
+
+    @Test
+    public void testRefreshIsRejected() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("REFRESH is not supported");
+        analyze("create materialized view v refresh 10 as select name, count(*) from users group by name");
+    }
+
+    @Test
+    public void testDuplicateColumnNamesAreRejected() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Duplicate column name 'max_other_id' in materialized view");
+        analyze("create materialized view v as select name, max(other_id), max(\"other_id\") from users group by name");
+    }
+}
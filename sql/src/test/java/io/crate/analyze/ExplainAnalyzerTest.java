@@ -98,4 +98,18 @@ public class ExplainAnalyzerTest extends BaseAnalyzerTest {
         expectedException.expectMessage("EXPLAIN is not supported for OptimizeStatement");
         analyze("explain optimize table parted");
     }
+
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        ExplainAnalyzedStatement stmt = analyze("explain analyze select id from sys.cluster");
+        assertThat(stmt.statement(), instanceOf(SelectAnalyzedStatement.class));
+        assertTrue(stmt.isAnalyze());
+    }
+
+    @Test
+    public void testExplainAnalyzeCopyFromUnsupported() throws Exception {
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage("EXPLAIN ANALYZE is not supported for CopyFrom");
+        analyze("explain analyze copy users from '/tmp/*'");
+    }
 }
@@ -52,7 +52,7 @@ public class DecommissioningServiceTest {
 
     @Before
     public void setUp() throws Exception {
-        statsTables = new StatsTables(Settings.EMPTY, mock(NodeSettingsService.class));
+        statsTables = new StatsTables(Settings.EMPTY, mock(NodeSettingsService.class), new NoopClusterService());
         threadPool = mock(ThreadPool.class, Answers.RETURNS_MOCKS.get());
         decommissioningService = new TestableDecommissioningService(
             Settings.EMPTY,
@@ -0,0 +1,109 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+public class NodeLoadTrackerTest extends CrateUnitTest {
+
+    private static final List<String> CANDIDATES = Arrays.asList("n1", "n2", "n3");
+
+    private NodeLoadTracker tracker;
+
+    @Before
+    public void prepare() throws Exception {
+        tracker = new NodeLoadTracker(mock(ClusterService.class));
+    }
+
+    private void responded(String nodeId, long tookMillis) {
+        tracker.load(nodeId).finished(TimeUnit.MILLISECONDS.toNanos(tookMillis), false);
+    }
+
+    @Test
+    public void testDefaultNodeIsUsedWithoutMeasurements() throws Exception {
+        assertThat(tracker.hasMeasurements(), is(false));
+        assertThat(tracker.selectNode("n2", CANDIDATES), is("n2"));
+    }
+
+    @Test
+    public void testSlowDefaultNodeIsAvoided() throws Exception {
+        responded("n1", 200);
+        responded("n2", 10);
+        responded("n3", 20);
+
+        assertThat(tracker.selectNode("n1", CANDIDATES), is("n2"));
+        assertThat(tracker.load("n2").selected(), is(1L));
+        assertThat(tracker.load("n2").rerouted(), is(1L));
+    }
+
+    @Test
+    public void testSimilarNodesKeepTheDefaultChoice() throws Exception {
+        responded("n1", 11);
+        responded("n2", 10);
+
+        assertThat(tracker.selectNode("n1", CANDIDATES), is("n1"));
+        assertThat(tracker.load("n1").selected(), is(1L));
+        assertThat(tracker.load("n1").rerouted(), is(0L));
+    }
+
+    @Test
+    public void testUnmeasuredNodesAreNotPreferred() throws Exception {
+        responded("n1", 200);
+
+        assertThat(tracker.selectNode("n1", CANDIDATES), is("n1"));
+    }
+
+    @Test
+    public void testInFlightRequestsIncreaseTheScore() throws Exception {
+        responded("n1", 10);
+        responded("n2", 15);
+        ActionListener<Object> listener = mock(ActionListener.class);
+        tracker.track("n1", listener);
+        tracker.track("n1", listener);
+
+        assertThat(tracker.load("n1").inFlight(), is(2));
+        assertThat(tracker.selectNode("n1", CANDIDATES), is("n2"));
+    }
+
+    @Test
+    public void testTrackCountsResponsesAndFailures() throws Exception {
+        ActionListener<Object> listener = mock(ActionListener.class);
+        tracker.track("n1", listener).onResponse(new Object());
+        tracker.track("n1", listener).onFailure(new IllegalStateException("dummy"));
+
+        NodeLoadTracker.NodeLoad load = tracker.load("n1");
+        assertThat(load.inFlight(), is(0));
+        assertThat(load.requests(), is(2L));
+        assertThat(load.failures(), is(1L));
+    }
+}
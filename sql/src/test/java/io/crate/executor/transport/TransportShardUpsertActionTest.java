@@ -27,6 +27,7 @@ import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.TestingTableInfo;
+import io.crate.metadata.view.MaterializedViews;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.ArrayType;
 import io.crate.types.DataTypes;
@@ -82,11 +83,12 @@ public class TransportShardUpsertActionTest extends CrateUnitTest {
                                                  ShardStateAction shardStateAction,
                                                  Functions functions,
                                                  Schemas schemas,
+                                                 MaterializedViews materializedViews,
                                                  MappingUpdatedAction mappingUpdatedAction,
                                                  IndexNameExpressionResolver indexNameExpressionResolver) {
             super(settings, threadPool, clusterService, transportService, actionFilters,
                     jobContextService, indicesService, shardStateAction, functions, schemas,
-                    mappingUpdatedAction, indexNameExpressionResolver);
+                    materializedViews, mappingUpdatedAction, indexNameExpressionResolver);
         }
 
         @Override
@@ -127,6 +129,7 @@ public class TransportShardUpsertActionTest extends CrateUnitTest {
                 mock(ShardStateAction.class),
                 functions,
                 mock(Schemas.class),
+                mock(MaterializedViews.class),
                 mock(MappingUpdatedAction.class),
                 mock(IndexNameExpressionResolver.class)
                 );
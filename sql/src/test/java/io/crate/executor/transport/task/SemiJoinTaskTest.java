@@ -0,0 +1,92 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.action.sql.ResultReceiver;
+import io.crate.core.collections.Row1;
+import io.crate.executor.Task;
+import io.crate.executor.TaskResult;
+import io.crate.planner.node.dql.join.SemiJoinFilter;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.Mockito.*;
+
+public class SemiJoinTaskTest extends CrateUnitTest {
+
+    private static class KeysTask implements Task {
+
+        private final Object[] keys;
+
+        KeysTask(Object... keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public void execute(ResultReceiver resultReceiver) {
+            for (Object key : keys) {
+                resultReceiver.setNextRow(new Row1(key));
+            }
+            resultReceiver.finish();
+        }
+
+        @Override
+        public List<? extends ListenableFuture<TaskResult>> executeBulk() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testKeysArePushedDown() throws Exception {
+        SemiJoinFilter filter = mock(SemiJoinFilter.class);
+        when(filter.maxKeys()).thenReturn(3);
+        Task joinTask = mock(Task.class);
+        ResultReceiver resultReceiver = mock(ResultReceiver.class);
+
+        new SemiJoinTask(UUID.randomUUID(), filter, new KeysTask(1, 2, 2), joinTask).execute(resultReceiver);
+
+        verify(filter).pushDown((Collection<Object>) argThat(containsInAnyOrder((Object) 1, 2)));
+        verify(joinTask).execute(resultReceiver);
+    }
+
+    @Test
+    public void testKeysArentPushedDownIfTheKeysPlanReturnedMoreThanMaxKeysRows() throws Exception {
+        SemiJoinFilter filter = mock(SemiJoinFilter.class);
+        when(filter.maxKeys()).thenReturn(3);
+        Task joinTask = mock(Task.class);
+        ResultReceiver resultReceiver = mock(ResultReceiver.class);
+
+        // the keys plan is limited to maxKeys + 1 rows, the 4th row indicates that keys may be missing
+        // although there are only 2 distinct keys
+        new SemiJoinTask(UUID.randomUUID(), filter, new KeysTask(1, 1, 2, 2), joinTask).execute(resultReceiver);
+
+        verify(filter, never()).pushDown(any(Collection.class));
+        verify(joinTask).execute(resultReceiver);
+    }
+}
@@ -96,6 +96,30 @@ public class GroupByAggregateTest extends SQLTransportIntegrationTest {
         assertThat(response.rowCount(), is(2L));
     }
 
+    @Test
+    public void testCountOfStringColumnReadFromDocValues() throws Exception {
+        execute("create table t (name string, x int) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+
+        execute("insert into t (name, x) values ('Marvin', 1), ('Trillian', 1), (null, 1), ('Ford', 2), (null, 2)");
+        execute("refresh table t");
+
+        execute("select count(name) from t");
+        assertThat((Long) response.rows()[0][0], is(3L));
+
+        execute("select x, count(name) from t group by x order by x");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+            "1| 2\n" +
+            "2| 1\n"));
+
+        execute("select name, count(name) from t group by name order by name nulls last");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+            "Ford| 1\n" +
+            "Marvin| 1\n" +
+            "Trillian| 1\n" +
+            "NULL| 0\n"));
+    }
+
     @Test
     public void testGroupByOnClusteredByColumnPartOfPrimaryKey() throws Exception {
         execute("CREATE TABLE tickets ( " +
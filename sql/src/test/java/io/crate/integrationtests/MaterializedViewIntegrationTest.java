@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.planner.MaterializedViewRewriter;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+public class MaterializedViewIntegrationTest extends SQLTransportIntegrationTest {
+
+    /**
+     * answered from the view
+     */
+    private static final String VIEW_QUERY = "select k, count(*), sum(v), max(v) from t group by k order by k";
+
+    /**
+     * the same query, the filter on a column which isn't a key of the view prevents the rewrite
+     */
+    private static final String SOURCE_QUERY =
+        "select k, count(*), sum(v), max(v) from t where v is not null group by k order by k";
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal))
+            .put(MaterializedViewRewriter.ENABLED_SETTING, true)
+            .build();
+    }
+
+    @Before
+    public void createTableAndView() throws Exception {
+        execute("create table t (id int primary key, k string, v long) " +
+                "clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (id, k, v) values (1, 'a', 1), (2, 'b', 2), (3, 'a', 3)");
+        execute("refresh table t");
+        execute("create materialized view t_rollup as select k, count(*), sum(v), max(v) from t group by k");
+        ensureYellow();
+    }
+
+    private void insertRows(int from, int to) {
+        Object[][] bulkArgs = new Object[to - from][];
+        for (int i = from; i < to; i++) {
+            bulkArgs[i - from] = new Object[]{i, i % 3 == 0 ? "a" : (i % 3 == 1 ? "b" : "c"), (long) i};
+        }
+        execute("insert into t (id, k, v) values (?, ?, ?)", bulkArgs);
+        execute("refresh table t");
+    }
+
+    private void assertViewMatchesSourceTable() throws Exception {
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                execute("refresh table t_rollup");
+                String expected = printedTable(execute(SOURCE_QUERY).rows());
+                assertThat(printedTable(execute(VIEW_QUERY).rows()), is(expected));
+            }
+        });
+    }
+
+    @Test
+    public void testRewrittenQueryMatchesSourceTableAfterInserts() throws Exception {
+        assertViewMatchesSourceTable();
+
+        insertRows(10, 100);
+        insertRows(100, 150);
+        assertViewMatchesSourceTable();
+
+        // the inserts were appended as delta rows
+        execute("select count(*) from t_rollup");
+        assertThat((Long) response.rows()[0][0], greaterThan(3L));
+    }
+
+    @Test
+    public void testGlobalCountWithoutMatchingRows() throws Exception {
+        assertViewMatchesSourceTable();
+
+        execute("select count(*), sum(v) from t where k = 'missing'");
+        assertThat(printedTable(response.rows()), is("0| NULL\n"));
+
+        execute("select count(*) from t where k = 'a'");
+        assertThat((Long) response.rows()[0][0], is(2L));
+    }
+
+    @Test
+    public void testViewIsNotUsedAfterUpdate() throws Exception {
+        insertRows(10, 20);
+        assertViewMatchesSourceTable();
+
+        execute("update t set v = v + 100 where k = 'a'");
+        execute("refresh table t");
+        assertViewMatchesSourceTable();
+
+        // inserts into the source table don't bring the stale view back
+        insertRows(20, 30);
+        assertViewMatchesSourceTable();
+    }
+
+    @Test
+    public void testViewIsNotUsedAfterDelete() throws Exception {
+        insertRows(10, 20);
+        execute("delete from t where id = 10");
+        execute("refresh table t");
+        assertViewMatchesSourceTable();
+    }
+
+    @Test
+    public void testViewIsNotUsedAfterOnDuplicateKeyUpdate() throws Exception {
+        execute("insert into t (id, k, v) values (1, 'a', 10) on duplicate key update v = 10");
+        execute("refresh table t");
+        assertViewMatchesSourceTable();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.action.sql.QueryResultCache;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+
+@ESIntegTestCase.ClusterScope(numDataNodes = 1, numClientNodes = 0)
+public class QueryResultCacheIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal))
+            .put(QueryResultCache.ENABLED_SETTING, true)
+            .build();
+    }
+
+    @Before
+    public void initTestData() throws Exception {
+        execute("create table t (x int) clustered into 2 shards with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into t (x) values (1), (2)");
+        execute("refresh table t");
+    }
+
+    private long hits() {
+        execute("select sum(hits) from sys.result_cache");
+        return ((Number) response.rows()[0][0]).longValue();
+    }
+
+    @Test
+    public void testSameStatementIsServedFromCache() throws Exception {
+        execute("select x from t order by x");
+        execute("select x from t order by x");
+        assertThat(hits(), is(1L));
+    }
+
+    @Test
+    public void testStatementWithCurrentTimestampIsNotServedFromCache() throws Exception {
+        execute("select x, current_timestamp from t order by x");
+        long first = ((Number) response.rows()[0][1]).longValue();
+        Thread.sleep(5);
+        execute("select x, current_timestamp from t order by x");
+        long second = ((Number) response.rows()[0][1]).longValue();
+
+        assertThat(second > first, is(true));
+        assertThat(hits(), is(0L));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jobs;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RowGranularity;
+import io.crate.operation.NodeOperation;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.Projection;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdmissionControllerTest extends CrateUnitTest {
+
+    private ThreadPool threadPool;
+    private CrateCircuitBreakerService breakerService;
+
+    @Before
+    public void prepare() throws Exception {
+        threadPool = mock(ThreadPool.class);
+        breakerService = mock(CrateCircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY))
+            .thenReturn(new NoopCircuitBreaker(CrateCircuitBreakerService.QUERY));
+    }
+
+    private AdmissionController admissionController(Settings settings) {
+        return new AdmissionController(Settings.builder()
+            .put(AdmissionController.ENABLED_SETTING, true)
+            .put(settings).build(), threadPool, breakerService);
+    }
+
+    private static List<NodeOperation> collect(Integer nodePageSizeHint) {
+        RoutedCollectPhase collectPhase = new RoutedCollectPhase(
+            UUID.randomUUID(),
+            0,
+            "collect",
+            new Routing(ImmutableMap.<String, Map<String, List<Integer>>>of()),
+            RowGranularity.DOC,
+            ImmutableList.<Symbol>of(),
+            ImmutableList.<Projection>of(),
+            WhereClause.MATCH_ALL,
+            DistributionInfo.DEFAULT_BROADCAST
+        );
+        collectPhase.nodePageSizeHint(nodePageSizeHint);
+        return Collections.singletonList(NodeOperation.withoutDownstream(collectPhase));
+    }
+
+    private static class CountingTask implements Runnable {
+
+        private final AtomicInteger runs = new AtomicInteger();
+
+        @Override
+        public void run() {
+            runs.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        AdmissionController admissionController = new AdmissionController(Settings.EMPTY, threadPool, breakerService);
+        assertThat(admissionController.ticket(UUID.randomUUID(), collect(null), "n1"), nullValue());
+    }
+
+    @Test
+    public void testWorkloadClassification() throws Exception {
+        AdmissionController admissionController = admissionController(Settings.EMPTY);
+        assertThat(admissionController.ticket(UUID.randomUUID(), collect(10), "n1").workloadClass(),
+            is(WorkloadClass.INTERACTIVE));
+        assertThat(admissionController.ticket(UUID.randomUUID(), collect(10_000), "n1").workloadClass(),
+            is(WorkloadClass.ANALYTICAL));
+        assertThat(admissionController.ticket(UUID.randomUUID(), collect(null), "n1").workloadClass(),
+            is(WorkloadClass.ANALYTICAL));
+    }
+
+    @Test
+    public void testAnalyticalJobsAreQueuedAboveConcurrency() throws Exception {
+        AdmissionController admissionController = admissionController(Settings.builder()
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.CONCURRENCY), 1).build());
+
+        AdmissionController.Ticket first = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        AdmissionController.Ticket second = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        AdmissionController.Ticket interactive = admissionController.ticket(UUID.randomUUID(), collect(10), "n1");
+
+        CountingTask task = new CountingTask();
+        assertThat(first.launch(task), is(true));
+        // further phases of an admitted job are never queued
+        assertThat(first.launch(task), is(true));
+        assertThat(second.launch(task), is(false));
+        assertThat(interactive.launch(task), is(true));
+
+        first.release();
+        assertThat(task.runs.get(), is(0));
+        first.release();
+        assertThat(task.runs.get(), is(1));
+    }
+
+    @Test
+    public void testQueuedJobIsAdmittedAfterTimeout() throws Exception {
+        AdmissionController admissionController = admissionController(Settings.builder()
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.CONCURRENCY), 1).build());
+
+        AdmissionController.Ticket first = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        AdmissionController.Ticket second = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        CountingTask task = new CountingTask();
+        first.launch(task);
+        assertThat(second.launch(task), is(false));
+
+        ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+        verify(threadPool).schedule(any(TimeValue.class), anyString(), timeout.capture());
+        timeout.getValue().run();
+        assertThat(task.runs.get(), is(1));
+
+        // releasing the first job must not run the already admitted task again
+        first.release();
+        assertThat(task.runs.get(), is(1));
+    }
+
+    @Test
+    public void testKilledQueuedJobIsRemovedFromQueue() throws Exception {
+        AdmissionController admissionController = admissionController(Settings.builder()
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.CONCURRENCY), 1)
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.QUEUE_SIZE), 1).build());
+
+        AdmissionController.Ticket first = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        AdmissionController.Ticket second = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        AdmissionController.Ticket third = admissionController.ticket(UUID.randomUUID(), collect(null), "n1");
+        CountingTask task = new CountingTask();
+        first.launch(task);
+        second.launch(task);
+        second.release();
+
+        assertThat(third.launch(task), is(false));
+        first.release();
+        assertThat(task.runs.get(), is(1));
+    }
+
+    @Test
+    public void testFullQueueRejectsJob() throws Exception {
+        AdmissionController admissionController = admissionController(Settings.builder()
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.CONCURRENCY), 1)
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.QUEUE_SIZE), 1).build());
+
+        CountingTask task = new CountingTask();
+        admissionController.ticket(UUID.randomUUID(), collect(null), "n1").launch(task);
+        admissionController.ticket(UUID.randomUUID(), collect(null), "n1").launch(task);
+
+        expectedException.expect(EsRejectedExecutionException.class);
+        admissionController.ticket(UUID.randomUUID(), collect(null), "n1").launch(task);
+    }
+
+    @Test
+    public void testAnalyticalJobsUseMemoryQuota() throws Exception {
+        AdmissionController admissionController = admissionController(Settings.builder()
+            .put(WorkloadClass.ANALYTICAL.settingName(AdmissionController.MEMORY_QUOTA), "1kb").build());
+
+        CircuitBreaker breaker = admissionController.ticket(UUID.randomUUID(), collect(null), "n1").breaker();
+        assertThat(breaker.getLimit(), is(1024L));
+        breaker.addEstimateBytesAndMaybeBreak(1000, "test");
+
+        expectedException.expectMessage("would be larger than the quota of [1024/1kb]");
+        breaker.addEstimateBytesAndMaybeBreak(100, "test");
+    }
+}
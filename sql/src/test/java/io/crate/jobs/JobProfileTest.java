@@ -0,0 +1,100 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.jobs;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class JobProfileTest extends CrateUnitTest {
+
+    @Test
+    public void testPhaseIsCreatedOnceAndNamedLater() throws Exception {
+        JobProfile profile = new JobProfile();
+        PhaseProfile phase = profile.phase(1, null);
+        assertThat(profile.phase(1, "collect"), sameInstance(phase));
+        assertThat(phase.name(), is("collect"));
+        assertThat(profile.phases().size(), is(1));
+    }
+
+    @Test
+    public void testFinishCompletesFuture() throws Exception {
+        JobProfile profile = new JobProfile();
+        assertThat(profile.finishedFuture().isDone(), is(false));
+        assertThat(profile.finishedBefore(System.nanoTime()), is(false));
+
+        profile.finish();
+        assertThat(profile.finishedFuture().get(), sameInstance(profile));
+    }
+
+    @Test
+    public void testPhaseProfileStreaming() throws Exception {
+        PhaseProfile p1 = new JobProfile().phase(2, "mergeOnHandler");
+        p1.started();
+        p1.pageReceived(10, 1024L);
+        p1.rowOut();
+        p1.rowOut();
+        p1.paused();
+        p1.groupingBypassed();
+        p1.finished(512L);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        p1.writeTo(out);
+        PhaseProfile p2 = PhaseProfile.fromStream(StreamInput.wrap(out.bytes()));
+
+        assertThat(p2.phaseId(), is(2));
+        assertThat(p2.name(), is("mergeOnHandler"));
+        assertThat(p2.took(), greaterThanOrEqualTo(0.0d));
+        Map<String, Object> map = p2.toMap();
+        assertThat(map.get("rows_in"), is((Object) 10L));
+        assertThat(map.get("rows_out"), is((Object) 2L));
+        assertThat(map.get("bytes_received"), is((Object) 1024L));
+        assertThat(map.get("bytes_used"), is((Object) 512L));
+        assertThat(map.get("pauses"), is((Object) 1L));
+        assertThat(map.get("bypassed_groupings"), is((Object) 1L));
+    }
+
+    @Test
+    public void testPhaseProfileStreamingToOlderNode() throws Exception {
+        PhaseProfile p1 = new JobProfile().phase(2, "mergeOnHandler");
+        p1.rowOut();
+        p1.groupingBypassed();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_2_3_2);
+        p1.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        in.setVersion(Version.V_2_3_2);
+        PhaseProfile p2 = PhaseProfile.fromStream(in);
+
+        assertThat(in.available(), is(0));
+        assertThat(p2.phaseId(), is(2));
+        assertThat(p2.rowsOut(), is(0L));
+        assertThat(p2.bypassedGroupings(), is(0L));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.columncache;
+
+import io.crate.analyze.TableParameterInfo;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.TableIdent;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+
+public class ColumnCacheTest extends CrateUnitTest {
+
+    private static class ArraySource implements PackedColumn.Source {
+
+        private final Long[] values;
+
+        ArraySource(Long... values) {
+            this.values = values;
+        }
+
+        @Override
+        public int count(int doc) {
+            return values[doc] == null ? 0 : 1;
+        }
+
+        @Override
+        public long value(int doc) {
+            return values[doc];
+        }
+    }
+
+    private static void assertRoundTrip(int expectedBytesPerValue, Long... values) {
+        PackedColumn column = PackedColumn.build(new ArraySource(values), values.length);
+        assertNotNull(column);
+        assertThat(column.bytesPerValue(), is(expectedBytesPerValue));
+        for (int doc = 0; doc < values.length; doc++) {
+            assertThat(column.exists(doc), is(values[doc] != null));
+            if (values[doc] != null) {
+                assertThat(column.get(doc), is(values[doc]));
+            }
+        }
+    }
+
+    @Test
+    public void testPackedColumnUsesRangeOfValues() throws Exception {
+        assertRoundTrip(0, 7L, 7L, 7L);
+        assertRoundTrip(1, 1000L, 1255L, 1001L);
+        assertRoundTrip(2, -100L, 1000L, null, 0L);
+        assertRoundTrip(4, 1466726400000L, 1466726400000L + 86_400_000L, 1466726400000L + 1L);
+        assertRoundTrip(8, Long.MIN_VALUE, Long.MAX_VALUE, 0L);
+    }
+
+    @Test
+    public void testPackedColumnWithMissingValues() throws Exception {
+        Long[] values = new Long[130];
+        for (int i = 0; i < values.length; i += 3) {
+            values[i] = (long) i;
+        }
+        assertRoundTrip(1, values);
+        assertRoundTrip(0, null, null);
+    }
+
+    @Test
+    public void testPackedColumnRejectsMultiValuedDocuments() throws Exception {
+        PackedColumn column = PackedColumn.build(new PackedColumn.Source() {
+            @Override
+            public int count(int doc) {
+                return doc == 2 ? 2 : 1;
+            }
+
+            @Override
+            public long value(int doc) {
+                return doc;
+            }
+        }, 4);
+        assertNull(column);
+    }
+
+    @Test
+    public void testCachedTermsLookup() throws Exception {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (String value : Arrays.asList("foo", "bar", "", "foobar")) {
+            Document document = new Document();
+            document.add(new SortedSetDocValuesField("name", new BytesRef(value)));
+            writer.addDocument(document);
+        }
+        writer.forceMerge(1);
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        try {
+            SortedSetDocValues values = reader.leaves().get(0).reader().getSortedSetDocValues("name");
+            CachedTerms terms = CachedTerms.build(values);
+            assertNotNull(terms);
+            assertThat(terms.valueCount(), is(4));
+
+            ByteBuffer termsReader = terms.reader();
+            BytesRefBuilder builder = new BytesRefBuilder();
+            for (int ord = 0; ord < terms.valueCount(); ord++) {
+                assertThat(terms.lookup(termsReader, ord, builder), is(values.lookupOrd(ord)));
+            }
+        } finally {
+            reader.close();
+            writer.close();
+            directory.close();
+        }
+    }
+
+    private static IndexMetaData.Builder index(String name, int cachedPartitions, long creationDate) {
+        return IndexMetaData.builder(name)
+            .settings(Settings.builder()
+                .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(TableParameterInfo.COLUMN_CACHE_PARTITIONS, cachedPartitions))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .creationDate(creationDate);
+    }
+
+    private static String partition(String ident) {
+        return PartitionName.indexName(new TableIdent(null, "metrics"), ident);
+    }
+
+    @Test
+    public void testOnlyLatestPartitionsAreCached() throws Exception {
+        MetaData metaData = MetaData.builder()
+            .put(index(partition("04132"), 2, 1000L))
+            .put(index(partition("04134"), 2, 3000L))
+            .put(index(partition("04136"), 2, 2000L))
+            .put(index("metrics_old", 0, 4000L))
+            .put(index("users", 1, 1000L))
+            .build();
+
+        assertThat(ColumnCache.isHot(partition("04132"), metaData), is(false));
+        assertThat(ColumnCache.isHot(partition("04134"), metaData), is(true));
+        assertThat(ColumnCache.isHot(partition("04136"), metaData), is(true));
+        assertThat(ColumnCache.isHot("metrics_old", metaData), is(false));
+        assertThat(ColumnCache.isHot("users", metaData), is(true));
+        assertThat(ColumnCache.isHot("missing", metaData), is(false));
+    }
+
+    @Test
+    public void testDisabledWithoutSize() throws Exception {
+        ColumnCache columnCache = new ColumnCache(Settings.builder().put(ColumnCache.SIZE_SETTING, "0b").build());
+        MetaData metaData = MetaData.builder().put(index("users", 1, 1000L)).build();
+        assertThat(columnCache.enabled(), is(false));
+        assertThat(columnCache.cachesIndex("users", metaData), is(false));
+    }
+
+    @Test
+    public void testPercentageSizeIsRelativeToDirectMemory() throws Exception {
+        assertThat(ColumnCache.parseSize("10%", 1000L), is(100L));
+        assertThat(ColumnCache.parseSize("0%", 1000L), is(0L));
+        assertThat(ColumnCache.parseSize("64mb", 1000L), is(64L * 1024 * 1024));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Reference;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.operator.*;
+import io.crate.operation.predicate.IsNullPredicate;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.SetType;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class ZoneMapPredicateTest extends CrateUnitTest {
+
+    private static final Reference TS = createReference("ts", DataTypes.TIMESTAMP);
+    private static final Reference X = createReference("x", DataTypes.INTEGER);
+    private static final Reference NAME = createReference("name", DataTypes.STRING);
+
+    // ts between 100 and 200 without nulls, x between 10 and 20 with nulls
+    private static final ZoneMapPredicate.Zones ZONES = zones(ImmutableMap.of(
+        "ts", new ColumnZone(100L, 200L, 10, 10),
+        "x", new ColumnZone(10L, 20L, 5, 10)));
+
+    private static ZoneMapPredicate.Zones zones(final Map<String, ColumnZone> zones) {
+        return new ZoneMapPredicate.Zones() {
+            @Nullable
+            @Override
+            public ColumnZone zone(Reference reference) {
+                return zones.get(reference.info().ident().columnIdent().fqn());
+            }
+        };
+    }
+
+    private static Function function(String name, Symbol... arguments) {
+        DataType[] types = new DataType[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            types[i] = arguments[i].valueType();
+        }
+        return new Function(
+            new FunctionInfo(new FunctionIdent(name, Arrays.asList(types)), DataTypes.BOOLEAN),
+            Arrays.asList(arguments));
+    }
+
+    private static boolean canMatch(Symbol query) {
+        return ZoneMapPredicate.canMatch(query, ZONES);
+    }
+
+    @Test
+    public void testComparisons() throws Exception {
+        assertThat(canMatch(function(GtOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 199L))), is(true));
+        assertThat(canMatch(function(GtOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 200L))), is(false));
+        assertThat(canMatch(function(GteOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 200L))), is(true));
+        assertThat(canMatch(function(LtOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 100L))), is(false));
+        assertThat(canMatch(function(LteOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 100L))), is(true));
+        assertThat(canMatch(function(EqOperator.NAME, X, Literal.newLiteral(21))), is(false));
+        assertThat(canMatch(function(EqOperator.NAME, X, Literal.newLiteral(15))), is(true));
+    }
+
+    @Test
+    public void testLiteralOnTheLeftSide() throws Exception {
+        // 250 < ts
+        assertThat(canMatch(function(LtOperator.NAME, Literal.newLiteral(DataTypes.TIMESTAMP, 250L), TS)), is(false));
+        // 150 < ts
+        assertThat(canMatch(function(LtOperator.NAME, Literal.newLiteral(DataTypes.TIMESTAMP, 150L), TS)), is(true));
+    }
+
+    @Test
+    public void testAndOr() throws Exception {
+        Symbol noMatch = function(GtOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 300L));
+        Symbol match = function(EqOperator.NAME, X, Literal.newLiteral(10));
+        assertThat(canMatch(function(AndOperator.NAME, match, noMatch)), is(false));
+        assertThat(canMatch(function(OrOperator.NAME, match, noMatch)), is(true));
+        assertThat(canMatch(function(OrOperator.NAME, noMatch, noMatch)), is(false));
+    }
+
+    @Test
+    public void testIn() throws Exception {
+        Literal outside = Literal.newLiteral(new SetType(DataTypes.INTEGER), ImmutableSet.of(1, 30));
+        Literal inside = Literal.newLiteral(new SetType(DataTypes.INTEGER), ImmutableSet.of(1, 12));
+        assertThat(canMatch(function(InOperator.NAME, X, outside)), is(false));
+        assertThat(canMatch(function(InOperator.NAME, X, inside)), is(true));
+    }
+
+    @Test
+    public void testIsNull() throws Exception {
+        assertThat(canMatch(function(IsNullPredicate.NAME, TS)), is(false));
+        assertThat(canMatch(function(IsNullPredicate.NAME, X)), is(true));
+    }
+
+    @Test
+    public void testColumnWithoutValuesMatchesNoComparison() throws Exception {
+        ZoneMapPredicate.Zones zones = zones(ImmutableMap.of("x", ColumnZone.noValues(10)));
+        assertThat(ZoneMapPredicate.canMatch(function(GtOperator.NAME, X, Literal.newLiteral(0)), zones), is(false));
+        assertThat(ZoneMapPredicate.canMatch(function(IsNullPredicate.NAME, X), zones), is(true));
+    }
+
+    @Test
+    public void testUnsupportedExpressionsMayMatch() throws Exception {
+        assertThat(canMatch(function(EqOperator.NAME, NAME, Literal.newLiteral("foo"))), is(true));
+        assertThat(canMatch(function(LikeOperator.NAME, X, Literal.newLiteral(30))), is(true));
+        // type mismatch between column and literal
+        assertThat(canMatch(function(GtOperator.NAME, X, Literal.newLiteral(30L))), is(true));
+        // no zone for the column
+        Reference y = createReference("y", DataTypes.LONG);
+        assertThat(canMatch(function(GtOperator.NAME, y, Literal.newLiteral(30L))), is(true));
+    }
+
+    @Test
+    public void testReferences() throws Exception {
+        Symbol query = function(AndOperator.NAME,
+            function(GtOperator.NAME, TS, Literal.newLiteral(DataTypes.TIMESTAMP, 300L)),
+            function(EqOperator.NAME, NAME, Literal.newLiteral("foo")),
+            function(OrOperator.NAME,
+                function(IsNullPredicate.NAME, X),
+                function(LikeOperator.NAME, X, Literal.newLiteral(30))));
+        assertThat(ZoneMapPredicate.references(query), containsInAnyOrder(TS, X));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.lucene.zonemap;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ZoneMapsTest extends CrateUnitTest {
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void createIndex() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = -5; i < 5; i++) {
+            Document doc = new Document();
+            doc.add(new LongField("l", i * 1000L, Field.Store.NO));
+            doc.add(new DoubleField("d", i * 0.5d, Field.Store.NO));
+            if (i % 2 == 0) {
+                doc.add(new IntField("i", i, Field.Store.NO));
+                doc.add(new FloatField("f", i * 1.5f, Field.Store.NO));
+            }
+            writer.addDocument(doc);
+        }
+        writer.close();
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void closeIndex() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    private static void assertZone(ColumnZone zone, Long min, Long max, int nullCount) {
+        assertThat(zone.min(), is(min));
+        assertThat(zone.max(), is(max));
+        assertThat(zone.nullCount(), is(nullCount));
+    }
+
+    @Test
+    public void testLongAndTimestampColumns() throws Exception {
+        assertZone(ZoneMaps.compute(reader, "l", DataTypes.LONG), -5000L, 4000L, 0);
+        assertZone(ZoneMaps.compute(reader, "l", DataTypes.TIMESTAMP), -5000L, 4000L, 0);
+    }
+
+    @Test
+    public void testIntegerColumnWithNulls() throws Exception {
+        assertZone(ZoneMaps.compute(reader, "i", DataTypes.INTEGER), -4L, 4L, 5);
+    }
+
+    @Test
+    public void testFloatingPointColumnsAreEncodedLikeLiterals() throws Exception {
+        assertZone(ZoneMaps.compute(reader, "d", DataTypes.DOUBLE),
+            ZoneMaps.encode(DataTypes.DOUBLE, -2.5d), ZoneMaps.encode(DataTypes.DOUBLE, 2.0d), 0);
+        assertZone(ZoneMaps.compute(reader, "f", DataTypes.FLOAT),
+            ZoneMaps.encode(DataTypes.FLOAT, -6.0f), ZoneMaps.encode(DataTypes.FLOAT, 6.0f), 5);
+    }
+
+    @Test
+    public void testMissingColumnHasNoValues() throws Exception {
+        ColumnZone zone = ZoneMaps.compute(reader, "missing", DataTypes.LONG);
+        assertThat(zone.hasValues(), is(false));
+        assertThat(zone.nullCount(), is(10));
+    }
+
+    @Test
+    public void testEncodeKeepsOrder() throws Exception {
+        assertThat(ZoneMaps.encode(DataTypes.DOUBLE, -1.5d) < ZoneMaps.encode(DataTypes.DOUBLE, 0.25d), is(true));
+        assertThat(ZoneMaps.encode(DataTypes.FLOAT, -1.5f) < ZoneMaps.encode(DataTypes.FLOAT, -0.25f), is(true));
+        assertThat(ZoneMaps.encode(DataTypes.DOUBLE, Double.NaN), nullValue());
+        assertThat(ZoneMaps.encode(DataTypes.STRING, "foo"), nullValue());
+    }
+}
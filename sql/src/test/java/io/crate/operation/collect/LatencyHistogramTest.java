@@ -0,0 +1,57 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest extends CrateUnitTest {
+
+    @Test
+    public void testBucketBounds() throws Exception {
+        for (long micros : new long[]{0, 3, 4, 7, 8, 10, 11, 1000, 123456789}) {
+            int bucket = LatencyHistogram.bucketIndex(micros);
+            assertThat(LatencyHistogram.lowerBound(bucket), lessThanOrEqualTo(micros));
+            assertThat(LatencyHistogram.lowerBound(bucket + 1), greaterThan(micros));
+        }
+        assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE), is(LatencyHistogram.NUM_BUCKETS - 1));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("SELECT", null);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i), false);
+        }
+        assertThat(histogram.executions(), is(100L));
+        assertThat(histogram.avg(), is(50.5d));
+        assertThat(histogram.max(), is(100.0d));
+        // buckets are accurate within 25%
+        assertThat(histogram.percentile(0.5), allOf(greaterThanOrEqualTo(50.0d), lessThanOrEqualTo(62.5d)));
+        assertThat(histogram.percentile(0.99), allOf(greaterThanOrEqualTo(99.0d), lessThanOrEqualTo(100.0d)));
+        assertThat(histogram.percentile(1.0), is(100.0d));
+    }
+}
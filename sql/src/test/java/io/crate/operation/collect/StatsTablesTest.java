@@ -21,21 +21,31 @@
 
 package io.crate.operation.collect;
 
-import io.crate.core.collections.BlockingEvictingQueue;
 import io.crate.core.collections.NoopQueue;
+import io.crate.core.collections.StripedRingBuffer;
+import io.crate.metadata.TableIdent;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
 import io.crate.operation.reference.sys.operation.OperationContext;
 import io.crate.operation.reference.sys.operation.OperationContextLog;
+import io.crate.metadata.sys.SysJobsTableInfo;
 import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.cluster.NoopClusterService;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.Is.is;
 
@@ -45,7 +55,7 @@ public class StatsTablesTest extends CrateUnitTest {
     @Test
     public void testSettingsChanges() {
         NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
-        StatsTables stats = new StatsTables(Settings.EMPTY, nodeSettingsService);
+        StatsTables stats = new StatsTables(Settings.EMPTY, nodeSettingsService, new NoopClusterService());
 
         assertThat(stats.isEnabled(), is(false));
         assertThat(stats.lastJobsLogSize, is(CrateSettings.STATS_JOBS_LOG_SIZE.defaultValue()));
@@ -62,7 +72,7 @@ public class StatsTablesTest extends CrateUnitTest {
         assertThat(stats.lastJobsLogSize, is(CrateSettings.STATS_JOBS_LOG_SIZE.defaultValue()));
         assertThat(stats.lastOperationsLogSize, is(200));
 
-        assertThat(stats.jobsLog.get(), Matchers.instanceOf(BlockingEvictingQueue.class));
+        assertThat(stats.jobsLog.get(), Matchers.instanceOf(StripedRingBuffer.class));
 
 
         stats.listener.onRefreshSettings(Settings.builder()
@@ -78,7 +88,7 @@ public class StatsTablesTest extends CrateUnitTest {
         NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
         Settings settings = Settings.builder()
                 .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
-        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+        StatsTables stats = new StatsTables(settings, nodeSettingsService, new NoopClusterService());
 
         stats.jobsLog.get().add(new JobContextLog(new JobContext(UUID.randomUUID(), "select 1", 1L), null));
 
@@ -106,7 +116,7 @@ public class StatsTablesTest extends CrateUnitTest {
         NodeSettingsService nodeSettingsService = new NodeSettingsService(Settings.EMPTY);
         Settings settings = Settings.builder()
                 .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
-        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+        StatsTables stats = new StatsTables(settings, nodeSettingsService, new NoopClusterService());
 
         OperationContext ctxA = new OperationContext(0, UUID.randomUUID(), "dummyOperation", 1L);
         stats.operationStarted(ctxA.id, ctxA.jobId, ctxA.name);
@@ -116,7 +126,7 @@ public class StatsTablesTest extends CrateUnitTest {
 
         stats.operationFinished(ctxB.id, ctxB.jobId, null, -1);
 
-        BlockingQueue<OperationContextLog> queue = stats.operationsLog.get();
+        Queue<OperationContextLog> queue = stats.operationsLog.get();
         assertTrue(queue.contains(new OperationContextLog(ctxB, null)));
         assertFalse(queue.contains(new OperationContextLog(ctxA, null)));
 
@@ -124,4 +134,51 @@ public class StatsTablesTest extends CrateUnitTest {
         assertTrue(queue.contains(new OperationContextLog(ctxA, null)));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLatenciesAreRecordedIfStatsAreDisabled() throws Exception {
+        StatsTables stats = new StatsTables(Settings.EMPTY, new NodeSettingsService(Settings.EMPTY), new NoopClusterService());
+        TableIdent users = new TableIdent(null, "users");
+
+        stats.statementFinished("SELECT", users, TimeUnit.MILLISECONDS.toNanos(10), false);
+        stats.statementFinished("SELECT", users, TimeUnit.MILLISECONDS.toNanos(30), true);
+        stats.statementFinished("SELECT", null, TimeUnit.MILLISECONDS.toNanos(1), false);
+
+        int numHistograms = 0;
+        Iterator<?> it = stats.latenciesGetter().get().iterator();
+        while (it.hasNext()) {
+            LatencyHistogram histogram = (LatencyHistogram) it.next();
+            numHistograms++;
+            assertThat(histogram.statementType(), is("SELECT"));
+            if (histogram.tableName() == null) {
+                assertThat(histogram.executions(), is(1L));
+            } else {
+                assertThat(histogram.tableName(), is("doc.users"));
+                assertThat(histogram.executions(), is(2L));
+                assertThat(histogram.failures(), is(1L));
+                assertThat(histogram.avg(), is(20.0d));
+                assertThat(histogram.max(), is(30.0d));
+            }
+        }
+        assertThat(numHistograms, is(2));
+    }
+
+    @Test
+    public void testLatenciesOfDroppedTablesAreRemoved() throws Exception {
+        StatsTables stats = new StatsTables(Settings.EMPTY, new NodeSettingsService(Settings.EMPTY), new NoopClusterService());
+        stats.statementFinished("SELECT", new TableIdent(null, "users"), 10L, false);
+        stats.statementFinished("SELECT", new TableIdent(null, "dropped"), 10L, false);
+        stats.statementFinished("SELECT", SysJobsTableInfo.IDENT, 10L, false);
+        stats.statementFinished("SELECT", null, 10L, false);
+
+        stats.removeLatenciesOfDroppedTables(MetaData.builder()
+            .put(IndexMetaData.builder("users").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build());
+
+        List<String> tableNames = new ArrayList<>();
+        for (Object histogram : stats.latenciesGetter().get()) {
+            tableNames.add(((LatencyHistogram) histogram).tableName());
+        }
+        assertThat(tableNames, Matchers.containsInAnyOrder("doc.users", "sys.jobs", null));
+    }
+}
@@ -27,20 +27,22 @@ import com.google.common.collect.ImmutableList;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.symbol.Reference;
 import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
 import io.crate.metadata.ReferenceIdent;
 import io.crate.metadata.ReferenceInfo;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TableIdent;
+import io.crate.operation.Input;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneMissingValue;
 import io.crate.types.DataTypes;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -48,14 +50,26 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.core.LongFieldMapper;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class OrderedDocCollectorTest extends RandomizedTest {
 
@@ -201,4 +215,153 @@ public class OrderedDocCollectorTest extends RandomizedTest {
 
         reader.close();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchSizeGrowsUpToMaxSearchSize() throws Exception {
+        assertThat(OrderedDocCollector.nextSearchSize(100, 100), is(200));
+        assertThat(OrderedDocCollector.nextSearchSize(200, 100), is(400));
+        assertThat(OrderedDocCollector.nextSearchSize(OrderedDocCollector.MAX_SEARCH_SIZE, 100),
+            is(OrderedDocCollector.MAX_SEARCH_SIZE));
+
+        // the batch size is always fetched at least
+        int batchSize = OrderedDocCollector.MAX_SEARCH_SIZE * 2;
+        assertThat(OrderedDocCollector.nextSearchSize(batchSize, batchSize), is(batchSize));
+    }
+
+    @Test
+    public void testCollectMoreThanOneSearchWindow() throws Exception {
+        int numDocs = 500;
+        List<Long> values = new ArrayList<>(numDocs);
+        for (long i = 0; i < numDocs; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, getRandom());
+
+        Directory index = FSDirectory.open(newTempDir());
+        IndexWriter w = new IndexWriter(index, new IndexWriterConfig(new StandardAnalyzer()));
+        for (Long value : values) {
+            addDocToLucene(w, value);
+        }
+        w.close();
+        IndexReader reader = DirectoryReader.open(index);
+
+        OrderBy orderBy = new OrderBy(ImmutableList.<Symbol>of(new Reference(INFO)),
+            new boolean[]{false},
+            new Boolean[]{null});
+        SortField sortField = new SortedNumericSortField("value", SortField.Type.LONG, false);
+        sortField.setMissingValue(LuceneMissingValue.missingValue(orderBy, 0));
+
+        final long[] accountedBytes = new long[1];
+        final long[] maxAccountedBytes = new long[1];
+        RamAccountingContext ramAccountingContext = mock(RamAccountingContext.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                accountedBytes[0] += (Long) invocation.getArguments()[0];
+                maxAccountedBytes[0] = Math.max(maxAccountedBytes[0], accountedBytes[0]);
+                return null;
+            }
+        }).when(ramAccountingContext).addBytes(anyLong());
+
+        LongDocValuesExpression expression = new LongDocValuesExpression();
+        int batchSize = 20;
+        OrderedDocCollector collector = new OrderedDocCollector(
+            searchContext(reader),
+            false,
+            batchSize,
+            mock(CollectorContext.class),
+            orderBy,
+            new Sort(sortField),
+            Collections.<Input<?>>singletonList(expression),
+            Collections.<LuceneCollectorExpression<?>>singletonList(expression),
+            ramAccountingContext
+        );
+
+        List<Long> collected = new ArrayList<>(numDocs);
+        int batches = 0;
+        while (!collector.exhausted) {
+            for (Row row : collector.call()) {
+                collected.add((Long) row.get(0));
+            }
+            batches++;
+            assertThat(accountedBytes[0], is(collector.bufferedBytes()));
+        }
+        assertThat(batches, is(numDocs / batchSize));
+        // the searches fetch 20, 40, 80, 160 and 320 documents, more than the first window is buffered at once
+        long windowBytes = batchSize * OrderedDocCollector.ramBytesUsed(new FieldDoc(0, 0, new Object[]{1L}));
+        assertThat(maxAccountedBytes[0], greaterThan(windowBytes));
+
+        Collections.sort(values);
+        assertThat(collected, is(values));
+
+        collector.close();
+        assertThat(accountedBytes[0], is(0L));
+        reader.close();
+    }
+
+    @Test
+    public void testRamBytesUsedGrowsWithTheSortValues() throws Exception {
+        long emptyDoc = OrderedDocCollector.ramBytesUsed(new FieldDoc(0, 0, new Object[0]));
+        long longDoc = OrderedDocCollector.ramBytesUsed(new FieldDoc(0, 0, new Object[]{1L}));
+        long bytesRefDoc = OrderedDocCollector.ramBytesUsed(
+            new FieldDoc(0, 0, new Object[]{new BytesRef(new byte[1024])}));
+
+        assertThat(longDoc, greaterThan(emptyDoc));
+        assertThat(bytesRefDoc, greaterThan(emptyDoc + 1024));
+    }
+
+    private static SearchContext searchContext(final IndexReader reader) throws IOException {
+        final IndexSearcher indexSearcher = new IndexSearcher(reader);
+        ContextIndexSearcher searcher = mock(ContextIndexSearcher.class);
+        when(searcher.getIndexReader()).thenReturn(reader);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                indexSearcher.search((Query) args[0], (Collector) args[1]);
+                return null;
+            }
+        }).when(searcher).search(any(Query.class), any(Collector.class));
+        when(searcher.searchAfter(any(ScoreDoc.class), any(Query.class), anyInt(), any(Sort.class), anyBoolean(), anyBoolean()))
+            .thenAnswer(new Answer<TopFieldDocs>() {
+                @Override
+                public TopFieldDocs answer(InvocationOnMock invocation) throws Throwable {
+                    Object[] args = invocation.getArguments();
+                    return indexSearcher.searchAfter((ScoreDoc) args[0], (Query) args[1], (Integer) args[2],
+                        (Sort) args[3], (Boolean) args[4], (Boolean) args[5]);
+                }
+            });
+
+        IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(new ShardId("table", 0));
+        SearchContext searchContext = mock(SearchContext.class);
+        when(searchContext.indexShard()).thenReturn(indexShard);
+        when(searchContext.searcher()).thenReturn(searcher);
+        when(searchContext.query()).thenReturn(new MatchAllDocsQuery());
+        return searchContext;
+    }
+
+    private static class LongDocValuesExpression extends LuceneCollectorExpression<Long> {
+
+        private SortedNumericDocValues values;
+
+        @Override
+        public void setNextReader(LeafReaderContext context) {
+            try {
+                values = DocValues.getSortedNumeric(context.reader(), "value");
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load doc values", e);
+            }
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            values.setDocument(doc);
+        }
+
+        @Override
+        public Long value() {
+            return values.valueAt(0);
+        }
+    }
+}
@@ -24,11 +24,13 @@ package io.crate.operation.collect.sources;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.crate.action.sql.QueryResultCache;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.WhereClause;
 import io.crate.analyze.symbol.Reference;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.NodeLoadTracker;
 import io.crate.metadata.*;
 import io.crate.metadata.shard.unassigned.UnassignedShard;
 import io.crate.operation.collect.StatsTables;
@@ -40,6 +42,7 @@ import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.node.dql.RoutedCollectPhase;
 import io.crate.planner.projection.Projection;
 import io.crate.types.DataTypes;
+import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.discovery.DiscoveryService;
@@ -68,7 +71,10 @@ public class SystemCollectSourceTest {
             Collections.<SysCheck>emptySet(),
             Collections.<SysNodeCheck>emptySet(),
             mock(SysRepositories.class),
-            mock(SysSnapshots.class));
+            mock(SysSnapshots.class),
+            mock(BulkRetryCoordinatorPool.class),
+            mock(QueryResultCache.class),
+            mock(NodeLoadTracker.class));
 
         Reference shardId = new Reference(new ReferenceInfo(
             new ReferenceIdent(new TableIdent("sys", "shards"), "id"), RowGranularity.SHARD, DataTypes.INTEGER));
@@ -0,0 +1,168 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.fetch;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.engine.Engine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+public class FetchCollectorTest extends CrateUnitTest {
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    /**
+     * returns the docId relative to the top level reader
+     */
+    private static class DocIdExpression extends LuceneCollectorExpression<Integer> {
+
+        private int docBase;
+        private int doc;
+
+        @Override
+        public void setNextReader(LeafReaderContext context) {
+            docBase = context.docBase;
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            this.doc = doc;
+        }
+
+        @Override
+        public Integer value() {
+            return docBase + doc;
+        }
+    }
+
+    private static class StoredNameExpression extends LuceneCollectorExpression<BytesRef> {
+
+        private CollectorFieldsVisitor visitor;
+
+        @Override
+        public void startCollect(CollectorContext context) {
+            visitor = context.visitor();
+            visitor.addField("name");
+        }
+
+        @Override
+        public BytesRef value() {
+            return new BytesRef((String) visitor.fields().get("name").get(0));
+        }
+    }
+
+    @Before
+    public void createIndex() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter writer = new IndexWriter(directory, config);
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("name", "doc-" + i, Field.Store.YES));
+            writer.addDocument(doc);
+            if (i % 3 == 2) {
+                writer.commit();
+            }
+        }
+        writer.close();
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void closeIndex() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    /**
+     * @return the docIds of the fetched rows
+     */
+    private List<Integer> collect(int... docIds) throws Exception {
+        List<LuceneCollectorExpression<?>> expressions = Arrays.<LuceneCollectorExpression<?>>asList(
+            new DocIdExpression(), new StoredNameExpression());
+        FetchCollector collector = new FetchCollector(
+            expressions, null, new Engine.Searcher("test", new IndexSearcher(reader)), null, 0);
+        StreamBucket.Builder builder = new StreamBucket.Builder(
+            new Streamer[]{DataTypes.INTEGER.streamer(), DataTypes.STRING.streamer()});
+        collector.collect(IntArrayList.from(docIds), builder);
+
+        List<Integer> fetched = new ArrayList<>();
+        for (Row row : builder.build()) {
+            fetched.add((Integer) row.get(0));
+            assertThat(((BytesRef) row.get(1)).utf8ToString(), is("doc-" + row.get(0)));
+        }
+        return fetched;
+    }
+
+    @Test
+    public void testRowsAreReturnedInRequestedOrder() throws Exception {
+        assertThat(reader.leaves().size(), greaterThan(1));
+        assertThat(collect(7, 1, 4, 0, 9, 2), contains(7, 1, 4, 0, 9, 2));
+    }
+
+    @Test
+    public void testRowsOfAscendingDocIds() throws Exception {
+        assertThat(collect(0, 3, 5, 8), contains(0, 3, 5, 8));
+    }
+
+    @Test
+    public void testSortedDocIdsKeepRequestedPosition() throws Exception {
+        long[] sorted = FetchCollector.sortedDocIds(IntArrayList.from(5, 2, 9));
+        assertThat(sorted.length, is(3));
+        assertThat((int) (sorted[0] >>> 32), is(2));
+        assertThat((int) sorted[0], is(1));
+        assertThat((int) (sorted[2] >>> 32), is(9));
+        assertThat((int) sorted[2], is(2));
+
+        assertThat(FetchCollector.sortedDocIds(IntArrayList.from(1, 2, 3)), nullValue());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Literal;
+import io.crate.core.collections.ArrayRow;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.projectors.sorting.OrderingByPosition;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+public class BatchingRowReceiverTest extends CrateUnitTest {
+
+    private final ArrayRow spare = new ArrayRow();
+
+    private Row spare(Object... cells) {
+        spare.cells(cells);
+        return spare;
+    }
+
+    @Test
+    public void testRowBatchRetain() throws Exception {
+        RowBatch batch = new RowBatch(2, 4);
+        for (int i = 0; i < 4; i++) {
+            batch.add(spare(i, i * 10));
+        }
+        assertThat(batch.isFull(), is(true));
+
+        batch.retain(1);
+        batch.retain(3);
+        batch.finishRetain();
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get(0), isRow(1, 10));
+        assertThat(batch.get(1, 1), is((Object) 30));
+
+        batch.retain(1);
+        batch.finishRetain();
+        assertThat(batch.size(), is(1));
+        assertThat(batch.get(0), isRow(3, 30));
+
+        batch.clear();
+        assertThat(batch.size(), is(0));
+        assertThat(batch.isFull(), is(false));
+    }
+
+    @Test
+    public void testRowsArePassedInBatchesThroughFilterAndTopN() throws Exception {
+        final InputCollectExpression input = new InputCollectExpression(0);
+        List<CollectExpression<Row, ?>> collectExpressions = ImmutableList.<CollectExpression<Row, ?>>of(input);
+        FilterProjector filterProjector = new FilterProjector(collectExpressions, new Input<Boolean>() {
+            @Override
+            public Boolean value() {
+                return (Integer) input.value() > 5;
+            }
+        });
+        SortingTopNProjector topNProjector = new SortingTopNProjector(
+                ImmutableList.<Input<?>>of(input, Literal.newLiteral(true)),
+                collectExpressions,
+                1,
+                OrderingByPosition.arrayOrdering(0, false, null),
+                3,
+                TopN.NO_OFFSET
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        filterProjector.downstream(topNProjector);
+        topNProjector.downstream(rowReceiver);
+        assertThat(filterProjector.acceptsBatches(), is(true));
+
+        BatchingRowReceiver batchingRowReceiver = new BatchingRowReceiver(filterProjector, 4);
+        for (int i = 20; i > 0; i--) {
+            assertThat(batchingRowReceiver.setNextRow(spare(i)), is(true));
+        }
+        batchingRowReceiver.finish();
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows, contains(isRow(6), isRow(7), isRow(8)));
+    }
+
+    @Test
+    public void testFilterDoesNotAcceptBatchesIfDownstreamDoesNot() throws Exception {
+        FilterProjector filterProjector = new FilterProjector(
+                ImmutableList.<CollectExpression<Row, ?>>of(), Literal.newLiteral(true));
+        filterProjector.downstream(new CollectingRowReceiver());
+        assertThat(filterProjector.acceptsBatches(), is(false));
+    }
+}
@@ -7,27 +7,38 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.RowN;
+import io.crate.jobs.JobProfile;
+import io.crate.jobs.PhaseProfile;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.Functions;
 import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
+import io.crate.operation.InputRow;
+import io.crate.operation.NumericInput;
+import io.crate.operation.OrdinalInput;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.LongType;
+import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
@@ -84,6 +95,280 @@ public class GroupingProjectorTest extends CrateUnitTest {
         assertThat(rows.iterator().next().get(1), instanceOf(CountAggregation.LongState.class));
     }
 
+    @Test
+    public void testGroupByIntegralKeyReadFromNumericInput() throws Exception {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+                Aggregation.partialAggregation(countInfo, DataTypes.LONG, ImmutableList.<Symbol>of());
+        AggregationContext aggregationContext = new AggregationContext(
+                (AggregationFunction) getFunctions().get(countInfo.ident()),
+                countAggregation);
+
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        GroupingProjector projector = new GroupingProjector(
+                Arrays.asList(DataTypes.INTEGER),
+                ImmutableList.<Input<?>>of(keyInput),
+                new CollectExpression[] { keyInput },
+                new AggregationContext[] { aggregationContext },
+                RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        LongInput input = new LongInput();
+        Row row = new InputRow(ImmutableList.of(input));
+        projector.prepare();
+        for (Long value : Arrays.asList(1L, 2L, null, 1L, 1L, null)) {
+            input.value = value;
+            projector.setNextRow(row);
+        }
+        projector.finish();
+
+        Map<Object, String> counts = new HashMap<>();
+        for (Row result : rowReceiver.result()) {
+            counts.put(result.get(0), result.get(1).toString());
+        }
+        assertThat(counts.size(), is(3));
+        assertThat(counts, hasEntry((Object) 1, "3"));
+        assertThat(counts, hasEntry((Object) 2, "1"));
+        assertThat(counts, hasEntry(null, "2"));
+    }
+
+    @Test
+    public void testGroupByIntegralKeyReadFromMaterializedRows() throws Exception {
+        GroupingProjector projector = partialCountProjector(new InputCollectExpression(0));
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        projector.prepare();
+        for (Long value : Arrays.asList(1L, 2L, null, 1L)) {
+            projector.setNextRow(new RowN(new Object[] { value }));
+        }
+        projector.finish();
+
+        Map<Object, String> counts = new HashMap<>();
+        for (Row result : rowReceiver.result()) {
+            counts.put(result.get(0), result.get(1).toString());
+        }
+        assertThat(counts.size(), is(3));
+        assertThat(counts, hasEntry((Object) 1L, "2"));
+        assertThat(counts, hasEntry((Object) 2L, "1"));
+        assertThat(counts, hasEntry(null, "1"));
+    }
+
+    @Test
+    public void testFinishWithoutRows() throws Exception {
+        GroupingProjector projector = partialCountProjector(new InputCollectExpression(0));
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        projector.prepare();
+        projector.finish();
+        assertThat(rowReceiver.result().size(), is(0));
+    }
+
+    private GroupingProjector partialCountProjector(InputCollectExpression keyInput) {
+        return partialCountProjector(keyInput, null);
+    }
+
+    private GroupingProjector partialCountProjector(InputCollectExpression keyInput, @Nullable PhaseProfile profile) {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+                Aggregation.partialAggregation(countInfo, DataTypes.LONG, ImmutableList.<Symbol>of());
+        AggregationContext aggregationContext = new AggregationContext(
+                (AggregationFunction) getFunctions().get(countInfo.ident()),
+                countAggregation);
+        return new GroupingProjector(
+                Arrays.asList(DataTypes.LONG),
+                ImmutableList.<Input<?>>of(keyInput),
+                new CollectExpression[] { keyInput },
+                new AggregationContext[] { aggregationContext },
+                RAM_ACCOUNTING_CONTEXT,
+                profile
+        );
+    }
+
+    @Test
+    public void testPartialAggregationIsBypassedForUniqueKeys() throws Exception {
+        PhaseProfile profile = new JobProfile().phase(1, "collect");
+        GroupingProjector projector = partialCountProjector(new InputCollectExpression(0), profile);
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        LongInput input = new LongInput();
+        Row row = new InputRow(ImmutableList.of(input));
+        projector.prepare();
+        int numRows = GroupingProjector.BYPASS_SAMPLE_SIZE * 2;
+        for (long i = 0; i < numRows; i++) {
+            input.value = i;
+            projector.setNextRow(row);
+        }
+        // hits a group which already exists, but is emitted separately after the bypass
+        input.value = 0L;
+        projector.setNextRow(row);
+        projector.finish();
+
+        assertThat(projector.bypassed(), is(true));
+        assertThat(profile.bypassedGroupings(), is(1L));
+        Bucket result = rowReceiver.result();
+        assertThat(result.size(), is(numRows + 1));
+        long total = 0;
+        for (Row resultRow : result) {
+            total += Long.parseLong(resultRow.get(1).toString());
+        }
+        assertThat(total, is(numRows + 1L));
+    }
+
+    @Test
+    public void testPartialAggregationIsNotBypassedForRepeatingKeys() throws Exception {
+        PhaseProfile profile = new JobProfile().phase(1, "collect");
+        GroupingProjector projector = partialCountProjector(new InputCollectExpression(0), profile);
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        LongInput input = new LongInput();
+        Row row = new InputRow(ImmutableList.of(input));
+        projector.prepare();
+        for (long i = 0; i < GroupingProjector.BYPASS_SAMPLE_SIZE * 2; i++) {
+            input.value = i % 10;
+            projector.setNextRow(row);
+        }
+        projector.finish();
+
+        assertThat(projector.bypassed(), is(false));
+        assertThat(profile.bypassedGroupings(), is(0L));
+        assertThat(rowReceiver.result().size(), is(10));
+    }
+
+    @Test
+    public void testGroupByStringKeyReadFromOrdinalInput() throws Exception {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+                Aggregation.partialAggregation(countInfo, DataTypes.LONG, ImmutableList.<Symbol>of());
+        AggregationContext aggregationContext = new AggregationContext(
+                (AggregationFunction) getFunctions().get(countInfo.ident()),
+                countAggregation);
+
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        GroupingProjector projector = new GroupingProjector(
+                Arrays.asList(DataTypes.STRING),
+                ImmutableList.<Input<?>>of(keyInput),
+                new CollectExpression[] { keyInput },
+                new AggregationContext[] { aggregationContext },
+                RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        StringOrdinalsInput input = new StringOrdinalsInput();
+        Row row = new InputRow(ImmutableList.of(input));
+        projector.prepare();
+        // two segments with different ordinals for "b"
+        input.ordinals = new TestOrdinals("a", "b");
+        for (int ord : new int[] { 0, 1, -1, 0, 1 }) {
+            input.ordinals.ord = ord;
+            projector.setNextRow(row);
+        }
+        input.ordinals = new TestOrdinals("b", "c");
+        for (int ord : new int[] { 0, 1 }) {
+            input.ordinals.ord = ord;
+            projector.setNextRow(row);
+        }
+        projector.finish();
+
+        Map<Object, String> counts = new HashMap<>();
+        for (Row result : rowReceiver.result()) {
+            counts.put(result.get(0), result.get(1).toString());
+        }
+        assertThat(counts.size(), is(4));
+        assertThat(counts, hasEntry((Object) new BytesRef("a"), "2"));
+        assertThat(counts, hasEntry((Object) new BytesRef("b"), "3"));
+        assertThat(counts, hasEntry((Object) new BytesRef("c"), "1"));
+        assertThat(counts, hasEntry(null, "1"));
+    }
+
+    static class TestOrdinals extends RandomAccessOrds {
+
+        private final BytesRef[] values;
+        int ord = -1;
+
+        TestOrdinals(String... values) {
+            this.values = new BytesRef[values.length];
+            for (int i = 0; i < values.length; i++) {
+                this.values[i] = new BytesRef(values[i]);
+            }
+        }
+
+        @Override
+        public long ordAt(int index) {
+            return ord;
+        }
+
+        @Override
+        public int cardinality() {
+            return ord == -1 ? 0 : 1;
+        }
+
+        @Override
+        public long nextOrd() {
+            return NO_MORE_ORDS;
+        }
+
+        @Override
+        public void setDocument(int docID) {
+        }
+
+        @Override
+        public BytesRef lookupOrd(long ord) {
+            return values[(int) ord];
+        }
+
+        @Override
+        public long getValueCount() {
+            return values.length;
+        }
+    }
+
+    static class StringOrdinalsInput implements Input<BytesRef>, OrdinalInput {
+
+        TestOrdinals ordinals;
+
+        @Override
+        public BytesRef value() {
+            return ordinals.ord == -1 ? null : BytesRef.deepCopyOf(ordinals.lookupOrd(ordinals.ord));
+        }
+
+        @Override
+        public RandomAccessOrds ordinals() {
+            return ordinals;
+        }
+    }
+
+    static class LongInput implements Input<Long>, NumericInput {
+
+        Long value;
+
+        @Override
+        public Long value() {
+            throw new AssertionError("numeric input must not be read boxed");
+        }
+
+        @Override
+        public boolean isNull() {
+            return value == null;
+        }
+
+        @Override
+        public long getLong() {
+            return value;
+        }
+
+        @Override
+        public double getDouble() {
+            return value;
+        }
+    }
+
     class DummyInput implements Input<BytesRef> {
 
         private final BytesRef[] values;
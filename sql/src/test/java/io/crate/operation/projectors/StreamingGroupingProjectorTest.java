@@ -0,0 +1,158 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class StreamingGroupingProjectorTest extends CrateUnitTest {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    private static StreamingGroupingProjector countProjector() {
+        return countProjector(RAM_ACCOUNTING_CONTEXT);
+    }
+
+    private static StreamingGroupingProjector countProjector(RamAccountingContext ramAccountingContext) {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+                Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+                (AggregationFunction) getFunctions().get(countInfo.ident()),
+                countAggregation);
+
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        return new StreamingGroupingProjector(
+                ImmutableList.<Input<?>>of(keyInput),
+                new CollectExpression[] { keyInput },
+                new AggregationContext[] { aggregationContext },
+                ramAccountingContext
+        );
+    }
+
+    @Test
+    public void testGroupIsEmittedWhenTheKeyChanges() throws Exception {
+        StreamingGroupingProjector projector = countProjector();
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        // the key is re-used for all rows like the values read from docValues
+        byte[] bytes = new byte[1];
+        BytesRef key = new BytesRef(bytes);
+        Object[] cells = new Object[1];
+        RowN row = new RowN(cells);
+        projector.prepare();
+        for (String value : new String[] { "a", "a", "b", null, null, "c" }) {
+            if (value == null) {
+                cells[0] = null;
+            } else {
+                bytes[0] = (byte) value.charAt(0);
+                cells[0] = key;
+            }
+            assertThat(projector.setNextRow(row), is(true));
+        }
+        projector.finish();
+
+        assertThat(printedTable(rowReceiver.result()), is(
+                "a| 2\n" +
+                "b| 1\n" +
+                "NULL| 2\n" +
+                "c| 1\n"));
+    }
+
+    @Test
+    public void testUpstreamIsStoppedOnceTheDownstreamHasEnoughGroups() throws Exception {
+        StreamingGroupingProjector projector = countProjector();
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withLimit(1);
+        projector.downstream(rowReceiver);
+
+        projector.prepare();
+        assertThat(projector.setNextRow(new RowN(new Object[] { 1L })), is(true));
+        assertThat(projector.setNextRow(new RowN(new Object[] { 1L })), is(true));
+        assertThat(projector.setNextRow(new RowN(new Object[] { 2L })), is(false));
+        projector.finish();
+
+        assertThat(printedTable(rowReceiver.result()), is("1| 2\n"));
+    }
+
+    @Test
+    public void testBytesOfAGroupAreReleasedOnceItIsEmitted() throws Exception {
+        final long[] accountedBytes = new long[1];
+        final long[] maxAccountedBytes = new long[1];
+        RamAccountingContext ramAccountingContext = mock(RamAccountingContext.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                accountedBytes[0] += (Long) invocation.getArguments()[0];
+                maxAccountedBytes[0] = Math.max(maxAccountedBytes[0], accountedBytes[0]);
+                return null;
+            }
+        }).when(ramAccountingContext).addBytes(anyLong());
+
+        StreamingGroupingProjector projector = countProjector(ramAccountingContext);
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+        projector.prepare();
+
+        assertThat(projector.setNextRow(new RowN(new Object[] { 1L })), is(true));
+        long groupBytes = accountedBytes[0];
+        assertThat(groupBytes, greaterThan(0L));
+        for (long key = 2L; key < 100L; key++) {
+            assertThat(projector.setNextRow(new RowN(new Object[] { key })), is(true));
+            assertThat(accountedBytes[0], is(groupBytes));
+        }
+        projector.finish();
+
+        assertThat(rowReceiver.result().size(), is(99));
+        assertThat(accountedBytes[0], is(0L));
+        assertThat(maxAccountedBytes[0], is(groupBytes));
+    }
+}
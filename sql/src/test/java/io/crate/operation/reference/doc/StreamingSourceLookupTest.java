@@ -0,0 +1,119 @@
+/*
+ * Licensed to CRATE.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.doc;
+
+import io.crate.operation.reference.doc.lucene.StreamingSourceLookup;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class StreamingSourceLookupTest extends CrateUnitTest {
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private LeafReaderContext readerContext;
+
+    @Before
+    public void createIndex() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        addSource(writer, "{\"name\": \"Arthur\", \"age\": 42, \"o\": {\"x\": 1, \"y\": {\"z\": true}, \"s\": \"skipped\"}," +
+                          " \"arr\": [{\"x\": 1}, {\"x\": 2}], \"scalar\": 10}");
+        addSource(writer, "{\"name\": \"Trillian\", \"o\": null}");
+        writer.close();
+        reader = DirectoryReader.open(directory);
+        readerContext = reader.leaves().get(0);
+    }
+
+    private static void addSource(IndexWriter writer, String source) throws Exception {
+        Document doc = new Document();
+        doc.add(new StoredField("_source", source.getBytes(StandardCharsets.UTF_8)));
+        writer.addDocument(doc);
+    }
+
+    @After
+    public void closeIndex() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void testExtractRequestedPaths() throws Exception {
+        StreamingSourceLookup lookup = new StreamingSourceLookup();
+        lookup.addPath("name");
+        lookup.addPath("o.x");
+        lookup.addPath("o.y.z");
+        lookup.addPath("arr.x");
+        lookup.addPath("scalar.x");
+
+        lookup.setSegmentAndDocument(readerContext, 0);
+        assertThat((String) lookup.extractValue("name"), is("Arthur"));
+        assertThat((Integer) lookup.extractValue("o.x"), is(1));
+        assertThat((Boolean) lookup.extractValue("o.y.z"), is(true));
+        assertThat(lookup.extractValue("arr.x"), is((Object) Arrays.asList(1, 2)));
+        assertThat(lookup.extractValue("scalar.x"), nullValue());
+
+        lookup.setSegmentAndDocument(readerContext, 1);
+        assertThat((String) lookup.extractValue("name"), is("Trillian"));
+        assertThat(lookup.extractValue("o.x"), nullValue());
+        assertThat(lookup.extractValue("arr.x"), nullValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExtractObjectAndChildOfObject() throws Exception {
+        StreamingSourceLookup lookup = new StreamingSourceLookup();
+        lookup.addPath("o");
+        lookup.addPath("o.y.z");
+
+        lookup.setSegmentAndDocument(readerContext, 0);
+        Map<String, Object> o = (Map<String, Object>) lookup.extractValue("o");
+        assertThat(o.keySet(), containsInAnyOrder("x", "y", "s"));
+        assertThat((Boolean) lookup.extractValue("o.y.z"), is(true));
+    }
+
+    @Test
+    public void testPathNotAddedUpfrontIsExtracted() throws Exception {
+        StreamingSourceLookup lookup = new StreamingSourceLookup();
+        lookup.addPath("name");
+
+        lookup.setSegmentAndDocument(readerContext, 0);
+        assertThat((String) lookup.extractValue("name"), is("Arthur"));
+        assertThat((Integer) lookup.extractValue("age"), is(42));
+    }
+}
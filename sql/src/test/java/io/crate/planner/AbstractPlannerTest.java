@@ -29,6 +29,7 @@ import io.crate.analyze.ParameterContext;
 import io.crate.analyze.repositories.RepositorySettingsModule;
 import io.crate.core.collections.TreeMapBuilder;
 import io.crate.executor.transport.RepositoryService;
+import io.crate.executor.transport.TransportActionProvider;
 import io.crate.metadata.*;
 import io.crate.metadata.blob.BlobSchemaInfo;
 import io.crate.metadata.blob.BlobTableInfo;
@@ -155,6 +156,7 @@ public abstract class AbstractPlannerTest extends CrateUnitTest {
             bind(FulltextAnalyzerResolver.class).toInstance(fulltextAnalyzerResolver);
             bind(ClusterService.class).toInstance(clusterService);
             bind(TransportPutIndexTemplateAction.class).toInstance(mock(TransportPutIndexTemplateAction.class));
+            bind(TransportActionProvider.class).toInstance(mock(TransportActionProvider.class));
             super.configure();
         }
 
@@ -543,6 +543,39 @@ public class PlannerTest extends AbstractPlannerTest {
         assertThat(mergeNode.nullsFirst()[0], is(false));
     }
 
+    @Test
+    public void testNonDistributedGroupByOnClusteredColumnWithLimitIsStreamed() throws Exception {
+        CollectAndMerge planNode = plan(
+                "select count(*), id from users group by id limit 20");
+        RoutedCollectPhase collectPhase = ((RoutedCollectPhase) planNode.collectPhase());
+        GroupProjection groupProjection = (GroupProjection) collectPhase.projections().get(0);
+        assertThat(groupProjection.inputSortedByKeys(), is(true));
+        assertThat(collectPhase.orderBy(), notNullValue());
+        assertThat(collectPhase.orderBy().orderBySymbols(), contains(isReference("id")));
+        assertThat(collectPhase.nodePageSizeHint(), is(20));
+    }
+
+    @Test
+    public void testNonDistributedGroupByOnClusteredColumnOrderedByKeyIsStreamed() throws Exception {
+        CollectAndMerge planNode = plan(
+                "select count(*), id from users group by id order by id desc limit 20");
+        RoutedCollectPhase collectPhase = ((RoutedCollectPhase) planNode.collectPhase());
+        assertThat(((GroupProjection) collectPhase.projections().get(0)).inputSortedByKeys(), is(true));
+        assertThat(collectPhase.orderBy().reverseFlags()[0], is(true));
+        // the groups arrive sorted, the collector can stop once it has enough of them
+        assertThat(((TopNProjection) collectPhase.projections().get(1)).orderBy(), is(nullValue()));
+        assertThat(planNode.localMerge().sortedInputOutput(), is(true));
+    }
+
+    @Test
+    public void testNonDistributedGroupByOnClusteredColumnOrderedByAggregateIsNotStreamed() throws Exception {
+        CollectAndMerge planNode = plan(
+                "select count(*), id from users group by id order by 1 desc limit 20");
+        RoutedCollectPhase collectPhase = ((RoutedCollectPhase) planNode.collectPhase());
+        assertThat(((GroupProjection) collectPhase.projections().get(0)).inputSortedByKeys(), is(false));
+        assertThat(collectPhase.orderBy(), is(nullValue()));
+    }
+
     @Test
     public void testNonDistributedGroupByOnClusteredColumnSortedScalar() throws Exception {
         CollectAndMerge planNode = plan(
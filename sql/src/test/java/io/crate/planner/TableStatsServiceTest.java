@@ -23,6 +23,7 @@
 package io.crate.planner;
 
 import com.google.common.collect.ImmutableSet;
+import io.crate.action.sql.QueryResultCache;
 import io.crate.action.sql.SQLRequest;
 import io.crate.action.sql.SQLResponse;
 import io.crate.action.sql.TransportSQLAction;
@@ -85,7 +86,8 @@ public class TableStatsServiceTest extends CrateUnitTest  {
                 mock(StatsTables.class),
                 new ActionFilters(ImmutableSet.<ActionFilter>of()),
                 mock(IndexNameExpressionResolver.class),
-                mock(TransportKillJobsNodeAction.class)
+                mock(TransportKillJobsNodeAction.class),
+                mock(QueryResultCache.class)
         ) {
             @Override
             protected void doExecute(SQLRequest request, ActionListener<SQLResponse> listener) {
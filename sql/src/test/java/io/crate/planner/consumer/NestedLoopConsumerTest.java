@@ -50,6 +50,7 @@ import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
+import io.crate.planner.node.dql.join.SemiJoinFilter;
 import io.crate.planner.projection.FetchProjection;
 import io.crate.planner.projection.FilterProjection;
 import io.crate.planner.projection.TopNProjection;
@@ -57,6 +58,7 @@ import io.crate.sql.parser.SqlParser;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.MockedClusterServiceModule;
 import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.ModulesBuilder;
@@ -67,6 +69,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -229,6 +233,53 @@ public class NestedLoopConsumerTest extends CrateUnitTest {
     }
 
 
+    @Test
+    public void testSemiJoinFilterOnLargerTable() throws Exception {
+        NestedLoop plan = plan("select users.name, u2.name from users, users_multi_pk u2 " +
+                               "where users.name = u2.name " +
+                               "order by users.name, u2.name ");
+        SemiJoinFilter semiJoinFilter = plan.semiJoinFilter();
+        assertThat(semiJoinFilter, notNullValue());
+        assertThat(semiJoinFilter.probeKey(), isReference("name"));
+        assertThat(semiJoinFilter.probePhase(), is((CollectPhase) ((CollectAndMerge) plan.right()).collectPhase()));
+
+        CollectAndMerge keysPlan = semiJoinFilter.keysPlan();
+        assertThat(keysPlan.jobId(), Matchers.not(plan.jobId()));
+        RoutedCollectPhase keysCollect = (RoutedCollectPhase) keysPlan.collectPhase();
+        assertThat(keysCollect.toCollect(), contains(isReference("name")));
+        assertThat(keysCollect.routing().locations(), is(((RoutedCollectPhase) ((CollectAndMerge) plan.left()).collectPhase()).routing().locations()));
+        TopNProjection topN = (TopNProjection) keysPlan.localMerge().projections().get(0);
+        assertThat(topN.limit(), is(SemiJoinFilter.MAX_KEYS + 1));
+
+        semiJoinFilter.pushDown(Arrays.asList(new BytesRef("Arthur"), new BytesRef("Trillian")));
+        Function query = (Function) semiJoinFilter.probePhase().whereClause().query();
+        assertThat(query.info().ident().name(), is("op_in"));
+        assertThat(query.arguments().get(0), isReference("name"));
+    }
+
+    @Test
+    public void testSemiJoinFilterWithoutKeysMatchesNothing() throws Exception {
+        NestedLoop plan = plan("select users.name, u2.name from users, users_multi_pk u2 " +
+                               "where users.name = u2.name " +
+                               "order by users.name, u2.name ");
+        plan.semiJoinFilter().pushDown(Collections.emptyList());
+        assertThat(plan.semiJoinFilter().probePhase().whereClause().noMatch(), is(true));
+    }
+
+    @Test
+    public void testNoSemiJoinFilterOnTablesOfSameSize() throws Exception {
+        NestedLoop plan = plan("select u1.name from users u1, users u2 where u1.id = u2.id order by 1");
+        assertThat(plan.semiJoinFilter(), nullValue());
+    }
+
+    @Test
+    public void testNoSemiJoinFilterWithoutEquiJoinCondition() throws Exception {
+        NestedLoop plan = plan("select users.name, u2.name from users, users_multi_pk u2 " +
+                               "where users.name || u2.name = 'foobar' " +
+                               "order by users.name, u2.name ");
+        assertThat(plan.semiJoinFilter(), nullValue());
+    }
+
     @Test
     public void testExplicitCrossJoinWithoutLimitOrOrderBy() throws Exception {
         QueryThenFetch plan = plan("select u1.name, u2.name from users u1 cross join users u2");
@@ -106,4 +106,19 @@ public class GroupProjectionTest extends CrateUnitTest {
         GroupProjection p2 = (GroupProjection) Projection.fromStream(in);
         assertEquals(p, p2);
     }
+
+    @Test
+    public void testStreamingInputSortedByKeys() throws Exception {
+        GroupProjection p = new GroupProjection();
+        p.keys(ImmutableList.<Symbol>of(createReference("foo", DataTypes.STRING)));
+        p.values(ImmutableList.<Aggregation>of());
+        p.inputSortedByKeys(true);
+        BytesStreamOutput out = new BytesStreamOutput();
+        Projection.toStream(p, out);
+
+        StreamInput in = StreamInput.wrap(out.bytes());
+        GroupProjection p2 = (GroupProjection) Projection.fromStream(in);
+        assertThat(p2.inputSortedByKeys(), is(true));
+        assertEquals(p, p2);
+    }
 }
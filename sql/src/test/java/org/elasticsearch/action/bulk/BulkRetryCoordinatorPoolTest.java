@@ -141,4 +141,14 @@ public class BulkRetryCoordinatorPoolTest extends CrateUnitTest {
         BulkRetryCoordinator otherCoordinator = pool.coordinator(shardId);
         assertThat(coordinator, not(sameInstance(otherCoordinator)));
     }
+
+    @Test
+    public void testGetDifferentCoordinatorsForShardsOnSameNode() throws Exception {
+        BulkRetryCoordinator coordinator = pool.coordinator(new ShardId(TEST_INDEX, 0));
+        BulkRetryCoordinator otherCoordinator = pool.coordinator(new ShardId(TEST_INDEX, 1));
+
+        assertThat(coordinator.nodeId(), is(otherCoordinator.nodeId()));
+        assertThat(coordinator, not(sameInstance(otherCoordinator)));
+        assertThat(pool.get(), containsInAnyOrder((Object) coordinator, otherCoordinator));
+    }
 }
@@ -40,6 +40,7 @@ import org.junit.Test;
 
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
 import static org.mockito.Matchers.any;
@@ -162,4 +163,71 @@ public class BulkRetryCoordinatorTest extends CrateUnitTest {
         executorService.awaitTermination(5, TimeUnit.SECONDS);
         executorService.shutdown();
     }
+
+    @Test
+    public void testConcurrencyLimitIsAdaptedOnSuccessAndRejection() throws Exception {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        BulkRetryCoordinator coordinator = new BulkRetryCoordinator(threadPool, shardId, "node-1");
+        ActionListener<ShardResponse> noopListener = new ActionListener<ShardResponse>() {
+            @Override
+            public void onResponse(ShardResponse shardResponse) {
+            }
+            @Override
+            public void onFailure(Throwable e) {
+            }
+        };
+
+        TransportShardUpsertActionDelegate successfulExecutor = new MockShardUpsertActionDelegate() {
+            @Override
+            public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                listener.onResponse(new ShardResponse());
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            coordinator.retry(shardRequest(), successfulExecutor, noopListener);
+        }
+        assertEquals(4, coordinator.concurrencyLimit());
+
+        TransportShardUpsertActionDelegate rejectingExecutor = new MockShardUpsertActionDelegate() {
+            @Override
+            public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                listener.onFailure(new EsRejectedExecutionException("Dummy execution rejected"));
+            }
+        };
+        coordinator.retry(shardRequest(), rejectingExecutor, noopListener);
+
+        assertEquals(2, coordinator.concurrencyLimit());
+        assertEquals(4L, coordinator.retries());
+        assertEquals(1L, coordinator.rejections());
+        // rejected operation is scheduled and still occupies a slot
+        assertEquals(1, coordinator.numActiveOperations());
+    }
+
+    @Test
+    public void testOperationsAreQueuedIfConcurrencyLimitIsReached() throws Exception {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        BulkRetryCoordinator coordinator = new BulkRetryCoordinator(threadPool);
+        final AtomicInteger executions = new AtomicInteger(0);
+
+        TransportShardUpsertActionDelegate hangingExecutor = new MockShardUpsertActionDelegate() {
+            @Override
+            public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                executions.incrementAndGet();
+            }
+        };
+        ActionListener<ShardResponse> noopListener = new ActionListener<ShardResponse>() {
+            @Override
+            public void onResponse(ShardResponse shardResponse) {
+            }
+            @Override
+            public void onFailure(Throwable e) {
+            }
+        };
+        coordinator.retry(shardRequest(), hangingExecutor, noopListener);
+        coordinator.retry(shardRequest(), hangingExecutor, noopListener);
+
+        assertEquals(1, executions.get());
+        assertEquals(1, coordinator.numActiveOperations());
+        assertEquals(1, coordinator.numPendingOperations());
+    }
 }
@@ -46,6 +46,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 import org.mockito.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -269,6 +271,143 @@ public class BulkShardProcessorTest extends CrateUnitTest {
         assertThat(bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar1"}, null), null), is(false));
     }
 
+    @Test
+    public void testRequestsAreDispatchedPerShardOnceFull() throws Exception {
+        ClusterService clusterService = mock(ClusterService.class);
+        OperationRouting operationRouting = mock(OperationRouting.class);
+        mockShard(operationRouting, 1);
+        mockShard(operationRouting, 2);
+        when(clusterService.operationRouting()).thenReturn(operationRouting);
+
+        final List<ShardUpsertRequest> executedRequests = new ArrayList<>();
+        BulkRequestExecutor<ShardUpsertRequest> transportShardBulkAction =
+                new BulkRequestExecutor<ShardUpsertRequest>() {
+                    @Override
+                    public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                        executedRequests.add(request);
+                    }
+                };
+        BulkShardProcessor<ShardUpsertRequest> bulkShardProcessor =
+            newBulkShardProcessor(clusterService, transportShardBulkAction, Settings.EMPTY, 2);
+
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar1"}, null), null);
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("2", null, new Object[]{"bar2"}, null), null);
+        assertThat(executedRequests.size(), is(0));
+
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar3"}, null), null);
+        assertThat(executedRequests.size(), is(1));
+        assertThat(executedRequests.get(0).shardId().id(), is(1));
+        assertThat(executedRequests.get(0).items().size(), is(2));
+
+        bulkShardProcessor.close();
+        assertThat(executedRequests.size(), is(2));
+        assertThat(executedRequests.get(1).shardId().id(), is(2));
+    }
+
+    @Test
+    public void testRequestsAreQueuedIfOutstandingBytesPerNodeAreExceeded() throws Exception {
+        ClusterService clusterService = mock(ClusterService.class);
+        OperationRouting operationRouting = mock(OperationRouting.class);
+        mockShard(operationRouting, 1);
+        mockShard(operationRouting, 2);
+        when(clusterService.operationRouting()).thenReturn(operationRouting);
+
+        final List<ActionListener<ShardResponse>> listeners = new ArrayList<>();
+        BulkRequestExecutor<ShardUpsertRequest> transportShardBulkAction =
+                new BulkRequestExecutor<ShardUpsertRequest>() {
+                    @Override
+                    public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                        listeners.add(listener);
+                    }
+                };
+        Settings settings = Settings.builder()
+            .put(BulkShardProcessor.MAX_OUTSTANDING_BYTES_PER_NODE, "1b")
+            .build();
+        BulkShardProcessor<ShardUpsertRequest> bulkShardProcessor =
+            newBulkShardProcessor(clusterService, transportShardBulkAction, settings, 1);
+
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar1"}, null), null);
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("2", null, new Object[]{"bar2"}, null), null);
+        assertThat(listeners.size(), is(1));
+
+        listeners.get(0).onResponse(new ShardResponse());
+        assertThat(listeners.size(), is(2));
+    }
+
+    @Test
+    public void testAddBlocksIfQueueOfNodeIsFull() throws Exception {
+        ClusterService clusterService = mock(ClusterService.class);
+        OperationRouting operationRouting = mock(OperationRouting.class);
+        mockShard(operationRouting, 1);
+        mockShard(operationRouting, 2);
+        mockShard(operationRouting, 3);
+        when(clusterService.operationRouting()).thenReturn(operationRouting);
+
+        final List<ActionListener<ShardResponse>> listeners = new CopyOnWriteArrayList<>();
+        BulkRequestExecutor<ShardUpsertRequest> transportShardBulkAction =
+                new BulkRequestExecutor<ShardUpsertRequest>() {
+                    @Override
+                    public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                        listeners.add(listener);
+                    }
+                };
+        Settings settings = Settings.builder()
+            .put(BulkShardProcessor.MAX_OUTSTANDING_BYTES_PER_NODE, "1b")
+            .build();
+        final BulkShardProcessor<ShardUpsertRequest> bulkShardProcessor =
+            newBulkShardProcessor(clusterService, transportShardBulkAction, settings, 1);
+
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar1"}, null), null);
+        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("2", null, new Object[]{"bar2"}, null), null);
+        assertThat(listeners.size(), is(1));
+
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("3", null, new Object[]{"bar3"}, null), null);
+                added.countDown();
+            }
+        });
+        producer.start();
+        assertThat(added.await(100, TimeUnit.MILLISECONDS), is(false));
+
+        listeners.get(0).onResponse(new ShardResponse());
+        assertThat(added.await(5, TimeUnit.SECONDS), is(true));
+        producer.join();
+        assertThat(listeners.size(), is(2));
+    }
+
+    private BulkShardProcessor<ShardUpsertRequest> newBulkShardProcessor(ClusterService clusterService,
+                                                                         BulkRequestExecutor<ShardUpsertRequest> executor,
+                                                                         Settings settings,
+                                                                         int bulkSize) throws Exception {
+        BulkRetryCoordinator bulkRetryCoordinator = new BulkRetryCoordinator(threadPool);
+        BulkRetryCoordinatorPool coordinatorPool = mock(BulkRetryCoordinatorPool.class);
+        when(coordinatorPool.coordinator(any(ShardId.class))).thenReturn(bulkRetryCoordinator);
+
+        ShardUpsertRequest.Builder builder = new ShardUpsertRequest.Builder(
+                TimeValue.timeValueMillis(10),
+                false,
+                false,
+                null,
+                new Reference[]{fooRef},
+                UUID.randomUUID()
+        );
+        return new BulkShardProcessor<>(
+                clusterService,
+                mock(TransportBulkCreateIndicesAction.class),
+                new IndexNameExpressionResolver(Settings.EMPTY),
+                settings,
+                coordinatorPool,
+                false,
+                bulkSize,
+                builder,
+                executor,
+                UUID.randomUUID()
+        );
+    }
+
     private void mockShard(OperationRouting operationRouting, Integer shardId) {
         ShardIterator shardIterator = mock(ShardIterator.class);
         when(operationRouting.indexShards(